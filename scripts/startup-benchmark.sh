@@ -0,0 +1,65 @@
+#!/bin/bash
+set -e
+
+# Measures how long JabRef takes to start.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [bib file]
+#
+# Runs JabRef without GUI, once only printing the version and once converting the given file, and
+# prints the wall-clock time of each run together with the phase timings JabRef logs on startup
+# (the "Startup:" line). Set GUI=1 to also time opening the window; each window is closed as soon
+# as the timings are logged.
+#
+# Build the jar with "./gradlew shadowJar" first, and close all running JabRef instances, as these
+# would take over the command line.
+
+cd "$(dirname "$(readlink -f "$BASH_SOURCE")")/.."
+
+runs=${1:-5}
+bib=${2:-src/test/resources/net/sf/jabref/util/twente.bib}
+jar=$(ls build/libs/JabRef-*-fat.jar 2>/dev/null | head -n 1)
+if [ -z "$jar" ]; then
+	echo "No jar found in build/libs, run ./gradlew shadowJar first" >&2
+	exit 1
+fi
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+
+# runs JabRef with the given arguments and prints the wall-clock time and the logged startup phases
+measure() {
+	local name=$1
+	shift
+	local start=$(date +%s%N)
+	java -jar "$jar" "$@" > "$out/stdout" 2> "$out/log" || true
+	local end=$(date +%s%N)
+	echo "$name: $(( (end - start) / 1000000 )) ms"
+	grep -h "Startup:" "$out/log" | sed 's/^.*Startup:/  phases:/' || true
+}
+
+# starts the GUI and closes it as soon as the startup timings are logged
+measure_gui() {
+	local start=$(date +%s%N)
+	java -jar "$jar" "$bib" > "$out/stdout" 2> "$out/log" &
+	local pid=$!
+	for _ in $(seq 1 600); do
+		if grep -q "Startup:" "$out/log"; then
+			break
+		fi
+		sleep 0.1
+	done
+	local end=$(date +%s%N)
+	kill "$pid" 2> /dev/null || true
+	wait "$pid" 2> /dev/null || true
+	echo "gui: $(( (end - start) / 1000000 )) ms until the window is shown"
+	grep -h "Startup:" "$out/log" | sed 's/^.*Startup:/  phases:/' || true
+}
+
+echo "$runs runs of $jar"
+for run in $(seq 1 "$runs"); do
+	echo "run $run"
+	measure "version" --nogui --version
+	measure "conversion" --nogui --import "$bib" --output "$out/converted.xml,bibtexml"
+	if [ -n "$GUI" ]; then
+		measure_gui
+	fi
+done
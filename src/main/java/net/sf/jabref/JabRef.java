@@ -19,14 +19,25 @@ import com.jgoodies.looks.plastic.Plastic3DLookAndFeel;
 import com.jgoodies.looks.plastic.theme.SkyBluer;
 
 import java.awt.Font;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.prefs.BackingStoreException;
 
 import javax.swing.*;
@@ -34,15 +45,22 @@ import javax.swing.plaf.FontUIResource;
 
 import net.sf.jabref.gui.*;
 import net.sf.jabref.gui.nativeext.WindowsExtensions;
+import net.sf.jabref.gui.undo.NamedCompound;
 import net.sf.jabref.importer.fetcher.EntryFetcher;
 import net.sf.jabref.importer.fetcher.EntryFetchers;
+import net.sf.jabref.importer.fetcher.IdentifierEnrichment;
+import net.sf.jabref.logic.cleanup.CleanupBatch;
+import net.sf.jabref.logic.cleanup.CleanupPreset;
 import net.sf.jabref.logic.journals.Abbreviations;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.HttpCache;
 import net.sf.jabref.logic.util.OS;
+import net.sf.jabref.logic.util.StageTimer;
 import net.sf.jabref.migrations.PreferencesMigrations;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryType;
+import net.sf.jabref.model.entry.FieldValuePool;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.logging.impl.Jdk14Logger;
@@ -74,6 +92,8 @@ public class JabRef {
 
     private JabRefCLI cli;
 
+    private final StageTimer startupTimer = new StageTimer("Startup");
+
     public void start(String[] args) {
         JabRefPreferences prefs = JabRefPreferences.getInstance();
 
@@ -93,12 +113,14 @@ public class JabRef {
             System.setProperty("java.net.useSystemProxies", "true");
             System.setProperty("proxySet", "true");
         }
+        startupTimer.stage("reading the preferences");
 
         Globals.startBackgroundTasks();
         setupLogHandlerForErrorConsole();
         Globals.prefs = prefs;
         Localization.setLanguage(prefs.get(JabRefPreferences.LANGUAGE));
         Globals.prefs.setLanguageDependentDefaultValues();
+        startupTimer.stage("loading the translations");
         /*
          * The Plug-in System is started automatically on the first call to
          * PluginCore.getManager().
@@ -109,13 +131,22 @@ public class JabRef {
         // Update which fields should be treated as numeric, based on preferences:
         BibtexFields.setNumericFieldsFromPrefs();
 
-        /* Build list of Import and Export formats */
-        Globals.importFormatReader.resetImportFormats();
-        BibtexEntryType.loadCustomEntryTypes(prefs);
-        ExportFormats.initAllExports();
+        // Share repeated field values such as journal names between entries:
+        FieldValuePool.getInstance().configure(prefs.getBoolean(JabRefPreferences.DEDUPLICATE_FIELD_VALUES),
+                Arrays.asList(prefs.getStringArray(JabRefPreferences.DEDUPLICATED_FIELDS)),
+                FieldValuePool.DEFAULT_MAX_VALUE_LENGTH);
 
-        // Read list(s) of journal names and abbreviations:
-        Abbreviations.initializeJournalNames(Globals.prefs);
+        // Keep downloaded records, so that repeated lookups do not hit the web services again:
+        HttpCache.getInstance().configure(prefs.getBoolean(JabRefPreferences.HTTP_CACHE_ENABLED),
+                Paths.get(prefs.get(JabRefPreferences.HTTP_CACHE_DIRECTORY)),
+                prefs.getInt(JabRefPreferences.HTTP_CACHE_SIZE_MB) * 1024L * 1024L,
+                prefs.getBoolean(JabRefPreferences.OFFLINE_MODE));
+        startupTimer.stage("configuring fields and caches");
+
+        // The custom entry types are needed for parsing. The import and export formats and the journal
+        // lists are only built when they are first used.
+        BibtexEntryType.loadCustomEntryTypes(prefs);
+        startupTimer.stage("loading custom entry types");
 
         // Check for running JabRef
         RemotePreferences remotePreferences = new RemotePreferences(Globals.prefs);
@@ -134,11 +165,13 @@ public class JabRef {
                      * assume it's all taken care of, and quit.
                      */
                     System.out.println(Localization.lang("Arguments passed on to running JabRef instance. Shutting down."));
+                    LOGGER.info(startupTimer);
                     JabRefExecutorService.INSTANCE.shutdownEverything();
                     return;
                 }
             }
         }
+        startupTimer.stage("checking for a running instance");
 
         // override used newline character with the one stored in the preferences
         // The preferences return the system newline character sequence as default
@@ -150,12 +183,19 @@ public class JabRef {
         }
 
         Vector<ParserResult> loaded = processArguments(args, true);
+        startupTimer.stage("processing the command line");
 
         if (loaded == null || cli.isDisableGui() || cli.isShowVersion()) {
+            LOGGER.info(startupTimer);
             JabRefExecutorService.INSTANCE.shutdownEverything();
             return;
         }
 
+        // The window does not need the journal lists, but most editing does, so read them while it is built:
+        JabRefExecutorService.INSTANCE.executeWithLowPriorityInOwnThread(
+                () -> startupTimer.run("reading the journal lists", Abbreviations::getJournalAbbreviations),
+                "Journal lists");
+
         openWindow(loaded);
     }
 
@@ -168,6 +208,29 @@ public class JabRef {
 
         cli = new JabRefCLI(args);
 
+        // When the subdatabase of --aux is written to the standard output, all messages, e.g. the
+        // warnings of the base file, go to the standard error, so that the output stays plain BibTeX
+        PrintStream standardOutput = System.out;
+        if (isAuxToStandardOutput()) {
+            System.setOut(System.err);
+        }
+        try {
+            return processArguments(initialStartup, standardOutput);
+        } finally {
+            System.setOut(standardOutput);
+        }
+    }
+
+    private boolean isAuxToStandardOutput() {
+        if (cli.isBlank() || !cli.isAuxImport()) {
+            return false;
+        }
+        String[] data = cli.getAuxImport().split(",");
+        return (data.length == 2) && "-".equals(data[1].trim());
+    }
+
+    private Vector<ParserResult> processArguments(boolean initialStartup, PrintStream standardOutput) {
+
         if (initialStartup && cli.isShowVersion()) {
             cli.displayVersion();
         }
@@ -219,14 +282,22 @@ public class JabRef {
         Vector<ParserResult> loaded = new Vector<ParserResult>();
         Vector<String> toImport = new Vector<String>();
         if (!cli.isBlank() && cli.getLeftOver().length > 0) {
+            // Leftover arguments that have a "bib" extension are interpreted as
+            // bib files to open. Other files, and files that could not be opened
+            // as bib, we try to import instead.
+            List<String> bibFiles = new ArrayList<String>();
+            for (String aLeftOver : cli.getLeftOver()) {
+                if (aLeftOver.toLowerCase().endsWith("bib")) {
+                    bibFiles.add(aLeftOver);
+                }
+            }
+            Iterator<ParserResult> openedBibFiles = JabRef.openBibFiles(bibFiles, false).iterator();
+
             for (String aLeftOver : cli.getLeftOver()) {
-                // Leftover arguments that have a "bib" extension are interpreted as
-                // bib files to open. Other files, and files that could not be opened
-                // as bib, we try to import instead.
                 boolean bibExtension = aLeftOver.toLowerCase().endsWith("bib");
                 ParserResult pr = null;
                 if (bibExtension) {
-                    pr = JabRef.openBibFile(aLeftOver, false);
+                    pr = openedBibFiles.next();
                 }
 
                 if (pr == null || pr == ParserResult.INVALID_FORMAT) {
@@ -278,6 +349,22 @@ public class JabRef {
             }
         }
 
+        if (cli.isEnrich()) {
+            if (!loaded.isEmpty()) {
+                JabRef.enrich(loaded.elementAt(loaded.size() - 1));
+            } else {
+                System.err.println(Localization.lang("The enrich option depends on a valid input option."));
+            }
+        }
+
+        if (cli.isCleanup()) {
+            if (!loaded.isEmpty()) {
+                JabRef.cleanup(loaded.elementAt(loaded.size() - 1));
+            } else {
+                System.err.println(Localization.lang("The cleanup option depends on a valid input option."));
+            }
+        }
+
         if (cli.isExportMatches()) {
             if (!loaded.isEmpty()) {
                 String[] data = cli.getExportMatches().split(",");
@@ -346,7 +433,7 @@ public class JabRef {
                                 System.out.println(Localization.lang("Saving") + ": " + data[0]);
                                 SaveSession session = FileActions.saveDatabase(pr.getDatabase(),
                                         pr.getMetaData(), new File(data[0]), Globals.prefs,
-                                        false, false, Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING), false);
+                                        null, Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING), false);
                                 // Show just a warning message if encoding didn't work for all characters:
                                 if (!session.getWriter().couldEncodeAll()) {
                                     System.err.println(Localization.lang("Warning") + ": " +
@@ -419,7 +506,20 @@ public class JabRef {
             {
                 String[] data = cli.getAuxImport().split(",");
 
-                if (data.length == 2) {
+                if (isAuxToStandardOutput()) {
+                    // write the subdatabase to the standard output, e.g. for build scripts
+                    ParserResult pr = loaded.firstElement();
+                    AuxCommandLine acl = new AuxCommandLine(data[0], pr.getDatabase());
+                    String encoding = Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING);
+                    try {
+                        Writer out = new BufferedWriter(new OutputStreamWriter(standardOutput, encoding));
+                        if (acl.perform(out, encoding) == 0) {
+                            System.err.println(Localization.lang("no database generated"));
+                        }
+                    } catch (IOException ex) {
+                        System.err.println(Localization.lang("Could not save file") + " '-': " + ex.getMessage());
+                    }
+                } else if (data.length == 2) {
                     ParserResult pr = loaded.firstElement();
                     AuxCommandLine acl = new AuxCommandLine(data[0], pr.getDatabase());
                     BibtexDatabase newBase = acl.perform();
@@ -435,7 +535,7 @@ public class JabRef {
                                 System.out.println(Localization.lang("Saving") + ": "
                                         + subName);
                                 SaveSession session = FileActions.saveDatabase(newBase, new MetaData(), // no Metadata
-                                        new File(subName), Globals.prefs, false, false,
+                                        new File(subName), Globals.prefs, null,
                                         Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING), false);
                                 // Show just a warning message if encoding didn't work for all characters:
                                 if (!session.getWriter().couldEncodeAll()) {
@@ -530,6 +630,61 @@ public class JabRef {
         return new ParserResult(result);
     }
 
+    /**
+     * Completes the entries of a database with the data registered for their DOI or ISBN.
+     *
+     * The resolved identifiers are recorded next to the database file, so that an
+     * interrupted run can be resumed by running the same command again.
+     */
+    private static void enrich(ParserResult pr) {
+        BibtexDatabase database = pr.getDatabase();
+        IdentifierEnrichment enrichment = new IdentifierEnrichment(database);
+        enrichment.setTitleFormatting(Globals.prefs.getBoolean(JabRefPreferences.USE_UNIT_FORMATTER_ON_SEARCH),
+                Globals.prefs.getBoolean(JabRefPreferences.USE_CASE_KEEPER_ON_SEARCH));
+        Path progressFile = pr.getFile() == null ? null : Paths.get(pr.getFile().getPath() + ".enrich");
+        enrichment.setProgressFile(progressFile);
+
+        try {
+            List<IdentifierEnrichment.Change> changes = enrichment.computeChanges(
+                    database.getEntries().toArray(new BibtexEntry[database.getEntryCount()]), (resolved, total) -> {
+                        if ((resolved == total) || ((resolved % 100) == 0)) {
+                            System.out.println(Localization.lang("Resolved %0 of %1 identifiers.",
+                                    String.valueOf(resolved), String.valueOf(total)));
+                        }
+                    });
+            int count = enrichment.applyChanges(changes,
+                    new NamedCompound(Localization.lang("Complete entries from DOI and ISBN")));
+            System.out.println(Localization.lang("Added %0 fields.", String.valueOf(count)));
+            if (enrichment.getFailedCount() > 0) {
+                System.err.println(Localization.lang("%0 identifiers could not be resolved. Run again to retry them.",
+                        String.valueOf(enrichment.getFailedCount())));
+            } else if (progressFile != null) {
+                Files.deleteIfExists(progressFile);
+            }
+        } catch (IOException e) {
+            System.err.println(Localization.lang("Could not complete entries") + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cleans up all entries of a database with the steps last chosen in the cleanup dialog.
+     */
+    private static void cleanup(ParserResult pr) {
+        BibtexDatabase database = pr.getDatabase();
+        CleanupBatch batch = new CleanupBatch(database, pr.getMetaData(),
+                CleanupPreset.loadFromPreferences(Globals.prefs));
+        List<CleanupBatch.Change> changes = batch.computeChanges(
+                database.getEntries().toArray(new BibtexEntry[database.getEntryCount()]), processed -> {
+                });
+        batch.applyChanges(changes, new NamedCompound(Localization.lang("Cleanup entries")));
+        System.out.println(Localization.lang("%0 entries needed a clean up",
+                String.valueOf(CleanupBatch.countEntries(changes))));
+        if (batch.getUnsuccessfulRenames() > 0) {
+            System.err.println(Localization.lang("File rename failed for") + " " + batch.getUnsuccessfulRenames()
+                    + " " + Localization.lang("entries") + ".");
+        }
+    }
+
     private void setLookAndFeel() {
         try {
             String lookFeel;
@@ -629,6 +784,7 @@ public class JabRef {
         if (!cli.isBlank() && Globals.prefs.getBoolean(JabRefPreferences.OPEN_LAST_EDITED) && Globals.prefs.get(JabRefPreferences.LAST_EDITED) != null) {
             // How to handle errors in the databases to open?
             String[] names = Globals.prefs.getStringArray(JabRefPreferences.LAST_EDITED);
+            List<String> toOpen = new ArrayList<String>();
             lastEdLoop: for (String name : names) {
                 File fileToOpen = new File(name);
 
@@ -641,19 +797,25 @@ public class JabRef {
                 }
 
                 if (fileToOpen.exists()) {
-                    ParserResult pr = JabRef.openBibFile(name, false);
+                    toOpen.add(name);
+                }
+            }
 
-                    if (pr != null) {
+            List<ParserResult> opened = JabRef.openBibFiles(toOpen, false);
+            for (int i = 0; i < opened.size(); i++) {
+                ParserResult pr = opened.get(i);
 
-                        if (pr == ParserResult.INVALID_FORMAT) {
-                            System.out.println(Localization.lang("Error opening file") + " '" + fileToOpen.getPath() + "'");
-                        } else if (pr != ParserResult.FILE_LOCKED) {
-                            loaded.add(pr);
-                        }
+                if (pr != null) {
 
+                    if (pr == ParserResult.INVALID_FORMAT) {
+                        System.out.println(Localization.lang("Error opening file") + " '" + toOpen.get(i) + "'");
+                    } else if (pr != ParserResult.FILE_LOCKED) {
+                        loaded.add(pr);
                     }
+
                 }
             }
+            startupTimer.stage("opening the last edited files");
         }
 
         GUIGlobals.init();
@@ -663,6 +825,7 @@ public class JabRef {
 
         //Util.pr(": Initializing frame");
         JabRef.jrf = new JabRefFrame(this);
+        startupTimer.stage("creating the window");
 
         // Add all loaded databases to the frame:
 
@@ -700,6 +863,8 @@ public class JabRef {
             first = false;
         }
 
+        startupTimer.stage("adding the tabs");
+
         if (cli.isLoadSession()) {
             JabRef.jrf.loadSessionAction.actionPerformed(new java.awt.event.ActionEvent(
                     JabRef.jrf, 0, ""));
@@ -722,6 +887,7 @@ public class JabRef {
         }
 
         JabRef.jrf.setVisible(true);
+        startupTimer.stage("showing the window");
 
         if (Globals.prefs.getBoolean(JabRefPreferences.WINDOW_MAXIMISED)) {
             JabRef.jrf.setExtendedState(JFrame.MAXIMIZED_BOTH);
@@ -784,6 +950,51 @@ public class JabRef {
             JabRef.jrf.tabbedPane.setSelectedIndex(0);
             new FocusRequester(((BasePanel) JabRef.jrf.tabbedPane.getComponentAt(0)).mainTable);
         }
+        LOGGER.info(startupTimer);
+    }
+
+    /**
+     * Opens the given bib files like {@link #openBibFile(String, boolean)}, but reads several of them
+     * at once, on at most one thread per processor. The progress is logged file by file.
+     *
+     * @return the results in the order of the given names
+     */
+    public static List<ParserResult> openBibFiles(List<String> names, boolean ignoreAutosave) {
+        ParserResult[] results = new ParserResult[names.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        StageTimer timer = new StageTimer("Reading files");
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < Math.min(names.size(), Runtime.getRuntime().availableProcessors()); i++) {
+            workers.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < names.size()) {
+                    String name = names.get(index);
+                    results[index] = timer.call(name, () -> JabRef.openBibFile(name, ignoreAutosave));
+                    LOGGER.info(Localization.lang("Read %0 of %1 files", String.valueOf(done.incrementAndGet()),
+                            String.valueOf(names.size())));
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        } catch (ExecutionException e) {
+            // openBibFile reports its own errors, so this is a bug
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        return Arrays.asList(results);
     }
 
     public static ParserResult openBibFile(String name, boolean ignoreAutosave) {
@@ -109,6 +109,14 @@ public class JabRefCLI {
         return cl.getOptionValue("fetch");
     }
 
+    public boolean isEnrich() {
+        return cl.hasOption("enrich");
+    }
+
+    public boolean isCleanup() {
+        return cl.hasOption("cleanup");
+    }
+
     public boolean isExportMatches() {
         return cl.hasOption("exportMatches");
     }
@@ -163,7 +171,7 @@ public class JabRefCLI {
 
         options.addOption(Option.builder("a").
                 longOpt("aux").
-                desc(String.format("%s: %s[.aux],%s[.bib]", Localization.lang("Subdatabase from aux"), Localization.lang("file"), Localization.lang("new"))).
+                desc(String.format("%s: %s[.aux],%s[.bib|-]", Localization.lang("Subdatabase from aux"), Localization.lang("file"), Localization.lang("new"))).
                 hasArg().
                 argName("FILE").
                 build());
@@ -182,6 +190,16 @@ public class JabRefCLI {
                 argName("FILE").
                 build());
 
+        options.addOption(Option.builder().
+                longOpt("enrich").
+                desc(Localization.lang("Complete entries with the data registered for their DOI or ISBN")).
+                build());
+
+        options.addOption(Option.builder().
+                longOpt("cleanup").
+                desc(Localization.lang("Clean up all entries with the steps last chosen in the cleanup dialog")).
+                build());
+
         options.addOption(Option.builder("m").
                 longOpt("exportMatches").
                 desc(JabRefCLI.getExportMatchesSyntax()).
@@ -31,6 +31,10 @@ public class JabRefExecutorService implements Executor {
         executorService.execute(command);
     }
 
+    public <T> Future<T> submit(Callable<T> task) {
+        return executorService.submit(task);
+    }
+
     public void executeAndWait(Runnable command) {
         if(command == null) {
             //TODO logger
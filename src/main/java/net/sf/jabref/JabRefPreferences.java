@@ -318,6 +318,14 @@ public class JabRefPreferences {
     public static final String USE_LOCK_FILES = "useLockFiles";
     public static final String RUN_AUTOMATIC_FILE_SEARCH = "runAutomaticFileSearch";
     public static final String NUMERIC_FIELDS = "numericFields";
+    public static final String DEDUPLICATE_FIELD_VALUES = "deduplicateFieldValues";
+    public static final String DEDUPLICATED_FIELDS = "deduplicatedFields";
+    public static final String LAZY_FIELD_PARSING = "lazyFieldParsing";
+    public static final String HTTP_CACHE_ENABLED = "httpCacheEnabled";
+    public static final String HTTP_CACHE_DIRECTORY = "httpCacheDirectory";
+    public static final String HTTP_CACHE_SIZE_MB = "httpCacheSizeMB";
+    public static final String OFFLINE_MODE = "offlineMode";
+    public static final String UNDO_MEMORY_LIMIT_MB = "undoMemoryLimitMB";
     public static final String DEFAULT_REG_EXP_SEARCH_EXPRESSION_KEY = "defaultRegExpSearchExpression";
     public static final String REG_EXP_SEARCH_EXPRESSION_KEY = "regExpSearchExpression";
     public static final String AUTOLINK_USE_REG_EXP_SEARCH_KEY = "useRegExpSearch";
@@ -777,6 +785,17 @@ public class JabRefPreferences {
         defaults.put(SHOW_FILE_LINKS_UPGRADE_WARNING, Boolean.TRUE);
         defaults.put(AUTOLINK_EXACT_KEY_ONLY, Boolean.FALSE);
         defaults.put(NUMERIC_FIELDS, "mittnum;author");
+        defaults.put(DEDUPLICATE_FIELD_VALUES, Boolean.TRUE);
+        defaults.put(DEDUPLICATED_FIELDS,
+                "journal;journaltitle;booktitle;publisher;series;address;organization;institution;school;month;year;"
+                        + "owner;timestamp;keywords;language;type;howpublished;edition");
+        defaults.put(LAZY_FIELD_PARSING, Boolean.FALSE);
+        defaults.put(HTTP_CACHE_ENABLED, Boolean.TRUE);
+        defaults.put(HTTP_CACHE_DIRECTORY, System.getProperty("user.home") + File.separator + ".jabref" + File.separator
+                + "httpcache");
+        defaults.put(HTTP_CACHE_SIZE_MB, 50);
+        defaults.put(OFFLINE_MODE, Boolean.FALSE);
+        defaults.put(UNDO_MEMORY_LIMIT_MB, 64);
         defaults.put(RUN_AUTOMATIC_FILE_SEARCH, Boolean.FALSE);
         defaults.put(USE_LOCK_FILES, Boolean.TRUE);
         defaults.put(AUTO_SAVE, Boolean.TRUE);
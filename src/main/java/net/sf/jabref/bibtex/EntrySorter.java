@@ -136,6 +136,9 @@ public class EntrySorter implements DatabaseChangeListener {
                 }
                 //changed = true;
                 break;
+            case CHANGED_ENTRIES:
+                Collections.sort(set, comp);
+                break;
             }
 
         }
@@ -0,0 +1,100 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.bst;
+
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * A compiled stack literal of a bst program, e.g. the body of a function.
+ *
+ * The literal is flattened to a list of instructions, each of which either pushes a constant
+ * (a string, an integer, a quoted identifier or a nested stack literal) or calls an identifier.
+ * Constants are created once at compile time instead of every time the literal is executed.
+ */
+final class BstCode {
+
+    private final Tree tree;
+
+    // The constant pushed by each instruction, or null if the instruction is a call
+    private final Object[] constants;
+
+    // Name and symbol number (see BstProgram#getSymbol) of the identifier called by each instruction
+    private final String[] names;
+    private final int[] symbols;
+
+    private final int[] lines;
+
+
+    BstCode(Tree tree, BstProgram program) {
+        this.tree = tree;
+        int size = tree.getChildCount();
+        constants = new Object[size];
+        names = new String[size];
+        symbols = new int[size];
+        lines = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            Tree c = tree.getChild(i);
+            lines[i] = c.getLine();
+            switch (c.getType()) {
+            case BstParser.STRING:
+                String s = c.getText();
+                constants[i] = s.substring(1, s.length() - 1);
+                break;
+            case BstParser.INTEGER:
+                constants[i] = Integer.parseInt(c.getText().substring(1));
+                break;
+            case BstParser.QUOTED:
+                String name = c.getText().substring(1);
+                constants[i] = new VM.Identifier(name, program.getSymbol(name));
+                break;
+            case BstParser.STACK:
+                constants[i] = new BstCode(c, program);
+                break;
+            default:
+                names[i] = c.getText();
+                symbols[i] = program.getSymbol(names[i]);
+            }
+        }
+    }
+
+    Tree getTree() {
+        return tree;
+    }
+
+    int size() {
+        return constants.length;
+    }
+
+    /**
+     * @return the constant pushed by the given instruction, or null if it is a call
+     */
+    Object getConstant(int i) {
+        return constants[i];
+    }
+
+    String getName(int i) {
+        return names[i];
+    }
+
+    int getSymbol(int i) {
+        return symbols[i];
+    }
+
+    int getLine(int i) {
+        return lines[i];
+    }
+}
@@ -0,0 +1,153 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.bst;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.antlr.runtime.ANTLRFileStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * A parsed and compiled bst file.
+ *
+ * All identifiers of the program are numbered, so that a {@link VM} can keep the meaning of
+ * each identifier in an array instead of looking it up by name for every call. The bodies of
+ * all functions are compiled to {@link BstCode} once. A program does not change after it has
+ * been created and may be shared by any number of VMs.
+ *
+ * Programs read from a file are cached until the file is modified.
+ */
+final class BstProgram {
+
+    private static final Map<String, BstProgram> CACHE = new ConcurrentHashMap<>();
+
+    private final CommonTree tree;
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    private final Map<Tree, BstCode> functionBodies = new IdentityHashMap<>();
+
+    private long lastModified;
+
+    private long length;
+
+
+    private BstProgram(CommonTree tree) {
+        this.tree = tree;
+        collectSymbols(tree);
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            Tree command = tree.getChild(i);
+            if (command.getType() == BstParser.FUNCTION) {
+                Tree body = command.getChild(1);
+                functionBodies.put(body, new BstCode(body, this));
+            }
+        }
+    }
+
+    /**
+     * Returns the program of the given bst file, parsing it only if it has not been parsed before
+     * or has been modified since.
+     */
+    static BstProgram forFile(File file) throws RecognitionException, IOException {
+        String key = file.getCanonicalPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        BstProgram program = BstProgram.CACHE.get(key);
+        if ((program != null) && (program.lastModified == lastModified) && (program.length == length)) {
+            return program;
+        }
+
+        program = BstProgram.parse(new ANTLRFileStream(file.getPath()));
+        program.lastModified = lastModified;
+        program.length = length;
+        BstProgram.CACHE.put(key, program);
+        return program;
+    }
+
+    static BstProgram parse(CharStream bst) throws RecognitionException {
+        BstLexer lex = new BstLexer(bst);
+        CommonTokenStream tokens = new CommonTokenStream(lex);
+        BstParser parser = new BstParser(tokens);
+        BstParser.program_return r = parser.program();
+        return new BstProgram((CommonTree) r.getTree());
+    }
+
+    private void collectSymbols(Tree node) {
+        switch (node.getType()) {
+        case BstParser.QUOTED:
+            addSymbol(node.getText().substring(1));
+            break;
+        case BstParser.IDENTIFIER:
+            addSymbol(node.getText());
+            break;
+        case BstParser.STACK:
+            for (int i = 0; i < node.getChildCount(); i++) {
+                Tree child = node.getChild(i);
+                if ((child.getType() != BstParser.STRING) && (child.getType() != BstParser.INTEGER)
+                        && (child.getType() != BstParser.QUOTED) && (child.getType() != BstParser.STACK)) {
+                    // identifiers and operators are called
+                    addSymbol(child.getText());
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectSymbols(node.getChild(i));
+        }
+    }
+
+    private void addSymbol(String name) {
+        if (!symbols.containsKey(name)) {
+            symbols.put(name, symbols.size());
+        }
+    }
+
+    CommonTree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return the number of the given identifier, or -1 if it does not occur in the program
+     */
+    int getSymbol(String name) {
+        Integer symbol = symbols.get(name);
+        return symbol == null ? -1 : symbol;
+    }
+
+    int getSymbolCount() {
+        return symbols.size();
+    }
+
+    /**
+     * Returns the compiled body of a FUNCTION command of this program, or compiles the given tree.
+     */
+    BstCode getCode(Tree stack) {
+        BstCode code = functionBodies.get(stack);
+        return code == null ? new BstCode(stack, this) : code;
+    }
+}
@@ -18,10 +18,14 @@ package net.sf.jabref.bst;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Stack;
@@ -33,12 +37,8 @@ import net.sf.jabref.model.entry.AuthorList;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 
-import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.ANTLRStringStream;
-import org.antlr.runtime.CharStream;
-import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.Tree;
 
 /**
@@ -49,6 +49,10 @@ import org.antlr.runtime.tree.Tree;
  * 
  * http://texcatalogue.sarovar.org/entries/bibtex.html#Download
  * 
+ * The program is compiled once (see {@link BstProgram}) and can be run any number of times.
+ * Identifiers are resolved to the slot of the variable or to the function they denote once per
+ * declaration instead of once per call.
+ * 
  */
 
 public class VM implements Warn {
@@ -56,13 +60,21 @@ public class VM implements Warn {
     private final PrintStream out = System.out;
 
 
-    public class Identifier {
+    public static class Identifier {
 
         public final String name;
 
+        // see BstProgram#getSymbol(String)
+        final int symbol;
+
 
         public Identifier(String name) {
+            this(name, -1);
+        }
+
+        Identifier(String name, int symbol) {
             this.name = name;
+            this.symbol = symbol;
         }
 
         public String getName() {
@@ -99,28 +111,16 @@ public class VM implements Warn {
 
 
     public VM(File f) throws RecognitionException, IOException {
-        this(new ANTLRFileStream(f.getPath()));
+        this(BstProgram.forFile(f));
         this.file = f;
     }
 
     public VM(String s) throws RecognitionException {
-        this(new ANTLRStringStream(s));
-    }
-
-    private static CommonTree charStream2CommonTree(CharStream bst) throws RecognitionException {
-        BstLexer lex = new BstLexer(bst);
-        CommonTokenStream tokens = new CommonTokenStream(lex);
-        BstParser parser = new BstParser(tokens);
-        BstParser.program_return r = parser.program();
-        return (CommonTree) r.getTree();
+        this(BstProgram.parse(new ANTLRStringStream(s)));
     }
 
-    private VM(CharStream bst) throws RecognitionException {
-        this(VM.charStream2CommonTree(bst));
-    }
-
-    private VM(CommonTree tree) {
-        this.tree = tree;
+    private VM(BstProgram program) {
+        this.program = program;
 
         this.buildInFunctions = new HashMap<String, BstFunction>(37);
 
@@ -452,8 +452,7 @@ public class VM implements Warn {
                 Object f2 = stack.pop();
                 Object i = stack.pop();
 
-                if (!((f1 instanceof Identifier) || (f1 instanceof Tree))
-                        && ((f2 instanceof Identifier) || (f2 instanceof Tree)) && (i instanceof Integer)) {
+                if (!VM.isFunction(f1) && VM.isFunction(f2) && (i instanceof Integer)) {
                     throw new VMException("Expecting two functions and an integer for if$.");
                 }
 
@@ -899,8 +898,7 @@ public class VM implements Warn {
                 Object f2 = stack.pop();
                 Object f1 = stack.pop();
 
-                if (!((f1 instanceof Identifier) || (f1 instanceof Tree))
-                        && ((f2 instanceof Identifier) || (f2 instanceof Tree))) {
+                if (!VM.isFunction(f1) && VM.isFunction(f2)) {
                     throw new VMException("Expecting two functions for while$.");
                 }
 
@@ -945,37 +943,37 @@ public class VM implements Warn {
             throw new VMException("Invalid parameters");
         }
 
-        String name = ((Identifier) o1).getName();
+        Binding binding = getBinding((Identifier) o1);
 
         if (o2 instanceof String) {
 
-            if ((context != null) && context.strings.containsKey(name)) {
-                context.strings.put(name, (String) o2);
+            if ((context != null) && (binding.entryString >= 0)) {
+                context.strings[binding.entryString] = (String) o2;
                 return true;
             }
 
-            if (strings.containsKey(name)) {
-                strings.put(name, (String) o2);
+            if (binding.globalString >= 0) {
+                strings.set(binding.globalString, (String) o2);
                 return true;
             }
             return false;
 
         }
 
-        if ((context != null) && context.integers.containsKey(name)) {
-            context.integers.put(name, (Integer) o2);
+        if ((context != null) && (binding.entryInteger >= 0)) {
+            context.integers[binding.entryInteger] = (Integer) o2;
             return true;
         }
 
-        if (integers.containsKey(name)) {
-            integers.put(name, (Integer) o2);
+        if (binding.globalInteger >= 0) {
+            integers.set(binding.globalInteger, (Integer) o2);
             return true;
         }
         return false;
     }
 
 
-    private final CommonTree tree;
+    private final BstProgram program;
 
     private StringBuffer bbl;
 
@@ -999,6 +997,7 @@ public class VM implements Warn {
             }
         }
 
+        Tree tree = program.getTree();
         // assert tree.getType() == Bst.COMMANDS;
 
         // Go
@@ -1046,15 +1045,23 @@ public class VM implements Warn {
 
         entries = null;
 
-        strings = new HashMap<String, String>();
+        strings = new ArrayList<String>();
+        stringSlots = new LinkedHashMap<String, Integer>();
+
+        integers = new ArrayList<Integer>();
+        integerSlots = new LinkedHashMap<String, Integer>();
+        integers.add(VM.declare(integerSlots, "entry.max$"), Integer.MAX_VALUE);
+        integers.add(VM.declare(integerSlots, "global.max$"), Integer.MAX_VALUE);
 
-        integers = new HashMap<String, Integer>();
-        integers.put("entry.max$", Integer.MAX_VALUE);
-        integers.put("global.max$", Integer.MAX_VALUE);
+        fieldSlots = new LinkedHashMap<String, Integer>();
+        entryStringSlots = new LinkedHashMap<String, Integer>();
+        entryIntegerSlots = new LinkedHashMap<String, Integer>();
 
         functions = new HashMap<String, BstFunction>();
         functions.putAll(buildInFunctions);
 
+        bindings = new Binding[program.getSymbolCount()];
+
         stack = new Stack<Object>();
     }
 
@@ -1070,17 +1077,20 @@ public class VM implements Warn {
 
         for (BstEntry e : entries) {
 
-            for (Map.Entry<String, String> mEntry : e.fields.entrySet()) {
-                Object fieldValue = e.entry.getField(mEntry.getKey());
+            for (Map.Entry<String, Integer> field : fieldSlots.entrySet()) {
+                Object fieldValue = e.entry.getField(field.getKey());
 
-                mEntry.setValue((fieldValue == null ? null : fieldValue.toString()));
+                e.fields[field.getValue()] = (fieldValue == null ? null : fieldValue.toString());
             }
         }
 
-        for (BstEntry e : entries) {
-            if (!e.fields.containsKey("crossref")) {
-                e.fields.put("crossref", null);
+        if (!fieldSlots.containsKey("crossref")) {
+            int slot = VM.declare(fieldSlots, "crossref");
+            for (BstEntry e : entries) {
+                e.grow();
+                e.fields[slot] = null;
             }
+            clearBindings();
         }
     }
 
@@ -1100,6 +1110,7 @@ public class VM implements Warn {
         String name = child.getChild(0).getText();
         String replacement = child.getChild(1).getText();
         functions.put(name, new MacroFunction(replacement));
+        clearBindings();
     }
 
 
@@ -1130,41 +1141,27 @@ public class VM implements Warn {
      */
     private void entry(Tree child) {
         // Fields first
-        Tree t = child.getChild(0);
-        // assert t.getType() == Bst.IDLIST;
-
-        for (int i = 0; i < t.getChildCount(); i++) {
-            String name = t.getChild(i).getText();
-
-            for (BstEntry entry : entries) {
-                entry.fields.put(name, null);
-            }
-        }
-
+        int[] fields = VM.declare(fieldSlots, child.getChild(0));
         // Integers
-        t = child.getChild(1);
-        // assert t.getType() == Bst.IDLIST;
-
-        for (int i = 0; i < t.getChildCount(); i++) {
-            String name = t.getChild(i).getText();
-
-            for (BstEntry entry : entries) {
-                entry.integers.put(name, 0);
-            }
-        }
+        int[] integers = VM.declare(entryIntegerSlots, child.getChild(1));
         // Strings
-        t = child.getChild(2);
-        // assert t.getType() == Bst.IDLIST;
+        int[] strings = VM.declare(entryStringSlots, child.getChild(2));
+        int sortKey = VM.declare(entryStringSlots, "sort.key$");
 
-        for (int i = 0; i < t.getChildCount(); i++) {
-            String name = t.getChild(i).getText();
-            for (BstEntry entry : entries) {
-                entry.strings.put(name, null);
-            }
-        }
         for (BstEntry entry : entries) {
-            entry.strings.put("sort.key$", null);
+            entry.grow();
+            for (int slot : fields) {
+                entry.fields[slot] = null;
+            }
+            for (int slot : integers) {
+                entry.integers[slot] = 0;
+            }
+            for (int slot : strings) {
+                entry.strings[slot] = null;
+            }
+            entry.strings[sortKey] = null;
         }
+        clearBindings();
     }
 
     private void reverse(Tree child) {
@@ -1192,22 +1189,27 @@ public class VM implements Warn {
      * @param child
      */
     private void sort(Tree child) {
+        final int sortKey = entryStringSlots.get("sort.key$");
         Collections.sort(entries, new Comparator<BstEntry>() {
 
             @Override
             public int compare(BstEntry o1, BstEntry o2) {
-                return (o1.strings.get("sort.key$")).compareTo(o2.strings
-                        .get("sort.key$"));
+                return (o1.strings[sortKey]).compareTo(o2.strings[sortKey]);
             }
         });
     }
 
+    private static boolean isFunction(Object o) {
+        return (o instanceof Identifier) || (o instanceof BstCode) || (o instanceof Tree);
+    }
+
     private void executeInContext(Object o, BstEntry context) {
-        if (o instanceof Tree) {
-            Tree t = (Tree) o;
-            new StackFunction(t).execute(context);
+        if (o instanceof BstCode) {
+            new StackFunction((BstCode) o).execute(context);
+        } else if (o instanceof Tree) {
+            new StackFunction((Tree) o).execute(context);
         } else if (o instanceof Identifier) {
-            execute(((Identifier) o).getName(), context);
+            execute(getBinding((Identifier) o), context);
         }
     }
 
@@ -1218,49 +1220,40 @@ public class VM implements Warn {
 
     public class StackFunction implements BstFunction {
 
-        final Tree tree;
+        final BstCode code;
 
 
         public Tree getTree() {
-            return tree;
+            return code.getTree();
         }
 
         public StackFunction(Tree stack) {
             // assert stack.getType() == Bst.STACK;
-            tree = stack;
+            this(program.getCode(stack));
+        }
+
+        StackFunction(BstCode code) {
+            this.code = code;
         }
 
         @Override
         public void execute(BstEntry context) {
 
-            for (int i = 0; i < tree.getChildCount(); i++) {
+            for (int i = 0; i < code.size(); i++) {
 
-                Tree c = tree.getChild(i);
                 try {
-
-                    switch (c.getType()) {
-                    case BstParser.STRING:
-                        String s = c.getText();
-                        push(s.substring(1, s.length() - 1));
-                        break;
-                    case BstParser.INTEGER:
-                        push(Integer.parseInt(c.getText().substring(1)));
-                        break;
-                    case BstParser.QUOTED:
-                        push(new Identifier(c.getText().substring(1)));
-                        break;
-                    case BstParser.STACK:
-                        push(c);
-                        break;
-                    default:
-                        VM.this.execute(c.getText(), context);
+                    Object constant = code.getConstant(i);
+                    if (constant == null) {
+                        VM.this.execute(getBinding(code.getName(i), code.getSymbol(i)), context);
+                    } else {
+                        stack.push(constant);
                     }
                 } catch (VMException e) {
                     if (file != null) {
                         System.err.println("ERROR " + e.getMessage() + " (" + file.getPath() + ":"
-                                + c.getLine() + ")");
+                                + code.getLine(i) + ")");
                     } else {
-                        System.err.println("ERROR " + e.getMessage() + " (" + c.getLine() + ")");
+                        System.err.println("ERROR " + e.getMessage() + " (" + code.getLine(i) + ")");
                     }
                     throw e;
                 }
@@ -1270,49 +1263,133 @@ public class VM implements Warn {
     }
 
 
-    private void push(Tree t) {
-        stack.push(t);
+    /**
+     * What an identifier denotes at the current point of the program: the slots of the
+     * variables with this name, or -1, and the function with this name, or null.
+     */
+    private static class Binding {
+
+        final String name;
+
+        int field = -1;
+        int entryString = -1;
+        int entryInteger = -1;
+        int globalString = -1;
+        int globalInteger = -1;
+
+        BstFunction function;
+
+
+        Binding(String name) {
+            this.name = name;
+        }
+    }
+
+
+    private Binding getBinding(Identifier identifier) {
+        return getBinding(identifier.name, identifier.symbol);
+    }
+
+    /**
+     * Returns the binding of the given identifier. Bindings are cached per symbol until the
+     * next declaration; identifiers not occurring in the program are resolved every time.
+     */
+    private Binding getBinding(String name, int symbol) {
+        if (symbol < 0) {
+            return resolve(name);
+        }
+        Binding binding = bindings[symbol];
+        if (binding == null) {
+            binding = resolve(name);
+            bindings[symbol] = binding;
+        }
+        return binding;
+    }
+
+    private Binding resolve(String name) {
+        Binding binding = new Binding(name);
+        binding.field = VM.slotOf(fieldSlots, name);
+        binding.entryString = VM.slotOf(entryStringSlots, name);
+        binding.entryInteger = VM.slotOf(entryIntegerSlots, name);
+        binding.globalString = VM.slotOf(stringSlots, name);
+        binding.globalInteger = VM.slotOf(integerSlots, name);
+        binding.function = functions.get(name);
+        return binding;
+    }
+
+    private void clearBindings() {
+        Arrays.fill(bindings, null);
+    }
+
+    private static int slotOf(Map<String, Integer> slots, String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @return the slot of the given variable, which is added if it has not been declared before
+     */
+    private static int declare(Map<String, Integer> slots, String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    private static int[] declare(Map<String, Integer> slots, Tree idList) {
+        // assert idList.getType() == Bst.IDLIST;
+        int[] result = new int[idList.getChildCount()];
+        for (int i = 0; i < idList.getChildCount(); i++) {
+            result[i] = VM.declare(slots, idList.getChild(i).getText());
+        }
+        return result;
     }
 
     private void execute(String name, BstEntry context) {
+        execute(getBinding(name, program.getSymbol(name)), context);
+    }
+
+    private void execute(Binding binding, BstEntry context) {
 
         if (context != null) {
 
-            if (context.fields.containsKey(name)) {
-                stack.push(context.fields.get(name));
+            if (binding.field >= 0) {
+                stack.push(context.fields[binding.field]);
                 return;
             }
-            if (context.strings.containsKey(name)) {
-                stack.push(context.strings.get(name));
+            if (binding.entryString >= 0) {
+                stack.push(context.strings[binding.entryString]);
                 return;
             }
-            if (context.integers.containsKey(name)) {
-                stack.push(context.integers.get(name));
+            if (binding.entryInteger >= 0) {
+                stack.push(context.integers[binding.entryInteger]);
                 return;
             }
         }
-        if (strings.containsKey(name)) {
-            stack.push(strings.get(name));
+        if (binding.globalString >= 0) {
+            stack.push(strings.get(binding.globalString));
             return;
         }
-        if (integers.containsKey(name)) {
-            stack.push(integers.get(name));
+        if (binding.globalInteger >= 0) {
+            stack.push(integers.get(binding.globalInteger));
             return;
         }
 
-        if (functions.containsKey(name)) {
-            functions.get(name).execute(context);
+        if (binding.function != null) {
+            binding.function.execute(context);
             return;
         }
 
-        throw new VMException("No matching identifier found: " + name);
+        throw new VMException("No matching identifier found: " + binding.name);
     }
 
     private void function(Tree child) {
         String name = child.getChild(0).getText();
         Tree stack = child.getChild(1);
         functions.put(name, new StackFunction(stack));
-
+        clearBindings();
     }
 
     /**
@@ -1325,13 +1402,14 @@ public class VM implements Warn {
      * @param child
      */
     private void integers(Tree child) {
-        Tree t = child.getChild(0);
-        // assert t.getType() == Bst.IDLIST;
-
-        for (int i = 0; i < t.getChildCount(); i++) {
-            String name = t.getChild(i).getText();
-            integers.put(name, 0);
+        for (int slot : VM.declare(integerSlots, child.getChild(0))) {
+            if (slot == integers.size()) {
+                integers.add(0);
+            } else {
+                integers.set(slot, 0);
+            }
         }
+        clearBindings();
     }
 
     /**
@@ -1342,13 +1420,14 @@ public class VM implements Warn {
      * @param child
      */
     private void strings(Tree child) {
-        Tree t = child.getChild(0);
-        // assert t.getType() == Bst.IDLIST;
-
-        for (int i = 0; i < t.getChildCount(); i++) {
-            String name = t.getChild(i).getText();
-            strings.put(name, null);
+        for (int slot : VM.declare(stringSlots, child.getChild(0))) {
+            if (slot == strings.size()) {
+                strings.add(null);
+            } else {
+                strings.set(slot, null);
+            }
         }
+        clearBindings();
     }
 
 
@@ -1361,15 +1440,32 @@ public class VM implements Warn {
 
         final BibtexEntry entry;
 
-        final Map<String, String> strings = new HashMap<String, String>();
+        // Values of the entry variables and fields, indexed by their slot
+        String[] strings = new String[0];
+
+        String[] fields = new String[0];
 
-        final Map<String, String> fields = new HashMap<String, String>();
+        Integer[] integers = new Integer[0];
 
-        final Map<String, Integer> integers = new HashMap<String, Integer>();
 
+        /**
+         * Makes room for all entry variables and fields declared so far.
+         */
+        void grow() {
+            strings = Arrays.copyOf(strings, entryStringSlots.size());
+            fields = Arrays.copyOf(fields, fieldSlots.size());
+            integers = Arrays.copyOf(integers, entryIntegerSlots.size());
+        }
 
+        /**
+         * @return a copy of the field values of this entry
+         */
         public Map<String, String> getFields() {
-            return fields;
+            Map<String, String> result = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, Integer> field : fieldSlots.entrySet()) {
+                result.put(field.getKey(), fields[field.getValue()]);
+            }
+            return result;
         }
 
         public BibtexEntry getBibtexEntry() {
@@ -1380,12 +1476,27 @@ public class VM implements Warn {
 
     private Vector<BstEntry> entries;
 
-    private Map<String, String> strings = new HashMap<String, String>();
+    // Values of the global variables, indexed by the slot of the variable
+    private List<String> strings = new ArrayList<String>();
+
+    private List<Integer> integers = new ArrayList<Integer>();
 
-    private Map<String, Integer> integers = new HashMap<String, Integer>();
+    private Map<String, Integer> stringSlots = new LinkedHashMap<String, Integer>();
+
+    private Map<String, Integer> integerSlots = new LinkedHashMap<String, Integer>();
+
+    // Slots of the fields and entry variables within each BstEntry
+    private Map<String, Integer> fieldSlots = new LinkedHashMap<String, Integer>();
+
+    private Map<String, Integer> entryStringSlots = new LinkedHashMap<String, Integer>();
+
+    private Map<String, Integer> entryIntegerSlots = new LinkedHashMap<String, Integer>();
 
     private Map<String, BstFunction> functions = new HashMap<String, BstFunction>();
 
+    // Indexed by symbol, see BstProgram#getSymbol(String)
+    private Binding[] bindings = new Binding[0];
+
     private Stack<Object> stack = new Stack<Object>();
 
 
@@ -1401,12 +1512,26 @@ public class VM implements Warn {
         stack.push(identifier);
     }
 
+    /**
+     * @return a copy of the global string variables
+     */
     public Map<String, String> getStrings() {
-        return strings;
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Integer> variable : stringSlots.entrySet()) {
+            result.put(variable.getKey(), strings.get(variable.getValue()));
+        }
+        return result;
     }
 
+    /**
+     * @return a copy of the global integer variables
+     */
     public Map<String, Integer> getIntegers() {
-        return integers;
+        Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+        for (Map.Entry<String, Integer> variable : integerSlots.entrySet()) {
+            result.put(variable.getKey(), integers.get(variable.getValue()));
+        }
+        return result;
     }
 
     public Vector<BstEntry> getEntries() {
@@ -158,7 +158,7 @@ public class ChangeScanner implements Runnable {
                 try {
                     SaveSession ss = FileActions.saveDatabase(inTemp, mdInTemp,
                             Globals.fileUpdateMonitor.getTempFile(panel.fileMonitorHandle()), Globals.prefs,
-                            false, false, panel.getEncoding(), true);
+                            null, panel.getEncoding(), true);
                     ss.commit();
                 } catch (SaveException ex) {
                     System.out.println("Problem updating tmp file after accepting external changes");
@@ -100,7 +100,7 @@ public class AutoSaveManager {
         try {
             SaveSession ss = FileActions.saveDatabase(panel.database(), panel.metaData(),
                     backupFile, Globals.prefs,
-                    false, false, panel.getEncoding(), true);
+                    null, panel.getEncoding(), true);
             ss.commit();
         } catch (SaveException e) {
             e.printStackTrace();
@@ -43,12 +43,16 @@ public class ExportFormats {
 
     private static final Map<String, IExportFormat> exportFormats = new TreeMap<String, IExportFormat>();
 
+    // the formats are only built when they are first needed, as most sessions never export anything
+    private static boolean initialized;
+
     // Global variable that is used for counting output entries when exporting:
     public static int entryNumber;
 
 
-    public static void initAllExports() {
+    public static synchronized void initAllExports() {
 
+        ExportFormats.initialized = true;
         ExportFormats.exportFormats.clear();
 
         // Initialize Build-In Export Formats
@@ -90,6 +94,13 @@ public class ExportFormats {
         }
     }
 
+    private static synchronized Map<String, IExportFormat> getFormats() {
+        if (!ExportFormats.initialized) {
+            ExportFormats.initAllExports();
+        }
+        return ExportFormats.exportFormats;
+    }
+
     /**
      * Build a string listing of all available export formats.
      * 
@@ -105,7 +116,7 @@ public class ExportFormats {
         StringBuilder sb = new StringBuilder();
         int lastBreak = -firstLineSubtr;
 
-        for (String name : ExportFormats.exportFormats.keySet()) {
+        for (String name : ExportFormats.getFormats().keySet()) {
             if (sb.length() + 2 + name.length() - lastBreak > maxLineLength) {
                 sb.append(",\n");
                 lastBreak = sb.length();
@@ -125,7 +136,7 @@ public class ExportFormats {
      */
     public static Map<String, IExportFormat> getExportFormats() {
         // It is perhaps overly paranoid to make a defensive copy in this case:
-        return Collections.unmodifiableMap(ExportFormats.exportFormats);
+        return Collections.unmodifiableMap(ExportFormats.getFormats());
     }
 
     /**
@@ -137,7 +148,7 @@ public class ExportFormats {
      *         registered.
      */
     public static IExportFormat getExportFormat(String consoleName) {
-        return ExportFormats.exportFormats.get(consoleName);
+        return ExportFormats.getFormats().get(consoleName);
     }
 
     /**
@@ -275,7 +286,7 @@ public class ExportFormats {
         FileFilter defaultFilter = null;
         JFileChooser fc = new JFileChooser(currentDir);
         TreeSet<FileFilter> filters = new TreeSet<FileFilter>();
-        for (Map.Entry<String, IExportFormat> e : ExportFormats.exportFormats.entrySet()) {
+        for (Map.Entry<String, IExportFormat> e : ExportFormats.getFormats().entrySet()) {
             String formatName = e.getKey();
             IExportFormat format = e.getValue();
             filters.add(format.getFileFilter());
@@ -38,6 +38,7 @@ import net.sf.jabref.logic.config.SaveOrderConfig;
 import net.sf.jabref.logic.id.IdComparator;
 import net.sf.jabref.logic.l10n.Localization;
 import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryType;
 import net.sf.jabref.model.entry.BibtexString;
@@ -154,15 +155,14 @@ public class FileActions {
     }
 
     /**
-     * Saves the database to file. Two boolean values indicate whether only
-     * entries with a nonzero Globals.SEARCH value and only entries with a
-     * nonzero Globals.GROUPSEARCH value should be saved. This can be used to
-     * let the user save only the results of a search. False and false means all
-     * entries are saved.
+     * Saves the database to file. If a set of entries is given, only these
+     * entries are saved. This can be used to let the user save only the
+     * results of a search or group selection (e.g. search hits AND group hits).
+     * Null means all entries are saved.
      */
     public static SaveSession saveDatabase(BibtexDatabase database,
             MetaData metaData, File file, JabRefPreferences prefs,
-            boolean checkSearch, boolean checkGroup, String encoding, boolean suppressBackup)
+            EntrySet entriesToSave, String encoding, boolean suppressBackup)
             throws SaveException {
 
         TreeMap<String, BibtexEntryType> types = new TreeMap<String, BibtexEntryType>();
@@ -224,17 +224,7 @@ public class FileActions {
                 }
 
                 // Check if the entry should be written.
-                boolean write = true;
-
-                if (checkSearch && !FileActions.nonZeroField(be, BibtexFields.SEARCH)) {
-                    write = false;
-                }
-
-                if (checkGroup && !FileActions.nonZeroField(be, BibtexFields.GROUPSEARCH)) {
-                    write = false;
-                }
-
-                if (write) {
+                if (entriesToSave == null || entriesToSave.contains(be)) {
                     bibtexEntryWriter.write(be, fw);
                     fw.write(Globals.NEWLINE);
                 }
@@ -447,6 +437,39 @@ public class FileActions {
 
     }
 
+    /**
+     * Writes the given entries of the database in the given order, together with the preamble
+     * and strings of the database, directly to the writer. Unlike the save methods, neither a
+     * temporary file nor a backup is used, so the output can go to any stream.
+     *
+     * @param encoding the encoding named in the file header, null to leave out the header
+     */
+    public static void writeEntries(Writer out, BibtexDatabase database, List<BibtexEntry> entries,
+            String encoding) throws IOException {
+        if (encoding != null) {
+            FileActions.writeBibFileHeader(out, encoding);
+        }
+        FileActions.writePreamble(out, database.getPreamble());
+        FileActions.writeStrings(out, database);
+
+        TreeMap<String, CustomEntryType> types = new TreeMap<String, CustomEntryType>();
+        BibtexEntryWriter bibtexEntryWriter = new BibtexEntryWriter(new LatexFieldFormatter(), true);
+        for (BibtexEntry entry : entries) {
+            BibtexEntryType type = entry.getType();
+            if ((BibtexEntryType.getStandardType(type.getName()) == null) && (type instanceof CustomEntryType)) {
+                types.put(type.getName(), (CustomEntryType) type);
+            }
+            bibtexEntryWriter.write(entry, out);
+            out.write(Globals.NEWLINE);
+        }
+
+        for (CustomEntryType type : types.values()) {
+            type.save(out);
+            out.write(Globals.NEWLINE);
+        }
+        out.flush();
+    }
+
     /**
      * This method attempts to get a Reader for the file path given, either by
      * loading it as a resource (from within jar), or as a normal file. If
@@ -527,12 +550,4 @@ public class FileActions {
         return sorter;
     }
 
-    /**
-     * @return true iff the entry has a nonzero value in its field.
-     */
-    private static boolean nonZeroField(BibtexEntry be, String field) {
-        String o = be.getField(field);
-
-        return o != null && !o.equals("0");
-    }
 }
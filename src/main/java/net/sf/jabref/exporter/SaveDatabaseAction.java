@@ -231,7 +231,7 @@ public class SaveDatabaseAction extends AbstractWorker {
         try {
             if (!selectedOnly) {
                 session = FileActions.saveDatabase(panel.database(), panel.metaData(), file,
-                        Globals.prefs, false, false, encoding, false);
+                        Globals.prefs, null, encoding, false);
             } else {
                 session = FileActions.savePartOfDatabase(panel.database(), panel.metaData(), file,
                         Globals.prefs, panel.getSelectedEntries(), encoding, FileActions.DatabaseSaveType.DEFAULT);
@@ -49,6 +49,6 @@ public class JournalAbbreviator implements LayoutFormatter {
 
     @Override
     public String format(String fieldText) {
-        return Abbreviations.journalAbbrev.getIsoAbbreviation(fieldText).orElse(fieldText);
+        return Abbreviations.getJournalAbbreviations().getIsoAbbreviation(fieldText).orElse(fieldText);
     }
 }
@@ -22,8 +22,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 import javax.swing.*;
 
@@ -35,14 +37,15 @@ import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.logic.util.io.FileUtil;
 import net.sf.jabref.util.Util;
-import net.sf.jabref.logic.xmp.XMPUtil;
+import net.sf.jabref.logic.xmp.XMPBulkWriter;
 
 import com.jgoodies.forms.builder.ButtonBarBuilder;
 
 /**
  * 
  * This action goes through all selected entries in the BasePanel, and attempts
- * to write the XMP data to the external pdf.
+ * to write the XMP data to the external pdf. PDFs whose XMP data is up to date
+ * are skipped, the others are written concurrently.
  */
 public class WriteXMPAction extends AbstractWorker {
 
@@ -56,6 +59,8 @@ public class WriteXMPAction extends AbstractWorker {
 
     private boolean goOn = true;
 
+    private volatile XMPBulkWriter writer;
+
     private int skipped;
     private int entriesChanged;
     private int errors;
@@ -114,69 +119,71 @@ public class WriteXMPAction extends AbstractWorker {
             return;
         }
 
+        // The existing PDFs linked from each entry
+        Map<BibtexEntry, List<File>> entryFiles = new LinkedHashMap<BibtexEntry, List<File>>();
+        int fileCount = 0;
         for (BibtexEntry entry : entries) {
 
-            // Make a list of all PDFs linked from this entry:
-            List<File> files = new ArrayList<File>();
-
-            // First check the (legacy) "pdf" field:
-            String pdf = entry.getField("pdf");
-            String[] dirs = panel.metaData().getFileDirectory("pdf");
-            File f = FileUtil.expandFilename(pdf, dirs);
-            if (f != null) {
-                files.add(f);
-            }
-
-            // Then check the "file" field:
-            dirs = panel.metaData().getFileDirectory(Globals.FILE_FIELD);
-            String field = entry.getField(Globals.FILE_FIELD);
-            if (field != null) {
-                FileListTableModel tm = new FileListTableModel();
-                tm.setContent(field);
-                for (int j = 0; j < tm.getRowCount(); j++) {
-                    FileListEntry flEntry = tm.getEntry(j);
-                    if (flEntry.getType() != null && flEntry.getType().getName().toLowerCase().equals("pdf")) {
-                        f = FileUtil.expandFilename(flEntry.getLink(), dirs);
-                        if (f != null) {
-                            files.add(f);
-                        }
-                    }
-                }
-            }
-
-            optDiag.progressArea.append(entry.getCiteKey() + "\n");
+            List<File> files = getLinkedPdfs(entry);
 
             if (files.isEmpty()) {
                 skipped++;
+                optDiag.progressArea.append(entry.getCiteKey() + "\n");
                 optDiag.progressArea.append("  " + Localization.lang("Skipped - No PDF linked") + ".\n");
-            } else {
-                for (File file : files) {
-                    if (!file.exists()) {
-                        skipped++;
-                        optDiag.progressArea.append("  " + Localization.lang("Skipped - PDF does not exist")
-                                + ":\n");
-                        optDiag.progressArea.append("    " + file.getPath() + "\n");
-
-                    } else {
-                        try {
-                            XMPUtil.writeXMP(file, entry, database);
-                            optDiag.progressArea.append("  " + Localization.lang("Ok") + ".\n");
-                            entriesChanged++;
-                        } catch (Exception e) {
-                            optDiag.progressArea.append("  " + Localization.lang("Error while writing") + " '"
-                                    + file.getPath() + "':\n");
-                            optDiag.progressArea.append("    " + e.getLocalizedMessage() + "\n");
-                            errors++;
-                        }
-                    }
+                continue;
+            }
+            List<File> existing = new ArrayList<File>();
+            for (File file : files) {
+                if (!file.exists()) {
+                    skipped++;
+                    optDiag.progressArea.append(entry.getCiteKey() + "\n");
+                    optDiag.progressArea.append("  " + Localization.lang("Skipped - PDF does not exist")
+                            + ":\n");
+                    optDiag.progressArea.append("    " + file.getPath() + "\n");
+                } else {
+                    existing.add(file);
                 }
             }
+            if (!existing.isEmpty()) {
+                entryFiles.put(entry, existing);
+                fileCount += existing.size();
+            }
+        }
 
-            if (optDiag.canceled) {
-                optDiag.progressArea.append("\n"
-                        + Localization.lang("Operation canceled.\n"));
+        panel.frame().setProgressBarValue(0);
+        panel.frame().setProgressBarMaximum(fileCount);
+        panel.frame().setProgressBarVisible(true);
+        writer = new XMPBulkWriter(database);
+        if (optDiag.canceled) {
+            writer.cancel();
+        }
+        int[] done = {0};
+        writer.write(entryFiles, (entry, file, outcome, error) -> {
+            optDiag.progressArea.append(entry.getCiteKey() + "\n");
+            switch (outcome) {
+            case WRITTEN:
+                optDiag.progressArea.append("  " + Localization.lang("Ok") + ".\n");
+                entriesChanged++;
+                break;
+            case UP_TO_DATE:
+                optDiag.progressArea.append("  " + Localization.lang("Skipped - XMP-metadata is up to date")
+                        + ".\n");
+                skipped++;
+                break;
+            default:
+                optDiag.progressArea.append("  " + Localization.lang("Error while writing") + " '"
+                        + file.getPath() + "':\n");
+                optDiag.progressArea.append("    " + error.getLocalizedMessage() + "\n");
+                errors++;
                 break;
             }
+            panel.frame().setProgressBarValue(++done[0]);
+        });
+        panel.frame().setProgressBarVisible(false);
+
+        if (optDiag.canceled) {
+            optDiag.progressArea.append("\n"
+                    + Localization.lang("Operation canceled.\n"));
         }
         optDiag.progressArea.append("\n"
                 + Localization.lang("Finished writing XMP for %0 file (%1 skipped, %2 errors).", String
@@ -184,6 +191,39 @@ public class WriteXMPAction extends AbstractWorker {
         optDiag.done();
     }
 
+    /**
+     * Make a list of all PDFs linked from this entry.
+     */
+    private List<File> getLinkedPdfs(BibtexEntry entry) {
+        List<File> files = new ArrayList<File>();
+
+        // First check the (legacy) "pdf" field:
+        String pdf = entry.getField("pdf");
+        String[] dirs = panel.metaData().getFileDirectory("pdf");
+        File f = FileUtil.expandFilename(pdf, dirs);
+        if (f != null) {
+            files.add(f);
+        }
+
+        // Then check the "file" field:
+        dirs = panel.metaData().getFileDirectory(Globals.FILE_FIELD);
+        String field = entry.getField(Globals.FILE_FIELD);
+        if (field != null) {
+            FileListTableModel tm = new FileListTableModel();
+            tm.setContent(field);
+            for (int j = 0; j < tm.getRowCount(); j++) {
+                FileListEntry flEntry = tm.getEntry(j);
+                if (flEntry.getType() != null && flEntry.getType().getName().toLowerCase().equals("pdf")) {
+                    f = FileUtil.expandFilename(flEntry.getLink(), dirs);
+                    if (f != null) {
+                        files.add(f);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
     @Override
     public void update() {
         if (!goOn) {
@@ -203,7 +243,7 @@ public class WriteXMPAction extends AbstractWorker {
         final JButton cancelButton = new JButton(
                 Localization.lang("Cancel"));
 
-        boolean canceled;
+        volatile boolean canceled;
 
         final JTextArea progressArea;
 
@@ -228,6 +268,10 @@ public class WriteXMPAction extends AbstractWorker {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     canceled = true;
+                    XMPBulkWriter running = writer;
+                    if (running != null) {
+                        running.cancel();
+                    }
                 }
             };
             cancelButton.addActionListener(cancel);
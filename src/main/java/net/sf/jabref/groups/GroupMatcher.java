@@ -16,18 +16,28 @@
 package net.sf.jabref.groups;
 
 import ca.odell.glazedlists.matchers.Matcher;
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.entry.BibtexEntry;
 
 /**
  * Matcher for filtering or sorting the table according to whether entries
- * are tagged as group matches.
+ * are contained in the selected groups.
  */
 public class GroupMatcher implements Matcher<BibtexEntry> {
 
-    public static final GroupMatcher INSTANCE = new GroupMatcher();
+    private final EntrySet hits;
+
+
+    public GroupMatcher(EntrySet hits) {
+        this.hits = hits;
+    }
+
+    public EntrySet getHits() {
+        return hits;
+    }
 
     @Override
     public boolean matches(BibtexEntry entry) {
-        return entry.isGroupHit();
+        return hits.contains(entry);
     }
 }
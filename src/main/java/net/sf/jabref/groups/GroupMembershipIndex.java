@@ -0,0 +1,227 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.groups;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.jabref.groups.structure.AbstractGroup;
+import net.sf.jabref.groups.structure.AllEntriesGroup;
+import net.sf.jabref.groups.structure.ExplicitGroup;
+import net.sf.jabref.groups.structure.GroupHierarchyType;
+import net.sf.jabref.groups.structure.KeywordGroup;
+import net.sf.jabref.groups.structure.SearchGroup;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.DatabaseChangeEvent;
+import net.sf.jabref.model.database.DatabaseChangeListener;
+import net.sf.jabref.model.database.EntrySet;
+import net.sf.jabref.model.entry.BibtexEntry;
+
+/**
+ * Caches which entries of a database belong to which group.
+ *
+ * The members of a group are kept as {@link EntrySet}. A group's set is computed on first
+ * use and afterwards kept up to date from the change events of the database: only entries
+ * whose changed field the group depends on are re-evaluated. The hierarchical context of a
+ * group is applied by combining these sets, which gives the same result as
+ * {@link GroupTreeNode#getSearchRule()}.
+ *
+ * Explicit groups are not cached, since their members change without a field change.
+ * Their set is rebuilt from the (usually small) set of assigned entries instead.
+ *
+ * Precomputing groups in the background does not hold the lock while evaluating a group, so
+ * the EDT is not blocked by it.
+ */
+public class GroupMembershipIndex implements DatabaseChangeListener {
+
+    private final BibtexDatabase database;
+    private final Map<AbstractGroup, EntrySet> directHits = new IdentityHashMap<>();
+    // counts the changes of the database and the cached groups, to detect stale computations
+    private long modificationCount;
+
+
+    public GroupMembershipIndex(BibtexDatabase database) {
+        this.database = database;
+        database.addDatabaseChangeListener(this);
+    }
+
+    /**
+     * Returns the entries found by the search rule of the given node, taking the
+     * hierarchical context of its group into account.
+     *
+     * @return a new set, may be modified by the caller
+     */
+    public synchronized EntrySet getHits(GroupTreeNode node) {
+        return getHits(node, node.getGroup().getHierarchicalContext());
+    }
+
+    private EntrySet getHits(GroupTreeNode node, GroupHierarchyType originalContext) {
+        AbstractGroup group = node.getGroup();
+        EntrySet hits = getDirectHits(group).copy();
+        GroupHierarchyType context = group.getHierarchicalContext();
+        if (context == GroupHierarchyType.INCLUDING
+                && originalContext != GroupHierarchyType.REFINING) {
+            for (int i = 0; i < node.getChildCount(); ++i) {
+                hits.or(getHits((GroupTreeNode) node.getChildAt(i), originalContext));
+            }
+        } else if (context == GroupHierarchyType.REFINING && !node.isRoot()
+                && originalContext != GroupHierarchyType.INCLUDING) {
+            hits.and(getHits((GroupTreeNode) node.getParent(), originalContext));
+        }
+        return hits;
+    }
+
+    /**
+     * @return whether the entry is contained in the group itself, ignoring the hierarchical context
+     */
+    public synchronized boolean contains(AbstractGroup group, BibtexEntry entry) {
+        if (database.getOrdinal(entry) < 0) {
+            return group.contains(entry);
+        }
+        return getDirectHits(group).contains(entry);
+    }
+
+    /**
+     * Drops the cached members of all groups which are no longer part of the given tree,
+     * e.g. because they have been edited or removed.
+     */
+    public synchronized void retainGroupsOf(GroupTreeNode root) {
+        Set<AbstractGroup> groups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Enumeration<GroupTreeNode> e = root.preorderEnumeration(); e.hasMoreElements(); ) {
+            groups.add(e.nextElement().getGroup());
+        }
+        directHits.keySet().retainAll(groups);
+        modificationCount++;
+    }
+
+    /**
+     * Computes the members of all groups of the given tree, e.g. in the background after the
+     * database has been opened, so that selecting a group does not have to wait for it.
+     *
+     * Each group is evaluated without holding the lock. Its members are only stored if
+     * nothing changed meanwhile, otherwise the group is evaluated again.
+     */
+    public void computeGroupsOf(GroupTreeNode root) {
+        for (Enumeration<GroupTreeNode> e = root.preorderEnumeration(); e.hasMoreElements(); ) {
+            AbstractGroup group = e.nextElement().getGroup();
+            if (GroupMembershipIndex.isCacheable(group)) {
+                computeGroup(group);
+            }
+        }
+    }
+
+    private void computeGroup(AbstractGroup group) {
+        while (true) {
+            long count;
+            synchronized (this) {
+                if (directHits.containsKey(group)) {
+                    return;
+                }
+                count = modificationCount;
+            }
+            EntrySet hits = evaluate(group);
+            synchronized (this) {
+                if (modificationCount == count) {
+                    directHits.putIfAbsent(group, hits);
+                    return;
+                }
+            }
+        }
+    }
+
+    private EntrySet getDirectHits(AbstractGroup group) {
+        if (!GroupMembershipIndex.isCacheable(group)) {
+            return evaluate(group);
+        }
+        EntrySet hits = directHits.get(group);
+        if (hits == null) {
+            hits = evaluate(group);
+            directHits.put(group, hits);
+        }
+        return hits;
+    }
+
+    private EntrySet evaluate(AbstractGroup group) {
+        EntrySet hits = new EntrySet(database);
+        if (group instanceof ExplicitGroup) {
+            for (BibtexEntry entry : ((ExplicitGroup) group).getEntries()) {
+                hits.add(entry);
+            }
+            return hits;
+        }
+        for (BibtexEntry entry : database.getEntries()) {
+            if (group.contains(entry)) {
+                hits.add(entry);
+            }
+        }
+        return hits;
+    }
+
+    private static boolean isCacheable(AbstractGroup group) {
+        return group instanceof KeywordGroup || group instanceof SearchGroup || group instanceof AllEntriesGroup;
+    }
+
+    /**
+     * @param field the changed field, null if unknown
+     */
+    private static boolean dependsOn(AbstractGroup group, String field) {
+        if (group instanceof KeywordGroup) {
+            return field == null || field.equals(((KeywordGroup) group).getSearchField());
+        }
+        // a search group may look at any field
+        return group instanceof SearchGroup;
+    }
+
+    private void updateEntry(BibtexEntry entry, String field, boolean allGroups) {
+        for (Map.Entry<AbstractGroup, EntrySet> cached : directHits.entrySet()) {
+            if (allGroups || GroupMembershipIndex.dependsOn(cached.getKey(), field)) {
+                if (cached.getKey().contains(entry)) {
+                    cached.getValue().add(entry);
+                } else {
+                    cached.getValue().remove(entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void databaseChanged(DatabaseChangeEvent e) {
+        modificationCount++;
+        switch (e.getType()) {
+        case ADDED_ENTRY:
+            updateEntry(e.getEntry(), null, true);
+            break;
+        case REMOVED_ENTRY:
+            for (EntrySet hits : directHits.values()) {
+                hits.remove(e.getEntry());
+            }
+            break;
+        case CHANGED_ENTRY:
+            updateEntry(e.getEntry(), e.getFieldName(), false);
+            break;
+        case CHANGED_ENTRIES:
+            for (BibtexEntry entry : e.getEntries()) {
+                updateEntry(entry, e.getFieldName(), false);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+}
@@ -61,6 +61,7 @@ import javax.swing.undo.CompoundEdit;
 
 import net.sf.jabref.gui.*;
 import net.sf.jabref.gui.worker.AbstractWorker;
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.Globals;
 import net.sf.jabref.JabRefPreferences;
@@ -68,11 +69,7 @@ import net.sf.jabref.MetaData;
 import net.sf.jabref.groups.structure.AbstractGroup;
 import net.sf.jabref.groups.structure.AllEntriesGroup;
 import net.sf.jabref.logic.l10n.Localization;
-import net.sf.jabref.logic.search.rules.InvertSearchRule;
-import net.sf.jabref.logic.search.SearchRule;
 import net.sf.jabref.gui.help.HelpAction;
-import net.sf.jabref.logic.search.rules.sets.SearchRuleSets;
-import net.sf.jabref.logic.search.rules.sets.SearchRuleSet;
 import net.sf.jabref.gui.undo.NamedCompound;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -760,15 +757,25 @@ public class GroupSelector extends SidePaneComponent implements
     }
 
     private void updateSelections() {
-        final SearchRuleSet searchRules = SearchRuleSets.build(andCb.isSelected() ? SearchRuleSets.RuleSetType.AND : SearchRuleSets.RuleSetType.OR);
+        GroupMembershipIndex index = panel.getGroupMembershipIndex();
+        index.retainGroupsOf(groupsRoot);
         TreePath[] selection = groupsTree.getSelectionPaths();
 
+        EntrySet hits = null;
         for (TreePath aSelection : selection) {
-            SearchRule searchRule = ((GroupTreeNode) aSelection.getLastPathComponent()).getSearchRule();
-            searchRules.addRule(searchRule);
+            EntrySet nodeHits = index.getHits((GroupTreeNode) aSelection.getLastPathComponent());
+            if (hits == null) {
+                hits = nodeHits;
+            } else if (andCb.isSelected()) {
+                hits.and(nodeHits);
+            } else {
+                hits.or(nodeHits);
+            }
         }
-        SearchRule searchRule = invCb.isSelected() ? new InvertSearchRule(searchRules) : searchRules;
-        GroupingWorker worker = new GroupingWorker(searchRule, SearchRule.DUMMY_QUERY);
+        if (invCb.isSelected()) {
+            hits = EntrySet.allOf(panel.getDatabase()).andNot(hits);
+        }
+        GroupingWorker worker = new GroupingWorker(index, hits);
         worker.getWorker().run();
         worker.getCallBack().update();
         /*panel.setGroupMatcher(new SearchMatcher(searchRules, searchOptions));
@@ -780,33 +787,28 @@ public class GroupSelector extends SidePaneComponent implements
         search.start();*/
     }
 
+
     class GroupingWorker extends AbstractWorker {
 
-        private final SearchRule rules;
-        private final String searchTerm;
-        private final ArrayList<BibtexEntry> matches = new ArrayList<BibtexEntry>();
+        private final GroupMembershipIndex index;
+        private final EntrySet groupHits;
         private final boolean showOverlappingGroupsP;
         int hits;
 
 
-        public GroupingWorker(SearchRule rules, String searchTerm) {
-            this.rules = rules;
-            this.searchTerm = searchTerm;
+        public GroupingWorker(GroupMembershipIndex index, EntrySet groupHits) {
+            this.index = index;
+            this.groupHits = groupHits;
             showOverlappingGroupsP = showOverlappingGroups.isSelected();
         }
 
         @Override
         public void run() {
+            // keep the flags of the entries in sync for code still looking at them
             for (BibtexEntry entry : panel.getDatabase().getEntries()) {
-                boolean hit = rules.applyRule(searchTerm, entry);
-                entry.setGroupHit(hit);
-                if (hit) {
-                    hits++;
-                    if (showOverlappingGroupsP) {
-                        matches.add(entry);
-                    }
-                }
+                entry.setGroupHit(groupHits.contains(entry));
             }
+            hits = groupHits.size();
         }
 
         @Override
@@ -814,15 +816,15 @@ public class GroupSelector extends SidePaneComponent implements
             // Show the result in the chosen way:
             if (hideNonHits.isSelected()) {
                 panel.mainTable.stopShowingFloatGrouping(); // Turn off shading, if active.
-                panel.setGroupMatcher(GroupMatcher.INSTANCE); // Turn on filtering.
+                panel.setGroupMatcher(new GroupMatcher(groupHits)); // Turn on filtering.
 
             } else if (grayOut.isSelected()) {
                 panel.stopShowingGroup(); // Turn off filtering, if active.
-                panel.mainTable.showFloatGrouping(GroupMatcher.INSTANCE); // Turn on shading.
+                panel.mainTable.showFloatGrouping(new GroupMatcher(groupHits)); // Turn on shading.
             }
 
             if (showOverlappingGroupsP) {
-                showOverlappingGroups(matches);
+                showOverlappingGroups(index, groupHits);
             }
             frame.output(Localization.lang("Updated group selection") + ".");
         }
@@ -1524,6 +1526,7 @@ public class GroupSelector extends SidePaneComponent implements
             groupsTree.revalidate();
             return;
         }
+        GroupMembershipIndex index = panel.getGroupMembershipIndex();
         Vector<GroupTreeNode> vec = new Vector<GroupTreeNode>();
         for (Enumeration<GroupTreeNode> e = groupsRoot.preorderEnumeration(); e.hasMoreElements(); ) {
             GroupTreeNode node = e.nextElement();
@@ -1531,11 +1534,11 @@ public class GroupSelector extends SidePaneComponent implements
             int i;
             for (i = 0; i < entries.length; ++i) {
                 if (requireAll) {
-                    if (!group.contains(entries[i])) {
+                    if (!index.contains(group, entries[i])) {
                         break;
                     }
                 } else {
-                    if (group.contains(entries[i])) {
+                    if (index.contains(group, entries[i])) {
                         vec.add(node);
                     }
                 }
@@ -1560,17 +1563,12 @@ public class GroupSelector extends SidePaneComponent implements
      * Show groups that, if selected, would show at least one
      * of the entries found in the specified search.
      */
-    private void showOverlappingGroups(List<BibtexEntry> matches) { //DatabaseSearch search) {
+    private void showOverlappingGroups(GroupMembershipIndex index, EntrySet matches) {
         List<GroupTreeNode> nodes = new ArrayList<GroupTreeNode>();
         for (Enumeration<GroupTreeNode> e = groupsRoot.depthFirstEnumeration(); e.hasMoreElements(); ) {
             GroupTreeNode node = e.nextElement();
-            SearchRule rule = node.getSearchRule();
-            for (BibtexEntry match : matches) {
-                if (!rule.applyRule(SearchRule.DUMMY_QUERY, match)) {
-                    continue;
-                }
+            if (index.getHits(node).intersects(matches)) {
                 nodes.add(node);
-                break;
             }
         }
         groupsTree.setHighlight2Cells(nodes.toArray());
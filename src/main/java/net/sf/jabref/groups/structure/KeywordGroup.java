@@ -38,6 +38,8 @@ public class KeywordGroup extends AbstractGroup {
 
     private final String searchField;
     private final String searchExpression;
+    // lower case expression, computed once for the case insensitive word search
+    private final String searchExpressionLowerCase;
     private final boolean caseSensitive;
     private final boolean regExp;
     private Pattern pattern;
@@ -51,6 +53,7 @@ public class KeywordGroup extends AbstractGroup {
         super(name, context);
         this.searchField = searchField;
         this.searchExpression = searchExpression;
+        this.searchExpressionLowerCase = searchExpression.toLowerCase();
         this.caseSensitive = caseSensitive;
         this.regExp = regExp;
         if (this.regExp) {
@@ -265,7 +268,7 @@ public class KeywordGroup extends AbstractGroup {
         if (caseSensitive) {
             return KeywordGroup.containsWord(searchExpression, content);
         }
-        return KeywordGroup.containsWord(searchExpression.toLowerCase(), content.toLowerCase());
+        return KeywordGroup.containsWord(searchExpressionLowerCase, content.toLowerCase());
     }
 
     /**
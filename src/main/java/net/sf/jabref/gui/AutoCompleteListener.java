@@ -32,6 +32,9 @@ public class AutoCompleteListener extends KeyAdapter implements FocusListener {
     //TODO: The logging behavior in this class is probably too fine-grained and only understandable to its original author
     private static final Log LOGGER = LogFactory.getLog(AutoCompleteListener.class);
 
+    // the number of completions offered at most, the most frequent ones
+    private static final int MAX_COMPLETIONS = 50;
+
     private final AutoCompleter completer;
 
     // These variables keep track of the situation from time to time.
@@ -418,7 +421,7 @@ public class AutoCompleteListener extends KeyAdapter implements FocusListener {
     }
 
     private String[] findCompletions(String beginning, JTextComponent comp) {
-        return completer.complete(beginning);
+        return completer.complete(beginning, AutoCompleteListener.MAX_COMPLETIONS);
     }
 
     private StringBuffer getCurrentWord(JTextComponent comp) {
@@ -43,11 +43,14 @@ import net.sf.jabref.exporter.FileActions.DatabaseSaveType;
 import net.sf.jabref.exporter.layout.Layout;
 import net.sf.jabref.exporter.layout.LayoutHelper;
 import net.sf.jabref.external.*;
+import net.sf.jabref.groups.GroupMatcher;
+import net.sf.jabref.groups.GroupMembershipIndex;
 import net.sf.jabref.groups.GroupSelector;
 import net.sf.jabref.groups.GroupTreeNode;
 import net.sf.jabref.gui.actions.Actions;
 import net.sf.jabref.gui.actions.BaseAction;
 import net.sf.jabref.gui.actions.CleanUpAction;
+import net.sf.jabref.gui.actions.EnrichFromIdentifiersAction;
 import net.sf.jabref.gui.entryeditor.EntryEditor;
 import net.sf.jabref.gui.fieldeditors.FieldEditor;
 import net.sf.jabref.gui.journals.AbbreviateAction;
@@ -75,6 +78,7 @@ import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.database.DatabaseChangeEvent;
 import net.sf.jabref.model.database.DatabaseChangeEvent.ChangeType;
 import net.sf.jabref.model.database.DatabaseChangeListener;
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.database.KeyCollisionException;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryType;
@@ -87,7 +91,6 @@ import net.sf.jabref.wizard.text.gui.TextInputDialog;
 import ca.odell.glazedlists.FilterList;
 import ca.odell.glazedlists.event.ListEvent;
 import ca.odell.glazedlists.event.ListEventListener;
-import ca.odell.glazedlists.matchers.Matcher;
 import com.jgoodies.forms.builder.FormBuilder;
 import com.jgoodies.forms.layout.FormLayout;
 import org.apache.commons.logging.Log;
@@ -146,8 +149,10 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
 
     public MainTable mainTable;
     public MainTableFormat tableFormat;
-    private FilterList<BibtexEntry> searchFilterList;
-    private FilterList<BibtexEntry> groupFilterList;
+    private FilterList<BibtexEntry> filterList;
+    // the search and group hits the table is filtered by, null if it is not filtered by them
+    private EntrySet searchHits;
+    private EntrySet groupHits;
 
     public RightClickMenu rcm;
 
@@ -194,6 +199,18 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
 
     private ContentAutoCompleters autoCompleters;
 
+    private GroupMembershipIndex groupMembershipIndex;
+
+    /**
+     * Returns the group membership index of this panel's database, creating it on first use.
+     */
+    public synchronized GroupMembershipIndex getGroupMembershipIndex() {
+        if (groupMembershipIndex == null) {
+            groupMembershipIndex = new GroupMembershipIndex(database);
+        }
+        return groupMembershipIndex;
+    }
+
     public BasePanel(JabRefFrame frame, BibtexDatabase db, File file,
                      MetaData metaData, String encoding) {
         Objects.requireNonNull(frame);
@@ -1352,6 +1369,7 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
         actions.put(Actions.ABBREVIATE_ISO, new AbbreviateAction(this, true));
         actions.put(Actions.ABBREVIATE_MEDLINE, new AbbreviateAction(this, false));
         actions.put(Actions.UNABBREVIATE, new UnabbreviateAction(this));
+        actions.put(Actions.ENRICH_FROM_IDENTIFIERS, new EnrichFromIdentifiersAction(this));
         actions.put(Actions.AUTO_SET_PDF, new AutoSetExternalFileForEntries(this, "pdf"));
         actions.put(Actions.AUTO_SET_PS, new AutoSetExternalFileForEntries(this, "ps"));
         actions.put(Actions.AUTO_SET_FILE, new SynchronizeFileField(this));
@@ -1421,7 +1439,7 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
         try {
             if (!selectedOnly) {
                 session = FileActions.saveDatabase(database, metaData, file,
-                        Globals.prefs, false, false, encoding, false);
+                        Globals.prefs, null, encoding, false);
             } else {
                 session = FileActions.savePartOfDatabase(database, metaData, file,
                         Globals.prefs, mainTable.getSelectedEntries(), encoding, saveType);
@@ -1598,8 +1616,13 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
 
         @Override
         public void databaseChanged(DatabaseChangeEvent e) {
-            if (e.getType() == ChangeType.CHANGED_ENTRY || e.getType() == ChangeType.ADDED_ENTRY) {
-                searchAutoCompleter.addBibtexEntry(e.getEntry());
+            if (e.getType() == ChangeType.CHANGED_ENTRY || e.getType() == ChangeType.ADDED_ENTRY
+                    || e.getType() == ChangeType.CHANGED_ENTRIES) {
+                for (BibtexEntry entry : e.getEntries()) {
+                    searchAutoCompleter.addBibtexEntry(entry);
+                }
+            } else if (e.getType() == ChangeType.REMOVED_ENTRY) {
+                searchAutoCompleter.removeBibtexEntry(e.getEntry());
             }
         }
     }
@@ -1612,8 +1635,13 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
 
         @Override
         public void databaseChanged(DatabaseChangeEvent e) {
-            if (e.getType() == ChangeType.CHANGED_ENTRY || e.getType() == ChangeType.ADDED_ENTRY) {
-                BasePanel.this.autoCompleters.addEntry(e.getEntry());
+            if (e.getType() == ChangeType.CHANGED_ENTRY || e.getType() == ChangeType.ADDED_ENTRY
+                    || e.getType() == ChangeType.CHANGED_ENTRIES) {
+                for (BibtexEntry entry : e.getEntries()) {
+                    BasePanel.this.autoCompleters.addEntry(entry);
+                }
+            } else if (e.getType() == ChangeType.REMOVED_ENTRY) {
+                BasePanel.this.autoCompleters.removeEntry(e.getEntry());
             }
         }
     }
@@ -1662,11 +1690,10 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
 
         database.addDatabaseChangeListener(eventList);
         database.addDatabaseChangeListener(SpecialFieldDatabaseChangeListener.getInstance());
-        groupFilterList = new FilterList<>(eventList.getTheList(), NoSearchMatcher.INSTANCE);
-        searchFilterList = new FilterList<>(groupFilterList, NoSearchMatcher.INSTANCE);
+        filterList = new FilterList<>(eventList.getTheList(), NoSearchMatcher.INSTANCE);
         tableFormat = new MainTableFormat(this);
         tableFormat.updateTableFormat();
-        mainTable = new MainTable(tableFormat, searchFilterList, frame, this);
+        mainTable = new MainTable(tableFormat, filterList, frame, this);
 
         selectionListener = new MainTableSelectionListener(this, mainTable);
         mainTable.updateFont();
@@ -1870,10 +1897,9 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
     }
 
     private void instantiateSearchAutoCompleter() {
-        searchAutoCompleter = AutoCompleterFactory.getFor("author", "editor");
-        for (BibtexEntry entry : database.getEntries()) {
-            searchAutoCompleter.addBibtexEntry(entry);
-        }
+        AutoCompleter autoCompleter = AutoCompleterFactory.getFor("author", "editor");
+        searchAutoCompleter = autoCompleter;
+        JabRefExecutorService.INSTANCE.execute(() -> autoCompleter.addBibtexEntries(database.getEntries()));
         searchCompleteListener = new AutoCompleteListener(searchAutoCompleter);
         searchCompleteListener.setConsumeEnterKey(false); // So you don't have to press Enter twice
     }
@@ -2310,21 +2336,41 @@ public class BasePanel extends JPanel implements ClipboardOwner, FileUpdateListe
       */
 
     public void setSearchMatcher(SearchMatcher matcher) {
-        searchFilterList.setMatcher(matcher);
+        searchHits = matcher.getHits();
         showingSearch = true;
+        updateFilter();
     }
 
-    public void setGroupMatcher(Matcher<BibtexEntry> matcher) {
-        groupFilterList.setMatcher(matcher);
+    public void setGroupMatcher(GroupMatcher matcher) {
+        groupHits = matcher.getHits();
+        updateFilter();
     }
 
     public void stopShowingSearchResults() {
-        searchFilterList.setMatcher(NoSearchMatcher.INSTANCE);
+        searchHits = null;
         showingSearch = false;
+        updateFilter();
     }
 
     public void stopShowingGroup() {
-        groupFilterList.setMatcher(NoSearchMatcher.INSTANCE);
+        groupHits = null;
+        updateFilter();
+    }
+
+    /**
+     * Filters the table by the search and the group hits. When both are shown, the table is filtered
+     * once by their intersection, which is a bitwise AND of the two sets.
+     */
+    private void updateFilter() {
+        if ((searchHits != null) && (groupHits != null)) {
+            filterList.setMatcher(new SearchMatcher(searchHits.copy().and(groupHits)));
+        } else if (searchHits != null) {
+            filterList.setMatcher(new SearchMatcher(searchHits));
+        } else if (groupHits != null) {
+            filterList.setMatcher(new GroupMatcher(groupHits));
+        } else {
+            filterList.setMatcher(NoSearchMatcher.INSTANCE);
+        }
     }
 
     /**
@@ -38,6 +38,7 @@ import java.util.HashSet;
 import net.sf.jabref.Globals;
 import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.model.entry.FieldNameRegistry;
 import net.sf.jabref.specialfields.SpecialFieldsUtils;
 import net.sf.jabref.logic.util.io.TXMLReader;
 
@@ -286,6 +287,8 @@ public class BibtexFields {
         // field == null check
         String key = field.name;
         fieldSet.put(key, field);
+        // known fields get the small ids of the entry field storage
+        FieldNameRegistry.register(key);
     }
 
     // --------------------------------------------------------------------------
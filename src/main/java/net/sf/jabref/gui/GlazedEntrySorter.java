@@ -16,6 +16,7 @@
 package net.sf.jabref.gui;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -69,6 +70,16 @@ public class GlazedEntrySorter implements DatabaseChangeListener {
                 // thus, 
                 list.set(index, e.getEntry());
             }
+        } else if (e.getType() == DatabaseChangeEvent.ChangeType.CHANGED_ENTRIES) {
+            // one pass over the list instead of one indexOf() per entry
+            Set<BibtexEntry> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+            changed.addAll(e.getEntries());
+            for (int i = 0; i < list.size(); i++) {
+                BibtexEntry entry = list.get(i);
+                if (changed.contains(entry)) {
+                    list.set(i, entry);
+                }
+            }
         }
         list.getReadWriteLock().writeLock().unlock();
 
@@ -385,6 +385,9 @@ public class JabRefFrame extends JFrame implements OutputPrinter {
             Localization.menuTitle("Unabbreviate journal names"),
             Localization.lang("Unabbreviate journal names of the selected entries"),
             Globals.prefs.getKey(KeyBinds.UNABBREVIATE));
+    private final AbstractAction enrichFromIdentifiers = new GeneralAction(Actions.ENRICH_FROM_IDENTIFIERS,
+            Localization.menuTitle("Complete entries from DOI and ISBN"),
+            Localization.lang("Complete the selected entries with the data registered for their DOI or ISBN"));
     private final AbstractAction manageJournals = new ManageJournalsAction(this);
     private final AbstractAction databaseProperties = new DatabasePropertiesAction();
     private final AbstractAction bibtexKeyPattern = new BibtexKeyPatternAction();
@@ -1318,6 +1321,7 @@ public class JabRefFrame extends JFrame implements OutputPrinter {
         tools.add(abbreviateIso);
         tools.add(abbreviateMedline);
         tools.add(unabbreviate);
+        tools.add(enrichFromIdentifiers);
         tools.addSeparator();
         checkAndFix.add(autoSetPdf);
         checkAndFix.add(autoSetPs);
@@ -1537,7 +1541,7 @@ public class JabRefFrame extends JFrame implements OutputPrinter {
                 highlightAny, newEntryAction, plainTextImport, massSetField, manageKeywords,
                 closeDatabaseAction, switchPreview, integrityCheckAction, autoSetPdf, autoSetPs,
                 toggleHighlightAny, toggleHighlightAll, databaseProperties, abbreviateIso,
-                abbreviateMedline, unabbreviate, exportAll, exportSelected,
+                abbreviateMedline, unabbreviate, enrichFromIdentifiers, exportAll, exportSelected,
                 importCurrent, saveAll, dbConnect, dbExport, focusTable));
 
         openDatabaseOnlyActions.addAll(fetcherActions);
@@ -2211,16 +2215,14 @@ public class JabRefFrame extends JFrame implements OutputPrinter {
                     }
                     int i0 = tabbedPane.getTabCount();
                     String[] names = prefs.getStringArray("savedSession");
-                    for (int i = 0; i < names.length; i++) {
-                        if (!currentFiles.contains(names[i])) {
-                            File file = new File(names[i]);
-                            if (file.exists()) {
-                                //Util.pr("Opening last edited file:"
-                                //+fileToOpen.getName());
-                                open.openIt(file, i == 0);
-                            }
+                    List<File> files = new ArrayList<>();
+                    for (String name : names) {
+                        if (!currentFiles.contains(name)) {
+                            files.add(new File(name));
                         }
                     }
+                    // the files are parsed in parallel
+                    open.openFiles(files, (names.length > 0) && !currentFiles.contains(names[0]));
                     output(Localization.lang("Files opened") + ": " +
                             (tabbedPane.getTabCount() - i0));
                     running = false;
@@ -15,6 +15,7 @@
 */
 package net.sf.jabref.gui;
 
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.Globals;
 import net.sf.jabref.JabRefPreferences;
@@ -35,6 +36,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 public class SearchManager extends SidePaneComponent
@@ -550,6 +553,8 @@ public class SearchManager extends SidePaneComponent
 
         private final SearchRule rule;
         private final String searchTerm;
+        // the hits of each searched database
+        private final Map<BasePanel, EntrySet> hitsByPanel = new LinkedHashMap<>();
         int hits;
 
         public SearchWorker(SearchRule rule, String searchTerm) {
@@ -561,30 +566,29 @@ public class SearchManager extends SidePaneComponent
         public void run() {
             if (!searchAllBases.isSelected()) {
                 // Search only the current database:
-                for (BibtexEntry entry : panel.getDatabase().getEntries()) {
-
-                    boolean hit = rule.applyRule(searchTerm, entry);
-                    entry.setSearchHit(hit);
-                    if (hit) {
-                        hits++;
-                    }
-                }
+                search(panel);
             } else {
                 // Search all databases:
                 for (int i = 0; i < frame.getTabbedPane().getTabCount(); i++) {
-                    BasePanel p = frame.baseAt(i);
-                    for (BibtexEntry entry : p.getDatabase().getEntries()) {
-
-                        boolean hit = rule.applyRule(searchTerm, entry);
-                        entry.setSearchHit(hit);
-                        if (hit) {
-                            hits++;
-                        }
-                    }
+                    search(frame.baseAt(i));
                 }
             }
         }
 
+        private void search(BasePanel p) {
+            EntrySet result = new EntrySet(p.getDatabase());
+            for (BibtexEntry entry : p.getDatabase().getEntries()) {
+
+                boolean hit = rule.applyRule(searchTerm, entry);
+                entry.setSearchHit(hit);
+                if (hit) {
+                    result.add(entry);
+                    hits++;
+                }
+            }
+            hitsByPanel.put(p, result);
+        }
+
         @Override
         public void update() {
             panel.output(Localization.lang("Searched database. Number of hits")
@@ -605,12 +609,9 @@ public class SearchManager extends SidePaneComponent
                 // Make sure the search dialog is instantiated and cleared:
                 instantiateSearchDialog();
                 searchDialog.clear();
-                for (int i = 0; i < frame.getTabbedPane().getTabCount(); i++) {
-                    BasePanel p = frame.baseAt(i);
-                    for (BibtexEntry entry : p.getDatabase().getEntries()) {
-                        if (entry.isSearchHit()) {
-                            searchDialog.addEntry(entry, p);
-                        }
+                for (Map.Entry<BasePanel, EntrySet> panelHits : hitsByPanel.entrySet()) {
+                    for (BibtexEntry entry : panelHits.getValue().getEntries()) {
+                        searchDialog.addEntry(entry, panelHits.getKey());
                     }
                 }
                 searchDialog.selectFirstEntry();
@@ -628,10 +629,8 @@ public class SearchManager extends SidePaneComponent
                 // Make sure the search dialog is instantiated and cleared:
                 instantiateSearchDialog();
                 searchDialog.clear();
-                for (BibtexEntry entry : panel.getDatabase().getEntries()) {
-                    if (entry.isSearchHit()) {
-                        searchDialog.addEntry(entry, panel);
-                    }
+                for (BibtexEntry entry : hitsByPanel.get(panel).getEntries()) {
+                    searchDialog.addEntry(entry, panel);
                 }
                 searchDialog.selectFirstEntry();
                 searchDialog.setVisible(true);
@@ -642,7 +641,7 @@ public class SearchManager extends SidePaneComponent
                     startedFloatSearch = false;
                 }
                 startedFilterSearch = true;
-                panel.setSearchMatcher(new SearchMatcher());
+                panel.setSearchMatcher(new SearchMatcher(hitsByPanel.get(panel)));
 
             } else {
                 // Float search - floats hits to the top of the table:
@@ -651,7 +650,7 @@ public class SearchManager extends SidePaneComponent
                     startedFilterSearch = false;
                 }
                 startedFloatSearch = true;
-                panel.mainTable.showFloatSearch(new SearchMatcher());
+                panel.mainTable.showFloatSearch(new SearchMatcher(hitsByPanel.get(panel)));
 
             }
 
@@ -27,6 +27,7 @@ public class Actions {
     public static final String EDIT = "edit";
     public static final String EDIT_PREAMBLE = "editPreamble";
     public static final String EDIT_STRINGS = "editStrings";
+    public static final String ENRICH_FROM_IDENTIFIERS = "enrichFromIdentifiers";
     public static final String EXPORT_TO_CLIPBOARD = "exportToClipboard";
     public static final String FOCUS_TABLE = "focusTable";
     public static final String FORWARD = "forward";
@@ -0,0 +1,103 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.gui.actions;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.gui.BasePanel;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.gui.worker.AbstractWorker;
+import net.sf.jabref.importer.fetcher.IdentifierEnrichment;
+import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.model.entry.BibtexEntry;
+
+/**
+ * Completes the selected entries with the data registered for their DOI or ISBN.
+ */
+public class EnrichFromIdentifiersAction extends AbstractWorker {
+
+    private final BasePanel panel;
+    private String message = "";
+
+
+    public EnrichFromIdentifiersAction(BasePanel panel) {
+        this.panel = panel;
+    }
+
+    @Override
+    public void init() {
+        panel.output(Localization.lang("Resolving DOIs and ISBNs..."));
+    }
+
+    @Override
+    public void run() {
+        BibtexEntry[] entries = panel.getSelectedEntries();
+        if (entries == null) {
+            return;
+        }
+
+        IdentifierEnrichment enrichment = new IdentifierEnrichment(panel.database());
+        enrichment.setTitleFormatting(Globals.prefs.getBoolean(JabRefPreferences.USE_UNIT_FORMATTER_ON_SEARCH),
+                Globals.prefs.getBoolean(JabRefPreferences.USE_CASE_KEEPER_ON_SEARCH));
+        ProgressMonitor monitor = new ProgressMonitor(panel.frame(), Localization.lang("Resolving DOIs and ISBNs..."),
+                null, 0, 1);
+        List<IdentifierEnrichment.Change> changes;
+        try {
+            changes = enrichment.computeChanges(entries, (resolved, total) -> SwingUtilities.invokeLater(() -> {
+                if (monitor.isCanceled()) {
+                    enrichment.cancel();
+                } else {
+                    monitor.setMaximum(total);
+                    monitor.setProgress(resolved);
+                }
+            }));
+        } catch (IOException e) {
+            // only the progress file can fail, and none is used here
+            message = e.getMessage();
+            return;
+        } finally {
+            SwingUtilities.invokeLater(monitor::close);
+        }
+        if (changes == null) {
+            message = Localization.lang("Operation canceled.");
+            return;
+        }
+
+        NamedCompound ce = new NamedCompound(Localization.lang("Complete entries from DOI and ISBN"));
+        int count = enrichment.applyChanges(changes, ce);
+        if (count > 0) {
+            ce.end();
+            panel.undoManager.addEdit(ce);
+            panel.markBaseChanged();
+        }
+        message = Localization.lang("Added %0 fields.", String.valueOf(count));
+        if (enrichment.getFailedCount() > 0) {
+            message += ' ' + Localization.lang("%0 identifiers could not be resolved. Run again to retry them.",
+                    String.valueOf(enrichment.getFailedCount()));
+        }
+    }
+
+    @Override
+    public void update() {
+        panel.output(message);
+    }
+}
@@ -15,6 +15,8 @@
 */
 package net.sf.jabref.gui.journals;
 
+import java.util.List;
+
 import net.sf.jabref.logic.journals.Abbreviations;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.gui.BasePanel;
@@ -49,19 +51,17 @@ public class AbbreviateAction extends AbstractWorker {
             return;
         }
 
-        UndoableAbbreviator undoableAbbreviator = new UndoableAbbreviator(Abbreviations.journalAbbrev, iso);
-
-        NamedCompound ce = new NamedCompound("Abbreviate journal names");
-        int count = 0;
-        for (BibtexEntry entry : entries) {
-            if (undoableAbbreviator.abbreviate(panel.database(), entry, "journal", ce)) {
-                count++;
-            }
-            if (undoableAbbreviator.abbreviate(panel.database(), entry, "journaltitle", ce)) {
-                count++;
-            }
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.abbreviating(panel.database(),
+                Abbreviations.getJournalAbbreviations(), iso);
+        List<JournalAbbreviationBatch.Change> changes = batch.computeChanges(entries, panel.frame(),
+                Localization.lang("Abbreviating journal names"));
+        if (changes == null) {
+            message = Localization.lang("Operation canceled.");
+            return;
         }
 
+        NamedCompound ce = new NamedCompound("Abbreviate journal names");
+        int count = batch.applyChanges(changes, ce);
         if (count > 0) {
             ce.end();
             panel.undoManager.addEdit(ce);
@@ -0,0 +1,236 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.gui.journals;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.gui.undo.UndoableBulkFieldChange;
+import net.sf.jabref.logic.journals.JournalAbbreviationRepository;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+
+/**
+ * Abbreviates or unabbreviates the journal names of many entries at once.
+ *
+ * The new names are looked up in parallel without touching the entries. Each distinct
+ * journal name is looked up only once, since large databases typically contain the same
+ * few hundred journals many times. The changes are then applied in one go as a single
+ * bulk change of the database, see {@link BibtexDatabase#runBulkChange(Runnable)}, and
+ * recorded in one compound edit.
+ */
+public class JournalAbbreviationBatch {
+
+    public static final List<String> JOURNAL_FIELDS = Arrays.asList("journal", "journaltitle");
+
+    private static final int CHUNK_SIZE = 1000;
+    // the number of entries after which a worker reports its progress
+    private static final int PROGRESS_STEP = 100;
+
+    private final BibtexDatabase database;
+    // maps the field content to its new content, null if the content is to be kept
+    private final Function<String, String> conversion;
+    private final Map<String, Optional<String>> converted = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+
+    private JournalAbbreviationBatch(BibtexDatabase database, Function<String, String> conversion) {
+        this.database = database;
+        this.conversion = conversion;
+    }
+
+    public static JournalAbbreviationBatch abbreviating(BibtexDatabase database,
+            JournalAbbreviationRepository repository, boolean iso) {
+        UndoableAbbreviator abbreviator = new UndoableAbbreviator(repository, iso);
+        return new JournalAbbreviationBatch(database, text -> abbreviator.getAbbreviatedText(database, text));
+    }
+
+    public static JournalAbbreviationBatch unabbreviating(BibtexDatabase database,
+            JournalAbbreviationRepository repository) {
+        UndoableUnabbreviator unabbreviator = new UndoableUnabbreviator(repository);
+        return new JournalAbbreviationBatch(database, text -> unabbreviator.getUnabbreviatedText(database, text));
+    }
+
+    /**
+     * A pending change of one journal field.
+     */
+    public static class Change {
+
+        private final BibtexEntry entry;
+        private final String field;
+        private final String oldValue;
+        private final String newValue;
+
+
+        Change(BibtexEntry entry, String field, String oldValue, String newValue) {
+            this.entry = entry;
+            this.field = field;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public BibtexEntry getEntry() {
+            return entry;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        public String getNewValue() {
+            return newValue;
+        }
+    }
+
+
+    /**
+     * Computes the changes of the journal fields of the given entries. The entries are not modified.
+     *
+     * @param progress is called with the number of entries processed so far, possibly from several threads
+     * @return the changes in entry order, or null if the batch has been cancelled
+     */
+    public List<Change> computeChanges(BibtexEntry[] entries, IntConsumer progress) {
+        AtomicInteger processed = new AtomicInteger();
+        List<Future<List<Change>>> chunks = new ArrayList<>();
+        for (int start = 0; start < entries.length; start += JournalAbbreviationBatch.CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(entries.length, start + JournalAbbreviationBatch.CHUNK_SIZE);
+            chunks.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                List<Change> changes = new ArrayList<>();
+                int reported = from;
+                for (int i = from; (i < to) && !cancelled; i++) {
+                    addChanges(entries[i], changes);
+                    if (((i + 1 - reported) == JournalAbbreviationBatch.PROGRESS_STEP) || ((i + 1) == to)) {
+                        progress.accept(processed.addAndGet(i + 1 - reported));
+                        reported = i + 1;
+                    }
+                }
+                return changes;
+            }));
+        }
+
+        List<Change> result = new ArrayList<>();
+        try {
+            for (Future<List<Change>> chunk : chunks) {
+                result.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } finally {
+            if (cancelled) {
+                for (Future<List<Change>> chunk : chunks) {
+                    chunk.cancel(true);
+                }
+            }
+        }
+        return cancelled ? null : result;
+    }
+
+    /**
+     * Computes the changes like {@link #computeChanges(BibtexEntry[], IntConsumer)}, showing the
+     * progress in a monitor which allows the user to cancel the batch.
+     */
+    public List<Change> computeChanges(BibtexEntry[] entries, Component parent, String message) {
+        ProgressMonitor monitor = new ProgressMonitor(parent, message, null, 0, entries.length);
+        // the workers stop as soon as the user cancels, not only when they report their progress
+        Timer cancelPolling = new Timer(100, e -> {
+            if (monitor.isCanceled()) {
+                cancel();
+            }
+        });
+        cancelPolling.start();
+        try {
+            return computeChanges(entries,
+                    processed -> SwingUtilities.invokeLater(() -> monitor.setProgress(processed)));
+        } finally {
+            cancelPolling.stop();
+            SwingUtilities.invokeLater(monitor::close);
+        }
+    }
+
+    private void addChanges(BibtexEntry entry, List<Change> changes) {
+        for (String field : JournalAbbreviationBatch.JOURNAL_FIELDS) {
+            String oldValue = entry.getField(field);
+            if (oldValue == null) {
+                continue;
+            }
+            Optional<String> newValue = converted.computeIfAbsent(oldValue,
+                    text -> Optional.ofNullable(conversion.apply(text)));
+            if (newValue.isPresent()) {
+                changes.add(new Change(entry, field, oldValue, newValue.get()));
+            }
+        }
+    }
+
+    /**
+     * Applies the given changes as one bulk change of the database.
+     *
+     * @param ce receives a single edit for all changes, which is undone and redone as bulk change as well
+     * @return the number of changed fields
+     */
+    public int applyChanges(List<Change> changes, NamedCompound ce) {
+        UndoableBulkFieldChange edit = new UndoableBulkFieldChange(database, ce.getNameOnly());
+        database.runBulkChange(() -> {
+            for (Change change : changes) {
+                change.getEntry().setField(change.getField(), change.getNewValue());
+                edit.addChange(change.getEntry(), change.getField(), change.getOldValue(), change.getNewValue());
+            }
+        });
+        edit.end();
+        if (edit.hasChanges()) {
+            ce.addEdit(edit);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Stops the computation of the changes, can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
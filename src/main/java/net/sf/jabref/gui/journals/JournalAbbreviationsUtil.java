@@ -39,7 +39,7 @@ public class JournalAbbreviationsUtil {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 String text = editor.getText();
-                if (Abbreviations.journalAbbrev.isKnownName(text)) {
+                if (Abbreviations.getJournalAbbreviations().isKnownName(text)) {
                     String s = toggleAbbreviation(text);
 
                     if (s != null) {
@@ -52,7 +52,7 @@ public class JournalAbbreviationsUtil {
             }
 
             public String toggleAbbreviation(String currentText) {
-                return Abbreviations.journalAbbrev.getNextAbbreviation(currentText).orElse(currentText);
+                return Abbreviations.getJournalAbbreviations().getNextAbbreviation(currentText).orElse(currentText);
             }
         });
 
@@ -15,6 +15,8 @@
 */
 package net.sf.jabref.gui.journals;
 
+import java.util.List;
+
 import net.sf.jabref.gui.worker.AbstractWorker;
 import net.sf.jabref.gui.BasePanel;
 import net.sf.jabref.logic.journals.Abbreviations;
@@ -47,18 +49,17 @@ public class UnabbreviateAction extends AbstractWorker {
             return;
         }
 
-        UndoableUnabbreviator undoableAbbreviator = new UndoableUnabbreviator(Abbreviations.journalAbbrev);
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.unabbreviating(panel.database(),
+                Abbreviations.getJournalAbbreviations());
+        List<JournalAbbreviationBatch.Change> changes = batch.computeChanges(entries, panel.frame(),
+                Localization.lang("Unabbreviating journal names"));
+        if (changes == null) {
+            message = Localization.lang("Operation canceled.");
+            return;
+        }
 
         NamedCompound ce = new NamedCompound("Unabbreviate journal names");
-        int count = 0;
-        for (BibtexEntry entry : entries) {
-            if (undoableAbbreviator.unabbreviate(panel.database(), entry, "journal", ce)) {
-                count++;
-            }
-            if (undoableAbbreviator.unabbreviate(panel.database(), entry, "journaltitle", ce)) {
-                count++;
-            }
-        }
+        int count = batch.applyChanges(changes, ce);
         if (count > 0) {
             ce.end();
             panel.undoManager.addEdit(ce);
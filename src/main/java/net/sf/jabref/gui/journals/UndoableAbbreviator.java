@@ -6,6 +6,8 @@ import net.sf.jabref.logic.journals.Abbreviation;
 import net.sf.jabref.logic.journals.JournalAbbreviationRepository;
 import net.sf.jabref.gui.undo.UndoableFieldChange;
 
+import java.util.Optional;
+
 import javax.swing.undo.CompoundEdit;
 
 public class UndoableAbbreviator {
@@ -29,28 +31,44 @@ public class UndoableAbbreviator {
      * @return true if the entry was changed, false otherwise.
      */
     public boolean abbreviate(BibtexDatabase database, BibtexEntry entry, String fieldName, CompoundEdit ce) {
-        String text = entry.getField(fieldName);
-        if (text == null) {
+        String origText = entry.getField(fieldName);
+        if (origText == null) {
             return false;
         }
-        String origText = text;
+
+        String newText = getAbbreviatedText(database, origText);
+        if (newText == null) {
+            return false;
+        }
+
+        entry.setField(fieldName, newText);
+        ce.addEdit(new UndoableFieldChange(entry, fieldName, origText, newText));
+        return true;
+    }
+
+    /**
+     * Abbreviate the given journal name without changing any entry. Safe to be called concurrently.
+     *
+     * @param database The database used to resolve string references, or null if no database.
+     * @param origText The field content.
+     * @return the abbreviated name, or null if the name is unknown or already abbreviated this way.
+     */
+    public String getAbbreviatedText(BibtexDatabase database, String origText) {
+        String text = origText;
         if (database != null) {
             text = database.resolveForStrings(text);
         }
 
-        if (!journalAbbreviationRepository.isKnownName(text)) {
-            return false; // unknown, cannot un/abbreviate anything
+        Optional<Abbreviation> abbreviation = journalAbbreviationRepository.getAbbreviation(text);
+        if (!abbreviation.isPresent()) {
+            return null; // unknown, cannot un/abbreviate anything
         }
 
-        String newText = getAbbreviatedName(journalAbbreviationRepository.getAbbreviation(text).get());
-
+        String newText = getAbbreviatedName(abbreviation.get());
         if (newText.equals(origText)) {
-            return false;
+            return null;
         }
-
-        entry.setField(fieldName, newText);
-        ce.addEdit(new UndoableFieldChange(entry, fieldName, origText, newText));
-        return true;
+        return newText;
     }
 
     private String getAbbreviatedName(Abbreviation text) {
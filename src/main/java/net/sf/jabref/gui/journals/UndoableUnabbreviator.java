@@ -26,28 +26,44 @@ public class UndoableUnabbreviator {
      * @return true if the entry was changed, false otherwise.
      */
     public boolean unabbreviate(BibtexDatabase database, BibtexEntry entry, String fieldName, CompoundEdit ce) {
-        String text = entry.getField(fieldName);
-        if (text == null) {
+        String origText = entry.getField(fieldName);
+        if (origText == null) {
             return false;
         }
-        String origText = text;
+
+        String newText = getUnabbreviatedText(database, origText);
+        if (newText == null) {
+            return false;
+        }
+
+        entry.setField(fieldName, newText);
+        ce.addEdit(new UndoableFieldChange(entry, fieldName, origText, newText));
+        return true;
+    }
+
+    /**
+     * Unabbreviate the given journal name without changing any entry. Safe to be called concurrently.
+     *
+     * @param database The database used to resolve string references, or null if no database.
+     * @param origText The field content.
+     * @return the full name, or null if the name is unknown or not abbreviated.
+     */
+    public String getUnabbreviatedText(BibtexDatabase database, String origText) {
+        String text = origText;
         if (database != null) {
             text = database.resolveForStrings(text);
         }
 
         if (!journalAbbreviationRepository.isKnownName(text)) {
-            return false; // cannot do anything if it is not known
+            return null; // cannot do anything if it is not known
         }
 
         if (!journalAbbreviationRepository.isAbbreviatedName(text)) {
-            return false; // cannot unabbreviate unabbreviated name.
+            return null; // cannot unabbreviate unabbreviated name.
         }
 
         Abbreviation abbreviation = journalAbbreviationRepository.getAbbreviation(text).get(); // must be here
-        String newText = abbreviation.getName();
-        entry.setField(fieldName, newText);
-        ce.addEdit(new UndoableFieldChange(entry, fieldName, origText, newText));
-        return true;
+        return abbreviation.getName();
     }
 
 }
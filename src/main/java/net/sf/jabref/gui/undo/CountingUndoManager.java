@@ -15,42 +15,116 @@
 */
 package net.sf.jabref.gui.undo;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoManager;
 import javax.swing.undo.UndoableEdit;
 
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.gui.BasePanel;
 
+/**
+ * The undo history of a database. Besides the number of edits, the memory held by the edits
+ * is limited: when the estimated size exceeds the limit, the oldest edits are discarded. The
+ * most recent edit is always kept, however large it is.
+ */
 public class CountingUndoManager extends UndoManager {
 
+    // rough size in bytes of an edit without its field values
+    private static final int EDIT_SIZE = 64;
+
     private int unchangedPoint;
     private int current;
     private BasePanel panel;
 
+    private long memoryLimit;
+    // the estimated sizes of the edits, computed once when they are added
+    private Map<UndoableEdit, Long> sizes = new IdentityHashMap<>();
+
 
     public CountingUndoManager(BasePanel basePanel) {
         super();
         panel = basePanel;
+        memoryLimit = Globals.prefs.getInt(JabRefPreferences.UNDO_MEMORY_LIMIT_MB) * 1024L * 1024L;
     }
 
     @Override
     public synchronized boolean addEdit(UndoableEdit edit) {
         current++;
-        return super.addEdit(edit);
+        boolean added = super.addEdit(edit);
+        trimToMemoryLimit();
+        return added;
+    }
+
+    /**
+     * Sets the maximum estimated size in bytes of the edits kept for undo.
+     */
+    public synchronized void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+        trimToMemoryLimit();
+    }
+
+    /**
+     * Returns the estimated size in bytes of the edits which can be undone or redone.
+     */
+    public synchronized long getEstimatedSize() {
+        Map<UndoableEdit, Long> current = new IdentityHashMap<>();
+        long total = 0;
+        for (UndoableEdit edit : edits) {
+            Long size = sizes.get(edit);
+            if (size == null) {
+                size = CountingUndoManager.estimateSize(edit);
+            }
+            current.put(edit, size);
+            total += size;
+        }
+        // forget the edits which have been discarded
+        sizes = current;
+        return total;
+    }
+
+    /**
+     * Discards the oldest edits until the memory limit is kept. Only edits which have been
+     * done are discarded, so that the remaining ones can still be redone in order.
+     */
+    private void trimToMemoryLimit() {
+        long total = getEstimatedSize();
+        while ((total > memoryLimit) && (edits.size() > 1) && edits.get(0).canUndo()) {
+            total -= sizes.remove(edits.get(0));
+            trimEdits(0, 0);
+        }
+    }
+
+    static long estimateSize(UndoableEdit edit) {
+        if (edit instanceof UndoableBulkFieldChange) {
+            return ((UndoableBulkFieldChange) edit).getEstimatedSize();
+        } else if (edit instanceof UndoableFieldChange) {
+            return EDIT_SIZE + ((UndoableFieldChange) edit).getEstimatedValueSize();
+        } else if (edit instanceof NamedCompound) {
+            return EDIT_SIZE + ((NamedCompound) edit).getEstimatedSize();
+        }
+        return EDIT_SIZE;
     }
 
     @Override
     public synchronized void undo() throws CannotUndoException {
         super.undo();
         current--;
-        panel.updateEntryEditorIfShowing();
+        if (panel != null) {
+            panel.updateEntryEditorIfShowing();
+        }
     }
 
     @Override
     public synchronized void redo() throws CannotUndoException {
         super.redo();
         current++;
-        panel.updateEntryEditorIfShowing();
+        if (panel != null) {
+            panel.updateEntryEditorIfShowing();
+        }
     }
 
     public synchronized void markUnchanged() {
@@ -51,6 +51,17 @@ public class NamedCompound extends CompoundEdit {
         return Localization.lang("Redo") + ": " + name;
     }
 
+    /**
+     * Returns the estimated size in bytes of the edits of this compound.
+     */
+    long getEstimatedSize() {
+        long size = 0;
+        for (UndoableEdit edit : edits) {
+            size += CountingUndoManager.estimateSize(edit);
+        }
+        return size;
+    }
+
     /**
      * Returns the name of this compound, without the Undo or Redo prefix.
      */
@@ -0,0 +1,184 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.gui.undo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.undo.AbstractUndoableEdit;
+
+import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The changes of many fields made by one bulk operation, e.g. a cleanup of all entries.
+ *
+ * Instead of one {@link UndoableFieldChange} per field, the changes are stored column by
+ * column in arrays, with the field names replaced by small ids. The values are the strings
+ * held by the entries, they are not copied. Undo and redo run as a single bulk change of the
+ * database, see {@link BibtexDatabase#runBulkChange(Runnable)}.
+ */
+public class UndoableBulkFieldChange extends AbstractUndoableEdit {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log LOGGER = LogFactory.getLog(UndoableBulkFieldChange.class);
+
+    // rough sizes in bytes, for the estimate of the memory held by the undo history
+    private static final int ARRAY_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int STRING_OVERHEAD = 40;
+
+    private final BibtexDatabase database;
+    private final String name;
+
+    private final Map<String, Short> fieldIds = new HashMap<>();
+    private String[] fields = new String[4];
+
+    private int size;
+    private BibtexEntry[] entries = new BibtexEntry[16];
+    private short[] fieldColumn = new short[16];
+    private String[] oldValues = new String[16];
+    private String[] newValues = new String[16];
+
+
+    public UndoableBulkFieldChange(BibtexDatabase database, String name) {
+        this.database = database;
+        this.name = name;
+    }
+
+    /**
+     * Records a change which has already been made. Values can be null.
+     */
+    public void addChange(BibtexEntry entry, String field, String oldValue, String newValue) {
+        if (size == entries.length) {
+            int capacity = size * 2;
+            entries = Arrays.copyOf(entries, capacity);
+            fieldColumn = Arrays.copyOf(fieldColumn, capacity);
+            oldValues = Arrays.copyOf(oldValues, capacity);
+            newValues = Arrays.copyOf(newValues, capacity);
+        }
+        entries[size] = entry;
+        fieldColumn[size] = getFieldId(field);
+        oldValues[size] = oldValue;
+        newValues[size] = newValue;
+        size++;
+    }
+
+    private short getFieldId(String field) {
+        Short id = fieldIds.get(field);
+        if (id == null) {
+            if (fieldIds.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many different fields in one edit");
+            }
+            id = (short) fieldIds.size();
+            if (id == fields.length) {
+                fields = Arrays.copyOf(fields, fields.length * 2);
+            }
+            fields[id] = field;
+            fieldIds.put(field, id);
+        }
+        return id;
+    }
+
+    /**
+     * Releases the spare capacity of the arrays, to be called when all changes have been added.
+     */
+    public void end() {
+        entries = Arrays.copyOf(entries, size);
+        fieldColumn = Arrays.copyOf(fieldColumn, size);
+        oldValues = Arrays.copyOf(oldValues, size);
+        newValues = Arrays.copyOf(newValues, size);
+        fields = Arrays.copyOf(fields, fieldIds.size());
+    }
+
+    public boolean hasChanges() {
+        return size > 0;
+    }
+
+    public int getChangeCount() {
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the memory in bytes held by this edit, counting the values as
+     * if they were not shared with the entries.
+     */
+    public long getEstimatedSize() {
+        long bytes = (4L * ARRAY_OVERHEAD) + ((long) entries.length * ((3 * REFERENCE_SIZE) + 2));
+        for (int i = 0; i < size; i++) {
+            bytes += UndoableBulkFieldChange.estimateSize(oldValues[i])
+                    + UndoableBulkFieldChange.estimateSize(newValues[i]);
+        }
+        return bytes;
+    }
+
+    static long estimateSize(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + (2L * value.length());
+    }
+
+    @Override
+    public String getPresentationName() {
+        return name;
+    }
+
+    @Override
+    public String getUndoPresentationName() {
+        return Localization.lang("Undo") + ": " + name;
+    }
+
+    @Override
+    public String getRedoPresentationName() {
+        return Localization.lang("Redo") + ": " + name;
+    }
+
+    @Override
+    public void undo() {
+        super.undo();
+        database.runBulkChange(() -> {
+            for (int i = size - 1; i >= 0; i--) {
+                setField(entries[i], fields[fieldColumn[i]], oldValues[i]);
+            }
+        });
+    }
+
+    @Override
+    public void redo() {
+        super.redo();
+        database.runBulkChange(() -> {
+            for (int i = 0; i < size; i++) {
+                setField(entries[i], fields[fieldColumn[i]], newValues[i]);
+            }
+        });
+    }
+
+    private static void setField(BibtexEntry entry, String field, String value) {
+        try {
+            if (value == null) {
+                entry.clearField(field);
+            } else {
+                entry.setField(field, value);
+            }
+        } catch (IllegalArgumentException ex) {
+            // a listener rejected the change, as in UndoableFieldChange the other changes are made anyway
+            LOGGER.info("Cannot perform undo", ex);
+        }
+    }
+}
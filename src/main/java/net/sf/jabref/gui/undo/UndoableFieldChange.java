@@ -48,6 +48,13 @@ public class UndoableFieldChange extends AbstractUndoableEdit {
         this.newValue = newValue;
     }
 
+    /**
+     * Returns the estimated size in bytes of the old and new value.
+     */
+    long getEstimatedValueSize() {
+        return UndoableBulkFieldChange.estimateSize(oldValue) + UndoableBulkFieldChange.estimateSize(newValue);
+    }
+
     @Override
     public String getPresentationName() {
         return Localization.lang("change field");
@@ -89,6 +89,19 @@ public abstract class EntryFromFileCreator implements java.io.FileFilter {
             return null;
         }
 
+        return completeEntry(newEntry, f, addPathTokensAsKeywords);
+    }
+
+    /**
+     * Adds the information regarding the given File to a BibtexEntry that has
+     * been created for it elsewhere, for instance from metadata read in bulk.
+     * 
+     * @param newEntry
+     * @param f
+     * @param addPathTokensAsKeywords
+     * @return the given entry
+     */
+    public BibtexEntry completeEntry(BibtexEntry newEntry, File f, boolean addPathTokensAsKeywords) {
         if (addPathTokensAsKeywords) {
             appendToField(newEntry, "keywords", extractPathesToKeyWordsfield(f.getAbsolutePath()));
         }
@@ -15,9 +15,13 @@ import net.sf.jabref.external.ExternalFileType;
 import net.sf.jabref.gui.BasePanel;
 import net.sf.jabref.gui.undo.UndoableInsertEntry;
 import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.logic.xmp.XMPBulkReader;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryType;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import spl.PdfImporter;
 
 /**
  * The class EntryFromFileCreatorManager manages entry creators. 
@@ -30,6 +34,8 @@ import net.sf.jabref.model.entry.BibtexEntryType;
  */
 public final class EntryFromFileCreatorManager {
 
+    private static final Log LOGGER = LogFactory.getLog(EntryFromFileCreatorManager.class);
+
     private final List<EntryFromFileCreator> entryCreators;
 
 
@@ -102,6 +108,10 @@ public final class EntryFromFileCreatorManager {
     /**
      * Tries to add a entry for each file in the List.
      * 
+     * The metadata of the PDF files is read concurrently first. As soon as a
+     * file has been read, the user chooses how to import it, the metadata being
+     * offered as one of the choices. The other files are imported afterwards.
+     * 
      * @param files
      * @param database
      * @param panel
@@ -117,41 +127,44 @@ public final class EntryFromFileCreatorManager {
             boolean generateKeywordsFromPathToFile,
             ChangeListener changeListener, List<String> importGUIMessages) {
 
-        int count = 0;
         CompoundEdit ce = new CompoundEdit();
+        List<File> pdfFiles = new ArrayList<File>();
+        List<File> otherFiles = new ArrayList<File>();
+        EntryFromPDFCreator pdfCreator = null;
         for (File f : files) {
+            EntryFromFileCreator creator = getEntryCreator(f);
+            if (creator instanceof EntryFromPDFCreator) {
+                pdfCreator = (EntryFromPDFCreator) creator;
+                pdfFiles.add(f);
+            } else {
+                otherFiles.add(f);
+            }
+        }
+
+        int[] count = {0};
+        if (pdfCreator != null) {
+            EntryFromPDFCreator creator = pdfCreator;
+            PdfImporter pdfImporter = EntryFromPDFCreator.createImporter();
+            new XMPBulkReader().read(pdfFiles, (f, entries, error) -> {
+                for (BibtexEntry entry : creator.createEntries(f, entries, pdfImporter,
+                        generateKeywordsFromPathToFile)) {
+                    if (addEntry(f, entry, database, panel, entryType, ce, importGUIMessages)) {
+                        count[0]++;
+                    }
+                }
+                if (changeListener != null) {
+                    changeListener.stateChanged(new ChangeEvent(this));
+                }
+            });
+        }
+
+        for (File f : otherFiles) {
             EntryFromFileCreator creator = getEntryCreator(f);
             if (creator != null) {
                 BibtexEntry entry = creator.createEntry(f,
                         generateKeywordsFromPathToFile);
-                if (entry == null) {
-                    importGUIMessages.add("Problem importing " + f.getPath()
-                            + ": Entry could not be created.");
-                    continue;
-                }
-                if (entryType != null) {
-                    entry.setType(entryType);
-                }
-                if (entry.getId() == null) {
-                    entry.setId(IdGenerator.next());
-                }
-                /*
-                 * TODO: database.insertEntry(BibtexEntry) is not sensible. Why
-                 * does 'true' mean "There were duplicates", while 'false' means
-                 * "Everything alright"?
-                 */
-                if (database.getEntryById(entry.getId()) == null) {
-                    // Work around SIDE EFFECT of creator.createEntry. The EntryFromPDFCreator also creates the entry in the table
-                    // Therefore, we only insert the entry if it is not already present
-                    if (database.insertEntry(entry)) {
-                        importGUIMessages.add("Problem importing " + f.getPath()
-                                + ": Insert into BibtexDatabase failed.");
-                    } else {
-                        count++;
-                        if (panel != null) {
-                            ce.addEdit(new UndoableInsertEntry(database, entry, panel));
-                        }
-                    }
+                if (addEntry(f, entry, database, panel, entryType, ce, importGUIMessages)) {
+                    count[0]++;
                 }
             } else {
                 importGUIMessages.add("Problem importing " + f.getPath()
@@ -163,14 +176,53 @@ public final class EntryFromFileCreatorManager {
             }
         }
 
-        System.out.println("count = " + count);
-        if (count > 0 && panel != null) {
-            System.out.println("adding edit");
+        LOGGER.debug("Imported " + count[0] + " entries from files");
+        if (count[0] > 0 && panel != null) {
             ce.end();
             panel.undoManager.addEdit(ce);
         }
-        return count;
+        return count[0];
+
+    }
 
+    /**
+     * Inserts the entry created for the file into the database.
+     * 
+     * @return true if the entry has been added
+     */
+    private boolean addEntry(File f, BibtexEntry entry, BibtexDatabase database,
+            BasePanel panel, BibtexEntryType entryType, CompoundEdit ce,
+            List<String> importGUIMessages) {
+        if (entry == null) {
+            importGUIMessages.add("Problem importing " + f.getPath()
+                    + ": Entry could not be created.");
+            return false;
+        }
+        if (entryType != null) {
+            entry.setType(entryType);
+        }
+        if (entry.getId() == null) {
+            entry.setId(IdGenerator.next());
+        }
+        /*
+         * TODO: database.insertEntry(BibtexEntry) is not sensible. Why
+         * does 'true' mean "There were duplicates", while 'false' means
+         * "Everything alright"?
+         */
+        if (database.getEntryById(entry.getId()) != null) {
+            // Work around SIDE EFFECT of creator.createEntry. The EntryFromPDFCreator also creates the entry in the table
+            // Therefore, we only insert the entry if it is not already present
+            return false;
+        }
+        if (database.insertEntry(entry)) {
+            importGUIMessages.add("Problem importing " + f.getPath()
+                    + ": Insert into BibtexDatabase failed.");
+            return false;
+        }
+        if (panel != null) {
+            ce.addEdit(new UndoableInsertEntry(database, entry, panel));
+        }
+        return true;
     }
 
     /**
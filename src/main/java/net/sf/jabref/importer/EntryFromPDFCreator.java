@@ -54,6 +54,31 @@ public class EntryFromPDFCreator extends EntryFromFileCreator {
         return f != null && f.getName().toUpperCase().endsWith(".PDF");
     }
 
+    /**
+     * Creates the importer asking the user how to import PDF files into the current database. The
+     * choice the user makes to not be asked again holds for all files imported by the same importer.
+     */
+    public static PdfImporter createImporter() {
+        return new PdfImporter(JabRef.jrf, JabRef.jrf.basePanel(), JabRef.jrf.basePanel().mainTable, -1);
+    }
+
+    /**
+     * Creates the entries of a PDF file whose metadata has already been read, e.g. by
+     * {@link net.sf.jabref.logic.xmp.XMPBulkReader}. As for {@link #createEntry(File, boolean)},
+     * the user chooses how to import the file.
+     *
+     * @param xmpEntries the entries found in the metadata of the file, null if there are none
+     * @return the created entries, empty if the file has only been attached to an existing entry
+     */
+    public List<BibtexEntry> createEntries(File pdfFile, List<BibtexEntry> xmpEntries, PdfImporter importer,
+            boolean addPathTokensAsKeywords) {
+        List<BibtexEntry> entries = importer.importPdfFile(pdfFile.toString(), xmpEntries, JabRef.jrf);
+        for (BibtexEntry entry : entries) {
+            completeEntry(entry, pdfFile, addPathTokensAsKeywords);
+        }
+        return entries;
+    }
+
     @Override
     protected BibtexEntry createBibtexEntry(File pdfFile) {
 
@@ -61,11 +86,11 @@ public class EntryFromPDFCreator extends EntryFromFileCreator {
             return null;
         }
 
-        PdfImporter pi = new PdfImporter(JabRef.jrf, JabRef.jrf.basePanel(), JabRef.jrf.basePanel().mainTable, -1);
+        PdfImporter pi = EntryFromPDFCreator.createImporter();
         String[] fileNames = {pdfFile.toString()};
         ImportPdfFilesResult res = pi.importPdfFiles(fileNames, JabRef.jrf);
-        assert res.entries.size() == 1;
-        return res.entries.get(0);
+        // further entries of the metadata have been added to the database by the importer
+        return res.entries.isEmpty() ? null : res.entries.get(0);
 
         /*addEntryDataFromPDDocumentInformation(pdfFile, entry);
         addEntyDataFromXMP(pdfFile, entry);
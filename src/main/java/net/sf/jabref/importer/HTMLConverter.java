@@ -15,9 +15,9 @@
 */
 package net.sf.jabref.importer;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
@@ -46,7 +46,8 @@ public class HTMLConverter implements LayoutFormatter {
     // An array of arrays of strings in the format:
     // {"decimal number of HTML entity", "text HTML entity", "corresponding LaTeX command"}
     // Leaving a field empty is OK as it then will not be included
-    private final String[][] conversionList = new String[][] {{"160", "nbsp", "\\{~\\}"}, // no-break space = non-breaking space, 
+    // The LaTeX commands are escaped like a regular expression replacement, i.e., "\\{" stands for "{"
+    private static final String[][] CONVERSION_LIST = new String[][] {{"160", "nbsp", "\\{~\\}"}, // no-break space = non-breaking space, 
             //                                 U+00A0 ISOnum 
             {"161", "iexcl", "\\{\\\\textexclamdown\\}"}, // inverted exclamation mark, U+00A1 ISOnum
             {"162", "cent", "\\{\\\\textcent\\}"}, // cent sign, U+00A2 ISOnum  
@@ -676,7 +677,7 @@ public class HTMLConverter implements LayoutFormatter {
     };
 
     // List of combining accents
-    private final String[][] accentList = new String[][] {{"768", "`"}, // Grave 
+    private static final String[][] ACCENT_LIST = new String[][] {{"768", "`"}, // Grave 
             {"769", "'"}, // Acute
             {"770", "\\^"}, // Circumflex
             {"771", "~"}, // Tilde
@@ -763,169 +764,320 @@ public class HTMLConverter implements LayoutFormatter {
             {"866", "sliding"}, // Double rightwards arrow below - requires extraipa
     };
 
-    private final HashMap<String, String> escapedSymbols = new HashMap<String, String>();
-    private final HashMap<Integer, String> escapedAccents = new HashMap<Integer, String>();
-    private final HashMap<Integer, String> numSymbols = new HashMap<Integer, String>();
-    private final HashMap<Character, String> unicodeSymbols = new HashMap<Character, String>();
+    private static final int MAX_TAG_LENGTH = 100;
 
+    // Longest run of digits of a numerical entity that is decoded, longer ones cannot be valid code points
+    private static final int MAX_ENTITY_DIGITS = 8;
 
-    public HTMLConverter() {
-        super();
-        for (String[] aConversionList : conversionList) {
+    private static final Pattern SUP_PATTERN = Pattern.compile("<[ ]?sup>([^<]+)</sup>");
+    private static final Pattern SUB_PATTERN = Pattern.compile("<[ ]?sub>([^<]+)</sub>");
+
+    // Text based entities, stored as a trie over the entity names
+    private static final EntityNode ENTITIES = new EntityNode();
+
+    // LaTeX commands of the code points below SYMBOLS_BY_CODE_POINT.length, the others are kept in SUPPLEMENTARY_SYMBOLS
+    private static final String[] SYMBOLS_BY_CODE_POINT;
+    private static final Map<Integer, String> SUPPLEMENTARY_SYMBOLS = new HashMap<>();
+
+    private static final Map<Integer, String> ESCAPED_ACCENTS = new HashMap<>();
+
+    static {
+        int maxCodePoint = 0;
+        for (String[] aConversionList : HTMLConverter.CONVERSION_LIST) {
+            if (!aConversionList[0].isEmpty() && (aConversionList[2].length() >= 1)) {
+                int codePoint = Integer.decode(aConversionList[0]);
+                if (codePoint <= Character.MAX_VALUE) {
+                    maxCodePoint = Math.max(maxCodePoint, codePoint);
+                }
+            }
+        }
+        SYMBOLS_BY_CODE_POINT = new String[maxCodePoint + 1];
+
+        for (String[] aConversionList : HTMLConverter.CONVERSION_LIST) {
             if (aConversionList[2].length() >= 1) {
+                String latex = HTMLConverter.unescape(aConversionList[2]);
                 if (aConversionList[1].length() >= 1) {
-                    escapedSymbols.put("&" + aConversionList[1] + ";", aConversionList[2]);
+                    HTMLConverter.ENTITIES.put(aConversionList[1], latex);
                 }
                 if (aConversionList[0].length() >= 1) {
-                    numSymbols.put(Integer.decode(aConversionList[0]), aConversionList[2]);
-                    if (Integer.decode(aConversionList[0]) > 128) {
-                        Character c = (char) Integer.decode(aConversionList[0]).intValue();
-                        unicodeSymbols.put(c, aConversionList[2]);
-                        // System.err.println(Integer.decode(conversionList[i][0]).toString() + ": " + c.toString() + ": "+ conversionList[i][2]);
+                    int codePoint = Integer.decode(aConversionList[0]);
+                    if (codePoint < HTMLConverter.SYMBOLS_BY_CODE_POINT.length) {
+                        HTMLConverter.SYMBOLS_BY_CODE_POINT[codePoint] = latex;
+                    } else {
+                        HTMLConverter.SUPPLEMENTARY_SYMBOLS.put(codePoint, latex);
                     }
                 }
             }
         }
-        for (String[] anAccentList : accentList) {
-            escapedAccents.put(Integer.decode(anAccentList[0]), anAccentList[1]);
+        for (String[] anAccentList : HTMLConverter.ACCENT_LIST) {
+            HTMLConverter.ESCAPED_ACCENTS.put(Integer.decode(anAccentList[0]), HTMLConverter.unescape(anAccentList[1]));
         }
     }
 
+
+    /**
+     * Converts all Unicode characters with a known LaTeX command, e.g. "é" to "{\'{e}}".
+     */
     public String formatUnicode(String text) {
         if (text == null) {
             return null;
         }
-        Set<Character> chars = unicodeSymbols.keySet();
-        for (Character character : chars) {
-            // System.err.println(new Integer((int) character).toString() + ": " + character.toString() + ": " + unicodeSymbols.get(character));
-            text = text.replaceAll(character.toString(), unicodeSymbols.get(character));
-        }
-
-        Integer cp;
-        for (int i = 0; i <= text.length() - 1; i++) {
-            cp = text.codePointAt(i);
-            if (cp >= 129) {
-                LOGGER.warn("Unicode character not converted: " + cp.toString());
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            String latex = cp > 128 ? HTMLConverter.getSymbol(cp) : null;
+            if (latex == null) {
+                sb.appendCodePoint(cp);
+                if (cp >= 129) {
+                    LOGGER.warn("Unicode character not converted: " + cp);
+                }
+            } else {
+                sb.append(latex);
             }
+            i += Character.charCount(cp);
         }
-        return text;
+        return sb.toString();
     }
 
+    /**
+     * Converts HTML to LaTeX: removes tags, converts sub- and superscripts and replaces text based
+     * entities, numerical entities and combining accents by the corresponding LaTeX commands.
+     *
+     * Tags and entities are converted in a single pass. Text produced by a replacement is not looked
+     * at again, so e.g. "&amp;lt;" becomes "\&lt;".
+     */
     @Override
     public String format(String text) {
         if (text == null) {
             return null;
         }
-        StringBuffer sb = new StringBuffer();
         // Deal with the form <sup>k</sup>and <sub>k</sub>
         // If the result is in text or equation form can be controlled
         // From the "Advanced settings" tab
-        if (Globals.prefs.getBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION)) {
-            text = text.replaceAll("<[ ]?sup>([^<]+)</sup>", "\\$\\^\\{$1\\}\\$");
-            text = text.replaceAll("<[ ]?sub>([^<]+)</sub>", "\\$_\\{$1\\}\\$");
-        } else {
-            text = text.replaceAll("<[ ]?sup>([^<]+)</sup>", "\\\\textsuperscript\\{$1\\}");
-            text = text.replaceAll("<[ ]?sub>([^<]+)</sub>", "\\\\textsubscript\\{$1\\}");
+        if (text.contains("sup>") || text.contains("sub>")) {
+            if (Globals.prefs.getBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION)) {
+                text = HTMLConverter.SUP_PATTERN.matcher(text).replaceAll("\\$\\^\\{$1\\}\\$");
+                text = HTMLConverter.SUB_PATTERN.matcher(text).replaceAll("\\$_\\{$1\\}\\$");
+            } else {
+                text = HTMLConverter.SUP_PATTERN.matcher(text).replaceAll("\\\\textsuperscript\\{$1\\}");
+                text = HTMLConverter.SUB_PATTERN.matcher(text).replaceAll("\\\\textsubscript\\{$1\\}");
+            }
         }
 
-        // TODO: maybe rewrite this based on regular expressions instead
-        // Note that (at least) the IEEE Xplore fetcher must be fixed as it relies on the current way to 
+        // Remove tags and replace entities in a single pass
+        // Note that (at least) the IEEE Xplore fetcher must be fixed as it relies on the current way to
         // remove tags for its image alt-tag to equation converter
+        StringBuilder sb = new StringBuilder(text.length() + 16);
         for (int i = 0; i < text.length(); i++) {
-
-            int c = text.charAt(i);
+            char c = text.charAt(i);
 
             if (c == '<') {
-                i = readTag(text, sb, i);
+                i = HTMLConverter.readTag(text, i);
+            } else if (c == '&') {
+                i = HTMLConverter.readEntity(text, sb, i);
             } else {
-                sb.append((char) c);
+                sb.append(c);
             }
+        }
+
+        // Remove $$ in case of two adjacent conversions
+        String result = sb.indexOf("$$") >= 0 ? sb.toString().replace("$$", "") : sb.toString();
+        return result.trim();
+    }
 
+    private static int readTag(String text, int position) {
+        // Have just read the < character that starts the tag.
+        int limit = Math.min(text.length(), position + HTMLConverter.MAX_TAG_LENGTH);
+        for (int index = position + 1; index < limit; index++) {
+            if (text.charAt(index) == '>') {
+                return index; // Just skip the tag.
+            }
         }
-        text = sb.toString();
+        return position; // Don't do anything.
+    }
 
-        // Handle text based HTML entities
-        Set<String> patterns = escapedSymbols.keySet();
-        for (String pattern : patterns) {
-            text = text.replaceAll(pattern, escapedSymbols.get(pattern));
+    /**
+     * Converts the entity starting with the & at the given position.
+     *
+     * @return the position of the last character read
+     */
+    private static int readEntity(String text, StringBuilder sb, int position) {
+        int next = position + 1;
+        if ((next < text.length()) && (text.charAt(next) == '#')) {
+            return HTMLConverter.readNumericalEntity(text, sb, position);
         }
 
-        // Handle numerical HTML entities
-        Pattern escapedPattern = Pattern.compile("&#([x]*)([0]*)(\\p{XDigit}+);");
-        Matcher m = escapedPattern.matcher(text);
-        while (m.find()) {
-            //      System.err.println("Found pattern: " + m.group(1));
-            //      System.err.println("Found pattern: " + m.group(2));
-            int num = Integer.decode(m.group(1).replace("x", "#") + m.group(3));
-            if (numSymbols.containsKey(num)) {
-                text = text.replaceAll("&#" + m.group(1) + m.group(2) + m.group(3) + ";", numSymbols.get(num));
+        EntityNode node = HTMLConverter.ENTITIES;
+        for (int i = next; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ';') {
+                if (node.latex != null) {
+                    sb.append(node.latex);
+                    return i;
+                }
+                break;
+            }
+            node = node.get(c);
+            if (node == null) {
+                break;
             }
         }
 
-        escapedPattern = Pattern.compile("(.)&#([x]*)([0]*)(\\p{XDigit}+);");
-        m = escapedPattern.matcher(text);
-        while (m.find()) {
-            //      System.err.println("Found pattern: " + m.group(1));
-            //      System.err.println("Found pattern: " + m.group(2));
-            int num = Integer.decode(m.group(2).replace("x", "#") + m.group(4));
-            if (escapedAccents.containsKey(num)) {
-                if (m.group(1).equals("i")) {
-                    text = text.replaceAll(m.group(1) + "&#" + m.group(2) + m.group(3) + m.group(4) + ";", "\\{\\\\" + escapedAccents.get(num) + "\\{\\\\i\\}\\}");
-                } else if (m.group(1).equals("j")) {
-                    text = text.replaceAll(m.group(1) + "&#" + m.group(2) + m.group(3) + m.group(4) + ";", "\\{\\\\" + escapedAccents.get(num) + "\\{\\\\j\\}\\}");
-                } else {
-                    text = text.replaceAll(m.group(1) + "&#" + m.group(2) + m.group(3) + m.group(4) + ";", "\\{\\\\" + escapedAccents.get(num) + "\\{" + m.group(1) + "\\}\\}");
-                }
+        HTMLConverter.warnIfUnknownEntity(text, next);
+        sb.append('&');
+        return position;
+    }
+
+    // Handles &#...; and &#x...; including combining accents, which are applied to the preceding character
+    private static int readNumericalEntity(String text, StringBuilder sb, int position) {
+        int i = position + 2;
+        boolean hex = false;
+        if ((i < text.length()) && (text.charAt(i) == 'x')) {
+            hex = true;
+            i++;
+        }
+        int digitsStart = i;
+        while ((i < text.length()) && (Character.digit(text.charAt(i), 16) >= 0)) {
+            i++;
+        }
+        if ((i == digitsStart) || (i >= text.length()) || (text.charAt(i) != ';')) {
+            sb.append('&');
+            return position;
+        }
+
+        int num = HTMLConverter.parseEntityNumber(text, digitsStart, i, hex ? 16 : 10);
+        String latex = num < 0 ? null : HTMLConverter.getSymbol(num);
+        if (latex != null) {
+            sb.append(latex);
+            return i;
+        }
+
+        String accent = num < 0 ? null : HTMLConverter.ESCAPED_ACCENTS.get(num);
+        if ((accent != null) && HTMLConverter.applyAccent(sb, accent)) {
+            return i;
+        }
+
+        LOGGER.warn("HTML escaped char not converted: " + text.substring(position + 2, i) + " = " + num);
+        sb.append(text, position, i + 1);
+        return i;
+    }
+
+    /**
+     * @return the number, or -1 if it is not a valid number in the given radix
+     */
+    private static int parseEntityNumber(String text, int start, int end, int radix) {
+        int digitsStart = start;
+        while ((digitsStart < (end - 1)) && (text.charAt(digitsStart) == '0')) {
+            digitsStart++;
+        }
+        if ((end - digitsStart) > HTMLConverter.MAX_ENTITY_DIGITS) {
+            return -1;
+        }
+        int num = 0;
+        for (int i = digitsStart; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
             }
+            num = (num * radix) + digit;
         }
+        return num;
+    }
 
-        escapedPattern = Pattern.compile("&#([x]*)([0]*)(\\p{XDigit}+);");
-        m = escapedPattern.matcher(text);
-        while (m.find()) {
-            //      System.err.println("Found pattern: " + m.group(1));
-            //      System.err.println("Found pattern: " + m.group(2));
-            int num = Integer.decode(m.group(1).replace("x", "#") + m.group(3));
-            LOGGER.warn("HTML escaped char not converted: " + m.group(1) + m.group(2) + m.group(3) + " = " + Integer.toString(num));
+    // Replaces the last character by {\accent{character}}, returns false if there is no such character
+    private static boolean applyAccent(StringBuilder sb, String accent) {
+        int length = sb.length();
+        if (length == 0) {
+            return false;
+        }
+        int cp = sb.codePointBefore(length);
+        if ((cp == '\n') || (cp == '\r') || (cp == 0x85) || (cp == 0x2028) || (cp == 0x2029)) {
+            return false;
+        }
+        sb.setLength(length - Character.charCount(cp));
+        sb.append("{\\").append(accent).append('{');
+        if (cp == 'i') {
+            sb.append("\\i");
+        } else if (cp == 'j') {
+            sb.append("\\j");
+        } else {
+            sb.appendCodePoint(cp);
         }
+        sb.append("}}");
+        return true;
+    }
 
-        // Remove $$ in case of two adjacent conversions
-        text = text.replace("$$", "");
+    private static String getSymbol(int codePoint) {
+        if (codePoint < HTMLConverter.SYMBOLS_BY_CODE_POINT.length) {
+            return HTMLConverter.SYMBOLS_BY_CODE_POINT[codePoint];
+        }
+        return HTMLConverter.SUPPLEMENTARY_SYMBOLS.get(codePoint);
+    }
 
-        // Find non-covered special characters with alphabetic codes
-        escapedPattern = Pattern.compile("&(\\w+);");
-        m = escapedPattern.matcher(text);
-        while (m.find()) {
-            LOGGER.warn("HTML escaped char not converted: " + m.group(1));
+    // Find non-covered special characters with alphabetic codes
+    private static void warnIfUnknownEntity(String text, int nameStart) {
+        int i = nameStart;
+        while ((i < text.length()) && (Character.isLetterOrDigit(text.charAt(i)) || (text.charAt(i) == '_'))) {
+            i++;
+        }
+        if ((i > nameStart) && (i < text.length()) && (text.charAt(i) == ';')) {
+            LOGGER.warn("HTML escaped char not converted: " + text.substring(nameStart, i));
         }
+    }
 
-        return text.trim();
+    /**
+     * Removes the escaping of a regular expression replacement string.
+     */
+    private static String unescape(String replacement) {
+        StringBuilder sb = new StringBuilder(replacement.length());
+        for (int i = 0; i < replacement.length(); i++) {
+            char c = replacement.charAt(i);
+            if ((c == '\\') && ((i + 1) < replacement.length())) {
+                i++;
+                c = replacement.charAt(i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
     }
 
 
-    private final int MAX_TAG_LENGTH = 100;
+    /**
+     * Node of the trie of entity names. Names are short and mostly share few prefixes, so each node
+     * keeps its children in two small parallel arrays.
+     */
+    private static final class EntityNode {
 
+        private char[] keys = new char[0];
+        private EntityNode[] children = new EntityNode[0];
+        private String latex;
 
-    /*private final int MAX_TAG_LENGTH = 30;*/
-    /*private final int MAX_CHAR_LENGTH = 10;
-    
-    private int readHtmlChar(String text, StringBuffer sb, int position) {
-        // Have just read the < character that starts the tag.
-        int index = text.indexOf(';', position);
-        if ((index > position) && (index-position < MAX_CHAR_LENGTH)) {
-            //String code = text.substring(position, index);
-            //System.out.println("Removed code: "+text.substring(position, index));
-            return index; // Just skip the tag.
-        } else return position; // Don't do anything.
-    }*/
-
-    private int readTag(String text, StringBuffer sb, int position) {
-        // Have just read the < character that starts the tag.
-        int index = text.indexOf('>', position);
-        if (index > position && index - position < MAX_TAG_LENGTH) {
-            //System.out.println("Removed tag: "+text.substring(position, index));
-            return index; // Just skip the tag.
-        } else {
-            return position; // Don't do anything.
+
+        EntityNode get(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void put(String name, String value) {
+            EntityNode node = this;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                EntityNode child = node.get(c);
+                if (child == null) {
+                    child = new EntityNode();
+                    int n = node.keys.length;
+                    node.keys = Arrays.copyOf(node.keys, n + 1);
+                    node.children = Arrays.copyOf(node.children, n + 1);
+                    node.keys[n] = c;
+                    node.children[n] = child;
+                }
+                node = child;
+            }
+            node.latex = value;
         }
     }
 }
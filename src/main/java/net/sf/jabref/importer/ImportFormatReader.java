@@ -16,7 +16,11 @@
 package net.sf.jabref.importer;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.sf.jabref.importer.fileformat.*;
 import net.sf.jabref.logic.id.IdGenerator;
@@ -37,10 +41,14 @@ public class ImportFormatReader {
      */
     private final SortedSet<ImportFormat> formats = new TreeSet<ImportFormat>();
 
+    // the formats are only built when they are first needed, as most sessions never import anything
+    private boolean initialized;
+
     private static final Log LOGGER = LogFactory.getLog(ImportFormatReader.class);
 
 
-    public void resetImportFormats() {
+    public synchronized void resetImportFormats() {
+        initialized = true;
         formats.clear();
 
         formats.add(new BiblioscapeImporter());
@@ -80,6 +88,13 @@ public class ImportFormatReader {
         }
     }
 
+    private synchronized SortedSet<ImportFormat> getFormats() {
+        if (!initialized) {
+            resetImportFormats();
+        }
+        return formats;
+    }
+
     /**
      * Format for a given CLI-ID.
      * <p>
@@ -90,7 +105,7 @@ public class ImportFormatReader {
      * @return Import Format or <code>null</code> if none matches
      */
     private ImportFormat getByCliId(String cliId) {
-        for (ImportFormat format : formats) {
+        for (ImportFormat format : getFormats()) {
             if (format.getCLIId().equals(cliId)) {
                 return format;
             }
@@ -173,7 +188,7 @@ public class ImportFormatReader {
      */
     public SortedSet<ImportFormat> getCustomImportFormats() {
         SortedSet<ImportFormat> result = new TreeSet<ImportFormat>();
-        for (ImportFormat format : formats) {
+        for (ImportFormat format : getFormats()) {
             if (format.getIsCustomImporter()) {
                 result.add(format);
             }
@@ -190,7 +205,7 @@ public class ImportFormatReader {
      */
     public SortedSet<ImportFormat> getBuiltInInputFormats() {
         SortedSet<ImportFormat> result = new TreeSet<ImportFormat>();
-        for (ImportFormat format : formats) {
+        for (ImportFormat format : getFormats()) {
             if (!format.getIsCustomImporter()) {
                 result.add(format);
             }
@@ -208,7 +223,7 @@ public class ImportFormatReader {
      * @return all custom importers, elements are of type InputFormat
      */
     public SortedSet<ImportFormat> getImportFormats() {
-        return this.formats;
+        return getFormats();
     }
 
     /**
@@ -221,7 +236,7 @@ public class ImportFormatReader {
     public String getImportFormatList() {
         StringBuilder sb = new StringBuilder();
 
-        for (ImportFormat imFo : formats) {
+        for (ImportFormat imFo : getFormats()) {
             int pad = Math.max(0, 14 - imFo.getFormatName().length());
             sb.append("  ");
             sb.append(imFo.getFormatName());
@@ -384,6 +399,13 @@ public class ImportFormatReader {
         }
     }
 
+    // stops the imports which are still running, e.g. when the calling thread is interrupted
+    private static void cancel(List<? extends Future<?>> imports) {
+        for (Future<?> future : imports) {
+            future.cancel(true);
+        }
+    }
+
 
     public static class UnknownFormatImport {
 
@@ -411,19 +433,61 @@ public class ImportFormatReader {
         // we don't use a provided OutputPrinter (such as the JabRef frame),
         // as we don't want to see any outputs from failed importers:
         // we expect failures and do not want to report them to the user
-        OutputPrinterToNull nullOutput = new OutputPrinterToNull();
+        final OutputPrinterToNull nullOutput = new OutputPrinterToNull();
+
+        // The file is read only once, all importers work on the same buffer
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(new File(filename).toPath());
+        } catch (IOException ex) {
+            return null;
+        }
+
+        // Only importers recognizing the content are tried, as in importFromFile(). Their
+        // imports run in parallel.
+        List<ImportFormat> candidates = new ArrayList<ImportFormat>();
+        List<Future<List<BibtexEntry>>> imports = new ArrayList<Future<List<BibtexEntry>>>();
+        for (final ImportFormat imFo : getImportFormats()) {
+            try {
+                if (imFo.isRecognizedFormat(new ByteArrayInputStream(content))) {
+                    candidates.add(imFo);
+                    imports.add(JabRefExecutorService.INSTANCE.submit(new Callable<List<BibtexEntry>>() {
+
+                        @Override
+                        public List<BibtexEntry> call() throws IOException {
+                            return imFo.importEntries(new ByteArrayInputStream(content), nullOutput);
+                        }
+                    }));
+                }
+            } catch (IOException ex) {
+                // The format can not be recognized. Go on.
+            }
+        }
 
         // stores ref to best result, gets updated at the next loop
         List<BibtexEntry> bestResult = null;
         int bestResultCount = 0;
         String bestFormatName = null;
 
-        // Cycle through all importers:
-        for (ImportFormat imFo : getImportFormats()) {
-
-            try {
-
-                List<BibtexEntry> entries = importFromFile(imFo, filename, nullOutput);
+        // Cycle through the results in the order of the importers, so that the first of
+        // several importers with the same number of entries wins:
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+
+                List<BibtexEntry> entries;
+                try {
+                    entries = imports.get(i).get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof IOException) {
+                        // The import didn't succeed. Go on.
+                        continue;
+                    }
+                    ImportFormatReader.cancel(imports);
+                    if (ex.getCause() instanceof Error) {
+                        throw (Error) ex.getCause();
+                    }
+                    throw (RuntimeException) ex.getCause();
+                }
 
                 int entryCount;
                 if (entries == null) {
@@ -436,11 +500,13 @@ public class ImportFormatReader {
                 if (entryCount > bestResultCount) {
                     bestResult = entries;
                     bestResultCount = bestResult.size();
-                    bestFormatName = imFo.getFormatName();
+                    bestFormatName = candidates.get(i).getFormatName();
                 }
-            } catch (IOException ex) {
-                // The import didn't succeed. Go on.
             }
+        } catch (InterruptedException ex) {
+            ImportFormatReader.cancel(imports);
+            Thread.currentThread().interrupt();
+            return null;
         }
 
         if (bestResult != null) {
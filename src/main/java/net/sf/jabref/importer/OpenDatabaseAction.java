@@ -19,10 +19,14 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.Action;
 import javax.swing.JOptionPane;
@@ -33,12 +37,14 @@ import net.sf.jabref.exporter.AutoSaveManager;
 import net.sf.jabref.exporter.SaveSession;
 import net.sf.jabref.gui.*;
 import net.sf.jabref.gui.actions.MnemonicAwareAction;
+import net.sf.jabref.groups.GroupTreeNode;
 import net.sf.jabref.migrations.FileLinksUpgradeWarning;
 import net.sf.jabref.importer.fileformat.BibtexParser;
 import net.sf.jabref.logic.l10n.Localization;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.specialfields.SpecialFieldsUtils;
+import net.sf.jabref.logic.util.StageTimer;
 import net.sf.jabref.logic.util.io.FileBasedLock;
 import net.sf.jabref.logic.util.strings.StringUtil;
 import org.apache.commons.logging.Log;
@@ -140,9 +146,7 @@ public class OpenDatabaseAction extends MnemonicAwareAction {
 
                 @Override
                 public void run() {
-                    for (File theFile : theFiles) {
-                        openIt(theFile, true);
-                    }
+                    openFiles(theFiles, true);
                 }
             });
             for (File theFile : theFiles) {
@@ -180,111 +184,198 @@ public class OpenDatabaseAction extends MnemonicAwareAction {
 
 
     public void openIt(File file, boolean raisePanel) {
-        if (file != null && file.exists()) {
-            File fileToLoad = file;
-            frame.output(Localization.lang("Opening") + ": '" + file.getPath() + "'");
-            boolean tryingAutosave = false;
-            boolean autoSaveFound = AutoSaveManager.newerAutoSaveExists(file);
-            if (autoSaveFound && !Globals.prefs.getBoolean(JabRefPreferences.PROMPT_BEFORE_USING_AUTOSAVE)) {
-                // We have found a newer autosave, and the preferences say we should load
-                // it without prompting, so we replace the fileToLoad:
-                fileToLoad = AutoSaveManager.getAutoSaveFile(file);
-                tryingAutosave = true;
-            } else if (autoSaveFound) {
-                // We have found a newer autosave, but we are not allowed to use it without
-                // prompting.
-                int answer = JOptionPane.showConfirmDialog(null, "<html>" +
-                        Localization.lang("An autosave file was found for this database. This could indicate ")
-                        + Localization.lang("that JabRef didn't shut down cleanly last time the file was used.") + "<br>"
-                        + Localization.lang("Do you want to recover the database from the autosave file?") + "</html>",
-                        Localization.lang("Recover from autosave"), JOptionPane.YES_NO_OPTION);
-                if (answer == JOptionPane.YES_OPTION) {
-                    fileToLoad = AutoSaveManager.getAutoSaveFile(file);
-                    tryingAutosave = true;
+        openFiles(Collections.singletonList(file), raisePanel);
+    }
+
+    /**
+     * Opens the given files, e.g. the ones chosen by the user or those of a saved session. The files
+     * are parsed concurrently, while their tabs are added in the given order, each one as soon as
+     * its file has been parsed.
+     *
+     * @param raisePanel whether the tab of the first opened file is selected
+     */
+    public void openFiles(List<File> files, boolean raisePanel) {
+        // questions to the user are asked one after another, before anything is parsed
+        List<OpenTask> tasks = new ArrayList<>();
+        for (File file : files) {
+            if ((file != null) && file.exists()) {
+                OpenTask task = prepare(file);
+                if (task != null) {
+                    task.start();
+                    tasks.add(task);
                 }
             }
+        }
 
-            boolean done = false;
-            while (!done) {
-                String fileName = file.getPath();
-                Globals.prefs.put(JabRefPreferences.WORKING_DIRECTORY, file.getPath());
-                // Should this be done _after_ we know it was successfully opened?
-                String encoding = Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING);
-
-                if (FileBasedLock.hasLockFile(file)) {
-                    long modTime = FileBasedLock.getLockFileTimeStamp(file);
-                    if (modTime != -1 && System.currentTimeMillis() - modTime
-                            > SaveSession.LOCKFILE_CRITICAL_AGE) {
-                        // The lock file is fairly old, so we can offer to "steal" the file:
-                        int answer = JOptionPane.showConfirmDialog(null, "<html>" + Localization.lang("Error opening file")
-                                + " '" + fileName + "'. " + Localization.lang("File is locked by another JabRef instance.")
-                                + "<p>" + Localization.lang("Do you want to override the file lock?"),
-                                Localization.lang("File locked"), JOptionPane.YES_NO_OPTION);
-                        if (answer == JOptionPane.YES_OPTION) {
-                            FileBasedLock.deleteLockFile(file);
-                        } else {
-                            return;
-                        }
-                    }
-                    else if (!FileBasedLock.waitForFileLock(file, 10)) {
-                        JOptionPane.showMessageDialog(null, Localization.lang("Error opening file")
-                                + " '" + fileName + "'. " + Localization.lang("File is locked by another JabRef instance."),
-                                Localization.lang("Error"), JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+        boolean raise = raisePanel;
+        for (OpenTask task : tasks) {
+            if (finish(task, raise)) {
+                raise = false;
+            }
+        }
+    }
 
-                }
-                ParserResult pr;
-                String errorMessage = null;
+
+    /**
+     * A file being opened.
+     */
+    private static class OpenTask {
+
+        private final File file;
+        private final String encoding;
+        private final StageTimer timer;
+        private File fileToLoad;
+        private boolean tryingAutosave;
+        private Future<ParserResult> result;
+
+
+        OpenTask(File file, File fileToLoad, boolean tryingAutosave) {
+            this.file = file;
+            this.fileToLoad = fileToLoad;
+            this.tryingAutosave = tryingAutosave;
+            encoding = Globals.prefs.get(JabRefPreferences.DEFAULT_ENCODING);
+            timer = new StageTimer("Opening '" + file.getPath() + "'");
+        }
+
+        void start() {
+            File toLoad = fileToLoad;
+            result = JabRefExecutorService.INSTANCE.submit(() -> timer.call("parsing", () -> {
                 try {
-                    pr = OpenDatabaseAction.loadDatabase(fileToLoad, encoding);
-                } catch (Exception ex) {
-                    //ex.printStackTrace();
-                    errorMessage = ex.getMessage();
-                    pr = null;
+                    return OpenDatabaseAction.loadDatabase(toLoad, encoding);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-                if (pr == null || pr == ParserResult.INVALID_FORMAT) {
-                    JOptionPane.showMessageDialog(null, Localization.lang("Error opening file") + " '" + fileName + "'",
-                            Localization.lang("Error"),
-                            JOptionPane.ERROR_MESSAGE);
-
-                    String message = "<html>" + errorMessage + "<p>" +
-                            (tryingAutosave ? Localization.lang("Error opening autosave of '%0'. Trying to load '%0' instead.", file.getName())
-                                    : ""/*Globals.lang("Error opening file '%0'.", file.getName())*/) + "</html>";
-                    JOptionPane.showMessageDialog(null, message, Localization.lang("Error opening file"), JOptionPane.ERROR_MESSAGE);
-
-                    if (tryingAutosave) {
-                        tryingAutosave = false;
-                        fileToLoad = file;
-                    } else {
-                        done = true;
-                    }
-                    continue;
+            }));
+        }
+    }
+
+
+    /**
+     * Asks whether to use the autosave of the file and what to do if it is locked.
+     *
+     * @return the task opening the file, or null if it cannot or should not be opened
+     */
+    private OpenTask prepare(File file) {
+        frame.output(Localization.lang("Opening") + ": '" + file.getPath() + "'");
+        File fileToLoad = file;
+        boolean tryingAutosave = false;
+        boolean autoSaveFound = AutoSaveManager.newerAutoSaveExists(file);
+        if (autoSaveFound && !Globals.prefs.getBoolean(JabRefPreferences.PROMPT_BEFORE_USING_AUTOSAVE)) {
+            // We have found a newer autosave, and the preferences say we should load
+            // it without prompting, so we replace the fileToLoad:
+            fileToLoad = AutoSaveManager.getAutoSaveFile(file);
+            tryingAutosave = true;
+        } else if (autoSaveFound) {
+            // We have found a newer autosave, but we are not allowed to use it without
+            // prompting.
+            int answer = JOptionPane.showConfirmDialog(null, "<html>" +
+                    Localization.lang("An autosave file was found for this database. This could indicate ")
+                    + Localization.lang("that JabRef didn't shut down cleanly last time the file was used.") + "<br>"
+                    + Localization.lang("Do you want to recover the database from the autosave file?") + "</html>",
+                    Localization.lang("Recover from autosave"), JOptionPane.YES_NO_OPTION);
+            if (answer == JOptionPane.YES_OPTION) {
+                fileToLoad = AutoSaveManager.getAutoSaveFile(file);
+                tryingAutosave = true;
+            }
+        }
+
+        String fileName = file.getPath();
+        Globals.prefs.put(JabRefPreferences.WORKING_DIRECTORY, file.getPath());
+        // Should this be done _after_ we know it was successfully opened?
+
+        if (FileBasedLock.hasLockFile(file)) {
+            long modTime = FileBasedLock.getLockFileTimeStamp(file);
+            if (modTime != -1 && System.currentTimeMillis() - modTime
+                    > SaveSession.LOCKFILE_CRITICAL_AGE) {
+                // The lock file is fairly old, so we can offer to "steal" the file:
+                int answer = JOptionPane.showConfirmDialog(null, "<html>" + Localization.lang("Error opening file")
+                        + " '" + fileName + "'. " + Localization.lang("File is locked by another JabRef instance.")
+                        + "<p>" + Localization.lang("Do you want to override the file lock?"),
+                        Localization.lang("File locked"), JOptionPane.YES_NO_OPTION);
+                if (answer == JOptionPane.YES_OPTION) {
+                    FileBasedLock.deleteLockFile(file);
                 } else {
-                    done = true;
+                    return null;
                 }
+            }
+            else if (!FileBasedLock.waitForFileLock(file, 10)) {
+                JOptionPane.showMessageDialog(null, Localization.lang("Error opening file")
+                        + " '" + fileName + "'. " + Localization.lang("File is locked by another JabRef instance."),
+                        Localization.lang("Error"), JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
 
-                final BasePanel panel = addNewDatabase(pr, file, raisePanel);
-                if (tryingAutosave) {
-                    panel.markNonUndoableBaseChanged();
-                }
+        }
+        return new OpenTask(file, fileToLoad, tryingAutosave);
+    }
 
-                // After adding the database, go through our list and see if
-                // any post open actions need to be done. For instance, checking
-                // if we found new entry types that can be imported, or checking
-                // if the database contents should be modified due to new features
-                // in this version of JabRef:
-                final ParserResult prf = pr;
-                SwingUtilities.invokeLater(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        OpenDatabaseAction.performPostOpenActions(panel, prf, true);
-                    }
-                });
+    /**
+     * Waits until the file has been parsed and adds its tab.
+     *
+     * @return whether the file has been opened
+     */
+    private boolean finish(OpenTask task, boolean raisePanel) {
+        ParserResult pr;
+        String errorMessage = null;
+        try {
+            pr = task.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            errorMessage = cause.getMessage();
+            pr = null;
+        }
+        if (pr == null || pr == ParserResult.INVALID_FORMAT) {
+            JOptionPane.showMessageDialog(null, Localization.lang("Error opening file") + " '" + task.file.getPath() + "'",
+                    Localization.lang("Error"),
+                    JOptionPane.ERROR_MESSAGE);
+
+            String message = "<html>" + errorMessage + "<p>" +
+                    (task.tryingAutosave ? Localization.lang("Error opening autosave of '%0'. Trying to load '%0' instead.", task.file.getName())
+                            : ""/*Globals.lang("Error opening file '%0'.", file.getName())*/) + "</html>";
+            JOptionPane.showMessageDialog(null, message, Localization.lang("Error opening file"), JOptionPane.ERROR_MESSAGE);
+
+            if (task.tryingAutosave) {
+                task.tryingAutosave = false;
+                task.fileToLoad = task.file;
+                task.start();
+                return finish(task, raisePanel);
             }
+            return false;
+        }
+
+        final ParserResult prf = pr;
+        final BasePanel panel = task.timer.call("setting up the table", () -> addNewDatabase(prf, task.file, raisePanel));
+        if (task.tryingAutosave) {
+            panel.markNonUndoableBaseChanged();
+        }
 
+        // The group memberships are needed as soon as a group is selected, so they are
+        // computed in the background while the user looks at the table:
+        final GroupTreeNode groups = pr.getMetaData().getGroups();
+        if (groups != null) {
+            JabRefExecutorService.INSTANCE.execute(() -> task.timer.run("computing the groups",
+                    () -> panel.getGroupMembershipIndex().computeGroupsOf(groups)));
         }
+
+        // After adding the database, go through our list and see if
+        // any post open actions need to be done. For instance, checking
+        // if we found new entry types that can be imported, or checking
+        // if the database contents should be modified due to new features
+        // in this version of JabRef:
+        SwingUtilities.invokeLater(new Runnable() {
+
+            @Override
+            public void run() {
+                OpenDatabaseAction.performPostOpenActions(panel, prf, true);
+            }
+        });
+        return true;
     }
 
     /**
@@ -389,6 +480,13 @@ public class OpenDatabaseAction extends MnemonicAwareAction {
         }
 
         BibtexParser bp = new BibtexParser(reader);
+        if (Globals.prefs.getBoolean(JabRefPreferences.LAZY_FIELD_PARSING)) {
+            // Decode the fields shown in the table right away, everything else on first access:
+            List<String> eagerFields = new ArrayList<>(
+                    Arrays.asList(Globals.prefs.getStringArray(JabRefPreferences.COLUMN_NAMES)));
+            eagerFields.add("crossref");
+            bp.setLazyFieldParsing(eagerFields);
+        }
 
         ParserResult pr = bp.parse();
         pr.setEncoding(encoding);
@@ -15,23 +15,37 @@
 */
 package net.sf.jabref.importer.fetcher;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 import net.sf.jabref.exporter.layout.LayoutFormatter;
 
+/**
+ * Puts braces around the words of the {@link CaseKeeperList} in a title, so that BibTeX styles keep their case.
+ */
 public class CaseKeeper implements LayoutFormatter {
 
-    private String format(String text, String[] listOfWords) {
-        if (text == null) {
-            return null;
-        }
-        Arrays.sort(listOfWords, new LengthComparator());
-        // For each word in the list
-        for (String listOfWord : listOfWords) {
-            // Add {} if the character before is a space, -, /, (, [, ", or } or if it is at the start of the string but not if it is followed by a }
-            text = text.replaceAll("(^|[- /\\[(}\"])" + listOfWord + "($|[^}])", "$1\\{" + listOfWord + "\\}$2");
-        }
-        return text;
+    // the built-in lists never change, so their matcher is built once and shared
+    private static final CaseKeeperMatcher DEFAULT_MATCHER = new CaseKeeperMatcher(
+            Arrays.asList(new CaseKeeperList().getAll()));
+
+    private final CaseKeeperMatcher matcher;
+
+
+    public CaseKeeper() {
+        matcher = DEFAULT_MATCHER;
+    }
+
+    /**
+     * Creates a CaseKeeper that also protects the given words. As in the built-in lists, a '.' stands for any
+     * character.
+     */
+    public CaseKeeper(Collection<String> additionalWords) {
+        List<String> words = new ArrayList<>(Arrays.asList(new CaseKeeperList().getAll()));
+        words.addAll(additionalWords);
+        matcher = new CaseKeeperMatcher(words);
     }
 
     @Override
@@ -39,8 +53,7 @@ public class CaseKeeper implements LayoutFormatter {
         if (text == null) {
             return null;
         }
-        final CaseKeeperList list = new CaseKeeperList();
-        return this.format(text, list.getAll());
+        return matcher.format(text);
     }
 
 }
@@ -0,0 +1,236 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.importer.fetcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Puts braces around the words of a word list in a single pass over a text. The words are stored in a trie that
+ * is built once, so that only the positions where a word may start have to be looked at.
+ * <p>
+ * The result is the same as replacing the words one after the other, longest first, with a regular expression:
+ * a word is protected if it is at the start of the text or follows one of <code>- /[(}"</code>, and if it is not
+ * followed by <code>}</code>. A <code>.</code> in a word stands for any character except a line break. In the rare
+ * texts where protecting one word changes whether another one is protected, for example because two words overlap,
+ * the words found in the text are replaced one after the other as before.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+final class CaseKeeperMatcher {
+
+    private static final String DELIMITERS = "- /[(}\"";
+
+    private static final char ANY = '.';
+
+    // sorted by length, longest first, as they were replaced one after the other
+    private final String[] words;
+
+    private final Node root = new Node();
+
+
+    private static class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+        // matches any character, for a '.' in a word
+        private Node any;
+        // index into words of the word ending here, or -1
+        private int word = -1;
+    }
+
+    private static class Candidate {
+
+        private final int start;
+        private final int end;
+        private final int word;
+
+
+        Candidate(int start, int end, int word) {
+            this.start = start;
+            this.end = end;
+            this.word = word;
+        }
+    }
+
+
+    CaseKeeperMatcher(Collection<String> words) {
+        List<String> sorted = new ArrayList<>();
+        for (String word : words) {
+            if ((word != null) && !word.isEmpty()) {
+                sorted.add(word);
+            }
+        }
+        // stable, so that words of the same length keep their order
+        sorted.sort(new LengthComparator());
+        this.words = sorted.toArray(new String[sorted.size()]);
+
+        for (int i = 0; i < this.words.length; i++) {
+            Node node = root;
+            for (char c : this.words[i].toCharArray()) {
+                if (c == ANY) {
+                    if (node.any == null) {
+                        node.any = new Node();
+                    }
+                    node = node.any;
+                } else {
+                    node = node.children.computeIfAbsent(c, key -> new Node());
+                }
+            }
+            if (node.word < 0) {
+                node.word = i;
+            }
+        }
+    }
+
+    String format(String text) {
+        int length = text.length();
+        List<Candidate> found = new ArrayList<>();
+        // positions at which a found word ends, and where protecting it would let another word start
+        boolean[] ends = new boolean[length + 1];
+        boolean dependent = false;
+        for (int i = 0; i < length; i++) {
+            if ((i == 0) || ends[i] || (DELIMITERS.indexOf(text.charAt(i - 1)) >= 0)) {
+                int before = found.size();
+                collect(text, i, root, i, found);
+                if (ends[i] && (found.size() > before)) {
+                    dependent = true;
+                }
+                for (int k = before; k < found.size(); k++) {
+                    ends[found.get(k).end] = true;
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            return text;
+        }
+
+        List<Candidate> protect = dependent ? null : select(found);
+        if (protect == null) {
+            return formatOneByOne(text, found);
+        }
+
+        StringBuilder sb = new StringBuilder(length + (2 * protect.size()));
+        int pos = 0;
+        for (Candidate candidate : protect) {
+            sb.append(text, pos, candidate.start).append('{').append(words[candidate.word]).append('}');
+            pos = candidate.end;
+        }
+        sb.append(text, pos, length);
+        return sb.toString();
+    }
+
+    /**
+     * Adds all words starting at start that are not followed by }.
+     */
+    private void collect(String text, int start, Node node, int pos, List<Candidate> found) {
+        if ((node.word >= 0) && ((pos == text.length()) || (text.charAt(pos) != '}'))) {
+            found.add(new Candidate(start, pos, node.word));
+        }
+        if (pos == text.length()) {
+            return;
+        }
+        char c = text.charAt(pos);
+        Node child = node.children.get(c);
+        if (child != null) {
+            collect(text, start, child, pos + 1, found);
+        }
+        if ((node.any != null) && !isLineTerminator(c)) {
+            collect(text, start, node.any, pos + 1, found);
+        }
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return (c == '\n') || (c == '\r') || (c == '\u0085') || (c == 0x2028) || (c == 0x2029);
+    }
+
+    /**
+     * Returns the longest word at each start position, or null if the words found depend on each other: if they
+     * overlap, if two of the same length start at the same position, or if a word starts right after the
+     * character following the same word, which the regular expression has already consumed.
+     */
+    private List<Candidate> select(List<Candidate> found) {
+        List<Candidate> result = new ArrayList<>();
+        Map<String, Integer> lastEnd = new HashMap<>();
+        Candidate longest = null;
+        int previousEnd = 0;
+        for (Candidate candidate : found) {
+            Integer end = lastEnd.put(words[candidate.word], candidate.end);
+            if ((end != null) && (candidate.start == (end + 1))) {
+                return null;
+            }
+            if ((longest != null) && (longest.start == candidate.start)) {
+                int difference = (candidate.end - longest.end);
+                if (difference == 0) {
+                    return null;
+                } else if (difference > 0) {
+                    longest = candidate;
+                }
+                continue;
+            }
+            if (longest != null) {
+                if (longest.start < previousEnd) {
+                    return null;
+                }
+                result.add(longest);
+                previousEnd = longest.end;
+            }
+            longest = candidate;
+        }
+        if (longest.start < previousEnd) {
+            return null;
+        }
+        result.add(longest);
+        return result;
+    }
+
+    /**
+     * Replaces the words found in the text one after the other, longest first.
+     */
+    private String formatOneByOne(String text, List<Candidate> found) {
+        Set<String> present = new HashSet<>();
+        for (Candidate candidate : found) {
+            present.add(words[candidate.word]);
+        }
+        String result = text;
+        for (String word : words) {
+            if (present.contains(word)) {
+                result = toPattern(word).matcher(result).replaceAll("$1{" + Matcher.quoteReplacement(word) + "}$2");
+            }
+        }
+        return result;
+    }
+
+    private static Pattern toPattern(String word) {
+        StringBuilder regex = new StringBuilder("(^|[- /\\[(}\"])");
+        String[] parts = word.split(Pattern.quote(String.valueOf(ANY)), -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(ANY);
+            }
+            if (!parts[i].isEmpty()) {
+                regex.append(Pattern.quote(parts[i]));
+            }
+        }
+        return Pattern.compile(regex.append("($|[^}])").toString());
+    }
+}
@@ -30,6 +30,7 @@ import net.sf.jabref.importer.*;
 import net.sf.jabref.importer.fileformat.BibtexParser;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.bibtex.DuplicateCheck;
+import net.sf.jabref.logic.net.HostRateLimiter;
 
 public class DBLPFetcher implements EntryFetcher {
 
@@ -147,6 +148,7 @@ public class DBLPFetcher implements EntryFetcher {
     }
 
     private String readFromURL(final URL source) throws IOException {
+        HostRateLimiter.getInstance().acquire(source);
         final InputStream in = source.openStream();
         final InputStreamReader ir = new InputStreamReader(in);
         final StringBuilder sbuf = new StringBuilder();
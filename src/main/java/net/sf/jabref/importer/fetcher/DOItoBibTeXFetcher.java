@@ -18,21 +18,24 @@ package net.sf.jabref.importer.fetcher;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
+import com.google.common.io.CharStreams;
 import net.sf.jabref.importer.*;
 import net.sf.jabref.importer.fileformat.BibtexParser;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.Globals;
 import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.URLDownload;
 import net.sf.jabref.logic.util.DOI;
-import net.sf.jabref.util.Util;
 
 public class DOItoBibTeXFetcher implements EntryFetcher {
 
@@ -91,19 +94,12 @@ public class DOItoBibTeXFetcher implements EntryFetcher {
             return null;
         }
 
-        URLConnection conn;
-        try {
-            conn = url.openConnection();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-
-        conn.setRequestProperty("Accept", "application/x-bibtex");
+        URLDownload download = new URLDownload(url);
+        download.addHeader("Accept", "application/x-bibtex");
 
         String bibtexString;
-        try {
-            bibtexString = Util.getResultsWithEncoding(conn, "UTF8");
+        try (InputStream in = download.openStream()) {
+            bibtexString = CharStreams.toString(new InputStreamReader(in, StandardCharsets.UTF_8));
         } catch (FileNotFoundException e) {
 
             if (status != null) {
@@ -1,5 +1,6 @@
 package net.sf.jabref.importer.fetcher;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,6 +28,22 @@ public class EntryFetchers {
         entryFetchers.add(new SPIRESFetcher());
         entryFetchers.add(new ACMPortalFetcher());
         entryFetchers.add(new GoogleScholarFetcher());
+
+        // preview fetchers need a dialog of their own and cannot be combined, and identifier
+        // lookups would treat every word of a topic search as an identifier
+        List<EntryFetcher> combinable = new ArrayList<>();
+        for (EntryFetcher fetcher : entryFetchers) {
+            if (!(fetcher instanceof PreviewEntryFetcher) && !EntryFetchers.isIdentifierLookup(fetcher)) {
+                combinable.add(fetcher);
+            }
+        }
+        entryFetchers.add(new FederatedFetcher(combinable));
+    }
+
+    private static boolean isIdentifierLookup(EntryFetcher fetcher) {
+        return (fetcher instanceof ADSFetcher) || (fetcher instanceof DiVAtoBibTeXFetcher)
+                || (fetcher instanceof DOItoBibTeXFetcher) || (fetcher instanceof ISBNtoBibTeXFetcher)
+                || (fetcher instanceof OAI2Fetcher);
     }
 
     public List<EntryFetcher> getEntryFetchers() {
@@ -0,0 +1,281 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.importer.fetcher;
+
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.importer.ImportInspector;
+import net.sf.jabref.importer.OutputPrinter;
+import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.util.DOI;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sends a query to several fetchers at once.
+ *
+ * The fetchers run concurrently, each of them at most for the configured timeout. The
+ * entries they find are merged while they arrive: an entry is passed on to the inspector
+ * only if no entry with the same DOI or the same title has been passed on before. Requests
+ * to the same host are spaced by {@link net.sf.jabref.logic.net.HostRateLimiter}.
+ */
+public class FederatedFetcher implements EntryFetcher {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+
+    // the sources selected by default
+    private static final List<String> DEFAULT_SOURCES = Arrays.asList("DBLP", "Medline",
+            Localization.menuTitle("Fetch INSPIRE"));
+
+    private static final Log LOGGER = LogFactory.getLog(FederatedFetcher.class);
+
+    private final List<EntryFetcher> fetchers;
+    private final Set<EntryFetcher> selected = new HashSet<>();
+    private final long timeoutMillis;
+    private final List<EntryFetcher> running = new CopyOnWriteArrayList<>();
+    private JPanel optionsPanel;
+
+
+    /**
+     * @param fetchers the fetchers the user may choose from
+     */
+    public FederatedFetcher(List<EntryFetcher> fetchers) {
+        this(fetchers, FederatedFetcher.DEFAULT_TIMEOUT_MILLIS);
+        selected.clear();
+        for (EntryFetcher fetcher : fetchers) {
+            if (FederatedFetcher.DEFAULT_SOURCES.contains(fetcher.getTitle())) {
+                selected.add(fetcher);
+            }
+        }
+    }
+
+    /**
+     * Creates a fetcher querying all given fetchers.
+     *
+     * @param timeoutMillis the time after which a fetcher is stopped
+     */
+    public FederatedFetcher(List<EntryFetcher> fetchers, long timeoutMillis) {
+        this.fetchers = new ArrayList<>(fetchers);
+        this.timeoutMillis = timeoutMillis;
+        selected.addAll(fetchers);
+    }
+
+    public synchronized List<EntryFetcher> getSelectedFetchers() {
+        List<EntryFetcher> result = new ArrayList<>();
+        for (EntryFetcher fetcher : fetchers) {
+            if (selected.contains(fetcher)) {
+                result.add(fetcher);
+            }
+        }
+        return result;
+    }
+
+    private synchronized void setSelected(EntryFetcher fetcher, boolean select) {
+        if (select) {
+            selected.add(fetcher);
+        } else {
+            selected.remove(fetcher);
+        }
+    }
+
+    @Override
+    public boolean processQuery(String query, ImportInspector inspector, OutputPrinter status) {
+        List<EntryFetcher> sources = getSelectedFetchers();
+        if (sources.isEmpty()) {
+            status.showMessage(Localization.lang("Please select at least one source."));
+            return false;
+        }
+
+        MergingInspector merging = new MergingInspector(inspector, sources.size());
+        Map<EntryFetcher, Future<Boolean>> queries = new LinkedHashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            EntryFetcher fetcher = sources.get(i);
+            ImportInspector sourceInspector = merging.forSource(i);
+            running.add(fetcher);
+            queries.put(fetcher, JabRefExecutorService.INSTANCE.submit(() -> {
+                try {
+                    return fetcher.processQuery(query, sourceInspector, status);
+                } finally {
+                    running.remove(fetcher);
+                }
+            }));
+        }
+
+        boolean success = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Map.Entry<EntryFetcher, Future<Boolean>> source : queries.entrySet()) {
+            try {
+                success |= source.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                source.getKey().stopFetching();
+                source.getValue().cancel(true);
+                status.setStatus(Localization.lang("%0 did not answer in time.", source.getKey().getTitle()));
+            } catch (ExecutionException e) {
+                LOGGER.warn("Fetching from " + source.getKey().getTitle() + " failed", e.getCause());
+                status.setStatus(Localization.lang("Fetching from %0 failed.", source.getKey().getTitle()));
+            } catch (InterruptedException e) {
+                stopFetching();
+                for (Future<Boolean> future : queries.values()) {
+                    future.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public void stopFetching() {
+        for (EntryFetcher fetcher : running) {
+            fetcher.stopFetching();
+        }
+    }
+
+    @Override
+    public String getTitle() {
+        return Localization.lang("Several sources");
+    }
+
+    @Override
+    public String getKeyName() {
+        return null;
+    }
+
+    @Override
+    public String getHelpPage() {
+        return null;
+    }
+
+    @Override
+    public JPanel getOptionsPanel() {
+        if (optionsPanel == null) {
+            optionsPanel = new JPanel(new GridLayout(0, 1));
+            for (EntryFetcher fetcher : fetchers) {
+                JCheckBox checkBox = new JCheckBox(fetcher.getTitle(), getSelectedFetchers().contains(fetcher));
+                checkBox.addActionListener(e -> setSelected(fetcher, checkBox.isSelected()));
+                optionsPanel.add(checkBox);
+            }
+        }
+        return optionsPanel;
+    }
+
+
+    /**
+     * Passes the entries of all sources on to one inspector, dropping duplicates.
+     */
+    static class MergingInspector {
+
+        private static final int PROGRESS_SCALE = 1000;
+
+        private final ImportInspector inspector;
+        private final Set<String> knownKeys = new HashSet<>();
+        private final int[] progress;
+
+
+        MergingInspector(ImportInspector inspector, int sources) {
+            this.inspector = inspector;
+            this.progress = new int[sources];
+        }
+
+        /**
+         * @return the inspector to pass to the fetcher of the given source
+         */
+        ImportInspector forSource(int source) {
+            return new ImportInspector() {
+
+                @Override
+                public void setProgress(int current, int max) {
+                    MergingInspector.this.setProgress(source, current, max);
+                }
+
+                @Override
+                public void addEntry(BibtexEntry entry) {
+                    MergingInspector.this.addEntry(entry);
+                }
+
+                @Override
+                public void toFront() {
+                    inspector.toFront();
+                }
+            };
+        }
+
+        private synchronized void setProgress(int source, int current, int max) {
+            progress[source] = max > 0 ? (int) ((long) MergingInspector.PROGRESS_SCALE * Math.min(current, max) / max) : 0;
+            int total = 0;
+            for (int sourceProgress : progress) {
+                total += sourceProgress;
+            }
+            inspector.setProgress(total, MergingInspector.PROGRESS_SCALE * progress.length);
+        }
+
+        private synchronized void addEntry(BibtexEntry entry) {
+            List<String> keys = MergingInspector.getKeys(entry);
+            for (String key : keys) {
+                if (knownKeys.contains(key)) {
+                    return;
+                }
+            }
+            knownKeys.addAll(keys);
+            inspector.addEntry(entry);
+        }
+
+        /**
+         * @return the keys identifying the entry: its DOI and its title, both normalized
+         */
+        static List<String> getKeys(BibtexEntry entry) {
+            List<String> keys = new ArrayList<>(2);
+            Optional<DOI> doi = DOI.build(entry.getField("doi"));
+            if (doi.isPresent()) {
+                keys.add("doi:" + doi.get().getDOI().toLowerCase(Locale.ROOT));
+            }
+            String title = entry.getField("title");
+            if (title != null) {
+                StringBuilder normalized = new StringBuilder("title:");
+                for (int i = 0; i < title.length(); i++) {
+                    char c = title.charAt(i);
+                    if (Character.isLetterOrDigit(c)) {
+                        normalized.append(Character.toLowerCase(c));
+                    }
+                }
+                if (normalized.length() > "title:".length()) {
+                    keys.add(normalized.toString());
+                }
+            }
+            return keys;
+        }
+    }
+}
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 
@@ -31,6 +30,7 @@ import net.sf.jabref.importer.fileformat.BibtexParser;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.URLDownload;
 
 /**
  * 
@@ -138,16 +138,15 @@ public class INSPIREFetcher implements EntryFetcher {
     private BibtexDatabase importInspireEntries(String key, OutputPrinter frame) {
         String url = constructUrl(key);
         try {
-            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setRequestProperty("User-Agent", "Jabref");
-            InputStream inputStream = conn.getInputStream();
+            URL source = new URL(url);
+            try (InputStream inputStream = new URLDownload(source).openStream()) {
+                INSPIREBibtexFilterReader reader = new INSPIREBibtexFilterReader(
+                        new InputStreamReader(inputStream));
 
-            INSPIREBibtexFilterReader reader = new INSPIREBibtexFilterReader(
-                    new InputStreamReader(inputStream));
+                ParserResult pr = BibtexParser.parse(reader);
 
-            ParserResult pr = BibtexParser.parse(reader);
-
-            return pr.getDatabase();
+                return pr.getDatabase();
+            }
         } catch (IOException e) {
             frame.showMessage(Localization.lang(
                             "An Exception ocurred while accessing '%0'", url)
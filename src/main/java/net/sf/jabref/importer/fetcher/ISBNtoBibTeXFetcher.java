@@ -31,6 +31,7 @@ import net.sf.jabref.importer.OutputPrinter;
 import net.sf.jabref.importer.fileformat.BibtexParser;
 import net.sf.jabref.importer.ImportInspector;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.URLDownload;
 
 /**
  * This class uses ebook.de's ISBN to BibTeX Converter to convert an ISBN to a BibTeX entry <br />
@@ -73,7 +74,7 @@ public class ISBNtoBibTeXFetcher implements EntryFetcher {
 
         InputStream source;
         try {
-            source = url.openStream();
+            source = new URLDownload(url).openStream();
         } catch (FileNotFoundException e) {
             // invalid ISBN --> 404--> FileNotFoundException
             status.showMessage(Localization.lang("Invalid ISBN"));
@@ -88,7 +89,10 @@ public class ISBNtoBibTeXFetcher implements EntryFetcher {
             return false;
         }
 
-        String bibtexString = new Scanner(source).useDelimiter("\\A").next();
+        String bibtexString;
+        try (Scanner scanner = new Scanner(source)) {
+            bibtexString = scanner.useDelimiter("\\A").next();
+        }
 
         BibtexEntry entry = BibtexParser.singleFromString(bibtexString);
         if (entry != null) {
@@ -0,0 +1,502 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.importer.fetcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.CharStreams;
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.gui.undo.UndoableBulkFieldChange;
+import net.sf.jabref.importer.fileformat.BibtexParser;
+import net.sf.jabref.logic.net.HttpCache;
+import net.sf.jabref.logic.util.DOI;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Completes many entries at once with the data registered for their DOI or ISBN.
+ *
+ * The identifiers of the entries are collected first; an identifier shared by several
+ * entries is resolved only once. A bounded number of workers resolves them concurrently,
+ * retrying failed requests with an exponential backoff. Fields missing in an entry are
+ * then taken from the resolved data; existing fields are never overwritten. The changes
+ * are applied as one bulk change and recorded in one compound edit.
+ *
+ * If a progress file is set, every resolved identifier is appended to it as soon as it
+ * arrives. A run that has been interrupted can thus be resumed: identifiers found in the
+ * progress file are not requested again. Identifiers that could not be resolved because
+ * of network problems are not recorded and are retried in the next run.
+ */
+public class IdentifierEnrichment {
+
+    public static final String DOI_URL_PATTERN = "http://dx.doi.org/%s";
+    public static final String ISBN_URL_PATTERN = "http://www.ebook.de/de/tools/isbn2bibtex?isbn=%s";
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final long DEFAULT_BACKOFF_MILLIS = 1000;
+
+    private static final Log LOGGER = LogFactory.getLog(IdentifierEnrichment.class);
+
+    private static final String DOI_PREFIX = "doi:";
+    private static final String ISBN_PREFIX = "isbn:";
+    private static final String FOUND = "found";
+    private static final String NOT_FOUND = "missing";
+
+    private final BibtexDatabase database;
+    private String doiUrlPattern = IdentifierEnrichment.DOI_URL_PATTERN;
+    private String isbnUrlPattern = IdentifierEnrichment.ISBN_URL_PATTERN;
+    private int concurrency = IdentifierEnrichment.DEFAULT_CONCURRENCY;
+    private int maxAttempts = IdentifierEnrichment.DEFAULT_MAX_ATTEMPTS;
+    private long backoffMillis = IdentifierEnrichment.DEFAULT_BACKOFF_MILLIS;
+    private boolean useUnitFormatter;
+    private boolean useCaseKeeper;
+    private Path progressFile;
+
+    private final CaseKeeper caseKeeper = new CaseKeeper();
+    private final UnitFormatter unitFormatter = new UnitFormatter();
+
+    private volatile boolean cancelled;
+    private int failed;
+
+
+    /**
+     * Receives the progress of the resolution, possibly from another thread.
+     */
+    public interface ProgressListener {
+
+        void progress(int resolved, int total);
+    }
+
+    public static class Change {
+
+        private final BibtexEntry entry;
+        private final String field;
+        private final String newValue;
+
+
+        Change(BibtexEntry entry, String field, String newValue) {
+            this.entry = entry;
+            this.field = field;
+            this.newValue = newValue;
+        }
+
+        public BibtexEntry getEntry() {
+            return entry;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getNewValue() {
+            return newValue;
+        }
+    }
+
+    // the outcome of resolving one identifier
+    private static class Result {
+
+        private final String identifier;
+        // null if the identifier is unknown
+        private final String bibtex;
+        // false if the identifier could not be resolved because of network problems
+        private final boolean resolved;
+
+
+        Result(String identifier, String bibtex, boolean resolved) {
+            this.identifier = identifier;
+            this.bibtex = bibtex;
+            this.resolved = resolved;
+        }
+    }
+
+
+    public IdentifierEnrichment(BibtexDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * @param doiUrlPattern the URL returning BibTeX for a DOI, with %s standing for the DOI
+     * @param isbnUrlPattern the URL returning BibTeX for an ISBN, with %s standing for the ISBN
+     */
+    public void setUrlPatterns(String doiUrlPattern, String isbnUrlPattern) {
+        this.doiUrlPattern = doiUrlPattern;
+        this.isbnUrlPattern = isbnUrlPattern;
+    }
+
+    /**
+     * @param concurrency the maximum number of requests sent at the same time
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * @param maxAttempts how often a request is sent before the identifier is given up
+     * @param backoffMillis the delay before the first retry, doubled for each further retry
+     */
+    public void setRetries(int maxAttempts, long backoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    public void setTitleFormatting(boolean useUnitFormatter, boolean useCaseKeeper) {
+        this.useUnitFormatter = useUnitFormatter;
+        this.useCaseKeeper = useCaseKeeper;
+    }
+
+    /**
+     * @param progressFile the file recording the resolved identifiers, null to start from scratch every time
+     */
+    public void setProgressFile(Path progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    /**
+     * @return the number of identifiers the last run could not resolve because of network problems
+     */
+    public int getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Stops the resolution, can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Resolves the identifiers of the given entries and computes the fields to add. The entries are not modified.
+     *
+     * @return the changes in entry order, or null if the resolution has been cancelled
+     * @throws IOException if the progress file cannot be read or written
+     */
+    public List<Change> computeChanges(BibtexEntry[] entries, ProgressListener progress) throws IOException {
+        Map<BibtexEntry, List<String>> identifiers = new LinkedHashMap<>();
+        Set<String> distinct = new HashSet<>();
+        for (BibtexEntry entry : entries) {
+            List<String> entryIdentifiers = IdentifierEnrichment.getIdentifiers(entry);
+            if (!entryIdentifiers.isEmpty()) {
+                identifiers.put(entry, entryIdentifiers);
+                distinct.addAll(entryIdentifiers);
+            }
+        }
+
+        Map<String, String> resolved = readProgress();
+        resolved.keySet().retainAll(distinct);
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        for (String identifier : distinct) {
+            if (!resolved.containsKey(identifier)) {
+                pending.add(identifier);
+            }
+        }
+
+        failed = 0;
+        int total = distinct.size();
+        progress.progress(resolved.size(), total);
+        if (!resolveAll(pending, resolved, total, progress)) {
+            return null;
+        }
+
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<BibtexEntry, List<String>> entryIdentifiers : identifiers.entrySet()) {
+            BibtexEntry entry = entryIdentifiers.getKey();
+            Set<String> added = new HashSet<>();
+            for (String identifier : entryIdentifiers.getValue()) {
+                String bibtex = resolved.get(identifier);
+                BibtexEntry found = bibtex == null ? null : parse(bibtex);
+                if (found == null) {
+                    continue;
+                }
+                for (String field : found.getAllFields()) {
+                    String value = found.getField(field);
+                    if (!BibtexEntry.KEY_FIELD.equals(field) && (value != null) && !value.trim().isEmpty()
+                            && IdentifierEnrichment.isEmpty(entry.getField(field)) && added.add(field)) {
+                        changes.add(new Change(entry, field, value));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Runs the workers and collects their results.
+     *
+     * @return false if cancelled
+     */
+    private boolean resolveAll(Queue<String> pending, Map<String, String> resolved, int total,
+            ProgressListener progress) throws IOException {
+        int count = pending.size();
+        if (count == 0) {
+            return !cancelled;
+        }
+        BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(concurrency, count); i++) {
+            workers.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                String identifier;
+                while (!cancelled && ((identifier = pending.poll()) != null)) {
+                    Result result;
+                    try {
+                        result = resolve(identifier);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Could not resolve " + identifier, e);
+                        result = new Result(identifier, null, false);
+                    }
+                    results.add(result);
+                }
+                return null;
+            }));
+        }
+
+        try (Writer journal = openProgressFile()) {
+            for (int done = 0; done < count; done++) {
+                Result result = null;
+                while (result == null) {
+                    if (cancelled) {
+                        return false;
+                    }
+                    result = results.poll(100, TimeUnit.MILLISECONDS);
+                }
+                if (result.resolved) {
+                    resolved.put(result.identifier, result.bibtex);
+                    if (journal != null) {
+                        journal.write(IdentifierEnrichment.toProgressLine(result));
+                        journal.flush();
+                    }
+                } else {
+                    failed++;
+                }
+                progress.progress(resolved.size() + failed, total);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            for (Future<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Requests the BibTeX for an identifier, retrying on network problems and server errors.
+     */
+    private Result resolve(String identifier) throws InterruptedException {
+        URL url;
+        Map<String, String> headers;
+        try {
+            if (identifier.startsWith(IdentifierEnrichment.DOI_PREFIX)) {
+                String doi = identifier.substring(IdentifierEnrichment.DOI_PREFIX.length());
+                // keep the slashes of the DOI
+                url = new URL(String.format(doiUrlPattern,
+                        URLEncoder.encode(doi, "UTF-8").replace("+", "%20").replace("%2F", "/")));
+                headers = Collections.singletonMap("Accept", "application/x-bibtex");
+            } else {
+                url = new URL(String.format(isbnUrlPattern,
+                        identifier.substring(IdentifierEnrichment.ISBN_PREFIX.length())));
+                headers = Collections.emptyMap();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot build URL for " + identifier, e);
+            return new Result(identifier, null, true);
+        }
+
+        long delay = backoffMillis;
+        for (int attempt = 1; !cancelled; attempt++) {
+            try (HttpCache.Response response = HttpCache.getInstance().get(url, headers)) {
+                int status = response.getStatus();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    String bibtex = CharStreams.toString(new InputStreamReader(response.getBody(),
+                            StandardCharsets.UTF_8));
+                    // some services answer unknown identifiers with an empty page
+                    return new Result(identifier, BibtexParser.singleFromString(bibtex) == null ? null : bibtex, true);
+                } else if ((status < HttpURLConnection.HTTP_INTERNAL_ERROR) && (status != 429)) {
+                    // the identifier is unknown or malformed, asking again does not help
+                    return new Result(identifier, null, true);
+                }
+                LOGGER.info("Server error " + status + " for " + identifier + ", attempt " + attempt);
+            } catch (IOException e) {
+                LOGGER.info("Request for " + identifier + " failed, attempt " + attempt + ": " + e.getMessage());
+            }
+            if (attempt >= maxAttempts) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(delay);
+            delay *= 2;
+        }
+        return new Result(identifier, null, false);
+    }
+
+    private BibtexEntry parse(String bibtex) {
+        // usually includes an en-dash in the page range, see DOItoBibTeXFetcher
+        BibtexEntry entry = BibtexParser.singleFromString(
+                bibtex.replaceAll("(pages=\\{[0-9]+)\u2013([0-9]+\\})", "$1--$2"));
+        if (entry != null) {
+            String title = entry.getField("title");
+            if (title != null) {
+                if (useUnitFormatter) {
+                    title = unitFormatter.format(title);
+                }
+                if (useCaseKeeper) {
+                    title = caseKeeper.format(title);
+                }
+                entry.setField("title", title);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Applies the changes as one bulk change.
+     *
+     * @return the number of fields set
+     */
+    public int applyChanges(List<Change> changes, NamedCompound ce) {
+        UndoableBulkFieldChange edit = new UndoableBulkFieldChange(database, ce.getNameOnly());
+        database.runBulkChange(() -> {
+            for (Change change : changes) {
+                change.getEntry().setField(change.getField(), change.getNewValue());
+                edit.addChange(change.getEntry(), change.getField(), null, change.getNewValue());
+            }
+        });
+        edit.end();
+        if (edit.hasChanges()) {
+            ce.addEdit(edit);
+        }
+        return changes.size();
+    }
+
+    /**
+     * @return the normalized DOI and ISBN of the entry, prefixed with their kind
+     */
+    static List<String> getIdentifiers(BibtexEntry entry) {
+        List<String> identifiers = new ArrayList<>(2);
+        Optional<DOI> doi = DOI.build(entry.getField("doi"));
+        if (doi.isPresent()) {
+            identifiers.add(IdentifierEnrichment.DOI_PREFIX + doi.get().getDOI().toLowerCase(Locale.ROOT));
+        }
+        String isbn = entry.getField("isbn");
+        if (isbn != null) {
+            String digits = isbn.replaceAll("[^0-9Xx]", "").toUpperCase(Locale.ROOT);
+            if ((digits.length() == 10) || (digits.length() == 13)) {
+                identifiers.add(IdentifierEnrichment.ISBN_PREFIX + digits);
+            }
+        }
+        return identifiers;
+    }
+
+    private static boolean isEmpty(String value) {
+        return (value == null) || value.trim().isEmpty();
+    }
+
+    private Writer openProgressFile() throws IOException {
+        if (progressFile == null) {
+            return null;
+        }
+        return Files.newBufferedWriter(progressFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @return the identifiers resolved in earlier runs, mapped to their BibTeX or null if unknown
+     */
+    private Map<String, String> readProgress() throws IOException {
+        Map<String, String> resolved = new HashMap<>();
+        if ((progressFile == null) || !Files.exists(progressFile)) {
+            return resolved;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(progressFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                // a line cut off by an interruption is ignored
+                if ((parts.length == 3) && IdentifierEnrichment.FOUND.equals(parts[1])) {
+                    resolved.put(parts[0], IdentifierEnrichment.unescape(parts[2]));
+                } else if ((parts.length == 3) && IdentifierEnrichment.NOT_FOUND.equals(parts[1])) {
+                    resolved.put(parts[0], null);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static String toProgressLine(Result result) {
+        return result.identifier + '\t'
+                + (result.bibtex == null ? IdentifierEnrichment.NOT_FOUND + '\t'
+                        : IdentifierEnrichment.FOUND + '\t' + IdentifierEnrichment.escape(result.bibtex))
+                + '\n';
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    private static String unescape(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c == '\\') && ((i + 1) < text.length())) {
+                char next = text.charAt(++i);
+                result.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next == 't' ? '\t' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -33,6 +33,7 @@ import net.sf.jabref.importer.OutputPrinter;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.gui.GUIGlobals;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.URLDownload;
 
 /**
  * Fetch or search from Pubmed http://www.ncbi.nlm.nih.gov/sites/entrez/
@@ -107,7 +108,7 @@ public class MedlineFetcher implements EntryFetcher {
         try {
             URL ncbi = new URL(medlineUrl + term);
             // get the ids
-            BufferedReader in = new BufferedReader(new InputStreamReader(ncbi.openStream()));
+            BufferedReader in = new BufferedReader(new InputStreamReader(new URLDownload(ncbi).openStream()));
             String inLine;
             while ((inLine = in.readLine()) != null) {
 
@@ -130,6 +131,7 @@ public class MedlineFetcher implements EntryFetcher {
                     doCount = false;
                 }
             }
+            in.close();
         } catch (MalformedURLException e) { // new URL() failed
             System.out.println("bad url");
             e.printStackTrace();
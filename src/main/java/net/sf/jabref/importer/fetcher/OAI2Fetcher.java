@@ -34,6 +34,7 @@ import net.sf.jabref.importer.OAI2Handler;
 import net.sf.jabref.importer.OutputPrinter;
 import net.sf.jabref.logic.id.IdGenerator;
 import net.sf.jabref.logic.l10n.Localization;
+import net.sf.jabref.logic.net.HostRateLimiter;
 import net.sf.jabref.logic.util.date.MonthUtil;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryTypes;
@@ -198,6 +199,7 @@ public class OAI2Fetcher implements EntryFetcher {
         String url = constructUrl(key);
         try {
             URL oai2Url = new URL(url);
+            HostRateLimiter.getInstance().acquire(oai2Url);
             HttpURLConnection oai2Connection = (HttpURLConnection) oai2Url.openConnection();
             oai2Connection.setRequestProperty("User-Agent", "Jabref");
             InputStream inputStream = oai2Connection.getInputStream();
@@ -100,6 +100,8 @@ public class UnitFormatter implements LayoutFormatter {
                 UnitFormatter.unitCombinations[i * uPLLength + j] = UnitFormatter.unitPrefixList[j] + UnitFormatter.unitList[i];
             }
         }
+        // sorted once here, so that concurrent calls of format only read the array
+        Arrays.sort(UnitFormatter.unitCombinations, new LengthComparator());
 
     }
 
@@ -109,8 +111,6 @@ public class UnitFormatter implements LayoutFormatter {
             return null;
         }
 
-        Arrays.sort(listOfWords, new LengthComparator()); // LengthComparator from CaseKeeper.java
-
         // Replace the hyphen in 12-bit etc with a non-breaking hyphen, will also avoid bad casing of 12-Bit
         text = text.replaceAll("([0-9,\\.]+)-([Bb][Ii][Tt])", "$1\\\\mbox\\{-\\}$2");
 
@@ -7,7 +7,9 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +52,8 @@ public class BibtexParser {
     private ParserResult parserResult;
     private static final Integer LOOKAHEAD = 64;
     private final boolean autoDoubleBraces;
+    // Fields which are decoded while parsing in lazy mode, null if lazy parsing is off:
+    private Set<String> eagerFields;
 
     public BibtexParser(Reader in) {
         Objects.requireNonNull(in);
@@ -61,6 +65,21 @@ public class BibtexParser {
         pushbackReader = new PushbackReader(in, BibtexParser.LOOKAHEAD);
     }
 
+    /**
+     * Switches the parser into lazy mode: only the given fields are decoded while parsing. The raw
+     * text of all other fields is kept in a compact form and decoded on first access through
+     * {@link BibtexEntry#getField(String)}. The entry key and type are always parsed immediately.
+     * This speeds up opening large databases where most fields (e.g., abstracts) are never looked at.
+     *
+     * @param eagerFields the fields to decode while parsing, e.g. the fields shown in the main table
+     */
+    public void setLazyFieldParsing(Collection<String> eagerFields) {
+        this.eagerFields = new HashSet<>(eagerFields);
+        // Several author or editor lines are merged while parsing, see parseField
+        this.eagerFields.add("author");
+        this.eagerFields.add("editor");
+    }
+
     /**
      * Shortcut usage to create a Parser and read the input.
      *
@@ -281,6 +300,10 @@ public class BibtexParser {
             // Instantiate meta data:
             parserResult.setMetaData(new MetaData(meta, database));
 
+            if (LOGGER.isDebugEnabled() && FieldValuePool.getInstance().isEnabled()) {
+                LOGGER.debug("Field value deduplication: " + FieldValuePool.getInstance());
+            }
+
             return parserResult;
         } catch (KeyCollisionException kce) {
             // kce.printStackTrace();
@@ -426,13 +449,24 @@ public class BibtexParser {
         // Util.pr("Field: _"+key+"_");
         skipWhitespace();
         consume('=');
-        String content = parseFieldContent(key);
-        // Now, if the field in question is set up to be fitted automatically
-        // with braces around
-        // capitals, we should remove those now when reading the field:
-        if (Globals.prefs.putBracesAroundCapitals(key)) {
-            content = StringUtil.removeBracesAroundCapitals(content);
+        if (eagerFields != null && !eagerFields.contains(key)) {
+            String rawContent = parseRawFieldContent();
+            if (entry.getField(key) != null) {
+                return;
+            }
+            RawFieldContent lazyContent = new RawFieldContent(key, rawContent);
+            if (isPlainRawContent(rawContent)) {
+                entry.setLazyField(key, lazyContent);
+            } else {
+                // Only decoding tells whether e.g. "" # "" is empty, and empty fields are dropped
+                String content = lazyContent.decode();
+                if (!content.isEmpty()) {
+                    entry.setField(key, content);
+                }
+            }
+            return;
         }
+        String content = decodeFieldContent(key);
         if (!content.isEmpty()) {
             if (entry.getField(key) == null) {
                 entry.setField(key, content);
@@ -453,6 +487,77 @@ public class BibtexParser {
         }
     }
 
+    /**
+     * Parses the content of a field and removes braces around capitals if the field is
+     * set up to be fitted with them automatically.
+     */
+    String decodeFieldContent(String key) throws IOException {
+        String content = parseFieldContent(key);
+        // Now, if the field in question is set up to be fitted automatically
+        // with braces around
+        // capitals, we should remove those now when reading the field:
+        if (Globals.prefs.putBracesAroundCapitals(key)) {
+            content = StringUtil.removeBracesAroundCapitals(content);
+        }
+        return content;
+    }
+
+    /**
+     * Reads the content of a field without decoding it. Passing the returned text to
+     * {@link #decodeFieldContent(String)} of a new parser yields the decoded content.
+     */
+    private String parseRawFieldContent() throws IOException {
+        skipWhitespace();
+        StringBuilder value = new StringBuilder();
+        int c;
+
+        while ((c = peek()) != ',' && c != '}' && c != ')') {
+
+            if (eof) {
+                throw new RuntimeException("Error in line " + line + ": EOF in mid-string");
+            }
+            if (c == '"') {
+                value.append('"').append(parseQuotedFieldExactly()).append('"');
+            } else if (c == '{') {
+                value.append('{').append(parseBracketedTextExactly()).append('}');
+            } else if (c == '#') {
+                consume('#');
+                value.append(" # ");
+            } else {
+                String textToken = parseTextToken();
+                if (textToken.isEmpty()) {
+                    throw new IOException("Error in line " + line + " or above: "
+                            + "Empty text token.\nThis could be caused "
+                            + "by a missing comma between two fields.");
+                }
+                value.append(textToken);
+            }
+            skipWhitespace();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Checks whether the raw content is a single token which is known to decode to a non-empty
+     * value: a text token or a quoted or bracketed text which is not blank. Concatenations are
+     * not plain, as their parts may all be empty.
+     */
+    private static boolean isPlainRawContent(String rawContent) {
+        if (rawContent.isEmpty() || rawContent.indexOf('#') >= 0) {
+            return false;
+        }
+        char first = rawContent.charAt(0);
+        if (first != '{' && first != '"') {
+            return true;
+        }
+        for (int i = 1; i < rawContent.length() - 1; i++) {
+            if (!Character.isWhitespace(rawContent.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String parseFieldContent(String key) throws IOException {
         skipWhitespace();
         StringBuilder value = new StringBuilder();
@@ -17,7 +17,6 @@ package net.sf.jabref.importer.fileformat;
 
 import java.io.*;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,6 +26,7 @@ import javax.xml.parsers.SAXParserFactory;
 import net.sf.jabref.importer.ImportFormatReader;
 import net.sf.jabref.importer.fileformat.MedlineHandler;
 import net.sf.jabref.importer.OutputPrinter;
+import net.sf.jabref.logic.net.URLDownload;
 import net.sf.jabref.model.entry.BibtexEntry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -90,8 +90,9 @@ public class MedlineImporter extends ImportFormat {
                 id;
         try {
             URL url = new URL(baseUrl);
-            URLConnection data = url.openConnection();
-            return new MedlineImporter().importEntries(data.getInputStream(), status);
+            try (InputStream data = new URLDownload(url).openStream()) {
+                return new MedlineImporter().importEntries(data, status);
+            }
         } catch (IOException e) {
             return new ArrayList<BibtexEntry>();
         }
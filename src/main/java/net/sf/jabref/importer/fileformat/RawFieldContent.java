@@ -0,0 +1,52 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.importer.fileformat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import net.sf.jabref.model.entry.LazyFieldValue;
+
+/**
+ * The undecoded text of a field as read by {@link BibtexParser} in lazy mode.
+ *
+ * The text is kept UTF-8 encoded, which for the mostly ASCII content of BibTeX files needs
+ * half the memory of a String.
+ */
+class RawFieldContent implements LazyFieldValue {
+
+    private final String field;
+    private final byte[] rawContent;
+
+
+    RawFieldContent(String field, String rawContent) {
+        this.field = field;
+        this.rawContent = rawContent.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decode() {
+        // The trailing comma ends the field content just like in the original file
+        String text = new String(rawContent, StandardCharsets.UTF_8) + ',';
+        try {
+            return new BibtexParser(new StringReader(text)).decodeFieldContent(field);
+        } catch (IOException e) {
+            // The content was already parsed successfully once
+            throw new IllegalStateException("Could not decode field " + field, e);
+        }
+    }
+}
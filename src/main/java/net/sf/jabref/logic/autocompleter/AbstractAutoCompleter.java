@@ -16,10 +16,16 @@
 package net.sf.jabref.logic.autocompleter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.SortedSet;
-import java.util.TreeSet;
-
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import net.sf.jabref.JabRefExecutorService;
 import net.sf.jabref.model.entry.BibtexEntry;
 
 /**
@@ -28,6 +34,9 @@ import net.sf.jabref.model.entry.BibtexEntry;
  * 
  * Example: {@link NameFieldAutoCompleter}, {@link EntireFieldAutoCompleter}
  * 
+ * The frequency of a word is the number of entries using it, and completions
+ * are returned with the most frequent word first.
+ * 
  * @author kahlert, cordes, olly98
  * @see AutoCompleterFactory
  */
@@ -35,18 +44,138 @@ abstract class AbstractAutoCompleter implements AutoCompleter {
 
     private static final int SHORTEST_WORD = 4;
 
-    // stores the strings as is
-    private final TreeSet<String> indexCaseSensitive = new TreeSet<>();
+    private static final int CHUNK_SIZE = 1000;
+
+    // marks an entry removed while entries are added in the background, so that it is not added again
+    private static final String[] REMOVED = new String[0];
+
+    private final PrefixIndex index = new PrefixIndex();
+
+    // the words each entry contributed to the index, to update it when the entry changes
+    private final Map<BibtexEntry, String[]> wordsOfEntry = new HashMap<>();
+
+    private int runningBulkAdds;
+
+
+    /**
+     * Adds the words of the entry to the given collection. Called from several threads at once
+     * when many entries are added.
+     */
+    protected abstract void collectWords(BibtexEntry entry, Collection<String> words);
+
+    private String[] getWords(BibtexEntry entry) {
+        Set<String> words = new LinkedHashSet<>();
+        collectWords(entry, words);
+        List<String> result = new ArrayList<>(words.size());
+        for (String word : words) {
+            if ((word != null) && (word.length() >= AbstractAutoCompleter.SHORTEST_WORD)) {
+                result.add(word);
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Records the words of the entry. If the entry has been added before, the words it does not
+     * contain anymore are forgotten unless other entries use them.
+     */
+    @Override
+    public final void addBibtexEntry(BibtexEntry entry) {
+        if (entry == null) {
+            return;
+        }
+        String[] words = getWords(entry);
+        synchronized (this) {
+            setWords(entry, words);
+        }
+    }
 
-    // stores strings in lowercase
-    private final TreeSet<String> indexCaseInsensitive = new TreeSet<>();
+    /**
+     * Records the words of many entries, e.g. in the background while the database is already shown.
+     * Entries which are already known, e.g. as they have been added or removed individually in
+     * the meantime, keep their state.
+     */
+    @Override
+    public void addBibtexEntries(Collection<BibtexEntry> entries) {
+        synchronized (this) {
+            runningBulkAdds++;
+        }
+        try {
+            addWords(entries);
+        } finally {
+            synchronized (this) {
+                runningBulkAdds--;
+                if (runningBulkAdds == 0) {
+                    wordsOfEntry.values().removeIf(words -> words == AbstractAutoCompleter.REMOVED);
+                }
+            }
+        }
+        index.compact();
+    }
 
-    // stores for a lowercase string the possible expanded strings
-    private final HashMap<String, TreeSet<String>> possibleStringsForSearchString = new HashMap<>();
+    private void addWords(Collection<BibtexEntry> entries) {
+        BibtexEntry[] array = entries.toArray(new BibtexEntry[entries.size()]);
+        List<Future<String[][]>> chunks = new ArrayList<>();
+        for (int start = 0; start < array.length; start += AbstractAutoCompleter.CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(array.length, start + AbstractAutoCompleter.CHUNK_SIZE);
+            chunks.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                String[][] words = new String[to - from][];
+                for (int i = from; i < to; i++) {
+                    words[i - from] = getWords(array[i]);
+                }
+                return words;
+            }));
+        }
 
+        try {
+            int start = 0;
+            for (Future<String[][]> chunk : chunks) {
+                String[][] words = chunk.get();
+                synchronized (this) {
+                    for (int i = 0; i < words.length; i++) {
+                        if (!wordsOfEntry.containsKey(array[start + i])) {
+                            setWords(array[start + i], words[i]);
+                        }
+                    }
+                }
+                start += words.length;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<String[][]> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
 
+    @Override
+    public synchronized void removeBibtexEntry(BibtexEntry entry) {
+        String[] oldWords = runningBulkAdds > 0 ? wordsOfEntry.put(entry, AbstractAutoCompleter.REMOVED)
+                : wordsOfEntry.remove(entry);
+        if (oldWords != null) {
+            for (String word : oldWords) {
+                index.add(word, -1);
+            }
+        }
+    }
 
-    public abstract void addBibtexEntry(BibtexEntry entry);
+    private void setWords(BibtexEntry entry, String[] words) {
+        for (String word : words) {
+            index.add(word, 1);
+        }
+        String[] oldWords = wordsOfEntry.put(entry, words);
+        if (oldWords != null) {
+            for (String word : oldWords) {
+                index.add(word, -1);
+            }
+        }
+    }
 
     /**
      * Returns one or more possible completions for a given String. The returned
@@ -57,40 +186,19 @@ abstract class AbstractAutoCompleter implements AutoCompleter {
      * @see AbstractAutoCompleter#addBibtexEntry(BibtexEntry)
      */
     public String[] complete(String toComplete) {
+        return complete(toComplete, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String[] complete(String toComplete, int maxResults) {
         if (AbstractAutoCompleter.stringMinLength(toComplete)) {
             return null;
         }
-        String lowerCase = toComplete.toLowerCase();
-
-        if (lowerCase.equals(toComplete)) {
-            // user typed in lower case word -> we do an case-insenstive search
-            String ender = AbstractAutoCompleter.incrementLastCharacter(lowerCase);
-            SortedSet<String> subset = indexCaseInsensitive.subSet(lowerCase, ender);
-
-            // As subset only contains lower case strings, 
-            // we have to to determine possible strings for each hit
-            ArrayList<String> result = new ArrayList<>();
-            for (String s : subset) {
-                result.addAll(possibleStringsForSearchString.get(s));
-            }
-            return result.toArray(new String[result.size()]);
-        } else {
-            // user typed in a mix of upper case and lower case,
-            // we assume user wants to have exact search
-            String ender = AbstractAutoCompleter.incrementLastCharacter(toComplete);
-            SortedSet<String> subset = indexCaseSensitive.subSet(toComplete, ender);
-            return subset.toArray(new String[subset.size()]);
-        }
-    }
-
-    /**
-     * Increments the last character of a string.
-     * 
-     * Example: incrementLastCharacter("abc") returns "abd".
-     */
-    private static String incrementLastCharacter(String toIncrement) {
-        char lastChar = toIncrement.charAt(toIncrement.length() - 1);
-        return toIncrement.substring(0, toIncrement.length() - 1) + Character.toString((char) (lastChar + 1));
+        // user typed in lower case word -> we do an case-insenstive search
+        // user typed in a mix of upper case and lower case -> we assume user wants to have exact search
+        boolean caseSensitive = !toComplete.toLowerCase().equals(toComplete);
+        List<String> result = index.complete(toComplete, caseSensitive, maxResults);
+        return result.toArray(new String[result.size()]);
     }
 
     private static boolean stringMinLength(String toCheck) {
@@ -99,24 +207,12 @@ abstract class AbstractAutoCompleter implements AutoCompleter {
 
     public void addWordToIndex(String word) {
         if (word.length() >= AbstractAutoCompleter.SHORTEST_WORD) {
-            indexCaseSensitive.add(word);
-
-            // insensitive treatment
-            // first, add the lower cased word to search index
-            // second, add a mapping from the lower cased word to the real word
-            String lowerCase = word.toLowerCase();
-            indexCaseInsensitive.add(lowerCase);
-            TreeSet<String> set = possibleStringsForSearchString.get(lowerCase);
-            if (set == null) {
-                set = new TreeSet<>();
-            }
-            set.add(word);
-            possibleStringsForSearchString.put(lowerCase, set);
+            index.addPermanent(word);
         }
     }
 
     public boolean indexContainsWord(String word) {
-        return indexCaseInsensitive.contains(word.toLowerCase());
+        return index.contains(word);
     }
 
     public String getPrefix() {
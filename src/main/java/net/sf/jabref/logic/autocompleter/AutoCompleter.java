@@ -1,5 +1,7 @@
 package net.sf.jabref.logic.autocompleter;
 
+import java.util.Collection;
+
 import net.sf.jabref.model.entry.BibtexEntry;
 
 public interface AutoCompleter {
@@ -11,6 +13,16 @@ public interface AutoCompleter {
      */
     void addBibtexEntry(BibtexEntry entry);
 
+    /**
+     * Adds several entries at once, taking the words from them in parallel.
+     */
+    void addBibtexEntries(Collection<BibtexEntry> entries);
+
+    /**
+     * Forgets the words of a removed entry, unless they are used elsewhere.
+     */
+    void removeBibtexEntry(BibtexEntry entry);
+
     /**
      * States whether the field consists of multiple values (false) or of a single value (true)
      * <p/>
@@ -25,6 +37,11 @@ public interface AutoCompleter {
 
     String[] complete(String toComplete);
 
+    /**
+     * Returns at most maxResults completions, the most frequently used first.
+     */
+    String[] complete(String toComplete, int maxResults);
+
     boolean indexContainsWord(String word);
 
 }
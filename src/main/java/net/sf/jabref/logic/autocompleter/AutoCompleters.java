@@ -16,8 +16,8 @@ class AutoCompleters {
     }
 
     void addDatabase(BibtexDatabase database) {
-        for (BibtexEntry entry : database.getEntries()) {
-            addEntry(entry);
+        for (AutoCompleter autoCompleter : autoCompleters.values()) {
+            autoCompleter.addBibtexEntries(database.getEntries());
         }
     }
 
@@ -31,6 +31,15 @@ class AutoCompleters {
         }
     }
 
+    /**
+     * Forgets the words of a removed entry in all Completers.
+     */
+    public void removeEntry(BibtexEntry bibtexEntry) {
+        for (AutoCompleter autoCompleter : autoCompleters.values()) {
+            autoCompleter.removeBibtexEntry(bibtexEntry);
+        }
+    }
+
     void put(String field, AutoCompleter autoCompleter) {
         autoCompleters.put(field, autoCompleter);
     }
@@ -6,9 +6,11 @@ import java.util.Vector;
 import net.sf.jabref.logic.journals.Abbreviations;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefExecutorService;
 import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.MetaData;
 import net.sf.jabref.logic.journals.Abbreviation;
+import net.sf.jabref.logic.util.StageTimer;
 
 public class ContentAutoCompleters extends AutoCompleters {
 
@@ -19,9 +21,12 @@ public class ContentAutoCompleters extends AutoCompleters {
             put(field, autoCompleter);
         }
 
-        addDatabase(database);
+        // the words of the entries are collected in the background, while the database is already shown
+        JabRefExecutorService.INSTANCE.execute(() -> new StageTimer("Autocompletion")
+                .run("indexing " + database.getEntryCount() + " entries", () -> addDatabase(database)));
 
-        addJournalListToAutoCompleter();
+        // the journal lists may still be read at startup, so their names are added in the background as well
+        JabRefExecutorService.INSTANCE.execute(this::addJournalListToAutoCompleter);
         addContentSelectorValuesToAutoCompleters(metaData);
     }
 
@@ -50,7 +55,7 @@ public class ContentAutoCompleters extends AutoCompleters {
     public void addJournalListToAutoCompleter() {
         AutoCompleter autoCompleter = get("journal");
         if(autoCompleter != null) {
-            for(Abbreviation abbreviation : Abbreviations.journalAbbrev.getAbbreviations()) {
+            for(Abbreviation abbreviation : Abbreviations.getJournalAbbreviations().getAbbreviations()) {
                 autoCompleter.addWordToIndex(abbreviation.getName());
             }
         }
@@ -15,6 +15,8 @@
 */
 package net.sf.jabref.logic.autocompleter;
 
+import java.util.Collection;
+
 import net.sf.jabref.model.entry.BibtexEntry;
 
 /**
@@ -30,14 +32,10 @@ class CrossrefAutoCompleter extends AbstractAutoCompleter {
     }
 
     @Override
-    public void addBibtexEntry(BibtexEntry entry) {
-        if (entry == null) {
-            return;
-        }
-
+    protected void collectWords(BibtexEntry entry, Collection<String> words) {
         String key = entry.getCiteKey();
         if (key != null) {
-            addWordToIndex(key.trim());
+            words.add(key.trim());
         }
     }
 }
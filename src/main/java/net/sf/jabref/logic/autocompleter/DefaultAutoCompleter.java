@@ -17,6 +17,7 @@ package net.sf.jabref.logic.autocompleter;
 
 import net.sf.jabref.model.entry.BibtexEntry;
 
+import java.util.Collection;
 import java.util.StringTokenizer;
 
 /**
@@ -44,17 +45,13 @@ class DefaultAutoCompleter extends AbstractAutoCompleter {
     }
 
     @Override
-    public void addBibtexEntry(BibtexEntry entry) {
-        if (entry == null) {
-            return;
-        }
-
+    protected void collectWords(BibtexEntry entry, Collection<String> words) {
         String fieldValue = entry.getField(fieldName);
         if (fieldValue != null) {
             StringTokenizer tok = new StringTokenizer(fieldValue, SEPARATING_CHARS);
             while (tok.hasMoreTokens()) {
                 String word = tok.nextToken();
-                addWordToIndex(word);
+                words.add(word);
             }
         }
     }
@@ -15,6 +15,8 @@
 */
 package net.sf.jabref.logic.autocompleter;
 
+import java.util.Collection;
+
 import net.sf.jabref.model.entry.BibtexEntry;
 
 /**
@@ -39,14 +41,10 @@ class EntireFieldAutoCompleter extends AbstractAutoCompleter {
     }
 
     @Override
-    public void addBibtexEntry(BibtexEntry entry) {
-        if (entry == null) {
-            return;
-        }
-
+    protected void collectWords(BibtexEntry entry, Collection<String> words) {
         String fieldValue = entry.getField(fieldName);
         if (fieldValue != null) {
-            addWordToIndex(fieldValue.trim());
+            words.add(fieldValue.trim());
         }
     }
 }
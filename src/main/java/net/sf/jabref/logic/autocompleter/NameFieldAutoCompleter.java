@@ -15,6 +15,8 @@
 */
 package net.sf.jabref.logic.autocompleter;
 
+import java.util.Collection;
+
 import net.sf.jabref.model.entry.AuthorList;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.Globals;
@@ -76,10 +78,7 @@ class NameFieldAutoCompleter extends AbstractAutoCompleter {
     }
 
     @Override
-    public void addBibtexEntry(BibtexEntry entry) {
-        if (entry == null) {
-            return;
-        }
+    protected void collectWords(BibtexEntry entry, Collection<String> words) {
         for (String fieldName : fieldNames) {
             String fieldValue = entry.getField(fieldName);
             if (fieldValue != null) {
@@ -87,28 +86,28 @@ class NameFieldAutoCompleter extends AbstractAutoCompleter {
                 for (int j = 0; j < authorList.size(); j++) {
                     AuthorList.Author author = authorList.getAuthor(j);
                     if (lastNameOnlyAndSeparationBySpace) {
-                        addWordToIndex(author.getLastOnly());
+                        words.add(author.getLastOnly());
                     } else {
                         if (autoCompLF) {
                             if (autoCompShortFirstOnly) {
-                                addWordToIndex(author.getLastFirst(true));
+                                words.add(author.getLastFirst(true));
                             } else if (autoCompFullFirstOnly) {
-                                addWordToIndex(author.getLastFirst(false));
+                                words.add(author.getLastFirst(false));
                             } else {
                                 // JabRefPreferences.AUTOCOMPLETE_FIRSTNAME_MODE_BOTH
-                                addWordToIndex(author.getLastFirst(true));
-                                addWordToIndex(author.getLastFirst(false));
+                                words.add(author.getLastFirst(true));
+                                words.add(author.getLastFirst(false));
                             }
                         }
                         if (autoCompFF) {
                             if (autoCompShortFirstOnly) {
-                                addWordToIndex(author.getFirstLast(true));
+                                words.add(author.getFirstLast(true));
                             } else if (autoCompFullFirstOnly) {
-                                addWordToIndex(author.getFirstLast(false));
+                                words.add(author.getFirstLast(false));
                             } else {
                                 // JabRefPreferences.AUTOCOMPLETE_FIRSTNAME_MODE_BOTH
-                                addWordToIndex(author.getFirstLast(true));
-                                addWordToIndex(author.getFirstLast(false));
+                                words.add(author.getFirstLast(true));
+                                words.add(author.getFirstLast(false));
                             }
                         }
                     }
@@ -135,7 +134,7 @@ class NameFieldAutoCompleter extends AbstractAutoCompleter {
     }
 
     @Override
-    public String[] complete(String toComplete) {
+    public String[] complete(String toComplete, int maxResults) {
         // Normally, one would implement that using 
         // class inheritance. But this seemed overengineered
         if (this.lastNameOnlyAndSeparationBySpace) {
@@ -143,7 +142,7 @@ class NameFieldAutoCompleter extends AbstractAutoCompleter {
         } else {
             toComplete = determinePrefixAndReturnRemainder(toComplete, " and ");
         }
-        return super.complete(toComplete);
+        return super.complete(toComplete, maxResults);
     }
 
     public String getFieldName() {
@@ -0,0 +1,319 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.autocompleter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The words known to an autocompleter together with their frequencies, for ranked prefix lookups.
+ *
+ * The words are kept in arrays sorted by their lower case form, with a segment tree holding the
+ * most frequent word of each range. A lookup finds the range of words starting with the prefix
+ * by binary search and takes the most frequent ones from the tree, without visiting the rest of
+ * the range. The frequency of a known word is updated in place. New words are collected in a
+ * small buffer, which is merged into the arrays once it has grown too large.
+ */
+final class PrefixIndex {
+
+    // score of a word which is not used anymore
+    private static final int ABSENT = -1;
+
+    private static final int MIN_BUFFER_SIZE = 256;
+
+    // sorted by the lower case form, then by the word itself
+    private static final Comparator<String> WORD_ORDER = Comparator.comparing((String word) -> word.toLowerCase())
+            .thenComparing(Comparator.naturalOrder());
+
+    private String[] words = new String[0];
+    private String[] keys = new String[0]; // the lower case forms of the words
+    private int[] counts = new int[0];
+    private boolean[] permanent = new boolean[0];
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    // leaves start at treeSize, each node holds the position of the best word below it, or -1
+    private int treeSize = 1;
+    private int[] tree = {-1, -1};
+
+    // words which are not in the arrays yet
+    private final Map<String, BufferedWord> buffer = new HashMap<>();
+
+
+    private static class BufferedWord {
+
+        private final String key;
+        private int count;
+        private boolean permanent;
+
+
+        BufferedWord(String key) {
+            this.key = key;
+        }
+
+
+        int getScore() {
+            return (count > 0) || permanent ? count : PrefixIndex.ABSENT;
+        }
+    }
+
+
+    /**
+     * Changes the number of uses of the word, e.g. by -1 when an entry does not contain it anymore.
+     * A word is known as long as it is used or has been added permanently.
+     */
+    public synchronized void add(String word, int delta) {
+        Integer position = positions.get(word);
+        if (position == null) {
+            getBufferedWord(word).count += delta;
+        } else {
+            counts[position] += delta;
+            updateTree(position);
+        }
+    }
+
+    /**
+     * Adds a word which stays known even if it is not used, e.g. a journal name from a list.
+     */
+    public synchronized void addPermanent(String word) {
+        Integer position = positions.get(word);
+        if (position == null) {
+            getBufferedWord(word).permanent = true;
+        } else if (!permanent[position]) {
+            permanent[position] = true;
+            updateTree(position);
+        }
+    }
+
+    private BufferedWord getBufferedWord(String word) {
+        BufferedWord bufferedWord = buffer.get(word);
+        if (bufferedWord == null) {
+            if (buffer.size() >= Math.max(PrefixIndex.MIN_BUFFER_SIZE, words.length / 8)) {
+                merge();
+            }
+            bufferedWord = new BufferedWord(word.toLowerCase());
+            buffer.put(word, bufferedWord);
+        }
+        return bufferedWord;
+    }
+
+    public synchronized boolean contains(String word) {
+        String key = word.toLowerCase();
+        for (int i = lowerBound(key); (i < keys.length) && keys[i].equals(key); i++) {
+            if (getScore(i) != PrefixIndex.ABSENT) {
+                return true;
+            }
+        }
+        for (Map.Entry<String, BufferedWord> bufferedWord : buffer.entrySet()) {
+            if ((bufferedWord.getValue().getScore() != PrefixIndex.ABSENT)
+                    && bufferedWord.getValue().key.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of uses of the word, 0 if it is unknown.
+     */
+    public synchronized int getFrequency(String word) {
+        Integer position = positions.get(word);
+        if (position != null) {
+            return Math.max(0, counts[position]);
+        }
+        BufferedWord bufferedWord = buffer.get(word);
+        return bufferedWord == null ? 0 : Math.max(0, bufferedWord.count);
+    }
+
+    /**
+     * Returns the most frequently used words starting with the prefix, the most frequent first.
+     * Words used equally often are sorted alphabetically, ignoring case first.
+     *
+     * @param caseSensitive if false, the case of the prefix and the words is ignored
+     */
+    public synchronized List<String> complete(String prefix, boolean caseSensitive, int maxResults) {
+        String key = prefix.toLowerCase();
+        List<String> candidates = new ArrayList<>();
+        Map<String, Integer> scores = new HashMap<>();
+
+        int from = lowerBound(key);
+        int to = upperBound(key, from);
+        // best word of the node first, ties are broken by position, i.e. alphabetically
+        PriorityQueue<Integer> nodes = new PriorityQueue<>((a, b) -> {
+            int scoreA = getScore(tree[a]);
+            int scoreB = getScore(tree[b]);
+            return scoreA == scoreB ? Integer.compare(tree[a], tree[b]) : Integer.compare(scoreB, scoreA);
+        });
+        for (int left = from + treeSize, right = to + treeSize; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                addNode(nodes, left++);
+            }
+            if ((right & 1) == 1) {
+                addNode(nodes, --right);
+            }
+        }
+        while (!nodes.isEmpty() && (candidates.size() < maxResults)) {
+            int node = nodes.poll();
+            if (node >= treeSize) {
+                String word = words[tree[node]];
+                if (!caseSensitive || word.startsWith(prefix)) {
+                    candidates.add(word);
+                    scores.put(word, getScore(tree[node]));
+                }
+            } else {
+                addNode(nodes, 2 * node);
+                addNode(nodes, (2 * node) + 1);
+            }
+        }
+
+        boolean fromBuffer = false;
+        for (Map.Entry<String, BufferedWord> bufferedWord : buffer.entrySet()) {
+            String word = bufferedWord.getKey();
+            int score = bufferedWord.getValue().getScore();
+            if ((score != PrefixIndex.ABSENT)
+                    && (caseSensitive ? word.startsWith(prefix) : bufferedWord.getValue().key.startsWith(key))) {
+                candidates.add(word);
+                scores.put(word, score);
+                fromBuffer = true;
+            }
+        }
+        if (!fromBuffer) {
+            return candidates;
+        }
+        candidates.sort(Comparator.comparing((String word) -> -scores.get(word)).thenComparing(PrefixIndex.WORD_ORDER));
+        return candidates.size() > maxResults ? new ArrayList<>(candidates.subList(0, maxResults)) : candidates;
+    }
+
+    private void addNode(PriorityQueue<Integer> nodes, int node) {
+        if ((tree[node] >= 0) && (getScore(tree[node]) != PrefixIndex.ABSENT)) {
+            nodes.add(node);
+        }
+    }
+
+    private int getScore(int position) {
+        return (counts[position] > 0) || permanent[position] ? counts[position] : PrefixIndex.ABSENT;
+    }
+
+    // the better of two positions, -1 meaning none
+    private int best(int a, int b) {
+        if ((a < 0) || (b < 0)) {
+            return Math.max(a, b);
+        }
+        int scoreA = getScore(a);
+        int scoreB = getScore(b);
+        return (scoreA > scoreB) || ((scoreA == scoreB) && (a < b)) ? a : b;
+    }
+
+    private void updateTree(int position) {
+        int node = (position + treeSize) >> 1;
+        while (node > 0) {
+            tree[node] = best(tree[2 * node], tree[(2 * node) + 1]);
+            node >>= 1;
+        }
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // the end of the range of keys starting with the given one
+    private int upperBound(String key, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].startsWith(key)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the buffered words into the arrays and drops the words which are not used anymore.
+     */
+    private void merge() {
+        Map<String, BufferedWord> used = new HashMap<>(buffer);
+        for (int i = 0; i < words.length; i++) {
+            BufferedWord word = new BufferedWord(keys[i]);
+            word.count = counts[i];
+            word.permanent = permanent[i];
+            used.put(words[i], word);
+        }
+        List<Map.Entry<String, BufferedWord>> merged = new ArrayList<>(used.size());
+        for (Map.Entry<String, BufferedWord> entry : used.entrySet()) {
+            if (entry.getValue().getScore() != PrefixIndex.ABSENT) {
+                merged.add(entry);
+            }
+        }
+        merged.sort(Comparator.comparing((Map.Entry<String, BufferedWord> entry) -> entry.getValue().key)
+                .thenComparing(Map.Entry::getKey));
+        buffer.clear();
+
+        int size = merged.size();
+        words = new String[size];
+        keys = new String[size];
+        counts = new int[size];
+        permanent = new boolean[size];
+        positions.clear();
+        for (int i = 0; i < size; i++) {
+            Map.Entry<String, BufferedWord> entry = merged.get(i);
+            words[i] = entry.getKey();
+            keys[i] = entry.getValue().key;
+            counts[i] = entry.getValue().count;
+            permanent[i] = entry.getValue().permanent;
+            positions.put(words[i], i);
+        }
+
+        treeSize = 1;
+        while (treeSize < size) {
+            treeSize <<= 1;
+        }
+        tree = new int[2 * treeSize];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < size; i++) {
+            tree[treeSize + i] = i;
+        }
+        for (int node = treeSize - 1; node > 0; node--) {
+            tree[node] = best(tree[2 * node], tree[(2 * node) + 1]);
+        }
+    }
+
+    /**
+     * Merges the buffered words, to be called after adding many words at once.
+     */
+    public synchronized void compact() {
+        if (!buffer.isEmpty()) {
+            merge();
+        }
+    }
+}
@@ -0,0 +1,624 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.cleanup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.MetaData;
+import net.sf.jabref.external.ExternalFileType;
+import net.sf.jabref.gui.FileListEntry;
+import net.sf.jabref.gui.FileListTableModel;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.gui.undo.UndoableBulkFieldChange;
+import net.sf.jabref.importer.HTMLConverter;
+import net.sf.jabref.importer.fetcher.CaseKeeper;
+import net.sf.jabref.importer.fetcher.UnitFormatter;
+import net.sf.jabref.logic.util.DOI;
+import net.sf.jabref.logic.util.date.MonthUtil;
+import net.sf.jabref.logic.util.io.FileUtil;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.util.Util;
+
+/**
+ * Cleans up many entries at once, from the GUI as well as from the command line.
+ *
+ * The steps of a {@link CleanupPreset} are run in parallel on copies of the entries, so that
+ * the entries themselves are neither modified nor cause any notifications. The resulting field
+ * changes are then applied in one go as a single bulk change of the database, see
+ * {@link BibtexDatabase#runBulkChange(Runnable)}, and recorded in one compound edit. The linked
+ * PDFs are renamed when the changes are applied as well, so that a cancelled batch leaves the files
+ * untouched. Renaming cannot be undone.
+ */
+public class CleanupBatch {
+
+    private static final int CHUNK_SIZE = 1000;
+    // the number of entries after which a worker reports its progress
+    private static final int PROGRESS_STEP = 100;
+
+    private final BibtexDatabase database;
+    private final CleanupPreset preset;
+    private final String[] fileDirectories;
+
+    private final HTMLConverter htmlConverter = new HTMLConverter();
+    private final CaseKeeper caseKeeper = new CaseKeeper();
+    private final UnitFormatter unitFormatter = new UnitFormatter();
+
+    private final AtomicInteger unsuccessfulRenames = new AtomicInteger();
+    private volatile boolean cancelled;
+
+
+    /**
+     * @param metaData the meta data of the database, used to find the linked files
+     */
+    public CleanupBatch(BibtexDatabase database, MetaData metaData, CleanupPreset preset) {
+        this.database = database;
+        this.preset = preset;
+        this.fileDirectories = metaData.getFileDirectory(Globals.FILE_FIELD);
+    }
+
+    /**
+     * A pending change of one field.
+     */
+    public static class Change {
+
+        private final BibtexEntry entry;
+        private final String field;
+        private final String oldValue;
+        private final String newValue;
+        // the renames of linked files the new value of the file field relies on
+        private final List<Rename> renames;
+
+
+        Change(BibtexEntry entry, String field, String oldValue, String newValue) {
+            this(entry, field, oldValue, newValue, Collections.emptyList());
+        }
+
+        Change(BibtexEntry entry, String field, String oldValue, String newValue, List<Rename> renames) {
+            this.entry = entry;
+            this.field = field;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.renames = renames;
+        }
+
+        public BibtexEntry getEntry() {
+            return entry;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * @return the new value, null if the field is removed
+         */
+        public String getNewValue() {
+            return newValue;
+        }
+    }
+
+    /**
+     * A pending rename of a linked file, together with the link in the new value of the file field.
+     */
+    private static class Rename {
+
+        private final File oldFile;
+        private final File newFile;
+        private final int index;
+        private final String oldLink;
+
+
+        Rename(File oldFile, File newFile, int index, String oldLink) {
+            this.oldFile = oldFile;
+            this.newFile = newFile;
+            this.index = index;
+            this.oldLink = oldLink;
+        }
+    }
+
+
+    /**
+     * Computes the changes of the given entries. Neither the entries nor their linked files are modified.
+     *
+     * @param progress is called with the number of entries processed so far, possibly from several threads
+     * @return the changes in entry order, or null if the batch has been cancelled
+     */
+    public List<Change> computeChanges(BibtexEntry[] entries, IntConsumer progress) {
+        AtomicInteger processed = new AtomicInteger();
+        List<Future<List<Change>>> chunks = new ArrayList<>();
+        for (int start = 0; start < entries.length; start += CleanupBatch.CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(entries.length, start + CleanupBatch.CHUNK_SIZE);
+            chunks.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                List<Change> changes = new ArrayList<>();
+                int reported = from;
+                for (int i = from; (i < to) && !cancelled; i++) {
+                    addChanges(entries[i], changes);
+                    if (((i + 1 - reported) == CleanupBatch.PROGRESS_STEP) || ((i + 1) == to)) {
+                        progress.accept(processed.addAndGet(i + 1 - reported));
+                        reported = i + 1;
+                    }
+                }
+                return changes;
+            }));
+        }
+
+        List<Change> result = new ArrayList<>();
+        try {
+            for (Future<List<Change>> chunk : chunks) {
+                result.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } finally {
+            if (cancelled) {
+                for (Future<List<Change>> chunk : chunks) {
+                    chunk.cancel(true);
+                }
+            }
+        }
+        return cancelled ? null : result;
+    }
+
+    /**
+     * Runs the steps on a copy of the entry, which has no listeners, and records the fields that differ.
+     */
+    private void addChanges(BibtexEntry entry, List<Change> changes) {
+        BibtexEntry copy = (BibtexEntry) entry.clone();
+        List<Rename> renames = new ArrayList<>();
+        cleanup(copy, renames);
+
+        Set<String> fields = new TreeSet<>(entry.getAllFields());
+        fields.addAll(copy.getAllFields());
+        for (String field : fields) {
+            String oldValue = entry.getField(field);
+            String newValue = copy.getField(field);
+            if (!Objects.equals(oldValue, newValue)) {
+                if (Globals.FILE_FIELD.equals(field)) {
+                    changes.add(new Change(entry, field, oldValue, newValue, renames));
+                } else {
+                    changes.add(new Change(entry, field, oldValue, newValue));
+                }
+            }
+        }
+    }
+
+    private void cleanup(BibtexEntry entry, List<Rename> renames) {
+        if (preset.isSelected(CleanupPreset.Step.UPGRADE_EXTERNAL_LINKS)) {
+            // the edits are not needed, the differences to the original entry are recorded instead
+            Util.upgradePdfPsToFile(Collections.singletonList(entry), new String[] {"pdf", "ps"});
+        }
+        if (preset.isSelected(CleanupPreset.Step.SUPERSCRIPTS)) {
+            doCleanUpSuperscripts(entry);
+        }
+        if (preset.isSelected(CleanupPreset.Step.DOI)) {
+            doCleanUpDOI(entry);
+        }
+        if (preset.isSelected(CleanupPreset.Step.MONTH)) {
+            doCleanUpMonth(entry);
+        }
+        if (preset.isSelected(CleanupPreset.Step.PAGE_NUMBERS)) {
+            doCleanUpPageNumbers(entry);
+        }
+        fixWrongFileEntries(entry);
+        if (preset.isSelected(CleanupPreset.Step.MAKE_PATHS_RELATIVE)) {
+            doMakePathsRelative(entry);
+        }
+        if (preset.isSelected(CleanupPreset.Step.RENAME_PDF)) {
+            doRenamePDFs(entry, renames);
+        }
+        if (preset.isSelected(CleanupPreset.Step.HTML)) {
+            setField(entry, "title", htmlConverter::format);
+        }
+        if (preset.isSelected(CleanupPreset.Step.UNITS)) {
+            setField(entry, "title", unitFormatter::format);
+        }
+        if (preset.isSelected(CleanupPreset.Step.CASE)) {
+            setField(entry, "title", caseKeeper::format);
+        }
+        if (preset.isSelected(CleanupPreset.Step.LATEX)) {
+            setField(entry, "title", CleanupBatch::convertLaTeX);
+        }
+        if (preset.isSelected(CleanupPreset.Step.UNICODE)) {
+            doConvertUnicode(entry);
+        }
+        if (preset.isSelected(CleanupPreset.Step.CONVERT_TO_BIBLATEX)) {
+            doConvertToBiblatex(entry);
+        }
+    }
+
+    private static void setField(BibtexEntry entry, String field, UnaryOperator<String> conversion) {
+        String oldValue = entry.getField(field);
+        if (oldValue == null) {
+            return;
+        }
+        String newValue = conversion.apply(oldValue);
+        if (!oldValue.equals(newValue)) {
+            entry.setField(field, newValue);
+        }
+    }
+
+    /**
+     * Converts the text in 1st, 2nd, ... to real superscripts by wrapping in \textsuperscript{st}, ...
+     */
+    private static void doCleanUpSuperscripts(BibtexEntry entry) {
+        setField(entry, "booktitle", value -> value.replaceAll(" (\\d+)(st|nd|rd|th) ", " $1\\\\textsuperscript{$2} "));
+    }
+
+    /**
+     * Removes the http://... for each DOI
+     * Moves DOIs from URL and NOTE filed to DOI field
+     */
+    private static void doCleanUpDOI(BibtexEntry bes) {
+        // fields to check
+        String[] fields = {"note", "url", "ee"};
+
+        // First check if the Doi Field is empty
+        if (bes.getField("doi") != null) {
+            String doiFieldValue = bes.getField("doi");
+
+            Optional<DOI> doi = DOI.build(doiFieldValue);
+
+            if (doi.isPresent()) {
+                String newValue = doi.get().getDOI();
+                if (!doiFieldValue.equals(newValue)) {
+                    bes.setField("doi", newValue);
+                }
+
+                // Doi field seems to contain Doi
+                // -> cleanup note, url, ee field
+                for (String field : fields) {
+                    DOI.build(bes.getField(field)).ifPresent(unused -> bes.setField(field, ""));
+                }
+            }
+        } else {
+            // As the Doi field is empty we now check if note, url, or ee field contains a Doi
+            for (String field : fields) {
+                Optional<DOI> doi = DOI.build(bes.getField(field));
+
+                if (doi.isPresent()) {
+                    // update Doi
+                    bes.setField("doi", doi.get().getDOI());
+                    bes.setField(field, "");
+                }
+            }
+        }
+    }
+
+    private static void doCleanUpMonth(BibtexEntry entry) {
+        // implementation based on patch 3470076 by Mathias Walter
+        setField(entry, "month", value -> {
+            MonthUtil.Month month = MonthUtil.getMonth(value);
+            return month.isValid() ? month.bibtexFormat : value;
+        });
+    }
+
+    private static void doCleanUpPageNumbers(BibtexEntry entry) {
+        setField(entry, "pages", value -> value.replaceAll(" *(\\d+) *- *(\\d+) *", "$1--$2"));
+    }
+
+    private static void fixWrongFileEntries(BibtexEntry entry) {
+        String oldValue = entry.getField(Globals.FILE_FIELD);
+        if (oldValue == null) {
+            return;
+        }
+        FileListTableModel flModel = new FileListTableModel();
+        flModel.setContent(oldValue);
+        if (flModel.getRowCount() == 0) {
+            return;
+        }
+        boolean changed = false;
+        for (int i = 0; i < flModel.getRowCount(); i++) {
+            FileListEntry flEntry = flModel.getEntry(i);
+            String link = flEntry.getLink();
+            String description = flEntry.getDescription();
+            if (link.equals("") && (!description.equals(""))) {
+                // link and description seem to be switched, quickly fix that
+                flEntry.setLink(flEntry.getDescription());
+                flEntry.setDescription("");
+                changed = true;
+            }
+        }
+        if (changed) {
+            entry.setField(Globals.FILE_FIELD, flModel.getStringRepresentation());
+        }
+    }
+
+    private void doMakePathsRelative(BibtexEntry entry) {
+        String oldValue = entry.getField(Globals.FILE_FIELD);
+        if (oldValue == null) {
+            return;
+        }
+        FileListTableModel flModel = new FileListTableModel();
+        flModel.setContent(oldValue);
+        if (flModel.getRowCount() == 0) {
+            return;
+        }
+        boolean changed = false;
+        for (int i = 0; i < flModel.getRowCount(); i++) {
+            FileListEntry flEntry = flModel.getEntry(i);
+            String oldFileName = flEntry.getLink();
+            String newFileName = FileUtil.shortenFileName(new File(oldFileName), fileDirectories).toString();
+            if (!oldFileName.equals(newFileName)) {
+                flEntry.setLink(newFileName);
+                changed = true;
+            }
+        }
+        if (changed) {
+            entry.setField(Globals.FILE_FIELD, flModel.getStringRepresentation());
+        }
+    }
+
+    /**
+     * Changes the links of the entry to the new file names, the files are renamed when the changes are applied.
+     */
+    private void doRenamePDFs(BibtexEntry entry, List<Rename> renames) {
+        //Extract the path
+        String oldValue = entry.getField(Globals.FILE_FIELD);
+        if (oldValue == null) {
+            return;
+        }
+        FileListTableModel flModel = new FileListTableModel();
+        flModel.setContent(oldValue);
+        if (flModel.getRowCount() == 0) {
+            return;
+        }
+        boolean changed = false;
+
+        for (int i = 0; i < flModel.getRowCount(); i++) {
+            String realOldFilename = flModel.getEntry(i).getLink();
+
+            if (preset.isRenamePdfOnlyRelativePaths() && (new File(realOldFilename).isAbsolute())) {
+                continue;
+            }
+
+            String newFilename = Util.getLinkedFileName(database, entry);
+
+            //Add extension to newFilename
+            newFilename = newFilename + "." + flModel.getEntry(i).getType().getExtension();
+
+            //get new Filename with path
+            //Create new Path based on old Path and new filename
+            File expandedOldFile = FileUtil.expandFilename(realOldFilename, fileDirectories);
+            if ((expandedOldFile == null) || (expandedOldFile.getParent() == null)) {
+                // something went wrong. Just skip this entry
+                continue;
+            }
+            String newPath = expandedOldFile.getParent().concat(System.getProperty("file.separator")).concat(newFilename);
+
+            if (new File(newPath).exists()) {
+                // we do not overwrite files, this is checked again when renaming
+                // TODO: we could check here if the newPath file is linked with the current entry. And if not, we could add a link
+                continue;
+            }
+
+            changed = true;
+            renames.add(new Rename(expandedOldFile, new File(newPath), i, realOldFilename));
+
+            //Change the path for this entry
+            String description = flModel.getEntry(i).getDescription();
+            ExternalFileType type = flModel.getEntry(i).getType();
+            flModel.removeEntry(i);
+
+            // we cannot use "newPath" to generate a FileListEntry as newPath is absolute, but we want to keep relative paths whenever possible
+            File parent = (new File(realOldFilename)).getParentFile();
+            String newFileEntryFileName;
+            if (parent == null) {
+                newFileEntryFileName = newFilename;
+            } else {
+                newFileEntryFileName = parent.toString().concat(System.getProperty("file.separator")).concat(newFilename);
+            }
+            flModel.addEntry(i, new FileListEntry(description, newFileEntryFileName, type));
+        }
+
+        if (changed) {
+            //the undo of the field content does not rename the file back, which leads to inconsistencies
+            entry.setField(Globals.FILE_FIELD, flModel.getStringRepresentation());
+        }
+    }
+
+    /**
+     * Converts Unicode characters to LaTeX code
+     */
+    private void doConvertUnicode(BibtexEntry entry) {
+        final String[] fields = {"title", "author", "abstract"};
+        for (String field : fields) {
+            if (entry.getField(field) == null) {
+                return;
+            }
+            setField(entry, field, htmlConverter::formatUnicode);
+        }
+    }
+
+    static String convertLaTeX(String oldValue) {
+        String newValue = oldValue;
+
+        // Remove redundant $, {, and }, but not if the } is part of a command argument: \mbox{-}{GPS} should not be adjusted
+        newValue = newValue.replace("$$", "").replaceAll("(?<!\\\\[\\p{Alpha}]{0,100}\\{[^\\}]{0,100})\\}([-/ ]?)\\{", "$1");
+        // Move numbers, +, -, /, and brackets into equations
+        newValue = newValue.replaceAll("(([^$]|\\\\\\$)*)\\$", "$1@@"); // Replace $, but not \$ with @@
+        newValue = newValue.replaceAll("([^@]*)@@([^@]*)@@", "$1\\$$2@@"); // Replace every other @@ with $
+        //newValue = newValue.replaceAll("([0-9\\(\\.]+) \\$","\\$$1\\\\ "); // Move numbers followed by a space left of $ inside the equation, e.g., 0.35 $\mu$m
+        newValue = newValue.replaceAll("([0-9\\(\\.]+[ ]?[-+/]?[ ]?)\\$", "\\$$1"); // Move numbers, possibly with operators +, -, or /,  left of $ into the equation
+        newValue = newValue.replaceAll("@@([ ]?[-+/]?[ ]?[0-9\\)\\.]+)", " $1@@"); // Move numbers right of @@ into the equation
+        newValue = newValue.replace("@@", "$"); // Replace all @@ with $
+        newValue = newValue.replace("  ", " "); // Clean up
+        newValue = newValue.replace("$$", "");
+        newValue = newValue.replace(" )$", ")$");
+        return newValue;
+    }
+
+    /**
+     * Converts to BibLatex format
+     */
+    private static void doConvertToBiblatex(BibtexEntry entry) {
+
+        for (Map.Entry<String, String> alias : BibtexEntry.FIELD_ALIASES_OLD_TO_NEW.entrySet()) {
+            String oldFieldName = alias.getKey();
+            String newFieldName = alias.getValue();
+            String oldValue = entry.getField(oldFieldName);
+            String newValue = entry.getField(newFieldName);
+            if ((oldValue != null) && (!oldValue.isEmpty()) && (newValue == null)) {
+                // There is content in the old field and no value in the new, so just copy
+                entry.setField(newFieldName, oldValue);
+                entry.clearField(oldFieldName);
+            }
+        }
+
+        // Dates: create date out of year and month, save it and delete old fields
+        if ((entry.getField("date") == null) || (entry.getField("date").isEmpty())) {
+            String newDate = entry.getFieldOrAlias("date");
+            if (newDate == null) {
+                entry.clearField("date");
+            } else {
+                entry.setField("date", newDate);
+            }
+            entry.clearField("year");
+            entry.clearField("month");
+        }
+    }
+
+    /**
+     * Renames the linked files and applies the given changes as one bulk change of the database.
+     * A link whose file cannot be renamed keeps its old name, so the changes of the file field
+     * are adjusted, or removed from the list if nothing is left to change.
+     *
+     * @param changes the changes computed by {@link #computeChanges(BibtexEntry[], IntConsumer)}
+     * @param ce receives a single edit for all changes, which is undone and redone as bulk change as well
+     * @return the number of changed fields
+     */
+    public int applyChanges(List<Change> changes, NamedCompound ce) {
+        for (ListIterator<Change> iterator = changes.listIterator(); iterator.hasNext(); ) {
+            Change change = renameFiles(iterator.next());
+            if (change == null) {
+                iterator.remove();
+            } else {
+                iterator.set(change);
+            }
+        }
+
+        UndoableBulkFieldChange edit = new UndoableBulkFieldChange(database, ce.getNameOnly());
+        database.runBulkChange(() -> {
+            for (Change change : changes) {
+                if (change.getNewValue() == null) {
+                    change.getEntry().clearField(change.getField());
+                } else {
+                    change.getEntry().setField(change.getField(), change.getNewValue());
+                }
+                edit.addChange(change.getEntry(), change.getField(), change.getOldValue(), change.getNewValue());
+            }
+        });
+        edit.end();
+        if (edit.hasChanges()) {
+            ce.addEdit(edit);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Renames the files the change relies on. Files are renamed one after the other, so that two
+     * entries getting the same file name do not overwrite each other.
+     *
+     * @return the change, adjusted to the files which could not be renamed, or null if nothing is left to change
+     */
+    private Change renameFiles(Change change) {
+        if (change.renames.isEmpty()) {
+            return change;
+        }
+        FileListTableModel flModel = null;
+        for (Rename rename : change.renames) {
+            if (!rename.newFile.exists()
+                    && FileUtil.renameFile(rename.oldFile.toString(), rename.newFile.toString())) {
+                continue;
+            }
+            unsuccessfulRenames.incrementAndGet();
+            if (flModel == null) {
+                flModel = new FileListTableModel();
+                flModel.setContent(change.getNewValue());
+            }
+            flModel.getEntry(rename.index).setLink(rename.oldLink);
+        }
+        if (flModel == null) {
+            return change;
+        }
+        String newValue = flModel.getStringRepresentation();
+        if (newValue.equals(change.getOldValue())) {
+            return null;
+        }
+        return new Change(change.getEntry(), change.getField(), change.getOldValue(), newValue);
+    }
+
+    /**
+     * @return the number of entries having at least one change
+     */
+    public static int countEntries(List<Change> changes) {
+        int count = 0;
+        BibtexEntry previous = null;
+        for (Change change : changes) {
+            if (change.getEntry() != previous) {
+                count++;
+                previous = change.getEntry();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of linked files which could not be renamed
+     */
+    public int getUnsuccessfulRenames() {
+        return unsuccessfulRenames.get();
+    }
+
+    /**
+     * Stops the computation of the changes, can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
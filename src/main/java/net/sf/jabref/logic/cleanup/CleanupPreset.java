@@ -0,0 +1,100 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.cleanup;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.jabref.JabRefPreferences;
+
+/**
+ * The cleanup steps to run on entries, as chosen in the cleanup dialog.
+ */
+public class CleanupPreset {
+
+    private static final String RENAME_PDF_ONLY_RELATIVE_PATHS = "CleanUpRenamePDFonlyRelativePaths";
+
+    /**
+     * The cleanup steps, in the order in which they are run on each entry.
+     */
+    public enum Step {
+        UPGRADE_EXTERNAL_LINKS("CleanUpUpgradeExternalLinks", false),
+        SUPERSCRIPTS("CleanUpSuperscripts", true),
+        DOI("CleanUpDOI", true),
+        MONTH("CleanUpMonth", true),
+        PAGE_NUMBERS("CleanUpPageNumbers", true),
+        MAKE_PATHS_RELATIVE("CleanUpMakePathsRelative", true),
+        RENAME_PDF("CleanUpRenamePDF", true),
+        HTML("CleanUpHTML", true),
+        UNITS("CleanUpUnits", true),
+        CASE("CleanUpCase", true),
+        LATEX("CleanUpLaTeX", true),
+        UNICODE("CleanUpUnicode", true),
+        CONVERT_TO_BIBLATEX("CleanUpConvertToBiblatex", false);
+
+        private final String preferenceKey;
+        private final boolean selectedByDefault;
+
+
+        Step(String preferenceKey, boolean selectedByDefault) {
+            this.preferenceKey = preferenceKey;
+            this.selectedByDefault = selectedByDefault;
+        }
+    }
+
+
+    private final Set<Step> steps;
+    private final boolean renamePdfOnlyRelativePaths;
+
+
+    public CleanupPreset(Set<Step> steps, boolean renamePdfOnlyRelativePaths) {
+        this.steps = steps.isEmpty() ? EnumSet.noneOf(Step.class) : EnumSet.copyOf(steps);
+        this.renamePdfOnlyRelativePaths = renamePdfOnlyRelativePaths;
+    }
+
+    public static void putDefaults(Map<String, Object> defaults) {
+        for (Step step : Step.values()) {
+            defaults.put(step.preferenceKey, step.selectedByDefault);
+        }
+        defaults.put(RENAME_PDF_ONLY_RELATIVE_PATHS, Boolean.FALSE);
+    }
+
+    public static CleanupPreset loadFromPreferences(JabRefPreferences preferences) {
+        Set<Step> steps = EnumSet.noneOf(Step.class);
+        for (Step step : Step.values()) {
+            if (preferences.getBoolean(step.preferenceKey)) {
+                steps.add(step);
+            }
+        }
+        return new CleanupPreset(steps, preferences.getBoolean(RENAME_PDF_ONLY_RELATIVE_PATHS));
+    }
+
+    public void storeInPreferences(JabRefPreferences preferences) {
+        for (Step step : Step.values()) {
+            preferences.putBoolean(step.preferenceKey, steps.contains(step));
+        }
+        preferences.putBoolean(RENAME_PDF_ONLY_RELATIVE_PATHS, renamePdfOnlyRelativePaths);
+    }
+
+    public boolean isSelected(Step step) {
+        return steps.contains(step);
+    }
+
+    public boolean isRenamePdfOnlyRelativePaths() {
+        return renamePdfOnlyRelativePaths;
+    }
+}
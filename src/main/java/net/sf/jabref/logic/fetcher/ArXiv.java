@@ -1,9 +1,7 @@
 package net.sf.jabref.logic.fetcher;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
 import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.logic.net.URLDownload;
 import net.sf.jabref.logic.util.DOI;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -19,6 +17,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -43,16 +42,12 @@ public class ArXiv implements FullTextFinder {
         if(doi.isPresent()) {
             String doiString = doi.get().getDOI();
             // Available in catalog?
-            try {
-                HttpResponse<InputStream> response = Unirest.get(API_URL)
-                        .queryString("search_query", doiString)
-                        .queryString("max_results", 1)
-                        .asBinary();
-
+            URL query = new URL(API_URL + "?search_query=" + URLEncoder.encode(doiString, "UTF-8") + "&max_results=1");
+            try (InputStream response = new URLDownload(query).openStream()) {
                 // Xml response
                 DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
                 DocumentBuilder builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(response.getBody());
+                Document doc = builder.parse(response);
 
                 NodeList nodes = doc.getElementsByTagName("arxiv:doi");
                 Node doiTag = nodes.item(0);
@@ -75,7 +70,7 @@ public class ArXiv implements FullTextFinder {
                         }
                     }
                 }
-            } catch(UnirestException | ParserConfigurationException | SAXException e) {
+            } catch(IOException | ParserConfigurationException | SAXException e) {
                 LOGGER.warn("arXiv API request failed: " + e.getMessage());
             }
         }
@@ -1,15 +1,11 @@
 package net.sf.jabref.logic.fetcher;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
-import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.logic.net.URLDownload;
 import net.sf.jabref.logic.util.DOI;
 import net.sf.jabref.model.entry.BibtexEntry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.io.InputStream;
 import java.net.URL;
 import java.io.IOException;
 import java.util.Objects;
@@ -37,16 +33,16 @@ public class ScienceDirect implements FullTextFinder {
             // Available in catalog?
             try {
                 String request = API_URL + doi.get().getDOI();
-                HttpResponse<InputStream> response = Unirest.get(request)
-                        .header("X-ELS-APIKey", API_KEY)
-                        .queryString("httpAccept", "application/pdf")
-                        .asBinary();
+                URL pdf = new URL(request + "?httpAccept=application/pdf");
+                URLDownload download = new URLDownload(pdf);
+                download.addHeader("X-ELS-APIKey", API_KEY);
 
-                if (response.getStatus() == 200) {
+                // only the status is needed, the PDF itself is not downloaded here
+                if (download.getResponseCode() == 200) {
                     LOGGER.info("Fulltext PDF found @ ScienceDirect.");
-                    pdfLink = Optional.of(new URL(request + "?httpAccept=application/pdf"));
+                    pdfLink = Optional.of(pdf);
                 }
-            } catch(UnirestException e) {
+            } catch(IOException e) {
                 LOGGER.warn("Elsevier API request failed: " + e.getMessage());
             }
         }
@@ -1,10 +1,7 @@
 package net.sf.jabref.logic.fetcher;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
-import net.sf.jabref.model.entry.BibtexEntry;
+import com.google.common.io.CharStreams;
+import net.sf.jabref.logic.net.URLDownload;
 import net.sf.jabref.logic.util.DOI;
 import net.sf.jabref.model.entry.BibtexEntry;
 import org.apache.commons.logging.Log;
@@ -12,6 +9,8 @@ import org.apache.commons.logging.LogFactory;
 import org.json.JSONObject;
 
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.io.*;
 import java.util.Objects;
 import java.util.Optional;
@@ -39,19 +38,21 @@ public class SpringerLink implements FullTextFinder {
         if(doi.isPresent()) {
             // Available in catalog?
             try {
-                HttpResponse<JsonNode> jsonResponse = Unirest.get(API_URL)
-                        .queryString("api_key", API_KEY)
-                        .queryString("q", String.format("doi:%s", doi.get().getDOI()))
-                        .asJson();
+                URL query = new URL(API_URL + "?api_key=" + API_KEY + "&q="
+                        + URLEncoder.encode(String.format("doi:%s", doi.get().getDOI()), "UTF-8"));
+                String jsonResponse;
+                try (Reader response = new InputStreamReader(new URLDownload(query).openStream(), StandardCharsets.UTF_8)) {
+                    jsonResponse = CharStreams.toString(response);
+                }
 
-                JSONObject json = jsonResponse.getBody().getObject();
+                JSONObject json = new JSONObject(jsonResponse);
                 int results = json.getJSONArray("result").getJSONObject(0).getInt("total");
 
                 if (results > 0) {
                     LOGGER.info("Fulltext PDF found @ Springer.");
                     pdfLink = Optional.of(new URL("http", CONTENT_HOST, String.format("/content/pdf/%s.pdf", doi.get().getDOI())));
                 }
-            } catch(UnirestException e) {
+            } catch(IOException e) {
                 LOGGER.warn("SpringerLink API request failed: " + e.getMessage());
             }
         }
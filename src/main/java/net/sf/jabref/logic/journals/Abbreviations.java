@@ -1,5 +1,6 @@
 package net.sf.jabref.logic.journals;
 
+import net.sf.jabref.Globals;
 import net.sf.jabref.JabRefPreferences;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -15,23 +16,33 @@ public class Abbreviations {
     public static final String JOURNALS_FILE_BUILTIN = "/journals/journalList.txt";
     public static final String JOURNALS_IEEE_ABBREVIATION_LIST_WITH_CODE = "/journals/IEEEJournalListCode.txt";
     public static final String JOURNALS_IEEE_ABBREVIATION_LIST_WITH_TEXT = "/journals/IEEEJournalListText.txt";
-    public static JournalAbbreviationRepository journalAbbrev;
+    private static JournalAbbreviationRepository journalAbbrev;
 
-    public static void initializeJournalNames(JabRefPreferences jabRefPreferences) {
-        journalAbbrev = new JournalAbbreviationRepository();
+    /**
+     * Returns the journal abbreviations, reading the lists on the first call.
+     */
+    public static synchronized JournalAbbreviationRepository getJournalAbbreviations() {
+        if (journalAbbrev == null) {
+            initializeJournalNames(Globals.prefs);
+        }
+        return journalAbbrev;
+    }
+
+    public static synchronized void initializeJournalNames(JabRefPreferences jabRefPreferences) {
+        JournalAbbreviationRepository repository = new JournalAbbreviationRepository();
 
         // the order of reading the journal lists is important
         // method: last added abbreviation wins
         // for instance, in the personal list one can overwrite abbreviations in the built in list
 
         // Read builtin list
-        journalAbbrev.readJournalListFromResource(JOURNALS_FILE_BUILTIN);
+        repository.readJournalListFromResource(JOURNALS_FILE_BUILTIN);
 
         // read IEEE list
         if (jabRefPreferences.getBoolean(JabRefPreferences.USE_IEEE_ABRV)) {
-            journalAbbrev.readJournalListFromResource(JOURNALS_IEEE_ABBREVIATION_LIST_WITH_CODE);
+            repository.readJournalListFromResource(JOURNALS_IEEE_ABBREVIATION_LIST_WITH_CODE);
         } else {
-            journalAbbrev.readJournalListFromResource(JOURNALS_IEEE_ABBREVIATION_LIST_WITH_TEXT);
+            repository.readJournalListFromResource(JOURNALS_IEEE_ABBREVIATION_LIST_WITH_TEXT);
         }
 
         // Read external lists
@@ -40,7 +51,7 @@ public class Abbreviations {
             for (int i = lists.length - 1; i >= 0; i--) {
                 String filename = lists[i];
                 try {
-                    journalAbbrev.readJournalListFromFile(new File(filename));
+                    repository.readJournalListFromFile(new File(filename));
                 } catch (FileNotFoundException e) {
                     // The file couldn't be found... should we tell anyone?
                     LOGGER.info("Cannot find external journal list file " + filename, e);
@@ -52,11 +63,12 @@ public class Abbreviations {
         String personalJournalList = jabRefPreferences.get(JabRefPreferences.PERSONAL_JOURNAL_LIST);
         if (personalJournalList != null) {
             try {
-                journalAbbrev.readJournalListFromFile(new File(personalJournalList));
+                repository.readJournalListFromFile(new File(personalJournalList));
             } catch (FileNotFoundException e) {
                 LOGGER.info("Personal journal list file '" + personalJournalList + "' not found.", e);
             }
         }
 
+        journalAbbrev = repository;
     }
 }
@@ -0,0 +1,366 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.journals;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A journal abbreviation list compiled to a compact binary index.
+ *
+ * The index holds the state a {@link JournalAbbreviationRepository} reaches when the list is
+ * added to it: for each kind of name (full, ISO, MEDLINE) a table of lower case keys, sorted
+ * by their UTF-8 bytes, pointing to the abbreviation they belong to, and the abbreviations
+ * that remain in the sorted set. Lookups are binary searches on the raw bytes, so the index
+ * can be memory-mapped and nothing is decoded before it is used.
+ *
+ * The bundled lists are compiled at build time by {@link #main(String[])}.
+ */
+final class JournalAbbreviationIndex {
+
+    static final int FULL_NAME = 0;
+    static final int ISO = 1;
+    static final int MEDLINE = 2;
+
+    private static final int MAGIC = 0x4A41424A; // "JABJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+
+    private static final String LIST_SUFFIX = ".txt";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final Log LOGGER = LogFactory.getLog(JournalAbbreviationIndex.class);
+
+    private final ByteBuffer buffer;
+
+    private final int recordCount;
+    private final int setSize;
+    private final int[] keyCounts = new int[3];
+
+    private final int setStart;
+    private final int[] keyStarts = new int[3];
+    private final int stringStart;
+
+    // Abbreviations already decoded, by record
+    private final Abbreviation[] decoded;
+
+
+    private JournalAbbreviationIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if ((buffer.limit() < HEADER_SIZE) || (buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+            throw new IOException("Not a journal abbreviation index");
+        }
+        recordCount = buffer.getInt(8);
+        setSize = buffer.getInt(12);
+        for (int kind = FULL_NAME; kind <= MEDLINE; kind++) {
+            keyCounts[kind] = buffer.getInt(16 + (4 * kind));
+        }
+
+        setStart = HEADER_SIZE + (8 * recordCount);
+        int position = setStart + (4 * setSize);
+        for (int kind = FULL_NAME; kind <= MEDLINE; kind++) {
+            keyStarts[kind] = position;
+            position += 8 * keyCounts[kind];
+        }
+        stringStart = position;
+        if (stringStart > buffer.limit()) {
+            throw new IOException("Truncated journal abbreviation index");
+        }
+        decoded = new Abbreviation[recordCount];
+    }
+
+    /**
+     * @return the name of the index resource compiled from the given list resource
+     */
+    static String getIndexResource(String listResource) {
+        if (listResource.endsWith(LIST_SUFFIX)) {
+            return listResource.substring(0, listResource.length() - LIST_SUFFIX.length()) + INDEX_SUFFIX;
+        }
+        return listResource + INDEX_SUFFIX;
+    }
+
+    /**
+     * Opens the index at the given location. Files are memory-mapped, other resources
+     * (e.g. inside the jar) are read into a single buffer.
+     */
+    static JournalAbbreviationIndex open(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return JournalAbbreviationIndex.open(new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[65536];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                bytes.write(chunk, 0, read);
+            }
+            return new JournalAbbreviationIndex(ByteBuffer.wrap(bytes.toByteArray()));
+        }
+    }
+
+    static JournalAbbreviationIndex open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return new JournalAbbreviationIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static String toKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param kind one of {@link #FULL_NAME}, {@link #ISO} and {@link #MEDLINE}
+     * @param key  the name, as returned by {@link #toKey(String)}
+     * @return the abbreviation with the given name of the given kind, or null
+     */
+    Abbreviation find(int kind, String key) {
+        byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = keyCounts[kind] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = keyStarts[kind] + (8 * middle);
+            int comparison = compareString(buffer.getInt(entry), wanted);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return getRecord(buffer.getInt(entry + 4));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the sorted set of the list contains an abbreviation with the given name
+     */
+    boolean containsName(String name) {
+        int low = 0;
+        int high = setSize - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getSetMember(middle).getName().compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of abbreviations in the sorted set of the list
+     */
+    int size() {
+        return setSize;
+    }
+
+    /**
+     * @return the abbreviation at the given position of the sorted set of the list
+     */
+    Abbreviation getSetMember(int i) {
+        return getRecord(buffer.getInt(setStart + (4 * i)));
+    }
+
+    private Abbreviation getRecord(int record) {
+        Abbreviation abbreviation = decoded[record];
+        if (abbreviation == null) {
+            int entry = HEADER_SIZE + (8 * record);
+            abbreviation = new Abbreviation(readString(buffer.getInt(entry)), readString(buffer.getInt(entry + 4)));
+            // Abbreviation is immutable, so a racing thread at worst decodes it once more
+            decoded[record] = abbreviation;
+        }
+        return abbreviation;
+    }
+
+    private String readString(int offset) {
+        int position = stringStart + offset;
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compareString(int offset, byte[] other) {
+        int position = stringStart + offset;
+        int length = buffer.getInt(position);
+        int common = Math.min(length, other.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(position + 4 + i) & 0xFF) - (other[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - other.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Writes the index of the given list, which must be in the order of the list file.
+     */
+    static void write(List<Abbreviation> list, OutputStream out) throws IOException {
+        // Add the list to an empty repository, see JournalAbbreviationRepository.addEntry()
+        JournalAbbreviationRepository repository = new JournalAbbreviationRepository();
+        for (Abbreviation abbreviation : list) {
+            repository.addEntry(abbreviation);
+        }
+
+        Map<Abbreviation, Integer> records = new IdentityHashMap<>();
+        List<Abbreviation> recordList = new ArrayList<>();
+        StringTable strings = new StringTable();
+
+        List<Abbreviation> set = new ArrayList<>(repository.getAbbreviations());
+        List<List<Map.Entry<byte[], Abbreviation>>> keys = new ArrayList<>();
+        for (int kind = FULL_NAME; kind <= MEDLINE; kind++) {
+            List<Map.Entry<byte[], Abbreviation>> table = new ArrayList<>();
+            for (Map.Entry<String, Abbreviation> entry : repository.getKeys(kind).entrySet()) {
+                table.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        entry.getValue()));
+            }
+            table.sort((a, b) -> JournalAbbreviationIndex.compareBytes(a.getKey(), b.getKey()));
+            keys.add(table);
+        }
+
+        List<Abbreviation> referenced = new ArrayList<>(set);
+        for (List<Map.Entry<byte[], Abbreviation>> table : keys) {
+            for (Map.Entry<byte[], Abbreviation> entry : table) {
+                referenced.add(entry.getValue());
+            }
+        }
+        for (Abbreviation abbreviation : referenced) {
+            if (!records.containsKey(abbreviation)) {
+                records.put(abbreviation, recordList.size());
+                recordList.add(abbreviation);
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(recordList.size());
+        data.writeInt(set.size());
+        for (List<Map.Entry<byte[], Abbreviation>> table : keys) {
+            data.writeInt(table.size());
+        }
+        for (Abbreviation abbreviation : recordList) {
+            data.writeInt(strings.add(abbreviation.getName().getBytes(StandardCharsets.UTF_8)));
+            data.writeInt(strings.add(abbreviation.getAbbreviation().getBytes(StandardCharsets.UTF_8)));
+        }
+        for (Abbreviation abbreviation : set) {
+            data.writeInt(records.get(abbreviation));
+        }
+        for (List<Map.Entry<byte[], Abbreviation>> table : keys) {
+            for (Map.Entry<byte[], Abbreviation> entry : table) {
+                data.writeInt(strings.add(entry.getKey()));
+                data.writeInt(records.get(entry.getValue()));
+            }
+        }
+        strings.writeTo(data);
+        data.flush();
+    }
+
+
+    private static class StringTable {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+
+        int add(byte[] string) throws IOException {
+            String key = new String(string, StandardCharsets.UTF_8);
+            Integer offset = offsets.get(key);
+            if (offset == null) {
+                offset = bytes.size();
+                offsets.put(key, offset);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(string.length);
+                out.write(string);
+                out.flush();
+            }
+            return offset;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+    }
+
+
+    /**
+     * Compiles all journal lists (*.txt) of a directory to indexes (*.idx) in another directory.
+     * Used by the build, e.g. <code>JournalAbbreviationIndex src/main/resources/journals build/.../journals</code>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: JournalAbbreviationIndex <list directory> <index directory>");
+            System.exit(1);
+        }
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+        if (!target.isDirectory() && !target.mkdirs()) {
+            throw new IOException("Cannot create " + target);
+        }
+
+        File[] lists = source.listFiles((dir, name) -> name.endsWith(LIST_SUFFIX));
+        if (lists == null) {
+            throw new IOException("Cannot read " + source);
+        }
+        for (File list : lists) {
+            AbbreviationParser parser = new AbbreviationParser();
+            parser.readJournalListFromFile(list);
+            File index = new File(target, JournalAbbreviationIndex.getIndexResource(list.getName()));
+            try (OutputStream out = new FileOutputStream(index)) {
+                JournalAbbreviationIndex.write(parser.getAbbreviations(), out);
+            }
+            LOGGER.info("Compiled " + list + " to " + index);
+        }
+    }
+}
@@ -21,10 +21,17 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
 import java.util.*;
 
 /**
  * A repository for all journal abbreviations, including add and find methods.
+ *
+ * A bundled list read into an empty repository is not parsed, but served from the binary
+ * index compiled from it at build time (see {@link JournalAbbreviationIndex}). The index is
+ * opened on the first lookup; all abbreviations added afterwards are kept in hash maps layered
+ * over it, which gives the same result as adding them all to the maps one by one.
  */
 public class JournalAbbreviationRepository {
 
@@ -34,11 +41,34 @@ public class JournalAbbreviationRepository {
 
     private final SortedSet<Abbreviation> abbreviations = new TreeSet<>();
 
+    // The bundled list below all other abbreviations, null if there is none
+    private JournalAbbreviationIndex index;
+    // Names of the abbreviations of the index which have been replaced by later ones
+    private final Set<String> replacedInIndex = new HashSet<>();
+
+    // Set until the index has been opened, together with the abbreviations added in the meantime
+    private volatile String pendingIndexResource;
+    private String pendingListResource;
+    private List<Abbreviation> pendingAbbreviations;
+
+    private SortedSet<Abbreviation> allAbbreviations;
+
     private static final Log LOGGER = LogFactory.getLog(JournalAbbreviationRepository.class);
 
     public void readJournalListFromResource(String resource) {
+        Objects.requireNonNull(resource);
+        if (isEmpty()) {
+            String indexResource = JournalAbbreviationIndex.getIndexResource(resource);
+            if (JournalAbbreviationRepository.class.getResource(indexResource) != null) {
+                pendingIndexResource = indexResource;
+                pendingListResource = resource;
+                pendingAbbreviations = new ArrayList<>();
+                return;
+            }
+        }
+
         AbbreviationParser parser = new AbbreviationParser();
-        parser.readJournalListFromResource(Objects.requireNonNull(resource));
+        parser.readJournalListFromResource(resource);
         for (Abbreviation abbreviation : parser.getAbbreviations()) {
             addEntry(abbreviation);
         }
@@ -53,21 +83,94 @@ public class JournalAbbreviationRepository {
         }
     }
 
+    /**
+     * Uses the given index as the bottom layer of this empty repository.
+     */
+    void setIndex(JournalAbbreviationIndex index) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("The index must be set before any abbreviation is added");
+        }
+        this.index = Objects.requireNonNull(index);
+    }
+
+    private boolean isEmpty() {
+        return (index == null) && (pendingIndexResource == null) && abbreviations.isEmpty();
+    }
+
+    private void ensureIndexOpened() {
+        if (pendingIndexResource != null) {
+            openIndex();
+        }
+    }
+
+    private synchronized void openIndex() {
+        String indexResource = pendingIndexResource;
+        if (indexResource == null) {
+            return;
+        }
+
+        URL url = JournalAbbreviationRepository.class.getResource(indexResource);
+        try {
+            index = JournalAbbreviationIndex.open(url);
+        } catch (IOException e) {
+            LOGGER.info("Could not read journal abbreviation index " + indexResource + ", reading the list instead", e);
+            AbbreviationParser parser = new AbbreviationParser();
+            parser.readJournalListFromResource(pendingListResource);
+            for (Abbreviation abbreviation : parser.getAbbreviations()) {
+                add(abbreviation);
+            }
+        }
+        for (Abbreviation abbreviation : pendingAbbreviations) {
+            add(abbreviation);
+        }
+
+        pendingListResource = null;
+        pendingAbbreviations = null;
+        // publishes the state above to all threads
+        pendingIndexResource = null;
+    }
+
     public int size() {
-        return abbreviations.size();
+        ensureIndexOpened();
+        if (index == null) {
+            return abbreviations.size();
+        }
+        return (index.size() - replacedInIndex.size()) + abbreviations.size();
+    }
+
+    private Abbreviation find(int kind, String nameKey) {
+        Abbreviation abbreviation = getKeys(kind).get(nameKey);
+        if ((abbreviation == null) && (index != null)) {
+            abbreviation = index.find(kind, nameKey);
+        }
+        return abbreviation;
+    }
+
+    /**
+     * @param kind one of the kinds of names of {@link JournalAbbreviationIndex}
+     * @return the abbreviations added to the maps of this repository, by lower case name of the given kind
+     */
+    Map<String, Abbreviation> getKeys(int kind) {
+        switch (kind) {
+        case JournalAbbreviationIndex.FULL_NAME:
+            return fullNameLowerCase2Abbreviation;
+        case JournalAbbreviationIndex.ISO:
+            return isoLowerCase2Abbreviation;
+        default:
+            return medlineLowerCase2Abbreviation;
+        }
     }
 
     public boolean isKnownName(String journalName) {
-        String nameKey = Objects.requireNonNull(journalName).trim().toLowerCase();
-        return fullNameLowerCase2Abbreviation.get(nameKey) != null
-                || isoLowerCase2Abbreviation.get(nameKey) != null
-                || medlineLowerCase2Abbreviation.get(nameKey) != null;
+        ensureIndexOpened();
+        return find(journalName) != null;
     }
 
     public boolean isAbbreviatedName(String journalName) {
-        String nameKey = Objects.requireNonNull(journalName).trim().toLowerCase();
-        return isoLowerCase2Abbreviation.get(nameKey) != null
-                || medlineLowerCase2Abbreviation.get(nameKey) != null;
+        ensureIndexOpened();
+        String nameKey = JournalAbbreviationIndex.toKey(Objects.requireNonNull(journalName));
+        return find(JournalAbbreviationIndex.ISO, nameKey) != null
+                || find(JournalAbbreviationIndex.MEDLINE, nameKey) != null;
     }
 
     /**
@@ -77,37 +180,74 @@ public class JournalAbbreviationRepository {
      * @return The abbreviated name
      */
     public Optional<Abbreviation> getAbbreviation(String journalName) {
-        String nameKey = Objects.requireNonNull(journalName).toLowerCase().trim();
-
-        if (fullNameLowerCase2Abbreviation.containsKey(nameKey)) {
-            return Optional.of(fullNameLowerCase2Abbreviation.get(nameKey));
-        } else if (isoLowerCase2Abbreviation.containsKey(nameKey)) {
-            return Optional.of(isoLowerCase2Abbreviation.get(nameKey));
-        } else if (medlineLowerCase2Abbreviation.containsKey(nameKey)) {
-            return Optional.of(medlineLowerCase2Abbreviation.get(nameKey));
-        } else {
-            return Optional.empty();
+        ensureIndexOpened();
+        return Optional.ofNullable(find(journalName));
+    }
+
+    private Abbreviation find(String journalName) {
+        String nameKey = JournalAbbreviationIndex.toKey(Objects.requireNonNull(journalName));
+
+        Abbreviation abbreviation = find(JournalAbbreviationIndex.FULL_NAME, nameKey);
+        if (abbreviation == null) {
+            abbreviation = find(JournalAbbreviationIndex.ISO, nameKey);
         }
+        if (abbreviation == null) {
+            abbreviation = find(JournalAbbreviationIndex.MEDLINE, nameKey);
+        }
+        return abbreviation;
     }
 
     public void addEntry(Abbreviation abbreviation) {
         Objects.requireNonNull(abbreviation);
 
-        if (isKnownName(abbreviation.getName())) {
-            Abbreviation previous = getAbbreviation(abbreviation.getName()).get();
-            abbreviations.remove(previous);
+        if (pendingIndexResource != null) {
+            synchronized (this) {
+                if (pendingIndexResource != null) {
+                    pendingAbbreviations.add(abbreviation);
+                    return;
+                }
+            }
+        }
+        add(abbreviation);
+    }
+
+    private void add(Abbreviation abbreviation) {
+        Abbreviation previous = find(abbreviation.getName());
+        if (previous != null) {
+            if (!abbreviations.remove(previous) && (index != null) && index.containsName(previous.getName())) {
+                replacedInIndex.add(previous.getName());
+            }
             LOGGER.debug(Localization.lang("Duplicate Journal Abbreviation - old one will be overwritten by new one\nOLD: %0\nNEW: %1", previous.toString(), abbreviation.toString()));
         }
 
-        abbreviations.add(abbreviation);
+        // like the set, keep an abbreviation of the index with the same name
+        if ((index == null) || replacedInIndex.contains(abbreviation.getName())
+                || !index.containsName(abbreviation.getName())) {
+            abbreviations.add(abbreviation);
+        }
+        allAbbreviations = null;
 
-        fullNameLowerCase2Abbreviation.put(abbreviation.getName().toLowerCase(), abbreviation);
-        isoLowerCase2Abbreviation.put(abbreviation.getIsoAbbreviation().toLowerCase(), abbreviation);
-        medlineLowerCase2Abbreviation.put(abbreviation.getMedlineAbbreviation().toLowerCase(), abbreviation);
+        fullNameLowerCase2Abbreviation.put(JournalAbbreviationIndex.toKey(abbreviation.getName()), abbreviation);
+        isoLowerCase2Abbreviation.put(JournalAbbreviationIndex.toKey(abbreviation.getIsoAbbreviation()), abbreviation);
+        medlineLowerCase2Abbreviation.put(JournalAbbreviationIndex.toKey(abbreviation.getMedlineAbbreviation()), abbreviation);
     }
 
     public SortedSet<Abbreviation> getAbbreviations() {
-        return Collections.unmodifiableSortedSet(abbreviations);
+        ensureIndexOpened();
+        if (index == null) {
+            return Collections.unmodifiableSortedSet(abbreviations);
+        }
+        if (allAbbreviations == null) {
+            SortedSet<Abbreviation> all = new TreeSet<>(abbreviations);
+            for (int i = 0; i < index.size(); i++) {
+                Abbreviation abbreviation = index.getSetMember(i);
+                if (!replacedInIndex.contains(abbreviation.getName())) {
+                    all.add(abbreviation);
+                }
+            }
+            allAbbreviations = Collections.unmodifiableSortedSet(all);
+        }
+        return allAbbreviations;
     }
 
     public Optional<String> getNextAbbreviation(String text) {
@@ -0,0 +1,112 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.net;
+
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces the requests sent to a host.
+ *
+ * Several web services ask their clients not to send more than a few requests per second.
+ * Once several fetchers run at the same time, or one fetcher downloads many records, a
+ * minimum interval between two requests to the same host is enforced here. Each caller
+ * reserves the next free slot of the host and waits for it, so concurrent callers are
+ * served in turn. Hosts without a configured interval are not limited.
+ */
+public class HostRateLimiter {
+
+    private static final HostRateLimiter INSTANCE = new HostRateLimiter();
+
+    static {
+        // NCBI E-utilities allow three requests per second without an API key
+        HostRateLimiter.INSTANCE.setMinimumInterval("eutils.ncbi.nlm.nih.gov", 334);
+        // the arXiv API asks for a delay of three seconds between calls
+        HostRateLimiter.INSTANCE.setMinimumInterval("export.arxiv.org", 3000);
+    }
+
+    // in nanoseconds
+    private final Map<String, Long> minimumIntervals = new ConcurrentHashMap<>();
+    // guarded by this
+    private final Map<String, Long> nextSlots = new HashMap<>();
+
+
+    HostRateLimiter() {
+    }
+
+    public static HostRateLimiter getInstance() {
+        return HostRateLimiter.INSTANCE;
+    }
+
+    /**
+     * @param millis the minimum time between the start of two requests to the host, 0 to disable the limit
+     */
+    public void setMinimumInterval(String host, long millis) {
+        String key = host.toLowerCase(Locale.ROOT);
+        if (millis <= 0) {
+            minimumIntervals.remove(key);
+        } else {
+            minimumIntervals.put(key, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    /**
+     * @return the minimum time between two requests to the host in milliseconds, 0 if not limited
+     */
+    public long getMinimumInterval(String host) {
+        Long interval = minimumIntervals.get(host.toLowerCase(Locale.ROOT));
+        return interval == null ? 0 : TimeUnit.NANOSECONDS.toMillis(interval);
+    }
+
+    /**
+     * Blocks until a request to the host of the given URL may be sent.
+     *
+     * @throws InterruptedIOException if the thread has been interrupted while waiting
+     */
+    public void acquire(URL url) throws InterruptedIOException {
+        if (url.getHost() == null) {
+            return;
+        }
+        String host = url.getHost().toLowerCase(Locale.ROOT);
+        Long interval = minimumIntervals.get(host);
+        if (interval == null) {
+            return;
+        }
+
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            Long next = nextSlots.get(host);
+            long slot = (next == null) || (next - now < 0) ? now : next;
+            nextSlots.put(host, slot + interval);
+            wait = slot - now;
+        }
+
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + host);
+            }
+        }
+    }
+}
@@ -0,0 +1,702 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Persistent cache for HTTP GET requests.
+ *
+ * The responses are stored in a directory, one body file and one properties file per
+ * request. A request is identified by its URL and its request headers. Stored responses
+ * are served without contacting the server as long as they are fresh according to their
+ * Cache-Control and Expires headers. Stale responses carrying an ETag or a Last-Modified
+ * header are revalidated with a conditional request, so an unchanged record costs a
+ * 304 answer instead of a full download. Once the stored bodies exceed the maximum
+ * size, the least recently used responses are removed.
+ *
+ * In offline mode the server is never contacted: stored responses are served regardless
+ * of their age and all other requests fail.
+ *
+ * The cache is disabled until {@link #configure(boolean, Path, long, boolean)} is called.
+ * A disabled cache passes all requests to the server.
+ */
+public class HttpCache {
+
+    public static final long DEFAULT_MAX_SIZE = 50L * 1024 * 1024;
+
+    // freshness of responses without any expiry or validator, see RFC 7234, section 4.2.2
+    public static final long DEFAULT_HEURISTIC_FRESHNESS_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final HttpCache INSTANCE = new HttpCache();
+
+    private static final Log LOGGER = LogFactory.getLog(HttpCache.class);
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".properties";
+
+    private static final String META_URL = "url";
+    private static final String META_CONTENT_TYPE = "contentType";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "lastModified";
+    private static final String META_FRESH_UNTIL = "freshUntil";
+
+    private boolean enabled;
+    private boolean offline;
+    private Path directory;
+    private long maxSize = HttpCache.DEFAULT_MAX_SIZE;
+    private long heuristicFreshnessMillis = HttpCache.DEFAULT_HEURISTIC_FRESHNESS_MILLIS;
+
+    // body sizes of the stored responses in access order, null until the directory has been read
+    private LinkedHashMap<String, Long> index;
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+
+    HttpCache() {
+    }
+
+    public static HttpCache getInstance() {
+        return HttpCache.INSTANCE;
+    }
+
+    /**
+     * @param enabled whether responses are stored at all
+     * @param directory the directory holding the stored responses, created if necessary
+     * @param maxSize the maximum total size of the stored bodies in bytes
+     * @param offline whether requests are answered from the stored responses only
+     */
+    public synchronized void configure(boolean enabled, Path directory, long maxSize, boolean offline) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.offline = offline;
+        this.index = null;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled && (directory != null);
+    }
+
+    public synchronized boolean isOffline() {
+        return offline;
+    }
+
+    public synchronized void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    /**
+     * @param millis how long a response without expiry and validators is served without asking the server again
+     */
+    public synchronized void setHeuristicFreshness(long millis) {
+        this.heuristicFreshnessMillis = millis;
+    }
+
+    /**
+     * @return the number of requests answered from the cache without contacting the server
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests answered from the cache after the server confirmed the stored response
+     */
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * @return the number of requests for which the response had to be downloaded
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the share of requests answered from the cache, including revalidated ones, between 0 and 1
+     */
+    public double getHitRate() {
+        long served = hits.get() + revalidations.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    public void resetStatistics() {
+        hits.set(0);
+        revalidations.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * @return the total size of the stored bodies in bytes
+     */
+    public synchronized long getSize() {
+        loadIndex();
+        return size;
+    }
+
+    /**
+     * Removes all stored responses.
+     */
+    public synchronized void clear() {
+        loadIndex();
+        for (String key : new ArrayList<>(index.keySet())) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Sends a GET request or answers it from the cache.
+     *
+     * @param requestHeaders additional request headers, they are part of the cache key
+     * @throws IOException if the server cannot be reached, or in offline mode if the response is not stored
+     */
+    public Response get(URL url, Map<String, String> requestHeaders) throws IOException {
+        String protocol = url.getProtocol().toLowerCase(Locale.ROOT);
+        boolean http = "http".equals(protocol) || "https".equals(protocol);
+        if (!http) {
+            return Response.fromConnection(openConnection(url, requestHeaders, null));
+        }
+
+        boolean useCache = isEnabled();
+        if (!useCache) {
+            if (isOffline()) {
+                misses.incrementAndGet();
+                throw new IOException("Not available offline: " + url);
+            }
+            misses.incrementAndGet();
+            return Response.fromConnection(openConnection(url, requestHeaders, null));
+        }
+
+        String key = HttpCache.getKey(url, requestHeaders);
+        Properties meta = readMeta(key);
+        long now = System.currentTimeMillis();
+        if (meta != null) {
+            long freshUntil = Long.parseLong(meta.getProperty(HttpCache.META_FRESH_UNTIL, "0"));
+            if (isOffline() || (now < freshUntil)) {
+                Response response = serve(key, meta);
+                if (response != null) {
+                    hits.incrementAndGet();
+                    return response;
+                }
+                meta = null;
+            }
+        }
+        if (isOffline()) {
+            misses.incrementAndGet();
+            throw new IOException("Not available offline: " + url);
+        }
+
+        URLConnection connection = openConnection(url, requestHeaders, meta);
+        int status = HttpCache.getStatus(connection);
+        if ((status == HttpURLConnection.HTTP_NOT_MODIFIED) && (meta != null)) {
+            HttpCache.updateValidity(meta, connection, now, heuristicFreshness());
+            Response response = serve(key, meta);
+            if (response != null) {
+                writeMeta(key, meta);
+                revalidations.incrementAndGet();
+                return response;
+            }
+            // the body vanished in between, ask again without validators
+            connection = openConnection(url, requestHeaders, null);
+            status = HttpCache.getStatus(connection);
+        }
+
+        misses.incrementAndGet();
+        Response response = Response.fromConnection(connection);
+        if ((status == HttpURLConnection.HTTP_OK) && HttpCache.isStorable(connection)) {
+            Properties newMeta = new Properties();
+            newMeta.setProperty(HttpCache.META_URL, url.toString());
+            if (connection.getContentType() != null) {
+                newMeta.setProperty(HttpCache.META_CONTENT_TYPE, connection.getContentType());
+            }
+            HttpCache.updateValidity(newMeta, connection, now, heuristicFreshness());
+            long contentLength = connection.getContentLengthLong();
+            if ((contentLength < 0) || (contentLength <= maxEntrySize())) {
+                response.body = new StoringInputStream(response.body, key, newMeta);
+            }
+        }
+        return response;
+    }
+
+    private synchronized long heuristicFreshness() {
+        return heuristicFreshnessMillis;
+    }
+
+    private synchronized long maxEntrySize() {
+        // a single response must not push out most of the others
+        return maxSize / 4;
+    }
+
+    private static URLConnection openConnection(URL url, Map<String, String> requestHeaders, Properties validators)
+            throws IOException {
+        HostRateLimiter.getInstance().acquire(url);
+        URLConnection connection = url.openConnection();
+        connection.setRequestProperty("User-Agent", "JabRef");
+        for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        if (validators != null) {
+            String etag = validators.getProperty(HttpCache.META_ETAG);
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            String lastModified = validators.getProperty(HttpCache.META_LAST_MODIFIED);
+            if (lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+        }
+        // this does network i/o: GET + read returned headers
+        connection.connect();
+        return connection;
+    }
+
+    private static int getStatus(URLConnection connection) throws IOException {
+        if (connection instanceof HttpURLConnection) {
+            return ((HttpURLConnection) connection).getResponseCode();
+        }
+        return HttpURLConnection.HTTP_OK;
+    }
+
+    private static boolean isStorable(URLConnection connection) {
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl == null) {
+            return true;
+        }
+        String directives = cacheControl.toLowerCase(Locale.ROOT);
+        return !directives.contains("no-store") && !directives.contains("private");
+    }
+
+    /**
+     * Stores the validators of the response and the time until which it may be served without asking the server.
+     */
+    private static void updateValidity(Properties meta, URLConnection connection, long now,
+            long heuristicFreshness) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null) {
+            meta.setProperty(HttpCache.META_ETAG, etag);
+        }
+        String lastModified = connection.getHeaderField("Last-Modified");
+        if (lastModified != null) {
+            meta.setProperty(HttpCache.META_LAST_MODIFIED, lastModified);
+        }
+        boolean hasValidator = meta.containsKey(HttpCache.META_ETAG) || meta.containsKey(HttpCache.META_LAST_MODIFIED);
+
+        long freshUntil = now + heuristicFreshness;
+        if (hasValidator) {
+            freshUntil = now;
+            long modified = connection.getHeaderFieldDate("Last-Modified", 0);
+            if ((modified > 0) && (modified < now)) {
+                // a tenth of the age of the document, but at most a day
+                freshUntil = now + Math.min((now - modified) / 10, TimeUnit.DAYS.toMillis(1));
+            }
+        }
+        long expires = connection.getHeaderFieldDate("Expires", -1);
+        if (expires >= 0) {
+            freshUntil = expires;
+        }
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        freshUntil = now + TimeUnit.SECONDS.toMillis(Long.parseLong(directive.substring(8).trim()));
+                    } catch (NumberFormatException ignored) {
+                        // keep the other information
+                    }
+                } else if ("no-cache".equals(directive) || "must-revalidate".equals(directive)) {
+                    freshUntil = Math.min(freshUntil, now);
+                }
+            }
+        }
+        meta.setProperty(HttpCache.META_FRESH_UNTIL, String.valueOf(freshUntil));
+    }
+
+    static String getKey(URL url, Map<String, String> requestHeaders) {
+        StringBuilder request = new StringBuilder(url.toString());
+        for (Map.Entry<String, String> header : new TreeMap<>(requestHeaders).entrySet()) {
+            request.append('\n').append(header.getKey().toLowerCase(Locale.ROOT)).append(": ")
+                    .append(header.getValue());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(request.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b & 0xff));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized Path getBodyFile(String key) {
+        return directory.resolve(key + HttpCache.BODY_SUFFIX);
+    }
+
+    private synchronized Path getMetaFile(String key) {
+        return directory.resolve(key + HttpCache.META_SUFFIX);
+    }
+
+    private Properties readMeta(String key) {
+        synchronized (this) {
+            loadIndex();
+            if (!index.containsKey(key)) {
+                return null;
+            }
+        }
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(getMetaFile(key))) {
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read cached response " + key, e);
+            synchronized (this) {
+                remove(key);
+            }
+            return null;
+        }
+    }
+
+    private void writeMeta(String key, Properties meta) {
+        Path file = getMetaFile(key);
+        try {
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                meta.store(out, null);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot update cached response " + key, e);
+        }
+    }
+
+    /**
+     * @return the stored response, or null if it cannot be read
+     */
+    private Response serve(String key, Properties meta) {
+        Path body = getBodyFile(key);
+        try {
+            InputStream in = Files.newInputStream(body);
+            try {
+                Files.setLastModifiedTime(body, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // only the eviction order suffers
+            }
+            synchronized (this) {
+                // moves the response to the end of the access order
+                index.get(key);
+            }
+            return new Response(HttpURLConnection.HTTP_OK, meta.getProperty(HttpCache.META_CONTENT_TYPE), in, true);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read cached response " + key, e);
+            synchronized (this) {
+                remove(key);
+            }
+            return null;
+        }
+    }
+
+    private synchronized void store(String key, Path tempBody, Properties meta) throws IOException {
+        long bodySize = Files.size(tempBody);
+        if (!isEnabled() || (bodySize > maxEntrySize())) {
+            Files.deleteIfExists(tempBody);
+            return;
+        }
+        loadIndex();
+        remove(key);
+        Files.move(tempBody, getBodyFile(key), StandardCopyOption.REPLACE_EXISTING);
+        writeMeta(key, meta);
+        index.put(key, bodySize);
+        size += bodySize;
+
+        Iterator<Map.Entry<String, Long>> leastRecentlyUsed = index.entrySet().iterator();
+        while ((size > maxSize) && leastRecentlyUsed.hasNext()) {
+            Map.Entry<String, Long> entry = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            size -= entry.getValue();
+            deleteFiles(entry.getKey());
+        }
+    }
+
+    // guarded by this
+    private void remove(String key) {
+        Long removed = index.remove(key);
+        if (removed != null) {
+            size -= removed;
+        }
+        deleteFiles(key);
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(getBodyFile(key));
+            Files.deleteIfExists(getMetaFile(key));
+        } catch (IOException e) {
+            LOGGER.debug("Cannot remove cached response " + key, e);
+        }
+    }
+
+    /**
+     * Reads the stored responses from the directory, ordered by their last use.
+     */
+    // guarded by this
+    private void loadIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new LinkedHashMap<>(16, 0.75f, true);
+        size = 0;
+        if (directory == null) {
+            return;
+        }
+        List<Path> bodies = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + HttpCache.BODY_SUFFIX)) {
+                for (Path body : stream) {
+                    bodies.add(body);
+                }
+            }
+            Map<Path, Long> lastUse = new LinkedHashMap<>();
+            for (Path body : bodies) {
+                lastUse.put(body, Files.getLastModifiedTime(body).toMillis());
+            }
+            Collections.sort(bodies, Comparator.comparing(lastUse::get));
+            for (Path body : bodies) {
+                String name = body.getFileName().toString();
+                String key = name.substring(0, name.length() - HttpCache.BODY_SUFFIX.length());
+                if (Files.exists(getMetaFile(key))) {
+                    long bodySize = Files.size(body);
+                    index.put(key, bodySize);
+                    size += bodySize;
+                } else {
+                    Files.deleteIfExists(body);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read HTTP cache in " + directory, e);
+        }
+    }
+
+
+    /**
+     * A response, either downloaded or read from the cache. The body has to be closed.
+     */
+    public static class Response implements AutoCloseable {
+
+        private final int status;
+        private final String contentType;
+        private InputStream body;
+        private final boolean fromCache;
+
+
+        Response(int status, String contentType, InputStream body, boolean fromCache) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.fromCache = fromCache;
+        }
+
+        static Response fromConnection(URLConnection connection) throws IOException {
+            int status = HttpCache.getStatus(connection);
+            InputStream body;
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                InputStream error = ((HttpURLConnection) connection).getErrorStream();
+                body = error == null ? new ByteArrayInputStream(new byte[0]) : error;
+            } else {
+                body = connection.getInputStream();
+            }
+            return new Response(status, connection.getContentType(), body, false);
+        }
+
+        /**
+         * @return the HTTP status code, 200 for non-HTTP URLs and responses from the cache
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public InputStream getBody() {
+            return body;
+        }
+
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Copies the body to a temporary file while it is read, and stores it once it has been read completely.
+     */
+    private class StoringInputStream extends FilterInputStream {
+
+        private final String key;
+        private final Properties meta;
+        private Path temp;
+        private OutputStream copy;
+        private long copied;
+
+
+        StoringInputStream(InputStream in, String key, Properties meta) throws IOException {
+            super(in);
+            this.key = key;
+            this.meta = meta;
+            Path dir;
+            synchronized (HttpCache.this) {
+                dir = directory;
+            }
+            try {
+                Files.createDirectories(dir);
+                temp = Files.createTempFile(dir, key, ".tmp");
+                copy = Files.newOutputStream(temp);
+            } catch (IOException e) {
+                LOGGER.debug("Cannot cache response " + key, e);
+                discard();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                finish();
+            } else if (copy != null) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read < 0) {
+                finish();
+            } else if (copy != null) {
+                write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // the copy would have a gap
+            discard();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void write(byte[] b, int off, int len) {
+            try {
+                copy.write(b, off, len);
+                copied += len;
+                if (copied > maxEntrySize()) {
+                    discard();
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Cannot cache response " + key, e);
+                discard();
+            }
+        }
+
+        private void finish() {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.close();
+                copy = null;
+                store(key, temp, meta);
+                temp = null;
+            } catch (IOException e) {
+                LOGGER.debug("Cannot cache response " + key, e);
+                discard();
+            }
+        }
+
+        private void discard() {
+            try {
+                if (copy != null) {
+                    copy.close();
+                }
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Cannot remove temporary file " + temp, e);
+            }
+            copy = null;
+            temp = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // a response that has not been read completely is not stored
+            discard();
+            super.close();
+        }
+    }
+}
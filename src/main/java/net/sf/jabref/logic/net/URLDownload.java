@@ -22,11 +22,13 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.*;
 import java.net.CookieHandler;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Each call to a public method creates a new HTTP connection. Nothing is cached.
+ * Each call to a public method sends a new request, unless {@link HttpCache} can answer it.
  *
  * @author Erik Putrycz erik.putrycz-at-nrc-cnrc.gc.ca
  * @author Simon Harrer
@@ -34,6 +36,7 @@ import java.net.URLConnection;
 public class URLDownload {
 
     private final URL source;
+    private final Map<String, String> requestHeaders = new LinkedHashMap<>();
 
     private static final Log LOGGER = LogFactory.getLog(URLDownload.class);
 
@@ -59,6 +62,13 @@ public class URLDownload {
         return source;
     }
 
+    /**
+     * Adds a header to the requests. Responses are cached per URL and headers.
+     */
+    public void addHeader(String name, String value) {
+        requestHeaders.put(name, value);
+    }
+
     private static void setCookieHandler() {
         try {
             // This should set up JabRef to receive cookies properly
@@ -72,25 +82,42 @@ public class URLDownload {
     }
 
     public String determineMimeType() throws IOException {
-        // this does not cause a real performance issue as the underlying HTTP/TCP connection is reused
-        URLConnection urlConnection = openConnection();
-        try {
-            return urlConnection.getContentType();
-        } finally {
-            try {
-                urlConnection.getInputStream().close();
-            } catch (IOException ignored) {
+        try (HttpCache.Response response = HttpCache.getInstance().get(source, requestHeaders)) {
+            return response.getContentType();
+        }
+    }
 
-            }
+    /**
+     * Sends the request without reading the response.
+     *
+     * @return the HTTP status code of the response
+     */
+    public int getResponseCode() throws IOException {
+        try (HttpCache.Response response = HttpCache.getInstance().get(source, requestHeaders)) {
+            return response.getStatus();
         }
     }
 
-    private URLConnection openConnection() throws IOException {
-        URLConnection connection = source.openConnection();
-        connection.setRequestProperty("User-Agent", "JabRef");
-        // this does network i/o: GET + read returned headers
-        connection.connect();
-        return connection;
+    /**
+     * @return the body of the response, to be closed by the caller
+     */
+    public InputStream openStream() throws IOException {
+        return monitorInputStream(new BufferedInputStream(openResponse().getBody()));
+    }
+
+    private HttpCache.Response openResponse() throws IOException {
+        HttpCache.Response response = HttpCache.getInstance().get(source, requestHeaders);
+        int status = response.getStatus();
+        if ((status == HttpURLConnection.HTTP_NOT_FOUND) || (status == HttpURLConnection.HTTP_GONE)) {
+            // like URLConnection.getInputStream()
+            response.close();
+            throw new FileNotFoundException(source.toString());
+        } else if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            response.close();
+            throw new IOException("Server returned HTTP response code: " + status + " for URL: "
+                    + source);
+        }
+        return response;
     }
 
     /**
@@ -105,7 +132,7 @@ public class URLDownload {
 
     public String downloadToString(String encoding) throws IOException {
 
-        try (InputStream input = new BufferedInputStream(openConnection().getInputStream());
+        try (InputStream input = new BufferedInputStream(openResponse().getBody());
              Writer output = new StringWriter()) {
             copy(input, output, encoding);
             return output.toString();
@@ -129,7 +156,7 @@ public class URLDownload {
 
     public void downloadToFile(File destination) throws IOException {
 
-        try (InputStream input = new BufferedInputStream(openConnection().getInputStream());
+        try (InputStream input = new BufferedInputStream(openResponse().getBody());
              OutputStream output = new BufferedOutputStream(new FileOutputStream(destination))) {
             copy(input, output);
         } catch (IOException e) {
@@ -15,17 +15,29 @@
 */
 package net.sf.jabref.logic.search.matchers;
 
+import net.sf.jabref.model.database.EntrySet;
 import net.sf.jabref.model.entry.BibtexEntry;
 import ca.odell.glazedlists.matchers.Matcher;
 
 /**
  * Matcher for filtering or sorting the table according to whether entries are
- * tagged as search matches.
+ * contained in the hits of a search.
  */
 public class SearchMatcher implements Matcher<BibtexEntry> {
 
+    private final EntrySet hits;
+
+
+    public SearchMatcher(EntrySet hits) {
+        this.hits = hits;
+    }
+
+    public EntrySet getHits() {
+        return hits;
+    }
+
     @Override
     public boolean matches(BibtexEntry entry) {
-        return entry.isSearchHit();
+        return hits.contains(entry);
     }
 }
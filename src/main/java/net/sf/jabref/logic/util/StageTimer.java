@@ -0,0 +1,117 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Measures how long the stages of a task take, e.g. parsing and setting up the table when opening
+ * a database, and logs each duration.
+ *
+ * Stages either follow each other, see {@link #stage(String)}, or run on their own, possibly in the
+ * background and concurrently to others, see {@link #run(String, Runnable)}.
+ */
+public class StageTimer {
+
+    private static final Log LOGGER = LogFactory.getLog(StageTimer.class);
+
+    private final String task;
+    private final long start = System.nanoTime();
+    private long stageStart = start;
+
+    // milliseconds per stage, in the order the stages have ended
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+
+    public StageTimer(String task) {
+        this.task = task;
+    }
+
+    /**
+     * Ends a stage which started when the previous stage ended, or when the timer was created.
+     */
+    public void stage(String name) {
+        long now = System.nanoTime();
+        long duration;
+        synchronized (this) {
+            duration = now - stageStart;
+            stageStart = now;
+        }
+        record(name, duration);
+    }
+
+    /**
+     * Runs a stage on the calling thread, independently of the sequence of stages.
+     */
+    public void run(String name, Runnable stage) {
+        long stageStart = System.nanoTime();
+        try {
+            stage.run();
+        } finally {
+            record(name, System.nanoTime() - stageStart);
+        }
+    }
+
+    /**
+     * Runs a stage computing a result on the calling thread, independently of the sequence of stages.
+     */
+    public <T> T call(String name, Supplier<T> stage) {
+        long stageStart = System.nanoTime();
+        try {
+            return stage.get();
+        } finally {
+            record(name, System.nanoTime() - stageStart);
+        }
+    }
+
+    private void record(String name, long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        synchronized (this) {
+            durations.merge(name, millis, Long::sum);
+        }
+        LOGGER.info(task + ": " + name + " took " + millis + " ms");
+    }
+
+    /**
+     * @return the duration of each stage in milliseconds, in the order the stages have ended
+     */
+    public synchronized Map<String, Long> getDurations() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(durations));
+    }
+
+    /**
+     * @return the milliseconds since the timer was created
+     */
+    public long getElapsed() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder(task).append(':');
+        for (Map.Entry<String, Long> duration : durations.entrySet()) {
+            sb.append(' ').append(duration.getKey()).append(' ').append(duration.getValue()).append(" ms,");
+        }
+        return sb.append(" total ").append(getElapsed()).append(" ms").toString();
+    }
+}
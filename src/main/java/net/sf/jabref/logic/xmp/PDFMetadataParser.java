@@ -0,0 +1,120 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.xmp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.jempbox.xmp.XMPMetadata;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfparser.NonSequentialPDFParser;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+
+/**
+ * Reads the metadata of a PDF-file without loading the whole document.
+ * 
+ * Only the cross reference tables, the trailer, the document catalog, the
+ * XMP-metadata stream and the document information are parsed; the page tree
+ * and the content streams are never touched. The file is accessed randomly,
+ * so the memory needed does not depend on the size of the file.
+ */
+class PDFMetadataParser extends NonSequentialPDFParser {
+
+    PDFMetadataParser(File file) throws IOException {
+        super(file, null);
+    }
+
+    /**
+     * Receives the metadata of the file before it is closed.
+     */
+    interface MetadataReader<T> {
+
+        /**
+         * @param meta maybenull the XMP-metadata of the file
+         * @param info maybenull the document information of the file
+         */
+        T read(XMPMetadata meta, PDDocumentInformation info) throws IOException;
+    }
+
+
+    /**
+     * @return the entries found in the metadata of the file, or null if it
+     *         contains no metadata
+     * @throws EncryptionNotSupportedException if the file is encrypted
+     * @throws IOException if the file cannot be parsed this way
+     */
+    List<BibtexEntry> readBibtexEntries() throws IOException {
+        return readMetadata(XMPUtil::getBibtexEntries);
+    }
+
+    /**
+     * @return what the reader makes of the metadata of the file
+     * @throws EncryptionNotSupportedException if the file is encrypted
+     * @throws IOException if the file cannot be parsed this way
+     */
+    <T> T readMetadata(MetadataReader<T> reader) throws IOException {
+        try {
+            initialParse();
+            COSDictionary trailer = document.getTrailer();
+            if (trailer.getItem(COSName.ENCRYPT) != null) {
+                throw new EncryptionNotSupportedException(
+                        "Error: Cannot read metadata from encrypted document.");
+            }
+
+            PDMetadata metadata = null;
+            COSBase root = resolve(trailer.getItem(COSName.ROOT));
+            if (root instanceof COSDictionary) {
+                COSBase stream = resolve(((COSDictionary) root).getItem(COSName.METADATA));
+                if (stream instanceof COSStream) {
+                    metadata = new PDMetadata((COSStream) stream);
+                }
+            }
+
+            PDDocumentInformation info = null;
+            COSBase infoDictionary = resolve(trailer.getItem(COSName.INFO));
+            if (infoDictionary instanceof COSDictionary) {
+                COSDictionary dictionary = (COSDictionary) infoDictionary;
+                for (COSName key : new ArrayList<COSName>(dictionary.keySet())) {
+                    resolve(dictionary.getItem(key));
+                }
+                info = new PDDocumentInformation(dictionary);
+            }
+
+            return reader.read(XMPUtil.getXMPMetadata(metadata), info);
+        } finally {
+            if (document != null) {
+                document.close();
+            }
+            // closes the file
+            clearResources();
+        }
+    }
+
+    private COSBase resolve(COSBase base) throws IOException {
+        if (base instanceof COSObject) {
+            return parseObjectDynamically((COSObject) base, false);
+        }
+        return base;
+    }
+}
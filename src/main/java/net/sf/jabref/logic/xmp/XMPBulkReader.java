@@ -0,0 +1,193 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.xmp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Reads the metadata of many PDF-files concurrently, for instance to import a
+ * directory of PDFs.
+ * 
+ * A bounded number of workers reads the files. Of each file only the XMP
+ * metadata and the document information are parsed. Damaged files, whose
+ * metadata cannot be found this way, are loaded completely; as PDFBox then
+ * keeps the whole document in memory, such files are only loaded at the same
+ * time while their combined size stays below the memory limit. The entries
+ * are passed on as soon as a file has been read, in the order the files are
+ * finished.
+ */
+public class XMPBulkReader {
+
+    public static final int DEFAULT_CONCURRENCY = Math.max(1, Runtime.getRuntime().availableProcessors());
+    public static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+    private static final Log LOGGER = LogFactory.getLog(XMPBulkReader.class);
+
+    private int concurrency = XMPBulkReader.DEFAULT_CONCURRENCY;
+    private long memoryLimit = XMPBulkReader.DEFAULT_MEMORY_LIMIT;
+
+    private volatile boolean cancelled;
+
+
+    /**
+     * Receives the metadata of the files on the thread that called
+     * {@link XMPBulkReader#read(List, Listener)}.
+     */
+    public interface Listener {
+
+        /**
+         * @param entries the entries found in the file, null if it contains no metadata or could not be read
+         * @param error the reason the file could not be read, null if it has been read
+         */
+        void fileRead(File file, List<BibtexEntry> entries, IOException error);
+    }
+
+    // the outcome of reading one file
+    private static class Result {
+
+        private final File file;
+        private final List<BibtexEntry> entries;
+        private final IOException error;
+
+
+        Result(File file, List<BibtexEntry> entries, IOException error) {
+            this.file = file;
+            this.entries = entries;
+            this.error = error;
+        }
+    }
+
+
+    /**
+     * @param concurrency the maximum number of files read at the same time
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * @param memoryLimit the combined size in bytes of the files loaded completely at the same time. A larger file
+     *            is loaded while no other one is.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = Math.max(1, memoryLimit);
+    }
+
+    /**
+     * Stops reading, can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Reads the metadata of the given files and passes it to the listener file by file.
+     * 
+     * @return the number of files passed to the listener, less than the number of files if cancelled
+     */
+    public int read(List<File> files, Listener listener) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        Queue<File> pending = new ConcurrentLinkedQueue<File>(files);
+        BlockingQueue<Result> results = new LinkedBlockingQueue<Result>();
+        // counted in KiB, so that the permits fit into an int
+        int memoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryLimit / 1024));
+        Semaphore memory = new Semaphore(memoryPermits);
+
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < Math.min(concurrency, files.size()); i++) {
+            workers.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                File file;
+                while (!cancelled && ((file = pending.poll()) != null)) {
+                    try {
+                        results.add(read(file, memory, memoryPermits));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
+                return null;
+            }));
+        }
+
+        int done = 0;
+        try {
+            while (done < files.size()) {
+                Result result = results.poll(100, TimeUnit.MILLISECONDS);
+                if (cancelled) {
+                    break;
+                }
+                if (result != null) {
+                    listener.fileRead(result.file, result.entries, result.error);
+                    done++;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+        return done;
+    }
+
+    private static Result read(File file, Semaphore memory, int memoryPermits) throws InterruptedException {
+        try {
+            return new Result(file, new PDFMetadataParser(file).readBibtexEntries(), null);
+        } catch (EncryptionNotSupportedException e) {
+            return new Result(file, null, e);
+        } catch (IOException | RuntimeException e) {
+            // PDFBox also throws runtime exceptions on damaged files
+            LOGGER.debug("Loading whole document " + file, e);
+        }
+
+        int permits = (int) Math.min(memoryPermits, (file.length() / 1024) + 1);
+        memory.acquire(permits);
+        try (InputStream in = new FileInputStream(file)) {
+            return new Result(file, XMPUtil.readXMP(in), null);
+        } catch (IOException e) {
+            return new Result(file, null, e);
+        } catch (RuntimeException e) {
+            return new Result(file, null, new IOException(e));
+        } finally {
+            memory.release(permits);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.logic.xmp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+
+/**
+ * Writes the XMP-metadata of many entries to their PDF-files concurrently.
+ * 
+ * The metadata already in a file is compared to the metadata that would be
+ * written first, reading only the metadata of the file; files that are up to
+ * date are skipped. The other files are written by a bounded number of
+ * workers. As PDFBox keeps the whole document in memory while writing, files
+ * are only written at the same time while their combined size stays below
+ * the memory limit. XMPUtil writes every file to a temporary file which then
+ * replaces the original, so a PDF is never left half written.
+ */
+public class XMPBulkWriter {
+
+    public static final int DEFAULT_CONCURRENCY = XMPBulkReader.DEFAULT_CONCURRENCY;
+    public static final long DEFAULT_MEMORY_LIMIT = XMPBulkReader.DEFAULT_MEMORY_LIMIT;
+
+    private final BibtexDatabase database;
+    private int concurrency = XMPBulkWriter.DEFAULT_CONCURRENCY;
+    private long memoryLimit = XMPBulkWriter.DEFAULT_MEMORY_LIMIT;
+
+    private volatile boolean cancelled;
+
+
+    public enum Outcome {
+        WRITTEN, UP_TO_DATE, FAILED
+    }
+
+    /**
+     * Receives the outcome of every file on the thread that called
+     * {@link XMPBulkWriter#write(Map, Listener)}.
+     */
+    public interface Listener {
+
+        /**
+         * @param error the reason the file could not be written if the outcome is FAILED, null otherwise
+         */
+        void fileDone(BibtexEntry entry, File file, Outcome outcome, Exception error);
+    }
+
+    // the entries to write to one file, in order
+    private static class Job {
+
+        private final File file;
+        private final List<BibtexEntry> entries = new ArrayList<BibtexEntry>();
+        // the entries with their strings resolved
+        private final List<BibtexEntry> resolved = new ArrayList<BibtexEntry>();
+
+
+        Job(File file) {
+            this.file = file;
+        }
+    }
+
+    // the outcome of writing one entry to one file
+    private static class Result {
+
+        private final BibtexEntry entry;
+        private final File file;
+        private final Outcome outcome;
+        private final Exception error;
+
+
+        Result(BibtexEntry entry, File file, Outcome outcome, Exception error) {
+            this.entry = entry;
+            this.file = file;
+            this.outcome = outcome;
+            this.error = error;
+        }
+    }
+
+
+    /**
+     * @param database maybenull The database the entries belong to, used to resolve strings.
+     */
+    public XMPBulkWriter(BibtexDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * @param concurrency the maximum number of files written at the same time
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * @param memoryLimit the combined size in bytes of the files written at the same time. A larger file is
+     *            written while no other one is.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = Math.max(1, memoryLimit);
+    }
+
+    /**
+     * Stops writing, can be called from any thread. Files being written are finished.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Writes the XMP-metadata of every entry to its files. A file linked from several entries is written by one
+     * worker, entry after entry, so the last entry ends up in it as before.
+     * 
+     * @param files the PDF-files of each entry
+     * @return the number of files passed to the listener, less than the number of files if cancelled
+     */
+    public int write(Map<BibtexEntry, List<File>> files, Listener listener) {
+        Map<File, Job> jobs = new LinkedHashMap<File, Job>();
+        int total = 0;
+        for (Map.Entry<BibtexEntry, List<File>> entryFiles : files.entrySet()) {
+            BibtexEntry entry = entryFiles.getKey();
+            // resolved here, so that the workers do not access the database
+            BibtexEntry resolved = database == null ? entry : database.resolveForStrings(entry, false);
+            for (File file : entryFiles.getValue()) {
+                Job job = jobs.get(file.getAbsoluteFile());
+                if (job == null) {
+                    job = new Job(file);
+                    jobs.put(file.getAbsoluteFile(), job);
+                }
+                job.entries.add(entry);
+                job.resolved.add(resolved);
+                total++;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        Queue<Job> pending = new ConcurrentLinkedQueue<Job>(jobs.values());
+        BlockingQueue<Result> results = new LinkedBlockingQueue<Result>();
+        // counted in KiB, so that the permits fit into an int
+        int memoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryLimit / 1024));
+        Semaphore memory = new Semaphore(memoryPermits);
+
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < Math.min(concurrency, jobs.size()); i++) {
+            workers.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                Job job;
+                while (!cancelled && ((job = pending.poll()) != null)) {
+                    for (int j = 0; (j < job.entries.size()) && !cancelled; j++) {
+                        try {
+                            results.add(write(job.entries.get(j), job.resolved.get(j), job.file, memory,
+                                    memoryPermits));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return null;
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        int done = 0;
+        try {
+            while (done < total) {
+                Result result = results.poll(100, TimeUnit.MILLISECONDS);
+                if (cancelled) {
+                    break;
+                }
+                if (result != null) {
+                    listener.fileDone(result.entry, result.file, result.outcome, result.error);
+                    done++;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            // workers are not interrupted, so that no file is left half written
+            for (Future<Void> worker : workers) {
+                try {
+                    worker.get();
+                } catch (Exception e) {
+                    // already reported as FAILED
+                }
+            }
+        }
+        return done;
+    }
+
+    private static Result write(BibtexEntry entry, BibtexEntry resolved, File file, Semaphore memory,
+            int memoryPermits) throws InterruptedException {
+        try {
+            if (XMPUtil.isXMPUpToDate(file, resolved, null)) {
+                return new Result(entry, file, Outcome.UP_TO_DATE, null);
+            }
+        } catch (IOException e) {
+            return new Result(entry, file, Outcome.FAILED, e);
+        }
+
+        int permits = (int) Math.min(memoryPermits, (file.length() / 1024) + 1);
+        memory.acquire(permits);
+        try {
+            XMPUtil.writeXMP(file, Collections.singletonList(resolved), null, true);
+            return new Result(entry, file, Outcome.WRITTEN, null);
+        } catch (IOException | TransformerException | RuntimeException e) {
+            return new Result(entry, file, Outcome.FAILED, e);
+        } finally {
+            memory.release(permits);
+        }
+    }
+}
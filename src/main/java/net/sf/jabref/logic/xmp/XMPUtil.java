@@ -16,6 +16,9 @@
 package net.sf.jabref.logic.xmp;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 import javax.xml.transform.TransformerException;
@@ -32,6 +35,8 @@ import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexEntryType;
 import net.sf.jabref.util.Util;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.jempbox.impl.DateConverter;
 import org.apache.jempbox.impl.XMLUtil;
 import org.apache.jempbox.xmp.XMPMetadata;
@@ -58,6 +63,8 @@ import org.apache.pdfbox.pdmodel.common.PDMetadata;
  */
 public class XMPUtil {
 
+    private static final Log LOGGER = LogFactory.getLog(XMPUtil.class);
+
     /**
      * Convenience method for readXMP(File).
      * 
@@ -103,6 +110,9 @@ public class XMPUtil {
     /**
      * Try to read the BibTexEntries from the XMP-stream of the given PDF-file.
      * 
+     * Only the metadata is parsed, unless the file is damaged and the whole
+     * document has to be loaded to find it.
+     * 
      * @param file
      *            The file to read from.
      * 
@@ -111,6 +121,13 @@ public class XMPUtil {
      *             than remove a lock or cancel the operation.
      */
     public static List<BibtexEntry> readXMP(File file) throws IOException {
+        try {
+            return new PDFMetadataParser(file).readBibtexEntries();
+        } catch (EncryptionNotSupportedException e) {
+            throw e;
+        } catch (IOException e) {
+            LOGGER.debug("Loading whole document " + file, e);
+        }
         FileInputStream is = new FileInputStream(file);
         try {
             return XMPUtil.readXMP(is);
@@ -130,12 +147,9 @@ public class XMPUtil {
      *             Throws an IOException if the file cannot be read, so the user
      *             than remove a lock or cancel the operation.
      */
-    @SuppressWarnings("unchecked")
     public static List<BibtexEntry> readXMP(InputStream inputStream)
             throws IOException {
 
-        List<BibtexEntry> result = new LinkedList<BibtexEntry>();
-
         PDDocument document = null;
 
         try {
@@ -145,46 +159,64 @@ public class XMPUtil {
                         "Error: Cannot read metadata from encrypted document.");
             }
 
-            XMPMetadata meta = XMPUtil.getXMPMetadata(document);
-
-            // If we did not find any XMP metadata, search for non XMP metadata
-            if (meta != null) {
+            return XMPUtil.getBibtexEntries(XMPUtil.getXMPMetadata(document),
+                    document.getDocumentInformation());
+        } finally {
+            if (document != null) {
+                document.close();
+            }
+        }
+    }
 
-                List<XMPSchema> schemas = meta
-                        .getSchemasByNamespaceURI(XMPSchemaBibtex.NAMESPACE);
+    /**
+     * Builds the BibtexEntries from the metadata of a PDF-file: the bibtex
+     * schemas of the XMP-metadata, or if there are none its Dublin Core
+     * schemas, or if there are none the document information.
+     * 
+     * @param meta
+     *            maybenull The XMP-metadata of the file.
+     * @param di
+     *            maybenull The document information of the file.
+     * @return The entries found or null if no metadata was found.
+     */
+    @SuppressWarnings("unchecked")
+    static List<BibtexEntry> getBibtexEntries(XMPMetadata meta,
+            PDDocumentInformation di) throws IOException {
 
-                for (XMPSchema schema : schemas) {
-                    XMPSchemaBibtex bib = (XMPSchemaBibtex) schema;
+        List<BibtexEntry> result = new LinkedList<BibtexEntry>();
 
-                    result.add(bib.getBibtexEntry());
-                }
+        // If we did not find any XMP metadata, search for non XMP metadata
+        if (meta != null) {
 
-                // If we did not find anything have a look if a Dublin Core exists
-                if (result.isEmpty()) {
-                    schemas = meta
-                            .getSchemasByNamespaceURI(XMPSchemaDublinCore.NAMESPACE);
-                    for (XMPSchema schema : schemas) {
-                        XMPSchemaDublinCore dc = (XMPSchemaDublinCore) schema;
+            List<XMPSchema> schemas = meta
+                    .getSchemasByNamespaceURI(XMPSchemaBibtex.NAMESPACE);
 
-                        BibtexEntry entry = XMPUtil.getBibtexEntryFromDublinCore(dc);
+            for (XMPSchema schema : schemas) {
+                XMPSchemaBibtex bib = (XMPSchemaBibtex) schema;
 
-                        if (entry != null) {
-                            result.add(entry);
-                        }
-                    }
-                }
+                result.add(bib.getBibtexEntry());
             }
+
+            // If we did not find anything have a look if a Dublin Core exists
             if (result.isEmpty()) {
-                BibtexEntry entry = XMPUtil.getBibtexEntryFromDocumentInformation(document
-                        .getDocumentInformation());
+                schemas = meta
+                        .getSchemasByNamespaceURI(XMPSchemaDublinCore.NAMESPACE);
+                for (XMPSchema schema : schemas) {
+                    XMPSchemaDublinCore dc = (XMPSchemaDublinCore) schema;
+
+                    BibtexEntry entry = XMPUtil.getBibtexEntryFromDublinCore(dc);
 
-                if (entry != null) {
-                    result.add(entry);
+                    if (entry != null) {
+                        result.add(entry);
+                    }
                 }
             }
-        } finally {
-            if (document != null) {
-                document.close();
+        }
+        if (result.isEmpty() && di != null) {
+            BibtexEntry entry = XMPUtil.getBibtexEntryFromDocumentInformation(di);
+
+            if (entry != null) {
+                result.add(entry);
             }
         }
 
@@ -586,18 +618,160 @@ public class XMPUtil {
 
     private static XMPMetadata getXMPMetadata(PDDocument document) throws IOException {
         PDDocumentCatalog catalog = document.getDocumentCatalog();
-        PDMetadata metaRaw = catalog.getMetadata();
+        return XMPUtil.getXMPMetadata(catalog.getMetadata());
+    }
 
+    static XMPMetadata getXMPMetadata(PDMetadata metaRaw) throws IOException {
         if (metaRaw == null) {
             return null;
         }
 
-        XMPMetadata meta = new XMPMetadata(XMLUtil.parse(metaRaw
-                .createInputStream()));
+        return XMPUtil.parseXMP(metaRaw.createInputStream());
+    }
+
+    private static XMPMetadata parseXMP(InputStream inputStream) throws IOException {
+        XMPMetadata meta = new XMPMetadata(XMLUtil.parse(inputStream));
         meta.addXMLNSMapping(XMPSchemaBibtex.NAMESPACE, XMPSchemaBibtex.class);
         return meta;
     }
 
+    /**
+     * Tells whether the XMP-metadata of the given PDF-file already is what
+     * writeXMP(File, BibtexEntry, BibtexDatabase) would write, so that
+     * writing can be skipped.
+     * 
+     * The BibTeX and Dublin Core schemas and the document information found
+     * in the file are compared to the ones that would be written, as read
+     * back by readXMP. Only the metadata of the file is parsed.
+     * 
+     * @param file
+     *            The file to check.
+     * @param entry
+     *            The entry that would be written.
+     * @param database
+     *            maybenull An optional database which the given bibtex entry
+     *            belongs to, which will be used to resolve strings.
+     * @return false if writing would change the metadata, or if the file
+     *         cannot be checked without loading it completely
+     * @throws EncryptionNotSupportedException
+     *             If the file is encrypted.
+     * @throws IOException
+     *             If the file could not be read.
+     */
+    public static boolean isXMPUpToDate(File file, BibtexEntry entry,
+            BibtexDatabase database) throws IOException {
+        BibtexEntry resolved = database == null ? entry : database.resolveForStrings(entry, false);
+        try {
+            return new PDFMetadataParser(file).readMetadata(
+                    (meta, di) -> XMPUtil.isXMPUpToDate(resolved, meta, di));
+        } catch (EncryptionNotSupportedException | FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot compare metadata of " + file, e);
+            return false;
+        }
+    }
+
+    private static boolean isXMPUpToDate(BibtexEntry entry, XMPMetadata meta,
+            PDDocumentInformation di) throws IOException {
+        if (meta == null) {
+            return false;
+        }
+        List<BibtexEntry> entries = Collections.singletonList(entry);
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            XMPUtil.toXMP(entries, null, os);
+            XMPMetadata bibtex = XMPUtil.parseXMP(new ByteArrayInputStream(os.toByteArray()));
+            if (!XMPUtil.sameEntries(XMPUtil.getBibtexSchemaEntries(bibtex),
+                    XMPUtil.getBibtexSchemaEntries(meta))) {
+                return false;
+            }
+
+            XMPMetadata dublinCore = new XMPMetadata();
+            XMPSchemaDublinCore dcSchema = new XMPSchemaDublinCore(dublinCore);
+            XMPUtil.writeToDCSchema(dcSchema, entry, null);
+            dublinCore.addSchema(dcSchema);
+            os = new ByteArrayOutputStream();
+            dublinCore.save(os);
+            dublinCore = XMPUtil.parseXMP(new ByteArrayInputStream(os.toByteArray()));
+            if (!XMPUtil.sameEntries(XMPUtil.getDublinCoreEntries(dublinCore),
+                    XMPUtil.getDublinCoreEntries(meta))) {
+                return false;
+            }
+        } catch (TransformerException e) {
+            throw new IOException(e);
+        }
+
+        // Writing only sets the fields of the entry in the document information
+        PDDocumentInformation written = new PDDocumentInformation();
+        if (di != null) {
+            written.getDictionary().addAll(di.getDictionary());
+        }
+        XMPUtil.writeDocumentInformation(written, entry, null);
+        return XMPUtil.sameEntries(
+                XMPUtil.asList(XMPUtil.getBibtexEntryFromDocumentInformation(written)),
+                XMPUtil.asList(di == null ? null : XMPUtil.getBibtexEntryFromDocumentInformation(di)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BibtexEntry> getBibtexSchemaEntries(XMPMetadata meta) {
+        List<BibtexEntry> result = new ArrayList<BibtexEntry>();
+        List<XMPSchema> schemas = meta.getSchemasByNamespaceURI(XMPSchemaBibtex.NAMESPACE);
+        for (XMPSchema schema : schemas) {
+            result.add(((XMPSchemaBibtex) schema).getBibtexEntry());
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BibtexEntry> getDublinCoreEntries(XMPMetadata meta) {
+        List<BibtexEntry> result = new ArrayList<BibtexEntry>();
+        List<XMPSchema> schemas = meta.getSchemasByNamespaceURI(XMPSchemaDublinCore.NAMESPACE);
+        for (XMPSchema schema : schemas) {
+            result.add(XMPUtil.getBibtexEntryFromDublinCore((XMPSchemaDublinCore) schema));
+        }
+        return result;
+    }
+
+    private static List<BibtexEntry> asList(BibtexEntry entry) {
+        return entry == null ? Collections.<BibtexEntry> emptyList() : Collections.singletonList(entry);
+    }
+
+    /**
+     * Compares the types and fields of the given entries, ignoring their ids.
+     */
+    private static boolean sameEntries(List<BibtexEntry> entries, List<BibtexEntry> others) {
+        if (entries == null) {
+            entries = Collections.emptyList();
+        }
+        if (others == null) {
+            others = Collections.emptyList();
+        }
+        if (entries.size() != others.size()) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            BibtexEntry entry = entries.get(i);
+            BibtexEntry other = others.get(i);
+            if ((entry == null) || (other == null)) {
+                if (entry != other) {
+                    return false;
+                }
+                continue;
+            }
+            if (!entry.getType().getName().equals(other.getType().getName())
+                    || !entry.getAllFields().equals(other.getAllFields())) {
+                return false;
+            }
+            for (String field : entry.getAllFields()) {
+                if (!entry.getField(field).equals(other.getField(field))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Will read the XMPMetadata from the given pdf file, closing the file
      * afterwards.
@@ -996,8 +1170,8 @@ public class XMPUtil {
      * Existing fields values are overriden if the bibtex entry has the
      * corresponding value set.
      * 
-     * @param document
-     *            The pdf document to write to.
+     * @param di
+     *            The document information of the pdf document to write to.
      * @param entry
      *            The Bibtex entry that is written into the PDF properties. *
      * @param database
@@ -1005,11 +1179,9 @@ public class XMPUtil {
      *            belong to, which will be used to resolve strings. If the
      *            database is null the strings will not be resolved.
      */
-    private static void writeDocumentInformation(PDDocument document,
+    private static void writeDocumentInformation(PDDocumentInformation di,
                                                  BibtexEntry entry, BibtexDatabase database) {
 
-        PDDocumentInformation di = document.getDocumentInformation();
-
         if (database != null) {
             entry = database.resolveForStrings(entry, false);
         }
@@ -1105,7 +1277,7 @@ public class XMPUtil {
             }
 
             if (writePDFInfo && bibtexEntries.size() == 1) {
-                XMPUtil.writeDocumentInformation(document, bibtexEntries
+                XMPUtil.writeDocumentInformation(document.getDocumentInformation(), bibtexEntries
                         .iterator().next(), null);
                 XMPUtil.writeDublinCore(document, bibtexEntries, null);
             }
@@ -1144,12 +1316,18 @@ public class XMPUtil {
             PDMetadata metadataStream = new PDMetadata(document, is, false);
             catalog.setMetadata(metadataStream);
 
-            // Save
+            // Save to a temporary file first, so that the PDF is not damaged if
+            // saving fails halfway
+            File target = file.getAbsoluteFile();
+            File temp = File.createTempFile("jabref", ".pdf.tmp", target.getParentFile());
             try {
-                document.save(file.getAbsolutePath());
+                document.save(temp.getAbsolutePath());
+                XMPUtil.replaceFile(temp, target);
             } catch (COSVisitorException e) {
                 throw new TransformerException("Could not write XMP-metadata: "
                         + e.getLocalizedMessage());
+            } finally {
+                Files.deleteIfExists(temp.toPath());
             }
 
         } finally {
@@ -1159,6 +1337,24 @@ public class XMPUtil {
         }
     }
 
+    /**
+     * Replaces the target by the source file, atomically where the file
+     * system supports it, keeping the permissions of the target.
+     */
+    private static void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.setPosixFilePermissions(source.toPath(), Files.getPosixFilePermissions(target.toPath()));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * Print usage information for the command line tool xmpUtil.
      * 
@@ -37,9 +37,10 @@ import java.beans.PropertyVetoException;
 import java.beans.VetoableChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +55,14 @@ public class BibtexDatabase {
 
     private final Map<String, BibtexEntry> entries = new ConcurrentHashMap<>();
 
+    /*
+     * Every entry gets a small integer ordinal when it is inserted, which allows
+     * sets of entries to be stored as bit sets (see EntrySet). Ordinals are handed
+     * out consecutively and are not reused after an entry has been removed.
+     */
+    private final Map<BibtexEntry, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<BibtexEntry> entriesByOrdinal = new ArrayList<>();
+
     private String preamble;
 
     private final Map<String, BibtexString> bibtexStrings = new ConcurrentHashMap<>();
@@ -64,11 +73,21 @@ public class BibtexDatabase {
 
     private static final Log LOGGER = LogFactory.getLog(BibtexDatabase.class);
 
-    /**
-     * use a map instead of a set since i need to know how many of each key is
-     * inthere
+    // State of runBulkChange(), bulkChangeThread is null if none is running
+    private final Object bulkChangeLock = new Object();
+    private volatile Thread bulkChangeThread;
+    private final Set<BibtexEntry> bulkChangedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<BibtexEntry> bulkChangedEntryList = new ArrayList<>();
+    private final Set<String> bulkChangedFields = new HashSet<>();
+
+    /*
+     * The entries having each bibtex key, in the order they got it. Used to look up
+     * entries by key, e.g. to resolve crossrefs, and to count duplicate keys. The
+     * lists are replaced instead of modified, so that lookups need no lock; changes
+     * are made while holding keyIndexLock.
      */
-    private final HashMap<String, Integer> allKeys = new HashMap<>();
+    private final Map<String, List<BibtexEntry>> entriesByKey = new ConcurrentHashMap<>();
+    private final Object keyIndexLock = new Object();
 
     /*
      * Entries are stored in a HashMap with the ID as key. What happens if
@@ -79,6 +98,10 @@ public class BibtexDatabase {
      */
     private final VetoableChangeListener listener =
             propertyChangeEvent -> {
+                if (BibtexEntry.KEY_FIELD.equals(propertyChangeEvent.getPropertyName())) {
+                    checkForDuplicateKeyAndAdd((String) propertyChangeEvent.getOldValue(),
+                            (String) propertyChangeEvent.getNewValue(), (BibtexEntry) propertyChangeEvent.getSource());
+                }
                 if (propertyChangeEvent.getPropertyName() == null) {
                     fireDatabaseChanged(new DatabaseChangeEvent(BibtexDatabase.this, DatabaseChangeEvent.ChangeType.CHANGING_ENTRY, (BibtexEntry) propertyChangeEvent.getSource()));
                 } else if ("id".equals(propertyChangeEvent.getPropertyName())) {
@@ -105,8 +128,14 @@ public class BibtexDatabase {
                     // and re-file this entry
                     entries.put((String) propertyChangeEvent.getNewValue(),
                             (BibtexEntry) propertyChangeEvent.getSource());
+                } else if (Thread.currentThread() == bulkChangeThread) {
+                    BibtexEntry entry = (BibtexEntry) propertyChangeEvent.getSource();
+                    if (bulkChangedEntries.add(entry)) {
+                        bulkChangedEntryList.add(entry);
+                    }
+                    bulkChangedFields.add(propertyChangeEvent.getPropertyName());
                 } else {
-                    fireDatabaseChanged(new DatabaseChangeEvent(BibtexDatabase.this, DatabaseChangeEvent.ChangeType.CHANGED_ENTRY, (BibtexEntry) propertyChangeEvent.getSource()));
+                    fireDatabaseChanged(new DatabaseChangeEvent(BibtexDatabase.this, DatabaseChangeEvent.ChangeType.CHANGED_ENTRY, (BibtexEntry) propertyChangeEvent.getSource(), propertyChangeEvent.getPropertyName()));
                 }
             };
 
@@ -157,39 +186,45 @@ public class BibtexDatabase {
     }
 
     /**
-     * Returns the entry with the given bibtex key.
+     * Returns the ordinal of the given entry, or -1 if the entry is not part of this database.
      */
-    public synchronized BibtexEntry getEntryByKey(String key) {
-        BibtexEntry back = null;
-
-        int keyHash = key.hashCode(); // key hash for better performance
+    public int getOrdinal(BibtexEntry entry) {
+        Integer ordinal = ordinals.get(entry);
+        return ordinal == null ? -1 : ordinal;
+    }
 
-        Set<String> keySet = entries.keySet();
-        for (String entryID : keySet) {
-            BibtexEntry entry = getEntryById(entryID);
-            if (entry != null && entry.getCiteKey() != null) {
-                String citeKey = entry.getCiteKey();
-                if (citeKey != null) {
-                    if (keyHash == citeKey.hashCode()) {
-                        back = entry;
-                    }
-                }
-            }
-        }
-        return back;
+    /**
+     * Returns the entry with the given ordinal, or null if that entry has been removed.
+     */
+    public synchronized BibtexEntry getEntryByOrdinal(int ordinal) {
+        return ordinal < entriesByOrdinal.size() ? entriesByOrdinal.get(ordinal) : null;
     }
 
-    public synchronized BibtexEntry[] getEntriesByKey(String key) {
+    /**
+     * Returns an upper bound (exclusive) for the ordinals of the entries of this database.
+     */
+    public synchronized int getOrdinalBound() {
+        return entriesByOrdinal.size();
+    }
 
-        ArrayList<BibtexEntry> result = new ArrayList<>();
+    /**
+     * Returns the entry with the given bibtex key, or null if there is none. If several
+     * entries have the key, the one that got it first is returned.
+     */
+    public BibtexEntry getEntryByKey(String key) {
+        List<BibtexEntry> keyEntries = key == null ? null : entriesByKey.get(key);
+        return keyEntries == null ? null : keyEntries.get(0);
+    }
 
-        for (BibtexEntry entry : entries.values()) {
-            if (key.equals(entry.getCiteKey())) {
-                result.add(entry);
-            }
+    /**
+     * Returns all entries with the given bibtex key.
+     */
+    public BibtexEntry[] getEntriesByKey(String key) {
+        List<BibtexEntry> keyEntries = key == null ? null : entriesByKey.get(key);
+        if (keyEntries == null) {
+            return new BibtexEntry[0];
         }
-
-        return result.toArray(new BibtexEntry[result.size()]);
+        return keyEntries.toArray(new BibtexEntry[keyEntries.size()]);
     }
 
     /**
@@ -207,10 +242,14 @@ public class BibtexDatabase {
         entry.addPropertyChangeListener(listener);
 
         entries.put(id, entry);
+        if (!ordinals.containsKey(entry)) {
+            ordinals.put(entry, entriesByOrdinal.size());
+            entriesByOrdinal.add(entry);
+        }
 
         fireDatabaseChanged(new DatabaseChangeEvent(this, DatabaseChangeEvent.ChangeType.ADDED_ENTRY, entry));
 
-        return checkForDuplicateKeyAndAdd(null, entry.getCiteKey());
+        return checkForDuplicateKeyAndAdd(null, entry.getCiteKey(), entry);
     }
 
     /**
@@ -225,10 +264,16 @@ public class BibtexDatabase {
             return null;
         }
 
-        removeKeyFromSet(oldValue.getCiteKey());
+        removeKeyFromSet(oldValue.getCiteKey(), oldValue);
         oldValue.removePropertyChangeListener(listener);
         fireDatabaseChanged(new DatabaseChangeEvent(this, DatabaseChangeEvent.ChangeType.REMOVED_ENTRY, oldValue));
 
+        // Listeners may still look up the ordinal of the removed entry, so it is released afterwards
+        Integer ordinal = ordinals.remove(oldValue);
+        if (ordinal != null) {
+            entriesByOrdinal.set(ordinal, null);
+        }
+
         return oldValue;
     }
 
@@ -243,7 +288,9 @@ public class BibtexDatabase {
         } else {
             entry.clearField(BibtexEntry.KEY_FIELD);
         }
-        return checkForDuplicateKeyAndAdd(oldKey, entry.getCiteKey());
+        // the key index has been updated by the change listener
+        String newKey = entry.getCiteKey();
+        return (newKey != null) && !newKey.equals(oldKey) && (getNumberOfKeyOccurences(newKey) > 1);
     }
 
     /**
@@ -486,12 +533,12 @@ public class BibtexDatabase {
     //############################################
     // if the newkey already exists and is not the same as oldkey it will give a warning
     // else it will add the newkey to the to set and remove the oldkey
-    private boolean checkForDuplicateKeyAndAdd(String oldKey, String newKey) {
+    private boolean checkForDuplicateKeyAndAdd(String oldKey, String newKey, BibtexEntry entry) {
         // Globals.logger(" checkForDuplicateKeyAndAdd [oldKey = " + oldKey + "] [newKey = " + newKey + "]");
 
         boolean duplicate;
         if (oldKey == null) {// this is a new entry so don't bother removing oldKey
-            duplicate = addKeyToSet(newKey);
+            duplicate = addKeyToSet(newKey, entry);
         } else {
             if (oldKey.equals(newKey)) {// were OK because the user did not change keys
                 duplicate = false;
@@ -505,8 +552,8 @@ public class BibtexDatabase {
                 // i need a way to count the number of keys of each type
                 // hashmap=>int (increment each time)
 
-                removeKeyFromSet(oldKey);
-                duplicate = addKeyToSet(newKey);
+                removeKeyFromSet(oldKey, entry);
+                duplicate = addKeyToSet(newKey, entry);
             }
         }
         if (duplicate) {
@@ -519,49 +566,90 @@ public class BibtexDatabase {
      * Returns the number of occurences of the given key in this database.
      */
     public int getNumberOfKeyOccurences(String key) {
-        Object o = allKeys.get(key);
-        if (o == null) {
-            return 0;
-        } else {
-            return (Integer) o;
-        }
-
+        List<BibtexEntry> keyEntries = key == null ? null : entriesByKey.get(key);
+        return keyEntries == null ? 0 : keyEntries.size();
     }
 
     //========================================================
     // keep track of all the keys to warn if there are duplicates
     //========================================================
-    private boolean addKeyToSet(String key) {
-        boolean exists = false;
+    private boolean addKeyToSet(String key, BibtexEntry entry) {
         if (key == null || key.isEmpty()) {
             return false;//don't put empty key
         }
-        if (allKeys.containsKey(key)) {
+        synchronized (keyIndexLock) {
+            List<BibtexEntry> keyEntries = entriesByKey.get(key);
+            if (keyEntries == null) {
+                entriesByKey.put(key, Collections.singletonList(entry));
+                return false;
+            }
             // warning
-            exists = true;
-            allKeys.put(key, allKeys.get(key) + 1);// incrementInteger( allKeys.get(key)));
-        } else {
-            allKeys.put(key, 1);
+            List<BibtexEntry> changed = new ArrayList<>(keyEntries.size() + 1);
+            changed.addAll(keyEntries);
+            changed.add(entry);
+            entriesByKey.put(key, changed);
+            return true;
         }
-        return exists;
     }
 
     //========================================================
-    // reduce the number of keys by 1. if this number goes to zero then remove from the set
-    // note: there is a good reason why we should not use a hashset but use hashmap instead
+    // remove the entry from the entries having the key. if there are none left then remove the key
     //========================================================
-    private void removeKeyFromSet(String key) {
+    private void removeKeyFromSet(String key, BibtexEntry entry) {
         if (key == null || key.isEmpty()) {
             return;
         }
-        if (allKeys.containsKey(key)) {
-            Integer tI = allKeys.get(key); // if(allKeys.get(key) instanceof Integer)
-            if (tI == 1) {
-                allKeys.remove(key);
-            } else {
-                allKeys.put(key, tI - 1);//decrementInteger( tI ));
+        synchronized (keyIndexLock) {
+            List<BibtexEntry> keyEntries = entriesByKey.get(key);
+            if (keyEntries == null) {
+                return;
+            }
+            List<BibtexEntry> changed = new ArrayList<>(keyEntries.size());
+            for (BibtexEntry keyEntry : keyEntries) {
+                if (keyEntry != entry) {
+                    changed.add(keyEntry);
+                }
+            }
+            if (changed.isEmpty()) {
+                entriesByKey.remove(key);
+            } else if (changed.size() < keyEntries.size()) {
+                entriesByKey.put(key, changed);
+            }
+        }
+    }
+
+    /**
+     * Runs the given changes of entry fields. The listeners are notified afterwards by a single
+     * CHANGED_ENTRIES event instead of one CHANGED_ENTRY event per changed field, which saves
+     * e.g. the table from being updated for every entry. Changes made by other threads in the
+     * meantime are notified as usual.
+     */
+    public void runBulkChange(Runnable changes) {
+        if (Thread.currentThread() == bulkChangeThread) {
+            // already part of a bulk change
+            changes.run();
+            return;
+        }
+
+        List<BibtexEntry> changed;
+        String field;
+        synchronized (bulkChangeLock) {
+            bulkChangeThread = Thread.currentThread();
+            try {
+                changes.run();
+            } finally {
+                bulkChangeThread = null;
+                changed = new ArrayList<>(bulkChangedEntryList);
+                field = bulkChangedFields.size() == 1 ? bulkChangedFields.iterator().next() : null;
+                bulkChangedEntries.clear();
+                bulkChangedEntryList.clear();
+                bulkChangedFields.clear();
             }
         }
+
+        if (!changed.isEmpty()) {
+            fireDatabaseChanged(new DatabaseChangeEvent(this, changed, field));
+        }
     }
 
     private void fireDatabaseChanged(DatabaseChangeEvent e) {
@@ -15,36 +15,80 @@
 */
 package net.sf.jabref.model.database;
 
+import java.util.Collections;
+import java.util.List;
+
 import net.sf.jabref.model.entry.BibtexEntry;
 
 public class DatabaseChangeEvent {
 
     public enum ChangeType {
-        ADDED_ENTRY, REMOVED_ENTRY, CHANGED_ENTRY, CHANGING_ENTRY
+        ADDED_ENTRY, REMOVED_ENTRY, CHANGED_ENTRY, CHANGING_ENTRY,
+        /** Several entries have been changed at once, see {@link BibtexDatabase#runBulkChange(Runnable)} */
+        CHANGED_ENTRIES
     }
 
 
     private final BibtexEntry entry;
+    private final List<BibtexEntry> entries;
     private final ChangeType type;
     private final BibtexDatabase source;
+    private final String fieldName;
 
 
     public DatabaseChangeEvent(BibtexDatabase source, ChangeType type,
             BibtexEntry entry) {
+        this(source, type, entry, null);
+    }
+
+    public DatabaseChangeEvent(BibtexDatabase source, ChangeType type,
+            BibtexEntry entry, String fieldName) {
         this.source = source;
         this.type = type;
         this.entry = entry;
+        this.entries = Collections.singletonList(entry);
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Creates a CHANGED_ENTRIES event.
+     *
+     * @param fieldName the field changed in all entries, null if several fields have been changed
+     */
+    public DatabaseChangeEvent(BibtexDatabase source, List<BibtexEntry> entries, String fieldName) {
+        this.source = source;
+        this.type = ChangeType.CHANGED_ENTRIES;
+        this.entry = null;
+        this.entries = Collections.unmodifiableList(entries);
+        this.fieldName = fieldName;
     }
 
     public BibtexDatabase getSource() {
         return source;
     }
 
+    /**
+     * @return the entry, null for CHANGED_ENTRIES events
+     */
     public BibtexEntry getEntry() {
         return entry;
     }
 
+    /**
+     * @return the changed entries of a CHANGED_ENTRIES event, otherwise a list containing only the entry
+     */
+    public List<BibtexEntry> getEntries() {
+        return entries;
+    }
+
     public ChangeType getType() {
         return type;
     }
+
+    /**
+     * @return the name of the changed field for CHANGED_ENTRY and CHANGED_ENTRIES events, null if not known
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
 }
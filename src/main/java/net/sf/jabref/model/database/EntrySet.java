@@ -0,0 +1,160 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.model.database;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import net.sf.jabref.model.entry.BibtexEntry;
+
+/**
+ * A set of entries of one database, stored as bit set over the entry ordinals
+ * (see {@link BibtexDatabase#getOrdinal(BibtexEntry)}).
+ *
+ * Search results, group members and other entry selections are represented as EntrySets,
+ * so that combining them (e.g. search AND group) is a bitwise operation instead of a scan
+ * over all entries. Since ordinals are dense, a plain bit set needs only one bit per entry.
+ */
+public final class EntrySet {
+
+    private final BibtexDatabase database;
+    private final BitSet ordinals;
+
+
+    public EntrySet(BibtexDatabase database) {
+        this(database, new BitSet(database.getOrdinalBound()));
+    }
+
+    /**
+     * @param ordinals the ordinals of the entries, not copied
+     */
+    public EntrySet(BibtexDatabase database, BitSet ordinals) {
+        this.database = Objects.requireNonNull(database);
+        this.ordinals = Objects.requireNonNull(ordinals);
+    }
+
+    /**
+     * Returns a set containing all entries of the given database.
+     */
+    public static EntrySet allOf(BibtexDatabase database) {
+        EntrySet all = new EntrySet(database);
+        for (BibtexEntry entry : database.getEntries()) {
+            all.add(entry);
+        }
+        return all;
+    }
+
+    public BibtexDatabase getDatabase() {
+        return database;
+    }
+
+    public void add(BibtexEntry entry) {
+        int ordinal = database.getOrdinal(entry);
+        if (ordinal >= 0) {
+            ordinals.set(ordinal);
+        }
+    }
+
+    public void remove(BibtexEntry entry) {
+        int ordinal = database.getOrdinal(entry);
+        if (ordinal >= 0) {
+            ordinals.clear(ordinal);
+        }
+    }
+
+    public boolean contains(BibtexEntry entry) {
+        int ordinal = database.getOrdinal(entry);
+        return ordinal >= 0 && ordinals.get(ordinal);
+    }
+
+    /**
+     * Retains only the entries also contained in the other set.
+     */
+    public EntrySet and(EntrySet other) {
+        ordinals.and(other.ordinals);
+        return this;
+    }
+
+    /**
+     * Adds all entries of the other set.
+     */
+    public EntrySet or(EntrySet other) {
+        ordinals.or(other.ordinals);
+        return this;
+    }
+
+    /**
+     * Removes all entries of the other set.
+     */
+    public EntrySet andNot(EntrySet other) {
+        ordinals.andNot(other.ordinals);
+        return this;
+    }
+
+    public boolean intersects(EntrySet other) {
+        return ordinals.intersects(other.ordinals);
+    }
+
+    public int size() {
+        return ordinals.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return ordinals.isEmpty();
+    }
+
+    /**
+     * Returns the entries of this set that are still part of the database, in ordinal order.
+     */
+    public List<BibtexEntry> getEntries() {
+        List<BibtexEntry> result = new ArrayList<>(size());
+        for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            BibtexEntry entry = database.getEntryByOrdinal(i);
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public EntrySet copy() {
+        return new EntrySet(database, (BitSet) ordinals.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntrySet)) {
+            return false;
+        }
+        EntrySet other = (EntrySet) o;
+        return database == other.database && ordinals.equals(other.ordinals);
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinals.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EntrySet" + ordinals;
+    }
+}
@@ -252,10 +252,16 @@ public class AuthorList {
      * @return An AuthorList object representing the given authors.
      */
     public static AuthorList getAuthorList(String authors) {
-        AuthorList authorList = AUTHOR_CACHE.get(authors);
+        AuthorList authorList;
+        synchronized (AUTHOR_CACHE) {
+            authorList = AUTHOR_CACHE.get(authors);
+        }
         if (authorList == null) {
+            // parsed outside the lock, as the cache is used from several threads
             authorList = new AuthorList(authors);
-            AUTHOR_CACHE.put(authors, authorList);
+            synchronized (AUTHOR_CACHE) {
+                AUTHOR_CACHE.put(authors, authorList);
+            }
         }
         return authorList;
     }
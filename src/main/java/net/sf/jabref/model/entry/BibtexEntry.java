@@ -89,9 +89,10 @@ public class BibtexEntry {
 
     private BibtexEntryType type;
 
-    private Map<String, String> fields = new HashMap<>();
+    private CompactFieldMap fields = new CompactFieldMap();
 
-    private final VetoableChangeSupport changeSupport = new VetoableChangeSupport(this);
+    // Created on demand, most entries never get a listener attached:
+    private volatile VetoableChangeSupport changeSupport;
 
     // Search and grouping status is stored in boolean fields for quick reference:
     private boolean searchHit;
@@ -139,7 +140,7 @@ public class BibtexEntry {
      * set for this particular entry.
      */
     public Set<String> getAllFields() {
-        return new TreeSet<>(fields.keySet());
+        return fields.keySet();
     }
 
     /**
@@ -350,8 +351,7 @@ public class BibtexEntry {
     }
 
     public String getCiteKey() {
-        return fields.containsKey(KEY_FIELD) ?
-                fields.get(KEY_FIELD) : null;
+        return fields.get(KEY_FIELD);
     }
 
     /**
@@ -362,7 +362,20 @@ public class BibtexEntry {
      * does not check values for content, so e.g. empty strings will be set as such.
      */
     public void setField(Map<String, String> fields) {
-        this.fields.putAll(fields);
+        FieldValuePool pool = FieldValuePool.getInstance();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            this.fields.put(field.getKey(), pool.deduplicate(field.getKey(), field.getValue()));
+        }
+        this.fields.trimToSize();
+    }
+
+    /**
+     * Sets a field whose content is only decoded when it is first read through
+     * {@link #getField(String)}. Used by the parser to defer decoding of long fields.
+     * WARNING: like {@link #setField(Map)} this method does not notify change listeners.
+     */
+    public void setLazyField(String name, LazyFieldValue value) {
+        fields.putLazy(name, value);
     }
 
     /**
@@ -379,6 +392,7 @@ public class BibtexEntry {
         }
 
         String oldValue = fields.get(name);
+        value = FieldValuePool.getInstance().deduplicate(name, value);
         try {
             // We set the field before throwing the changeEvent, to enable
             // the change listener to access the new value if the change
@@ -452,8 +466,11 @@ public class BibtexEntry {
 
     private void firePropertyChangedEvent(String fieldName, Object oldValue,
                                           Object newValue) throws PropertyVetoException {
-        changeSupport.fireVetoableChange(new PropertyChangeEvent(this,
-                fieldName, oldValue, newValue));
+        VetoableChangeSupport support = changeSupport;
+        if (support != null) {
+            support.fireVetoableChange(new PropertyChangeEvent(this,
+                    fieldName, oldValue, newValue));
+        }
     }
 
     /**
@@ -461,15 +478,20 @@ public class BibtexEntry {
      * changes. This is useful for an object that needs to update
      * itself each time a field changes.
      */
-    public void addPropertyChangeListener(VetoableChangeListener listener) {
+    public synchronized void addPropertyChangeListener(VetoableChangeListener listener) {
+        if (changeSupport == null) {
+            changeSupport = new VetoableChangeSupport(this);
+        }
         changeSupport.addVetoableChangeListener(listener);
     }
 
     /**
      * Removes a property listener.
      */
-    public void removePropertyChangeListener(VetoableChangeListener listener) {
-        changeSupport.removeVetoableChangeListener(listener);
+    public synchronized void removePropertyChangeListener(VetoableChangeListener listener) {
+        if (changeSupport != null) {
+            changeSupport.removeVetoableChangeListener(listener);
+        }
     }
 
     /**
@@ -478,7 +500,7 @@ public class BibtexEntry {
     @Override
     public Object clone() {
         BibtexEntry clone = new BibtexEntry(id, type);
-        clone.fields = new HashMap<>(fields);
+        clone.fields = new CompactFieldMap(fields);
         return clone;
     }
 
@@ -0,0 +1,177 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.model.entry;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Field storage of a single entry.
+ *
+ * Field names are replaced by their {@link FieldNameRegistry} id and kept in a sorted
+ * int array next to a parallel value array. Entries typically have about ten fields, so
+ * a binary search is as fast as hashing and avoids one map node per field.
+ *
+ * Like the HashMap it replaces, a field may be present with a null value. A value may
+ * also be a {@link LazyFieldValue}, which is decoded and replaced on first access.
+ *
+ * Fields are read by background threads while the EDT edits them, so all access is
+ * synchronized on the map. Lazy values are decoded outside the lock and only stored if the
+ * field still holds the same lazy value.
+ */
+final class CompactFieldMap {
+
+    private static final int[] NO_IDS = new int[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private int[] ids = CompactFieldMap.NO_IDS;
+    private Object[] values = CompactFieldMap.NO_VALUES;
+    private int size;
+
+
+    CompactFieldMap() {
+    }
+
+    CompactFieldMap(CompactFieldMap other) {
+        synchronized (other) {
+            size = other.size;
+            ids = Arrays.copyOf(other.ids, size);
+            values = Arrays.copyOf(other.values, size);
+        }
+    }
+
+    private int indexOf(String name) {
+        int id = FieldNameRegistry.lookup(name);
+        if (id == FieldNameRegistry.UNKNOWN) {
+            return -1;
+        }
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    String get(String name) {
+        Object value;
+        synchronized (this) {
+            int index = indexOf(name);
+            if (index < 0) {
+                return null;
+            }
+            value = values[index];
+        }
+        if (!(value instanceof LazyFieldValue)) {
+            return (String) value;
+        }
+
+        String decoded = decode(name, value);
+        synchronized (this) {
+            // The field may have been changed, removed or moved while decoding
+            int index = indexOf(name);
+            if (index >= 0 && values[index] == value) {
+                values[index] = decoded;
+            }
+        }
+        return decoded;
+    }
+
+    private static String decode(String name, Object value) {
+        if (value instanceof LazyFieldValue) {
+            return FieldValuePool.getInstance().deduplicate(name, ((LazyFieldValue) value).decode());
+        }
+        return (String) value;
+    }
+
+    synchronized boolean containsKey(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * @return the previous value, or null if there was none
+     */
+    String put(String name, String value) {
+        return putValue(name, value);
+    }
+
+    /**
+     * Stores a value that is decoded on first access.
+     *
+     * @return the previous value, or null if there was none
+     */
+    String putLazy(String name, LazyFieldValue value) {
+        return putValue(name, value);
+    }
+
+    private synchronized String putValue(String name, Object value) {
+        int id = FieldNameRegistry.register(name);
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            String old = decode(name, values[index]);
+            values[index] = value;
+            return old;
+        }
+
+        int insertAt = -(index + 1);
+        if (size == ids.length) {
+            int capacity = size < 4 ? size + 4 : size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        values[insertAt] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if there was none
+     */
+    synchronized String remove(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        String old = decode(name, values[index]);
+        int moved = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        size--;
+        values[size] = null;
+        return old;
+    }
+
+    synchronized Set<String> keySet() {
+        Set<String> names = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            names.add(FieldNameRegistry.getName(ids[i]));
+        }
+        return names;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Releases unused capacity, e.g. once an entry has been completely parsed.
+     */
+    synchronized void trimToSize() {
+        if (ids.length > size) {
+            ids = Arrays.copyOf(ids, size);
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.model.entry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global registry assigning a small integer id to every field name used by an entry.
+ *
+ * Ids are handed out in order of first registration and never reused, so the id of a
+ * field name is stable for the lifetime of the JVM. The known BibTeX fields are
+ * registered up front by {@link net.sf.jabref.gui.BibtexFields}, which keeps their ids small.
+ */
+public final class FieldNameRegistry {
+
+    /** Returned by {@link #lookup(String)} for names that were never registered. */
+    public static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    private static volatile String[] names = new String[64];
+
+    private static int size;
+
+
+    private FieldNameRegistry() {
+    }
+
+    /**
+     * Returns the id of the given field name, registering the name if necessary.
+     */
+    public static int register(String name) {
+        Integer id = FieldNameRegistry.IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        return FieldNameRegistry.registerSynchronized(name);
+    }
+
+    private static synchronized int registerSynchronized(String name) {
+        Integer id = FieldNameRegistry.IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = FieldNameRegistry.size;
+        String[] current = FieldNameRegistry.names;
+        if (newId == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[newId] = name;
+        // publish the array before the id becomes visible through the map
+        FieldNameRegistry.names = current;
+        FieldNameRegistry.size++;
+        FieldNameRegistry.IDS.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * Returns the id of the given field name without registering it.
+     *
+     * @return the id, or {@link #UNKNOWN} if the name has never been registered
+     */
+    public static int lookup(String name) {
+        if (name == null) {
+            return FieldNameRegistry.UNKNOWN;
+        }
+        Integer id = FieldNameRegistry.IDS.get(name);
+        return id == null ? FieldNameRegistry.UNKNOWN : id;
+    }
+
+    /**
+     * Returns the field name registered under the given id.
+     */
+    public static String getName(int id) {
+        return FieldNameRegistry.names[id];
+    }
+}
@@ -0,0 +1,133 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.model.entry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Pool sharing equal field values between entries.
+ *
+ * Values like journal names, publishers or owners repeat thousands of times in large
+ * databases. Every value set through {@link BibtexEntry#setField(String, String)} for
+ * one of the configured fields is replaced by a canonical instance, so that only one copy
+ * is kept in memory. The pool holds its values weakly: a value no longer used by any entry
+ * is garbage collected. Values longer than the configured maximum length are never pooled.
+ *
+ * The pool is disabled until {@link #configure(boolean, Collection, int)} is called.
+ */
+public final class FieldValuePool {
+
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 200;
+
+    // Object header, fields and array header of a String on a 64 bit VM with compressed oops
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private static final FieldValuePool INSTANCE = new FieldValuePool();
+
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    private volatile boolean enabled;
+    private volatile Set<String> fields = Collections.emptySet();
+    private volatile int maxValueLength = FieldValuePool.DEFAULT_MAX_VALUE_LENGTH;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+
+    FieldValuePool() {
+    }
+
+    public static FieldValuePool getInstance() {
+        return FieldValuePool.INSTANCE;
+    }
+
+    /**
+     * @param enabled        whether values should be pooled at all
+     * @param fields         the (lower case) names of the fields whose values are pooled
+     * @param maxValueLength values longer than this are not pooled
+     */
+    public void configure(boolean enabled, Collection<String> fields, int maxValueLength) {
+        this.fields = Collections.unmodifiableSet(new HashSet<>(fields));
+        this.maxValueLength = maxValueLength;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPooled(String field) {
+        return enabled && fields.contains(field);
+    }
+
+    /**
+     * Returns the canonical instance of the given value if the field is pooled, otherwise the value itself.
+     */
+    public String deduplicate(String field, String value) {
+        if (value == null || !enabled || value.length() > maxValueLength || !fields.contains(field)) {
+            return value;
+        }
+
+        String canonical = interner.intern(value);
+        lookups.incrementAndGet();
+        if (canonical != value) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(FieldValuePool.STRING_OVERHEAD_BYTES + (2L * value.length()));
+        }
+        return canonical;
+    }
+
+    /**
+     * @return the number of values passed through the pool
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    /**
+     * @return the number of values replaced by an already pooled instance
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return an estimate of the heap saved by replacing values with pooled instances
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public void resetStatistics() {
+        lookups.set(0);
+        hits.set(0);
+        bytesSaved.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldValuePool[lookups=" + getLookups() + ", hits=" + getHits() + ", bytesSaved=" + getBytesSaved()
+                + ']';
+    }
+}
@@ -33,8 +33,11 @@ http://www.gnu.org/copyleft/gpl.ja.html
 
 package net.sf.jabref.wizard.auximport;
 
-import java.util.Vector;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
 
+import net.sf.jabref.exporter.FileActions;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.logic.l10n.Localization;
 import net.sf.jabref.logic.util.strings.StringUtil;
@@ -56,26 +59,56 @@ public class AuxCommandLine {
         if (!auxName.isEmpty() && bib != null)
         {
             AuxSubGenerator auxParser = new AuxSubGenerator(bib);
-            Vector<String> returnValue = auxParser.generate(auxName, bib);
+            auxParser.generate(auxName, bib);
             back = auxParser.getGeneratedDatabase();
 
-            // print statistics
-            //      System.out.println(Globals.lang( "Results" ));
-            System.out.println(Localization.lang("keys_in_database") + " " + bib.getEntryCount());
-            System.out.println(Localization.lang("found_in_aux_file") + " " + auxParser.getFoundKeysInAux());
-            System.out.println(Localization.lang("resolved") + " " + auxParser.getResolvedKeysCount());
-            if (auxParser.getNotResolvedKeysCount() > 0)
-            {
-                System.out.println(Localization.lang("not_found") + " " +
-                        auxParser.getNotResolvedKeysCount());
-                System.out.println(returnValue);
-            }
-            int nested = auxParser.getNestedAuxCounter();
-            if (nested > 0) {
-                System.out.println(Localization.lang("nested_aux_files") + " " + nested);
-            }
-
+            printStatistics(auxParser, System.out);
         }
         return back;
     }
+
+    /**
+     * Writes the entries cited in the aux file directly to the writer, without creating a
+     * sub-database. The statistics are printed to the error stream, so that the writer can
+     * wrap the standard output.
+     *
+     * @param encoding the encoding named in the file header, null to leave out the header
+     * @return the number of written entries
+     */
+    public int perform(Writer out, String encoding) throws IOException
+    {
+        if (auxName.isEmpty() || (bib == null))
+        {
+            return 0;
+        }
+        AuxSubGenerator auxParser = new AuxSubGenerator(bib);
+        auxParser.generate(auxName, bib);
+        printStatistics(auxParser, System.err);
+
+        if (auxParser.getResolvedEntries().isEmpty())
+        {
+            return 0;
+        }
+        FileActions.writeEntries(out, bib, auxParser.getResolvedEntries(), encoding);
+        return auxParser.getResolvedEntries().size();
+    }
+
+    private void printStatistics(AuxSubGenerator auxParser, PrintStream out)
+    {
+        // print statistics
+        //      System.out.println(Globals.lang( "Results" ));
+        out.println(Localization.lang("keys_in_database") + " " + bib.getEntryCount());
+        out.println(Localization.lang("found_in_aux_file") + " " + auxParser.getFoundKeysInAux());
+        out.println(Localization.lang("resolved") + " " + auxParser.getResolvedKeysCount());
+        if (auxParser.getNotResolvedKeysCount() > 0)
+        {
+            out.println(Localization.lang("not_found") + " " +
+                    auxParser.getNotResolvedKeysCount());
+            out.println(auxParser.getNotFoundList());
+        }
+        int nested = auxParser.getNestedAuxCounter();
+        if (nested > 0) {
+            out.println(Localization.lang("nested_aux_files") + " " + nested);
+        }
+    }
 }
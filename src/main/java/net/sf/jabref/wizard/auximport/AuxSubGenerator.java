@@ -55,33 +55,59 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import net.sf.jabref.JabRefExecutorService;
 import net.sf.jabref.logic.id.IdGenerator;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import net.sf.jabref.model.entry.BibtexString;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 public class AuxSubGenerator {
 
-    private final HashSet<String> mySet; // all unique bibtex keys in aux file
+    private static final Log LOGGER = LogFactory.getLog(AuxSubGenerator.class);
+
+    // the important tag
+    private static final Pattern CITATION_PATTERN = Pattern.compile("\\\\(citation|abx@aux@cite)\\{(.+)\\}");
+
+    private final Set<String> mySet; // all unique bibtex keys in aux file, in the order of their first citation
 
     private final Vector<String> notFoundList; // all not solved bibtex keys
 
     private BibtexDatabase db; // reference database
+    private final List<BibtexEntry> resolvedEntries; // the entries of the reference database found for the keys
     private BibtexDatabase auxDB; // contains only the bibtex keys who found in aux file
 
     private int nestedAuxCounter; // counts the nested aux files
     private int crossreferencedEntriesCount; // counts entries pulled in due to crossref
 
 
+    /**
+     * The citation keys and nested aux files of a single aux file.
+     */
+    private static class AuxFileContent {
+
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> nestedFiles = new ArrayList<>();
+    }
+
+
     public AuxSubGenerator(BibtexDatabase refDBase) {
-        mySet = new HashSet<String>(20);
+        mySet = new LinkedHashSet<>();
         notFoundList = new Vector<String>();
+        resolvedEntries = new ArrayList<>();
         db = refDBase;
     }
 
@@ -127,29 +153,9 @@ public class AuxSubGenerator {
     // \\bibcite{x}{y}
     //   x is a label for an item and y is the index in bibliography
     private boolean parseAuxFile(String filename) {
-        // regular expressions
-        Pattern pattern;
-        Matcher matcher;
-
-        // while condition
-        boolean weiter;
-
         // return value -> default: no error
         boolean back = true;
 
-        // fileopen status
-        boolean loopFileOpen;
-
-        // the important tag
-        pattern = Pattern.compile("\\\\(citation|abx@aux@cite)\\{(.+)\\}");
-
-        // input-file-buffer
-        BufferedReader br = null;
-
-        // filelist, used for nested aux files
-        Vector<String> fileList = new Vector<String>(5);
-        fileList.add(filename);
-
         // get the file path
         File dummy = new File(filename);
         String path = dummy.getParent();
@@ -161,98 +167,104 @@ public class AuxSubGenerator {
 
         nestedAuxCounter = -1; // count only the nested reads
 
-        // index of current file in list
-        int fileIndex = 0;
-
-        while (fileIndex < fileList.size()) {
-            String fName = fileList.elementAt(fileIndex);
-            try {
-                //        System.out.println("read #"+fName +"#") ;
-                br = new BufferedReader(new FileReader(fName));
-                weiter = true;
-                loopFileOpen = true;
-            } catch (FileNotFoundException fnfe) {
-                System.out.println("Cannot locate input file! " + fnfe.getMessage());
-                // System.exit( 0 ) ;
-                back = false;
-                weiter = false;
-                loopFileOpen = false;
+        // the files are read concurrently, but their keys are collected in the order of the file list
+        Set<String> fileList = new HashSet<>();
+        fileList.add(filename);
+        List<Future<AuxFileContent>> contents = new ArrayList<>();
+        contents.add(AuxSubGenerator.submitRead(filename, path));
+
+        try {
+            for (int fileIndex = 0; fileIndex < contents.size(); fileIndex++) {
+                AuxFileContent content = contents.get(fileIndex).get();
+                if (content == null) {
+                    back = false;
+                    continue;
+                }
+                nestedAuxCounter++;
+                mySet.addAll(content.keys);
+                for (String nestedFile : content.nestedFiles) {
+                    // if filename already in filelist
+                    if (fileList.add(nestedFile)) {
+                        contents.add(AuxSubGenerator.submitRead(nestedFile, path));
+                    }
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            back = false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
 
-            while (weiter) {
-                String line;
-                try {
-                    line = br.readLine();
-                } catch (IOException ioe) {
-                    line = null;
-                    weiter = false;
-                }
+        return back;
+    }
 
-                if (line != null) {
-                    matcher = pattern.matcher(line);
-
-                    while (matcher.find()) {
-                        // extract the bibtex-key(s) XXX from \citation{XXX} string
-                        int len = matcher.end() - matcher.start();
-                        if (len > 11) {
-                            String str = matcher.group(2);
-                            // could be an comma separated list of keys
-                            String[] keys = str.split(",");
-                            if (keys != null) {
-                                int keyCount = keys.length;
-                                for (String dummyStr : keys) {
-                                    if (dummyStr != null) {
-                                        // delete all unnecessary blanks and save key into an set
-                                        mySet.add(dummyStr.trim());
-                                        //                System.out.println("found " +str +" in AUX") ;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    // try to find a nested aux file
-                    int index = line.indexOf("\\@input{");
-                    if (index >= 0) {
-                        int start = index + 8;
-                        int end = line.indexOf("}", start);
-                        if (end > start) {
-                            String str = path + line.substring(index + 8, end);
-
-                            // if filename already in filelist
-                            if (!fileList.contains(str)) {
-                                fileList.add(str); // insert file into filelist
-                            }
+    private static Future<AuxFileContent> submitRead(String fileName, String path) {
+        return JabRefExecutorService.INSTANCE.submit(() -> AuxSubGenerator.readAuxFile(fileName, path));
+    }
+
+    /**
+     * Reads the citation keys and nested aux files of a single aux file line by line.
+     *
+     * @param path the directory of the nested aux files
+     * @return the content, or null if the file does not exist
+     */
+    private static AuxFileContent readAuxFile(String fileName, String path) {
+        AuxFileContent content = new AuxFileContent();
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Matcher matcher = AuxSubGenerator.CITATION_PATTERN.matcher(line);
+                while (matcher.find()) {
+                    // extract the bibtex-key(s) XXX from \citation{XXX} string
+                    int len = matcher.end() - matcher.start();
+                    if (len > 11) {
+                        // could be an comma separated list of keys
+                        for (String key : matcher.group(2).split(",")) {
+                            // delete all unnecessary blanks
+                            content.keys.add(key.trim());
                         }
                     }
-                } // line != null
-                else {
-                    weiter = false;
                 }
-            }
-
-            if (loopFileOpen) // only close, if open sucessful
-            {
-                try {
-                    br.close();
-                    nestedAuxCounter++;
-                } catch (IOException ignored) {
+                // try to find a nested aux file
+                int index = line.indexOf("\\@input{");
+                if (index >= 0) {
+                    int start = index + 8;
+                    int end = line.indexOf("}", start);
+                    if (end > start) {
+                        content.nestedFiles.add(path + line.substring(start, end));
+                    }
                 }
             }
-
-            fileIndex++; // load next file
+        } catch (FileNotFoundException fnfe) {
+            // not to standard output, which may carry the generated bib file
+            LOGGER.warn("Cannot locate input file! " + fnfe.getMessage());
+            return null;
+        } catch (IOException ignored) {
+            // keep the keys read so far
         }
-
-        return back;
+        return content;
     }
 
     /**
      * resolveTags
      * Try to find an equivalent bibtex entry into reference database for all keys
-     * (found in aux file). This methode will fill up some intern data structures.....
+     * (found in aux file), using the key index of the database. Entries referenced by
+     * crossref are included as well, following chains of crossrefs. Crossreferenced
+     * entries are placed after all entries referring to them, as required by BibTeX.
      */
     private void resolveTags() {
-        auxDB = new BibtexDatabase();
+        auxDB = null;
         notFoundList.clear();
+        resolvedEntries.clear();
+        crossreferencedEntriesCount = 0;
+
+        // the keys of the entries pulled in due to crossref, each is included only once
+        Set<String> crossrefKeys = new HashSet<>();
+        List<BibtexEntry> crossreferenced = new ArrayList<>();
 
         // forall bibtex keys (found in aux-file) try to find an equivalent
         // entry into reference database
@@ -261,38 +273,73 @@ public class AuxSubGenerator {
 
             if (entry == null) {
                 notFoundList.add(str);
-            } else {
-                insertEntry(auxDB, entry);
-                // Check if the entry we just found references another entry which
-                // we don't already have in our list of entries to include. If so,
-                // pull in that entry as well:
-                String crossref = entry.getField("crossref");
-                if (crossref != null && !mySet.contains(crossref)) {
-                    BibtexEntry refEntry = db.getEntryByKey(crossref);
-                    /**
-                     * [ 1717849 ] Patch for aux import by Kai Eckert
-                     */
-                    if (refEntry == null) {
-                        notFoundList.add(crossref);
-                    } else {
-                        insertEntry(auxDB, refEntry);
-                        crossreferencedEntriesCount++;
-                    }
+                continue;
+            }
+            resolvedEntries.add(entry);
+
+            // Check if the entry we just found references another entry which
+            // we don't already have in our list of entries to include. If so,
+            // pull in that entry as well:
+            String crossref = entry.getField("crossref");
+            while ((crossref != null) && !mySet.contains(crossref) && crossrefKeys.add(crossref)) {
+                BibtexEntry refEntry = db.getEntryByKey(crossref);
+                /**
+                 * [ 1717849 ] Patch for aux import by Kai Eckert
+                 */
+                if (refEntry == null) {
+                    notFoundList.add(crossref);
+                    break;
                 }
+                crossreferenced.add(refEntry);
+                crossreferencedEntriesCount++;
+                crossref = refEntry.getField("crossref");
+            }
+        }
 
+        // move the crossreferenced entries behind all others, keeping their order
+        resolvedEntries.addAll(crossreferenced);
+        Set<String> referenced = new HashSet<>();
+        for (BibtexEntry entry : resolvedEntries) {
+            String crossref = entry.getField("crossref");
+            if (crossref != null) {
+                referenced.add(crossref);
             }
         }
+        List<BibtexEntry> referring = new ArrayList<>();
+        List<BibtexEntry> targets = new ArrayList<>();
+        for (BibtexEntry entry : resolvedEntries) {
+            if (referenced.contains(entry.getCiteKey())) {
+                targets.add(entry);
+            } else {
+                referring.add(entry);
+            }
+        }
+        resolvedEntries.clear();
+        resolvedEntries.addAll(referring);
+        resolvedEntries.addAll(targets);
+    }
+
+    /**
+     * Creates the sub-database: clones of the resolved entries together with the preamble
+     * and strings of the reference database.
+     */
+    private BibtexDatabase createAuxDatabase() {
+        BibtexDatabase auxDatabase = new BibtexDatabase();
+        for (BibtexEntry entry : resolvedEntries) {
+            insertEntry(auxDatabase, entry);
+        }
 
         // If we have inserted any entries, make sure to copy the source database's preamble and
         // strings:
-        if (auxDB.getEntryCount() > 0) {
-            auxDB.setPreamble(db.getPreamble());
+        if (auxDatabase.getEntryCount() > 0) {
+            auxDatabase.setPreamble(db.getPreamble());
             Set<String> keys = db.getStringKeySet();
             for (String key : keys) {
                 BibtexString string = db.getString(key);
-                auxDB.addString(string);
+                auxDatabase.addString(string);
             }
         }
+        return auxDatabase;
     }
 
     /**
@@ -324,20 +371,33 @@ public class AuxSubGenerator {
         return notFoundList;
     }
 
+    /**
+     * Returns the sub-database generated by the last call of {@link #generate(String, BibtexDatabase)}.
+     * It is created on the first call, {@link #getResolvedEntries()} avoids copying the entries.
+     */
     public BibtexDatabase getGeneratedDatabase() {
         if (auxDB == null) {
-            auxDB = new BibtexDatabase();
+            auxDB = createAuxDatabase();
         }
 
         return auxDB;
     }
 
+    /**
+     * Returns the entries of the reference database found by the last call of
+     * {@link #generate(String, BibtexDatabase)}, including the crossreferenced ones.
+     * Entries come before the entries they crossreference.
+     */
+    public List<BibtexEntry> getResolvedEntries() {
+        return Collections.unmodifiableList(resolvedEntries);
+    }
+
     public final int getFoundKeysInAux() {
         return mySet.size();
     }
 
     public final int getResolvedKeysCount() {
-        return auxDB.getEntryCount() - crossreferencedEntriesCount;
+        return resolvedEntries.size() - crossreferencedEntriesCount;
     }
 
     public final int getNotResolvedKeysCount() {
@@ -357,6 +417,8 @@ public class AuxSubGenerator {
     public final void clear() {
         mySet.clear();
         notFoundList.clear();
+        resolvedEntries.clear();
+        auxDB = null;
         crossreferencedEntriesCount = 0;
         // db = null ;  ???
     }
@@ -37,71 +37,217 @@ http://www.gnu.org/copyleft/gpl.ja.html
 
 package net.sf.jabref.wizard.integrity;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.sf.jabref.JabRefExecutorService;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 
+/**
+ * Checks entries for errors and inconsistencies. The messages of each entry are kept together
+ * with the contents of the checked fields, so an entry is only checked again by the same
+ * instance after one of these fields has changed.
+ */
 public class IntegrityCheck
 {
 
-    private final Vector<IntegrityMessage> messages;
+    /** The fields which are checked, changes of other fields do not change the messages */
+    private static final String[] CHECKED_FIELDS = {"author", "editor", "title", "year"};
 
+    // number of entries checked by one task of a full check
+    private static final int CHUNK_SIZE = 1000;
 
-    public IntegrityCheck()
-    {
-        messages = new Vector<IntegrityMessage>();
+    private final Map<BibtexEntry, CheckedEntry> results = new ConcurrentHashMap<>();
+
+    // the messages of the database as of the last check, only entries having messages are contained.
+    // Changed entries keep their place, so that a change does not require collecting all entries again.
+    private final Map<BibtexEntry, List<IntegrityMessage>> databaseMessages = new LinkedHashMap<>();
+
+    private final AtomicInteger checkCount = new AtomicInteger();
+
+
+    /**
+     * The messages of an entry, together with the field contents they were computed from.
+     */
+    private static class CheckedEntry {
+
+        private final int hash;
+        private final String[] values;
+        private final List<IntegrityMessage> messages;
+
+
+        CheckedEntry(int hash, String[] values, List<IntegrityMessage> messages) {
+            this.hash = hash;
+            this.values = values;
+            this.messages = messages;
+        }
+
+        boolean isCurrent(int currentHash, String[] currentValues) {
+            return (hash == currentHash) && Arrays.equals(values, currentValues);
+        }
     }
 
-    public Vector<IntegrityMessage> checkBibtexDatabase(BibtexDatabase base) {
-        messages.clear();
-        if (base != null) {
-            for (BibtexEntry entry : base.getEntries()) {
-                checkSingleEntry(entry);
+
+    /**
+     * Checks all entries of the database. Entries which have not changed since their last check
+     * are not checked again, the others are checked in parallel.
+     *
+     * @return the messages of all entries
+     */
+    public synchronized Vector<IntegrityMessage> checkBibtexDatabase(BibtexDatabase base) {
+        if (base == null) {
+            results.clear();
+            databaseMessages.clear();
+            return new Vector<>();
+        }
+        BibtexEntry[] entries = base.getEntries().toArray(new BibtexEntry[0]);
+        List<Future<Void>> chunks = new ArrayList<>();
+        for (int start = 0; start < entries.length; start += IntegrityCheck.CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(entries.length, start + IntegrityCheck.CHUNK_SIZE);
+            chunks.add(JabRefExecutorService.INSTANCE.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    getMessages(entries[i]);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<Void> chunk : chunks) {
+                chunk.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<Void> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
         }
-        return new Vector<IntegrityMessage>(messages);
+
+        // forget the entries which have been removed from the database
+        results.keySet().retainAll(new HashSet<>(Arrays.asList(entries)));
+        databaseMessages.clear();
+        for (BibtexEntry entry : entries) {
+            updateDatabaseMessages(entry, getMessages(entry));
+        }
+        return collectMessages();
     }
 
-    public Vector<IntegrityMessage> checkBibtexEntry(BibtexEntry entry) {
-        messages.clear();
-        checkSingleEntry(entry);
-        return new Vector<IntegrityMessage>(messages);
+    /**
+     * Checks the given entries again, typically after they have been changed, added or removed.
+     * Entries which are not part of the database anymore are forgotten. Only the messages of the
+     * given entries are updated, the other entries are neither checked nor looked at.
+     *
+     * @return the messages of all entries of the database, provided that all its entries have been
+     * checked by {@link #checkBibtexDatabase(BibtexDatabase)} before
+     */
+    public synchronized Vector<IntegrityMessage> checkChangedEntries(BibtexDatabase base,
+            Collection<BibtexEntry> changed) {
+        for (BibtexEntry entry : changed) {
+            if (base.getEntryById(entry.getId()) == entry) {
+                updateDatabaseMessages(entry, getMessages(entry));
+            } else {
+                results.remove(entry);
+                databaseMessages.remove(entry);
+            }
+        }
+        return collectMessages();
     }
 
-    private void checkSingleEntry(BibtexEntry entry)
-    {
+    public Vector<IntegrityMessage> checkBibtexEntry(BibtexEntry entry) {
         if (entry == null) {
-            return;
+            return new Vector<>();
+        }
+        return new Vector<>(getMessages(entry));
+    }
+
+    /**
+     * Returns the number of entries which have actually been checked, i.e., whose messages
+     * were not known yet.
+     */
+    public int getCheckCount() {
+        return checkCount.get();
+    }
+
+    private void updateDatabaseMessages(BibtexEntry entry, List<IntegrityMessage> messages) {
+        if (messages.isEmpty()) {
+            databaseMessages.remove(entry);
+        } else {
+            databaseMessages.put(entry, messages);
         }
+    }
+
+    private Vector<IntegrityMessage> collectMessages() {
+        Vector<IntegrityMessage> messages = new Vector<>();
+        for (List<IntegrityMessage> entryMessages : databaseMessages.values()) {
+            messages.addAll(entryMessages);
+        }
+        return messages;
+    }
 
-        Object data = entry.getField("author");
-        if (data != null) {
-            authorNameCheck(data.toString(), "author", entry);
+    /**
+     * Returns the messages of the entry, checking it only if the checked fields have changed
+     * since the last check. Can be called from several threads.
+     */
+    private List<IntegrityMessage> getMessages(BibtexEntry entry) {
+        String[] values = new String[IntegrityCheck.CHECKED_FIELDS.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = entry.getField(IntegrityCheck.CHECKED_FIELDS[i]);
+        }
+        int hash = Arrays.hashCode(values);
+        CheckedEntry checked = results.get(entry);
+        if ((checked != null) && checked.isCurrent(hash, values)) {
+            return checked.messages;
+        }
+
+        List<IntegrityMessage> messages = new ArrayList<>();
+        checkSingleEntry(entry, values, messages);
+        checkCount.incrementAndGet();
+        results.put(entry, new CheckedEntry(hash, values, messages));
+        return messages;
+    }
+
+    private void checkSingleEntry(BibtexEntry entry, String[] values, List<IntegrityMessage> messages)
+    {
+        if (values[0] != null) {
+            authorNameCheck(values[0], "author", entry, messages);
         }
 
-        data = entry.getField("editor");
-        if (data != null) {
-            authorNameCheck(data.toString(), "editor", entry);
+        if (values[1] != null) {
+            authorNameCheck(values[1], "editor", entry, messages);
         }
 
-        data = entry.getField("title");
-        if (data != null) {
-            titleCheck(data.toString(), "title", entry);
+        if (values[2] != null) {
+            titleCheck(values[2], "title", entry, messages);
         }
 
-        data = entry.getField("year");
-        if (data != null) {
-            yearCheck(data.toString(), "year", entry);
+        if (values[3] != null) {
+            yearCheck(values[3], "year", entry, messages);
         }
     }
 
-    /** fills the class Vector (of IntegrityMessage Objects) which did inform about
+    /** fills the Vector (of IntegrityMessage Objects) which did inform about
      *  failures, hints....
      *  The Authors or Editors field could be invalid -> try to detect it!
      *  Knuth, Donald E. and Kurt Cobain and A. Einstein = N,NNaNNaNN
      */
-    private void authorNameCheck(String names, String fieldName, BibtexEntry entry)
+    private void authorNameCheck(String names, String fieldName, BibtexEntry entry,
+            List<IntegrityMessage> messages)
     {
         // try to extract the structure of author tag
         // N = name, ","= seperator, "a" = and
@@ -187,7 +333,7 @@ public class IntegrityCheck
 
     }
 
-    private void titleCheck(String title, String fieldName, BibtexEntry entry)
+    private void titleCheck(String title, String fieldName, BibtexEntry entry, List<IntegrityMessage> messages)
     {
         int len = title.length();
         int mode = 0;
@@ -248,7 +394,7 @@ public class IntegrityCheck
     }
 
     /** Checks, if the number String contains a four digit year */
-    private void yearCheck(String number, String fieldName, BibtexEntry entry)
+    private void yearCheck(String number, String fieldName, BibtexEntry entry, List<IntegrityMessage> messages)
     {
         int len = number.length();
         int digitCounter = 0;
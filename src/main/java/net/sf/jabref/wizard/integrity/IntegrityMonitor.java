@@ -0,0 +1,138 @@
+/*  Copyright (C) 2015 JabRef contributors.
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*/
+package net.sf.jabref.wizard.integrity;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.Vector;
+import java.util.function.Consumer;
+
+import net.sf.jabref.JabRefExecutorService;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.DatabaseChangeEvent;
+import net.sf.jabref.model.database.DatabaseChangeListener;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the integrity messages of a database up to date. After a change of the database only
+ * the changed entries are checked again. The checks run in the background, one at a time;
+ * changes made meanwhile are collected and checked together afterwards.
+ */
+public class IntegrityMonitor implements DatabaseChangeListener {
+
+    private static final Log LOGGER = LogFactory.getLog(IntegrityMonitor.class);
+
+    private final BibtexDatabase database;
+    private final IntegrityCheck check = new IntegrityCheck();
+    private final Consumer<Vector<IntegrityMessage>> listener;
+
+    // the entries changed since the last check
+    private Set<BibtexEntry> changed = IntegrityMonitor.newEntrySet();
+    private boolean fullCheckPending;
+    private boolean running;
+    private boolean stopped = true;
+
+
+    /**
+     * @param listener receives all messages of the database after each check, from a background thread
+     */
+    public IntegrityMonitor(BibtexDatabase database, Consumer<Vector<IntegrityMessage>> listener) {
+        this.database = database;
+        this.listener = listener;
+    }
+
+    /**
+     * Checks all entries and starts following the changes of the database.
+     */
+    public synchronized void start() {
+        if (stopped) {
+            stopped = false;
+            database.addDatabaseChangeListener(this);
+        }
+        checkAll();
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        database.removeDatabaseChangeListener(this);
+    }
+
+    /**
+     * Checks all entries of the database, entries which have not changed are taken from the cache.
+     */
+    public synchronized void checkAll() {
+        fullCheckPending = true;
+        schedule();
+    }
+
+    @Override
+    public void databaseChanged(DatabaseChangeEvent e) {
+        if (e.getType() == DatabaseChangeEvent.ChangeType.CHANGING_ENTRY) {
+            return;
+        }
+        synchronized (this) {
+            changed.addAll(e.getEntries());
+            schedule();
+        }
+    }
+
+    IntegrityCheck getCheck() {
+        return check;
+    }
+
+    private void schedule() {
+        if (!running && !stopped) {
+            running = true;
+            JabRefExecutorService.INSTANCE.execute(this::run);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Set<BibtexEntry> entries;
+            boolean fullCheck;
+            synchronized (this) {
+                if (stopped || (!fullCheckPending && changed.isEmpty())) {
+                    running = false;
+                    return;
+                }
+                entries = changed;
+                changed = IntegrityMonitor.newEntrySet();
+                fullCheck = fullCheckPending;
+                fullCheckPending = false;
+            }
+
+            try {
+                Vector<IntegrityMessage> messages;
+                if (fullCheck) {
+                    messages = check.checkBibtexDatabase(database);
+                } else {
+                    messages = check.checkChangedEntries(database, entries);
+                }
+                listener.accept(messages);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Integrity check failed", e);
+            }
+        }
+    }
+
+    private static Set<BibtexEntry> newEntrySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+}
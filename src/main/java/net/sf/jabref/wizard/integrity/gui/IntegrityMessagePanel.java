@@ -42,6 +42,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.Vector;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
@@ -131,6 +132,15 @@ public class IntegrityMessagePanel
         warningData.setData(validChecker.checkBibtexDatabase(base));
     }
 
+    /**
+     * Shows the given messages of several entries, e.g. from an IntegrityMonitor.
+     */
+    public void setMessages(Vector<IntegrityMessage> messages)
+    {
+        IntegrityMessage.setPrintMode(IntegrityMessage.FULL_MODE);
+        warningData.setData(messages);
+    }
+
     // ------------------------------------------------------------------------
     //This method is required by ListSelectionListener.
     @Override
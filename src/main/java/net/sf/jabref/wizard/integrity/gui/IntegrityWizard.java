@@ -49,6 +49,7 @@ import net.sf.jabref.gui.GUIGlobals;
 import net.sf.jabref.gui.JabRefFrame;
 import net.sf.jabref.logic.l10n.Localization;
 import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.wizard.integrity.IntegrityMonitor;
 
 public class IntegrityWizard extends JDialog implements ActionListener {
 
@@ -57,6 +58,7 @@ public class IntegrityWizard extends JDialog implements ActionListener {
     private JButton closeButton;
     private JButton startButton;
     private IntegrityMessagePanel warnPanel;
+    private final IntegrityMonitor monitor;
 
 
     public IntegrityWizard(JabRefFrame frame, BasePanel basePanel)
@@ -74,6 +76,19 @@ public class IntegrityWizard extends JDialog implements ActionListener {
         {
             ex.printStackTrace();
         }
+
+        // the messages are kept up to date while the dialog is open
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        monitor = new IntegrityMonitor(dbase,
+                messages -> SwingUtilities.invokeLater(() -> warnPanel.setMessages(messages)));
+        monitor.start();
+    }
+
+    @Override
+    public void dispose()
+    {
+        monitor.stop();
+        super.dispose();
     }
 
     private void jbInit() {
@@ -160,18 +175,7 @@ public class IntegrityWizard extends JDialog implements ActionListener {
         }
         else if (sender == startButton)
         {
-            startButton.setEnabled(false);
-            Runnable scanWork = new Runnable()
-            {
-
-                @Override
-                public void run()
-                {
-                    warnPanel.updateView(dbase);
-                }
-            };
-            SwingUtilities.invokeLater(scanWork);
-            startButton.setEnabled(true);
+            monitor.checkAll();
         }
     }
 
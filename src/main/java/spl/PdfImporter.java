@@ -46,6 +46,10 @@ public class PdfImporter {
     private final BasePanel panel;
     private MainTable entryTable;
     private int dropRow;
+
+    // the dialog last shown, its choice is kept for the following files if the user does not want to be asked again
+    private ImportDialog importDialog;
+    private boolean doNotShowAgain;
     
     private static final Log LOGGER = LogFactory.getLog(PdfImporter.class);
 
@@ -112,11 +116,25 @@ public class PdfImporter {
      * @return true if the import succeeded, false otherwise
      */
     private List<BibtexEntry> importPdfFiles(List<String> fileNames, OutputPrinter status) {
+        List<BibtexEntry> res = new ArrayList<BibtexEntry>();
+        for (String fileName : fileNames) {
+            res.addAll(importPdfFile(fileName, readXmpEntries(fileName), status));
+        }
+        return res;
+    }
+
+    /**
+     * Imports one PDF file whose XMP metadata has already been read, e.g. by
+     * {@link net.sf.jabref.logic.xmp.XMPBulkReader}. As for the other files, the user chooses how to import it.
+     *
+     * @param xmpEntriesInFile the entries found in the metadata of the file, null if there are none
+     * @return the created entries, empty if the file has only been attached to an existing entry
+     */
+    public List<BibtexEntry> importPdfFile(String fileName, List<BibtexEntry> xmpEntriesInFile,
+            OutputPrinter status) {
         if (panel == null) {
             return Collections.emptyList();
         }
-        ImportDialog importDialog = null;
-        boolean doNotShowAgain = false;
         boolean neverShow = Globals.prefs.getBoolean(ImportSettingsTab.PREF_IMPORT_ALWAYSUSE);
         int globalChoice = Globals.prefs.getInt(ImportSettingsTab.PREF_IMPORT_DEFAULT_PDF_IMPORT_STYLE);
 
@@ -125,29 +143,31 @@ public class PdfImporter {
 
         List<BibtexEntry> res = new ArrayList<BibtexEntry>();
 
-        fileNameLoop: for (String fileName : fileNames) {
-            List<BibtexEntry> xmpEntriesInFile = readXmpEntries(fileName);
-            if (!neverShow && !doNotShowAgain) {
-                importDialog = new ImportDialog(dropRow >= 0, fileName);
-                if (!hasXmpEntries(xmpEntriesInFile)) {
-                    importDialog.disableXMPChoice();
-                }
-                Tools.centerRelativeToWindow(importDialog, frame);
-                importDialog.showDialog();
-                doNotShowAgain = importDialog.getDoNotShowAgain();
+        if (!neverShow && !doNotShowAgain) {
+            importDialog = new ImportDialog(dropRow >= 0, fileName);
+            if (!hasXmpEntries(xmpEntriesInFile)) {
+                importDialog.disableXMPChoice();
             }
-            if (neverShow || importDialog.getResult() == JOptionPane.OK_OPTION) {
-                int choice = neverShow ? globalChoice : importDialog.getChoice();
-                DroppedFileHandler dfh;
-                BibtexEntry entry;
-                BibtexEntryType type;
-                InputStream in = null;
-                List<BibtexEntry> localRes = null;
-                switch (choice) {
-                case ImportDialog.XMP:
-                    //SplDatabaseChangeListener dataListener = new SplDatabaseChangeListener(frame, panel, entryTable, fileName);
-                    //panel.database().addDatabaseChangeListener(dataListener);
-                    //ImportMenuItem importer = new ImportMenuItem(frame, (entryTable == null));
+            Tools.centerRelativeToWindow(importDialog, frame);
+            importDialog.showDialog();
+            doNotShowAgain = importDialog.getDoNotShowAgain();
+        }
+        if (neverShow || importDialog.getResult() == JOptionPane.OK_OPTION) {
+            int choice = neverShow ? globalChoice : importDialog.getChoice();
+            DroppedFileHandler dfh;
+            BibtexEntry entry;
+            BibtexEntryType type;
+            InputStream in = null;
+            List<BibtexEntry> localRes = null;
+            switch (choice) {
+            case ImportDialog.XMP:
+                //SplDatabaseChangeListener dataListener = new SplDatabaseChangeListener(frame, panel, entryTable, fileName);
+                //panel.database().addDatabaseChangeListener(dataListener);
+                //ImportMenuItem importer = new ImportMenuItem(frame, (entryTable == null));
+                if (hasXmpEntries(xmpEntriesInFile)) {
+                    // the metadata is not read again
+                    localRes = xmpEntriesInFile;
+                } else {
                     PdfXmpImporter importer = new PdfXmpImporter();
                     try {
                         in = new FileInputStream(fileName);
@@ -161,97 +181,95 @@ public class PdfImporter {
                         } catch (Exception ignored) {
                         }
                     }
+                }
 
-                    if (localRes == null || localRes.isEmpty()) {
-                        // import failed -> generate default entry
-                        LOGGER.info(Localization.lang("Import failed"));
-                        entry = createNewBlankEntry(fileName);
-                        res.add(entry);
-                        continue fileNameLoop;
-                    }
-
-                    // only one entry is imported
-                    entry = localRes.get(0);
+                if (localRes == null || localRes.isEmpty()) {
+                    // import failed -> generate default entry
+                    LOGGER.info(Localization.lang("Import failed"));
+                    entry = createNewBlankEntry(fileName);
+                    res.add(entry);
+                    return res;
+                }
 
-                    // insert entry to database and link file
-                    panel.database().insertEntry(entry);
-                    panel.markBaseChanged();
+                // all entries of the metadata are imported, and linked to the file
+                File toLink = new File(fileName);
+                for (BibtexEntry xmpEntry : localRes) {
+                    panel.database().insertEntry(xmpEntry);
                     FileListTableModel tm = new FileListTableModel();
-                    File toLink = new File(fileName);
                     tm.addEntry(0, new FileListEntry(toLink.getName(),
                             FileUtil.shortenFileName(toLink, dirsS).getPath(),
                             Globals.prefs.getExternalFileTypeByName("pdf")));
-                    entry.setField(Globals.FILE_FIELD, tm.getStringRepresentation());
-                    res.add(entry);
-                    break;
-
-                case ImportDialog.CONTENT:
-                    PdfContentImporter contentImporter = new PdfContentImporter();
+                    xmpEntry.setField(Globals.FILE_FIELD, tm.getStringRepresentation());
+                    res.add(xmpEntry);
+                }
+                panel.markBaseChanged();
+                break;
 
-                    File file = new File(fileName);
+            case ImportDialog.CONTENT:
+                PdfContentImporter contentImporter = new PdfContentImporter();
 
-                    try {
-                        in = new FileInputStream(file);
-                    } catch (Exception e) {
-                        // import failed -> generate default entry
-                        LOGGER.info(Localization.lang("Import failed"), e);
-                        e.printStackTrace();
-                        entry = createNewBlankEntry(fileName);
-                        res.add(entry);
-                        continue fileNameLoop;
-                    }
-                    try {
-                        localRes = contentImporter.importEntries(in, status);
-                    } catch (Exception e) {
-                        // import failed -> generate default entry
-                        LOGGER.info(Localization.lang("Import failed"), e);
-                        e.printStackTrace();
-                        entry = createNewBlankEntry(fileName);
-                        res.add(entry);
-                        continue fileNameLoop;
-                    } finally {
-                        try {
-                            in.close();
-                        } catch (Exception ignored) {
-                        }
-                    }
+                File file = new File(fileName);
 
+                try {
+                    in = new FileInputStream(file);
+                } catch (Exception e) {
                     // import failed -> generate default entry
-                    if (localRes == null || localRes.isEmpty()) {
-                        entry = createNewBlankEntry(fileName);
-                        res.add(entry);
-                        continue fileNameLoop;
+                    LOGGER.info(Localization.lang("Import failed"), e);
+                    e.printStackTrace();
+                    entry = createNewBlankEntry(fileName);
+                    res.add(entry);
+                    return res;
+                }
+                try {
+                    localRes = contentImporter.importEntries(in, status);
+                } catch (Exception e) {
+                    // import failed -> generate default entry
+                    LOGGER.info(Localization.lang("Import failed"), e);
+                    e.printStackTrace();
+                    entry = createNewBlankEntry(fileName);
+                    res.add(entry);
+                    return res;
+                } finally {
+                    try {
+                        in.close();
+                    } catch (Exception ignored) {
                     }
+                }
 
-                    // only one entry is imported
-                    entry = localRes.get(0);
-
-                    // insert entry to database and link file
-
-                    panel.database().insertEntry(entry);
-                    panel.markBaseChanged();
-                    LabelPatternUtil.makeLabel(panel.metaData(), panel.database(), entry);
-                    dfh = new DroppedFileHandler(frame, panel);
-                    dfh.linkPdfToEntry(fileName, entryTable, entry);
-                    panel.highlightEntry(entry);
-                    if (Globals.prefs.getBoolean(JabRefPreferences.AUTO_OPEN_FORM)) {
-                        EntryEditor editor = panel.getEntryEditor(entry);
-                        panel.showEntryEditor(editor);
-                        panel.adjustSplitter();
-                    }
-                    res.add(entry);
-                    break;
-                case ImportDialog.NOMETA:
+                // import failed -> generate default entry
+                if (localRes == null || localRes.isEmpty()) {
                     entry = createNewBlankEntry(fileName);
                     res.add(entry);
-                    break;
-                case ImportDialog.ONLYATTACH:
-                    dfh = new DroppedFileHandler(frame, panel);
-                    dfh.linkPdfToEntry(fileName, entryTable, dropRow);
-                    break;
+                    return res;
                 }
-            }
 
+                // only one entry is imported
+                entry = localRes.get(0);
+
+                // insert entry to database and link file
+
+                panel.database().insertEntry(entry);
+                panel.markBaseChanged();
+                LabelPatternUtil.makeLabel(panel.metaData(), panel.database(), entry);
+                dfh = new DroppedFileHandler(frame, panel);
+                dfh.linkPdfToEntry(fileName, entryTable, entry);
+                panel.highlightEntry(entry);
+                if (Globals.prefs.getBoolean(JabRefPreferences.AUTO_OPEN_FORM)) {
+                    EntryEditor editor = panel.getEntryEditor(entry);
+                    panel.showEntryEditor(editor);
+                    panel.adjustSplitter();
+                }
+                res.add(entry);
+                break;
+            case ImportDialog.NOMETA:
+                entry = createNewBlankEntry(fileName);
+                res.add(entry);
+                break;
+            case ImportDialog.ONLYATTACH:
+                dfh = new DroppedFileHandler(frame, panel);
+                dfh.linkPdfToEntry(fileName, entryTable, dropRow);
+                break;
+            }
         }
         return res;
     }
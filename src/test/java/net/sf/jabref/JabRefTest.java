@@ -0,0 +1,36 @@
+package net.sf.jabref;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jabref.importer.ParserResult;
+import net.sf.jabref.logic.autocompleter.AutoCompleterTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JabRefTest {
+
+    @Before
+    public void setUp() {
+        Globals.prefs = JabRefPreferences.getInstance();
+    }
+
+    @Test
+    public void testOpenBibFilesKeepsOrder() {
+        List<ParserResult> results = JabRef.openBibFiles(Arrays.asList(AutoCompleterTest.PATH_TO_TEST_BIBTEX,
+                "does/not/exist.bib", AutoCompleterTest.PATH_TO_TEST_BIBTEX), true);
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertFalse(results.get(0).isInvalid());
+        Assert.assertTrue(results.get(0).getDatabase().getEntryCount() > 0);
+        Assert.assertTrue(results.get(1).isInvalid());
+        Assert.assertEquals(results.get(0).getDatabase().getEntryCount(), results.get(2).getDatabase().getEntryCount());
+        Assert.assertNotSame(results.get(0).getDatabase(), results.get(2).getDatabase());
+    }
+
+    @Test
+    public void testOpenBibFilesWithoutFiles() {
+        Assert.assertTrue(JabRef.openBibFiles(Arrays.<String>asList(), true).isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+package net.sf.jabref.groups;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.groups.structure.AllEntriesGroup;
+import net.sf.jabref.groups.structure.ExplicitGroup;
+import net.sf.jabref.groups.structure.GroupHierarchyType;
+import net.sf.jabref.groups.structure.KeywordGroup;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.EntrySet;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GroupMembershipIndexTest {
+
+    private BibtexDatabase database;
+    private BibtexEntry physics;
+    private BibtexEntry chemistry;
+    private BibtexEntry quantumPhysics;
+    private GroupTreeNode root;
+    private GroupTreeNode physicsNode;
+    private GroupTreeNode quantumNode;
+
+
+    @Before
+    public void setUp() {
+        Globals.prefs = JabRefPreferences.getInstance();
+        database = new BibtexDatabase();
+        physics = addEntry("physics");
+        chemistry = addEntry("chemistry");
+        quantumPhysics = addEntry("physics, quantum");
+
+        root = new GroupTreeNode(new AllEntriesGroup());
+        physicsNode = new GroupTreeNode(new KeywordGroup("Physics", "keywords", "physics", false, false,
+                GroupHierarchyType.INDEPENDENT));
+        quantumNode = new GroupTreeNode(new KeywordGroup("Quantum", "keywords", "quantum", false, false,
+                GroupHierarchyType.REFINING));
+        root.add(physicsNode);
+        physicsNode.add(quantumNode);
+    }
+
+    private BibtexEntry addEntry(String keywords) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField("keywords", keywords);
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    private EntrySet entries(BibtexEntry... entries) {
+        EntrySet result = new EntrySet(database);
+        for (BibtexEntry entry : entries) {
+            result.add(entry);
+        }
+        return result;
+    }
+
+    @Test
+    public void testHitsMatchSearchRule() {
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        for (GroupTreeNode node : new GroupTreeNode[] {root, physicsNode, quantumNode}) {
+            EntrySet hits = index.getHits(node);
+            for (BibtexEntry entry : database.getEntries()) {
+                assertEquals(node.getSearchRule().applyRule(null, entry), hits.contains(entry));
+            }
+        }
+        assertEquals(entries(physics, quantumPhysics), index.getHits(physicsNode));
+        assertEquals(entries(quantumPhysics), index.getHits(quantumNode));
+    }
+
+    @Test
+    public void testIncludingGroupContainsSubgroups() {
+        GroupTreeNode chemistryNode = new GroupTreeNode(new KeywordGroup("Chemistry", "keywords", "chemistry",
+                false, false, GroupHierarchyType.INDEPENDENT));
+        physicsNode.getGroup().setHierarchicalContext(GroupHierarchyType.INCLUDING);
+        physicsNode.add(chemistryNode);
+
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        assertEquals(entries(physics, chemistry, quantumPhysics), index.getHits(physicsNode));
+    }
+
+    @Test
+    public void testFieldChangeUpdatesHits() {
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        assertFalse(index.getHits(physicsNode).contains(chemistry));
+
+        chemistry.setField("keywords", "chemistry, physics");
+        assertTrue(index.getHits(physicsNode).contains(chemistry));
+
+        physics.clearField("keywords");
+        assertFalse(index.getHits(physicsNode).contains(physics));
+    }
+
+    @Test
+    public void testPrecomputedGroupsAreKeptUpToDate() {
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        index.computeGroupsOf(root);
+
+        chemistry.setField("keywords", "chemistry, quantum, physics");
+        assertEquals(entries(quantumPhysics, chemistry), index.getHits(quantumNode));
+        assertTrue(index.contains(physicsNode.getGroup(), chemistry));
+    }
+
+    @Test
+    public void testAddedAndRemovedEntries() {
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        index.getHits(physicsNode);
+
+        BibtexEntry added = addEntry("physics");
+        assertTrue(index.getHits(physicsNode).contains(added));
+
+        database.removeEntry(physics.getId());
+        assertEquals(-1, database.getOrdinal(physics));
+        assertFalse(index.getHits(physicsNode).contains(physics));
+        assertEquals(entries(added, quantumPhysics).getEntries(), index.getHits(physicsNode).getEntries());
+    }
+
+    @Test
+    public void testExplicitGroupReflectsAssignments() {
+        ExplicitGroup explicit = new ExplicitGroup("Explicit", GroupHierarchyType.INDEPENDENT);
+        GroupTreeNode explicitNode = new GroupTreeNode(explicit);
+        root.add(explicitNode);
+
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        assertTrue(index.getHits(explicitNode).isEmpty());
+
+        explicit.addEntry(chemistry);
+        assertEquals(entries(chemistry), index.getHits(explicitNode));
+        assertTrue(index.contains(explicit, chemistry));
+    }
+
+    @Test
+    public void testPrecomputingDoesNotBlockOtherCalls() throws Exception {
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        KeywordGroup slowGroup = new KeywordGroup("Slow", "keywords", "chemistry", false, false,
+                GroupHierarchyType.INDEPENDENT) {
+
+            @Override
+            public boolean contains(BibtexEntry entry) {
+                evaluating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.contains(entry);
+            }
+        };
+        GroupTreeNode slowNode = new GroupTreeNode(slowGroup);
+        root.add(slowNode);
+        GroupMembershipIndex index = new GroupMembershipIndex(database);
+        index.getHits(physicsNode);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> computation = executor.submit(() -> index.computeGroupsOf(slowNode));
+            evaluating.await();
+
+            // calls made e.g. on the EDT do not wait for the slow group
+            Future<Boolean> calls = executor.submit(() -> {
+                physics.setField("keywords", "physics, chemistry");
+                return index.getHits(physicsNode).contains(physics) && index.contains(physicsNode.getGroup(), physics);
+            });
+            assertTrue(calls.get(10, TimeUnit.SECONDS));
+
+            release.countDown();
+            computation.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the change made while computing is not lost
+        assertEquals(entries(physics, chemistry), index.getHits(slowNode));
+    }
+}
@@ -0,0 +1,172 @@
+package net.sf.jabref.gui.journals;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.logic.journals.Abbreviation;
+import net.sf.jabref.logic.journals.JournalAbbreviationRepository;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.DatabaseChangeEvent;
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.model.entry.BibtexString;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalAbbreviationBatchTest {
+
+    private static final String[] JOURNALS = {"Physical Review Letters", "Phys. Rev. Lett.", "Phys Rev Lett",
+            "Journal of Unknown Results", "Zeitschrift für Physik", "Z. Phys.", "#zfp#"};
+
+    private JournalAbbreviationRepository repository;
+    private BibtexDatabase database;
+    private final List<DatabaseChangeEvent> events = new ArrayList<>();
+
+
+    @Before
+    public void setUp() {
+        repository = new JournalAbbreviationRepository();
+        repository.addEntry(new Abbreviation("Physical Review Letters", "Phys. Rev. Lett."));
+        repository.addEntry(new Abbreviation("Zeitschrift für Physik", "Z. Phys."));
+        database = createDatabase(2500);
+        database.addDatabaseChangeListener(events::add);
+    }
+
+    private static BibtexDatabase createDatabase(int size) {
+        BibtexDatabase database = new BibtexDatabase();
+        database.addString(new BibtexString(IdGenerator.next(), "zfp",
+                "Zeitschrift für Physik"));
+        for (int i = 0; i < size; i++) {
+            BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+            entry.setField("journal", JOURNALS[i % JOURNALS.length]);
+            if ((i % 3) == 0) {
+                entry.setField("journaltitle", JOURNALS[(i / 3) % JOURNALS.length]);
+            }
+            database.insertEntry(entry);
+        }
+        return database;
+    }
+
+    private static List<String> journalsOf(BibtexDatabase database) {
+        List<String> journals = new ArrayList<>();
+        for (BibtexEntry entry : database.getEntries()) {
+            journals.add(entry.getField("journal") + "|" + entry.getField("journaltitle"));
+        }
+        Collections.sort(journals);
+        return journals;
+    }
+
+    private BibtexEntry[] entries() {
+        return database.getEntries().toArray(new BibtexEntry[database.getEntryCount()]);
+    }
+
+    @Test
+    public void abbreviateGivesSameResultAsSingleEntries() {
+        BibtexDatabase expected = createDatabase(2500);
+        UndoableAbbreviator abbreviator = new UndoableAbbreviator(repository, false);
+        int expectedCount = 0;
+        for (BibtexEntry entry : expected.getEntries()) {
+            for (String field : JournalAbbreviationBatch.JOURNAL_FIELDS) {
+                if (abbreviator.abbreviate(expected, entry, field, new NamedCompound(""))) {
+                    expectedCount++;
+                }
+            }
+        }
+
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.abbreviating(database, repository, false);
+        int count = batch.applyChanges(batch.computeChanges(entries(), processed -> {
+        }), new NamedCompound(""));
+
+        assertEquals(expectedCount, count);
+        assertEquals(journalsOf(expected), journalsOf(database));
+    }
+
+    @Test
+    public void unabbreviateGivesSameResultAsSingleEntries() {
+        BibtexDatabase expected = createDatabase(2500);
+        UndoableUnabbreviator unabbreviator = new UndoableUnabbreviator(repository);
+        int expectedCount = 0;
+        for (BibtexEntry entry : expected.getEntries()) {
+            for (String field : JournalAbbreviationBatch.JOURNAL_FIELDS) {
+                if (unabbreviator.unabbreviate(expected, entry, field, new NamedCompound(""))) {
+                    expectedCount++;
+                }
+            }
+        }
+
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.unabbreviating(database, repository);
+        int count = batch.applyChanges(batch.computeChanges(entries(), processed -> {
+        }), new NamedCompound(""));
+
+        assertEquals(expectedCount, count);
+        assertEquals(journalsOf(expected), journalsOf(database));
+    }
+
+    @Test
+    public void changesAreNotifiedAndUndoneAsOneEvent() {
+        List<String> before = journalsOf(database);
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.abbreviating(database, repository, true);
+        List<JournalAbbreviationBatch.Change> changes = batch.computeChanges(entries(), processed -> {
+        });
+        assertEquals(before, journalsOf(database));
+        assertTrue(events.isEmpty());
+
+        NamedCompound ce = new NamedCompound("Abbreviate journal names");
+        batch.applyChanges(changes, ce);
+        ce.end();
+        assertEquals(1, events.size());
+        assertEquals(DatabaseChangeEvent.ChangeType.CHANGED_ENTRIES, events.get(0).getType());
+        assertNull(events.get(0).getFieldName());
+        assertTrue(events.get(0).getEntries().contains(changes.get(0).getEntry()));
+
+        ce.undo();
+        assertEquals(before, journalsOf(database));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void progressIsReported() {
+        List<Integer> progress = new ArrayList<>();
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.abbreviating(database, repository, true);
+        batch.computeChanges(entries(), processed -> {
+            synchronized (progress) {
+                progress.add(processed);
+            }
+        });
+        assertEquals(Integer.valueOf(database.getEntryCount()), progress.stream().max(Integer::compare).get());
+    }
+
+    @Test
+    public void cancelledBatchHasNoChanges() {
+        JournalAbbreviationBatch batch = JournalAbbreviationBatch.abbreviating(database, repository, true);
+        List<String> before = journalsOf(database);
+        assertNull(batch.computeChanges(entries(), processed -> batch.cancel()));
+        assertTrue(batch.isCancelled());
+        assertEquals(before, journalsOf(database));
+    }
+
+    @Test
+    public void bulkChangeOfOtherFieldsIsNotifiedOnce() {
+        List<BibtexEntry> entries = database.getEntries().stream().limit(3).collect(Collectors.toList());
+        database.runBulkChange(() -> {
+            for (BibtexEntry entry : entries) {
+                entry.setField("year", "2015");
+            }
+            entries.get(0).setField("volume", "1");
+        });
+        assertEquals(1, events.size());
+        assertEquals(entries, events.get(0).getEntries());
+        assertNull(events.get(0).getFieldName());
+
+        events.clear();
+        database.runBulkChange(() -> entries.get(1).setField("year", "2016"));
+        assertEquals("year", events.get(0).getFieldName());
+        assertEquals(Arrays.asList(entries.get(1)), events.get(0).getEntries());
+    }
+}
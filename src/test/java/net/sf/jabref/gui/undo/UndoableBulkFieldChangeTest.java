@@ -0,0 +1,135 @@
+package net.sf.jabref.gui.undo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.DatabaseChangeEvent;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UndoableBulkFieldChangeTest {
+
+    private BibtexDatabase database;
+    private final List<BibtexEntry> entries = new ArrayList<>();
+    private final List<DatabaseChangeEvent> events = new ArrayList<>();
+
+
+    @Before
+    public void setUp() {
+        Globals.prefs = JabRefPreferences.getInstance();
+        database = new BibtexDatabase();
+        for (int i = 0; i < 100; i++) {
+            BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+            entry.setField("title", "Title " + i);
+            database.insertEntry(entry);
+            entries.add(entry);
+        }
+        database.addDatabaseChangeListener(events::add);
+    }
+
+    private UndoableBulkFieldChange changeAll(String suffix) {
+        UndoableBulkFieldChange edit = new UndoableBulkFieldChange(database, "Change");
+        database.runBulkChange(() -> {
+            for (BibtexEntry entry : entries) {
+                String title = entry.getField("title");
+                entry.setField("title", title + suffix);
+                edit.addChange(entry, "title", title, title + suffix);
+                entry.setField("note", suffix);
+                edit.addChange(entry, "note", null, suffix);
+            }
+        });
+        edit.end();
+        events.clear();
+        return edit;
+    }
+
+    @Test
+    public void undoRestoresOldValues() {
+        UndoableBulkFieldChange edit = changeAll(" changed");
+        assertEquals(200, edit.getChangeCount());
+
+        edit.undo();
+        assertEquals("Title 7", entries.get(7).getField("title"));
+        assertNull(entries.get(7).getField("note"));
+
+        edit.redo();
+        assertEquals("Title 7 changed", entries.get(7).getField("title"));
+        assertEquals(" changed", entries.get(7).getField("note"));
+    }
+
+    @Test
+    public void sameFieldChangedTwiceIsUndoneInReverseOrder() {
+        BibtexEntry entry = entries.get(0);
+        UndoableBulkFieldChange edit = new UndoableBulkFieldChange(database, "Change");
+        entry.setField("title", "Second");
+        edit.addChange(entry, "title", "Title 0", "Second");
+        entry.setField("title", "Third");
+        edit.addChange(entry, "title", "Second", "Third");
+        edit.end();
+
+        edit.undo();
+        assertEquals("Title 0", entry.getField("title"));
+        edit.redo();
+        assertEquals("Third", entry.getField("title"));
+    }
+
+    @Test
+    public void undoAndRedoFireOneEventEach() {
+        UndoableBulkFieldChange edit = changeAll(" changed");
+
+        edit.undo();
+        assertEquals(1, events.size());
+        assertEquals(DatabaseChangeEvent.ChangeType.CHANGED_ENTRIES, events.get(0).getType());
+        assertEquals(100, events.get(0).getEntries().size());
+
+        edit.redo();
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void estimatedSizeGrowsWithChanges() {
+        UndoableBulkFieldChange empty = new UndoableBulkFieldChange(database, "Change");
+        empty.end();
+        assertFalse(empty.hasChanges());
+
+        UndoableBulkFieldChange edit = changeAll(" changed");
+        assertTrue(edit.getEstimatedSize() > empty.getEstimatedSize());
+        assertTrue(edit.getEstimatedSize() > (200 * UndoableBulkFieldChange.estimateSize(" changed")));
+    }
+
+    @Test
+    public void oldestEditsAreDiscardedWhenMemoryLimitIsExceeded() {
+        CountingUndoManager manager = new CountingUndoManager(null);
+        UndoableBulkFieldChange first = changeAll(" a");
+        manager.addEdit(first);
+        manager.setMemoryLimit(first.getEstimatedSize() * 3);
+
+        manager.addEdit(changeAll(" b"));
+        manager.addEdit(changeAll(" c"));
+        assertTrue(manager.getEstimatedSize() <= (first.getEstimatedSize() * 3));
+
+        manager.undo();
+        manager.undo();
+        assertFalse(manager.canUndo());
+        assertEquals("Title 3 a", entries.get(3).getField("title"));
+        assertFalse(first.canRedo());
+    }
+
+    @Test
+    public void newestEditIsKeptEvenIfTooLarge() {
+        CountingUndoManager manager = new CountingUndoManager(null);
+        manager.setMemoryLimit(1);
+        manager.addEdit(changeAll(" a"));
+
+        assertTrue(manager.canUndo());
+        manager.undo();
+        assertEquals("Title 3", entries.get(3).getField("title"));
+    }
+}
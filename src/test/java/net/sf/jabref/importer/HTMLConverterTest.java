@@ -0,0 +1,106 @@
+package net.sf.jabref.importer;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The expected values were produced by the previous, regular expression based implementation.
+ */
+public class HTMLConverterTest {
+
+    private HTMLConverter converter;
+    private boolean convertToEquation;
+
+
+    @Before
+    public void setUp() {
+        Globals.prefs = JabRefPreferences.getInstance();
+        convertToEquation = Globals.prefs.getBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION);
+        Globals.prefs.putBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION, false);
+        converter = new HTMLConverter();
+    }
+
+    @After
+    public void tearDown() {
+        Globals.prefs.putBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION, convertToEquation);
+    }
+
+    @Test
+    public void testFormatNull() {
+        Assert.assertNull(converter.format(null));
+        Assert.assertNull(converter.formatUnicode(null));
+    }
+
+    @Test
+    public void testRemoveTags() {
+        Assert.assertEquals("Bold and italic text", converter.format("<b>Bold</b> and <i>italic</i> text"));
+        Assert.assertEquals("R&D in 5  3", converter.format("R&D in 5 < 6 && 7 > 3"));
+        Assert.assertEquals("padded {~}", converter.format("  padded &nbsp; "));
+    }
+
+    @Test
+    public void testTextEntities() {
+        Assert.assertEquals("Effect of $<$i$>$TP53$<$/i$>$ on cell growth",
+                converter.format("Effect of &lt;i&gt;TP53&lt;/i&gt; on cell growth"));
+        Assert.assertEquals("Gr{\\\"{a}}tzer, George \\& M{\\\"{u}}ller, J{\\\"{o}}rg",
+                converter.format("Gr&auml;tzer, George &amp; M&uuml;ller, J&ouml;rg"));
+        Assert.assertEquals("$\\alpha$-helix and $\\beta$-sheet with {$\\Delta$}G",
+                converter.format("&alpha;-helix and &beta;-sheet with &Delta;G"));
+        Assert.assertEquals("Unknown &foo; and &#99999; stay", converter.format("Unknown &foo; and &#99999; stay"));
+    }
+
+    @Test
+    public void testNumericalEntities() {
+        Assert.assertEquals("Caf{\\'{e}} and na{\\\"{i}}ve r{\\'{e}}sum{\\'{e}}",
+                converter.format("Caf&#233; and na&#xEF;ve r&#xe9;sum&#x00E9;"));
+        Assert.assertEquals("Angstr{\\\"{o}}m {{\\AA}} $\\approx$ 10$-$10 m",
+                converter.format("Angstr&#246;m &Aring; &#8776; 10&#8722;10 m"));
+    }
+
+    @Test
+    public void testAdjacentEquationsAreJoined() {
+        Assert.assertEquals("$\\mu\\mu$", converter.format("&mu;&#956;"));
+    }
+
+    @Test
+    public void testCombiningAccents() {
+        Assert.assertEquals("{\\'{e}}l{\\`{e}}ve and {\\\"{\\i}} and {\\v{\\j}}",
+                converter.format("e&#769;le&#768;ve and i&#776; and j&#780;"));
+    }
+
+    @Test
+    public void testSubAndSuperscript() {
+        Assert.assertEquals("H\\textsubscript{2}O and x\\textsuperscript{2}",
+                converter.format("H<sub>2</sub>O and x<sup>2</sup>"));
+
+        Globals.prefs.putBoolean(JabRefPreferences.USE_CONVERT_TO_EQUATION, true);
+        Assert.assertEquals("H$_{2}$O and x$^{2}$", converter.format("H<sub>2</sub>O and x<sup>2</sup>"));
+    }
+
+    @Test
+    public void testDollarEntity() {
+        // the regular expression based implementation failed with an illegal group reference here
+        Assert.assertEquals("costs 5\\$", converter.format("costs 5&dollar;"));
+        Assert.assertEquals("costs 5\\$", converter.format("costs 5&#36;"));
+    }
+
+    @Test
+    public void testFormatUnicode() {
+        Assert.assertEquals("M{\\\"{u}}ller", converter.formatUnicode("Müller"));
+        Assert.assertEquals("$\\alpha$ $\\beta$ $\\approx$ $\\infty$", converter.formatUnicode("α β ≈ ∞"));
+        Assert.assertEquals("{\\AE}r{\\o}sk{\\o}bing", converter.formatUnicode("Ærøskøbing"));
+        Assert.assertEquals("{\\L}{\\'{o}}dź -- Krak{\\'{o}}w", converter.formatUnicode("Łódź – Kraków"));
+    }
+
+    @Test
+    public void testFormatUnicodeSupplementaryCharacter() {
+        Assert.assertEquals("$\\mathcal{O}$", converter.formatUnicode(new String(Character.toChars(119978))));
+        // previously mistaken for MATHEMATICAL SCRIPT CAPITAL O because of a cast to char
+        Assert.assertEquals("\uD4AA", converter.formatUnicode("\uD4AA"));
+    }
+}
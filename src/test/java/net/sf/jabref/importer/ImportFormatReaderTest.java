@@ -0,0 +1,99 @@
+package net.sf.jabref.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.importer.fileformat.ImportFormat;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImportFormatReaderTest {
+
+    private ImportFormatReader reader;
+
+
+    @Before
+    public void setUp() {
+        if (Globals.prefs == null) {
+            Globals.prefs = JabRefPreferences.getInstance();
+        }
+        reader = new ImportFormatReader();
+        reader.resetImportFormats();
+    }
+
+    private static String getPath(String resource) {
+        return new File(ImportFormatReaderTest.class.getResource(resource).getFile()).getPath();
+    }
+
+    private void assertSameAsEveryImporter(String resource) {
+        String filename = ImportFormatReaderTest.getPath(resource);
+
+        // the first importer with the most entries, as found by trying all importers one by one
+        String expectedFormat = null;
+        int expectedCount = 0;
+        for (ImportFormat format : reader.getImportFormats()) {
+            try {
+                List<BibtexEntry> entries = reader.importFromFile(format, filename, new OutputPrinterToNull());
+                int count = 0;
+                if (entries != null) {
+                    for (BibtexEntry entry : entries) {
+                        if (!entry.getAllFields().isEmpty()) {
+                            count++;
+                        }
+                    }
+                }
+                if (count > expectedCount) {
+                    expectedFormat = format.getFormatName();
+                    expectedCount = count;
+                }
+            } catch (IOException ignored) {
+                // not recognized
+            }
+        }
+
+        ImportFormatReader.UnknownFormatImport result = reader.importUnknownFormat(filename);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(expectedFormat, result.format);
+        Assert.assertEquals(expectedCount, result.parserResult.getDatabase().getEntryCount());
+    }
+
+    @Test
+    public void importUnknownFormatFindsRis() {
+        assertSameAsEveryImporter("fileformat/RisImporterTest1.ris");
+    }
+
+    @Test
+    public void importUnknownFormatFindsIsi() {
+        assertSameAsEveryImporter("fileformat/IsiImporterTestWOS.isi");
+    }
+
+    @Test
+    public void importUnknownFormatFindsCopac() {
+        assertSameAsEveryImporter("fileformat/CopacImporterTest1.txt");
+    }
+
+    @Test
+    public void importUnknownFormatFallsBackToBibtex() {
+        ImportFormatReader.UnknownFormatImport result = reader.importUnknownFormat(ImportFormatReaderTest
+                .getPath("headerless.bib"));
+        Assert.assertNotNull(result);
+        Assert.assertEquals(1, result.parserResult.getDatabase().getEntryCount());
+    }
+
+    @Test
+    public void importUnknownFormatOfMissingFile() {
+        Assert.assertNull(reader.importUnknownFormat("does-not-exist.ris"));
+    }
+
+    @Test
+    public void formatsAreBuiltOnFirstUse() {
+        ImportFormatReader lazyReader = new ImportFormatReader();
+        Assert.assertEquals(reader.getImportFormats().size(), lazyReader.getImportFormats().size());
+        Assert.assertTrue(lazyReader.getImportFormatList().contains("ris"));
+    }
+}
@@ -0,0 +1,105 @@
+package net.sf.jabref.importer.fetcher;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CaseKeeperTest {
+
+    private final CaseKeeper caseKeeper = new CaseKeeper();
+
+
+    /**
+     * The former implementation, which replaced the words one after the other.
+     */
+    public static String formatOneByOne(String text) {
+        return formatOneByOne(text, new CaseKeeperList().getAll());
+    }
+
+    private static String formatOneByOne(String text, String[] listOfWords) {
+        String[] sorted = listOfWords.clone();
+        Arrays.sort(sorted, new LengthComparator());
+        for (String word : sorted) {
+            text = text.replaceAll("(^|[- /\\[(}\"])" + word + "($|[^}])", "$1\\{" + word + "\\}$2");
+        }
+        return text;
+    }
+
+    @Test
+    public void nullIsKept() {
+        assertNull(caseKeeper.format(null));
+    }
+
+    @Test
+    public void wordsAreProtected() {
+        assertEquals("A {VLSI} implementation of {FFT} processors in {CMOS}",
+                caseKeeper.format("A VLSI implementation of FFT processors in CMOS"));
+        assertEquals("{3GPP} {LTE} measurements in the {United Kingdom} and {New Zealand}",
+                caseKeeper.format("3GPP LTE measurements in the United Kingdom and New Zealand"));
+        assertEquals("Low-power ({MIMO}) design for \"{OFDM}\" and [{DSP}]/{FPGA}",
+                caseKeeper.format("Low-power (MIMO) design for \"OFDM\" and [DSP]/FPGA"));
+        assertEquals("Nothing to protect here", caseKeeper.format("Nothing to protect here"));
+    }
+
+    @Test
+    public void protectedWordsAreKept() {
+        assertEquals("{CMOS} and {CMOS}", caseKeeper.format("{CMOS} and CMOS"));
+        assertEquals("{VLSI} design", caseKeeper.format(caseKeeper.format("VLSI design")));
+    }
+
+    @Test
+    public void wordsInsideOtherWordsAreNotProtected() {
+        assertEquals("ReCMOS and xCMOS", caseKeeper.format("ReCMOS and xCMOS"));
+    }
+
+    @Test
+    public void longestWordIsProtected() {
+        assertEquals("{3GPP} and {ACM}", caseKeeper.format("3GPP and ACM"));
+    }
+
+    @Test
+    public void quirksOfTheFormerImplementationAreKept() {
+        String[] words = new CaseKeeperList().getAll();
+        // the space after the first word is consumed by its replacement
+        for (String text : new String[] {"AI AI", "ACME", "H-264 coding", "3DAC", "Congo - Kinshasa - Congo",
+                "U.S. Virgin Islands", "U-S- Virgin Islands", "CMOS}", "x-1-D-A", "A/D/A"}) {
+            assertEquals(text, formatOneByOne(text, words), caseKeeper.format(text));
+        }
+    }
+
+    @Test
+    public void generatedTitlesMatchFormerImplementation() {
+        String[] words = new CaseKeeperList().getAll();
+        String[] fillers = {"a", "of", "x", "Re", "{", "}", "", "\n"};
+        String delimiters = "- /[(}\"{x.";
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 1 + random.nextInt(8);
+            for (int part = 0; part < parts; part++) {
+                if (random.nextInt(3) == 0) {
+                    sb.append(fillers[random.nextInt(fillers.length)]);
+                } else {
+                    String word = words[random.nextInt(words.length)];
+                    // the shorter word starting some longer ones
+                    sb.append(random.nextInt(4) == 0 ? word.substring(0, 1 + random.nextInt(word.length())) : word);
+                }
+                sb.append(delimiters.charAt(random.nextInt(delimiters.length())));
+            }
+            String text = sb.toString();
+            assertEquals(text, formatOneByOne(text, words), caseKeeper.format(text));
+        }
+    }
+
+    @Test
+    public void additionalWordsAreProtected() {
+        CaseKeeper custom = new CaseKeeper(Arrays.asList("JabRef", "BibTeX"));
+        assertEquals("{JabRef} and {BibTeX} in {CMOS}", custom.format("JabRef and BibTeX in CMOS"));
+        assertEquals("JabRef", caseKeeper.format("JabRef"));
+        assertEquals("{CMOS}", new CaseKeeper(Collections.singletonList("CMOS")).format("CMOS"));
+    }
+}
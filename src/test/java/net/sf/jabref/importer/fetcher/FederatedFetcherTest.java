@@ -0,0 +1,226 @@
+package net.sf.jabref.importer.fetcher;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import javax.swing.JPanel;
+
+import com.sun.net.httpserver.HttpServer;
+import net.sf.jabref.importer.ImportInspector;
+import net.sf.jabref.importer.OutputPrinter;
+import net.sf.jabref.importer.fileformat.BibtexParser;
+import net.sf.jabref.logic.net.URLDownload;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FederatedFetcherTest {
+
+    private HttpServer server;
+
+
+    /**
+     * Stand-in for a web source: downloads a recorded BibTeX response and reports its entries.
+     */
+    private class RecordedSourceFetcher implements EntryFetcher {
+
+        private final String path;
+        private volatile boolean stopped;
+
+
+        RecordedSourceFetcher(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean processQuery(String query, ImportInspector inspector, OutputPrinter status) {
+            try {
+                URL url = new URL("http", "localhost", server.getAddress().getPort(), path);
+                String page = new URLDownload(url).downloadToString("UTF-8");
+                List<BibtexEntry> entries = new ArrayList<>(BibtexParser.fromString(page));
+                for (int i = 0; (i < entries.size()) && !stopped; i++) {
+                    inspector.addEntry(entries.get(i));
+                    inspector.setProgress(i + 1, entries.size());
+                }
+                return !stopped;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void stopFetching() {
+            stopped = true;
+        }
+
+        @Override
+        public String getTitle() {
+            return path;
+        }
+
+        @Override
+        public String getKeyName() {
+            return null;
+        }
+
+        @Override
+        public String getHelpPage() {
+            return null;
+        }
+
+        @Override
+        public JPanel getOptionsPanel() {
+            return null;
+        }
+    }
+
+    private static class CollectingInspector implements ImportInspector {
+
+        private final List<BibtexEntry> entries = Collections.synchronizedList(new ArrayList<>());
+        private volatile int progress;
+        private volatile int max;
+
+
+        @Override
+        public void setProgress(int current, int max) {
+            this.progress = current;
+            this.max = max;
+        }
+
+        @Override
+        public void addEntry(BibtexEntry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public void toFront() {
+            // nothing to show
+        }
+
+        List<String> getKeys() {
+            List<String> keys = new ArrayList<>();
+            for (BibtexEntry entry : entries) {
+                keys.add(entry.getCiteKey());
+            }
+            Collections.sort(keys);
+            return keys;
+        }
+    }
+
+    private static class SilentPrinter implements OutputPrinter {
+
+        private final List<String> status = Collections.synchronizedList(new ArrayList<>());
+
+
+        @Override
+        public void setStatus(String s) {
+            status.add(s);
+        }
+
+        @Override
+        public void showMessage(Object message, String title, int msgType) {
+            status.add(String.valueOf(message));
+        }
+
+        @Override
+        public void showMessage(String string) {
+            status.add(string);
+        }
+    }
+
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        for (String source : Arrays.asList("dblp", "inspire", "medline")) {
+            byte[] response = Files.readAllBytes(Paths.get("src/test/resources/net/sf/jabref/importer/fetcher/federated-"
+                    + source + ".bib"));
+            server.createContext("/" + source, exchange -> {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    exchange.sendResponseHeaders(200, response.length);
+                    out.write(response);
+                }
+            });
+        }
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void duplicatesAcrossSourcesAreMerged() {
+        FederatedFetcher fetcher = new FederatedFetcher(Arrays.asList(new RecordedSourceFetcher("/dblp"),
+                new RecordedSourceFetcher("/inspire"), new RecordedSourceFetcher("/medline")), 10000);
+        CollectingInspector inspector = new CollectingInspector();
+
+        assertTrue(fetcher.processQuery("higgs", inspector, new SilentPrinter()));
+
+        // the ATLAS paper has the same DOI in DBLP and INSPIRE, "Software aging" the same title in DBLP and Medline
+        assertEquals(3, inspector.entries.size());
+        List<String> keys = inspector.getKeys();
+        assertTrue(keys.contains("Chatrchyan:2012xdj"));
+        assertTrue(keys.contains("DBLP:journals/corr/Aad12") || keys.contains("Aad:2012tfa"));
+        assertTrue(keys.contains("DBLP:conf/icse/Parnas94") || keys.contains("Parnas1994"));
+        assertEquals(inspector.max, inspector.progress);
+    }
+
+    @Test
+    public void slowSourceIsStoppedAfterTimeout() {
+        RecordedSourceFetcher slow = new RecordedSourceFetcher("/slow");
+        FederatedFetcher fetcher = new FederatedFetcher(Arrays.asList(new RecordedSourceFetcher("/inspire"), slow),
+                1000);
+        CollectingInspector inspector = new CollectingInspector();
+        SilentPrinter printer = new SilentPrinter();
+
+        long start = System.currentTimeMillis();
+        assertTrue(fetcher.processQuery("higgs", inspector, printer));
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(slow.stopped);
+        assertEquals(Arrays.asList("Aad:2012tfa", "Chatrchyan:2012xdj"), inspector.getKeys());
+        assertEquals(1, printer.status.size());
+    }
+
+    @Test
+    public void keysUseDoiAndNormalizedTitle() {
+        BibtexEntry entry = new BibtexEntry();
+        entry.setField("doi", "http://dx.doi.org/10.1016/J.PHYSLETB.2012.08.020");
+        entry.setField("title", "{Software} Aging.");
+        assertEquals(Arrays.asList("doi:10.1016/j.physletb.2012.08.020", "title:softwareaging"),
+                FederatedFetcher.MergingInspector.getKeys(entry));
+
+        assertEquals(Collections.emptyList(), FederatedFetcher.MergingInspector.getKeys(new BibtexEntry()));
+    }
+
+    @Test
+    public void noSelectedSourceFails() {
+        FederatedFetcher fetcher = new FederatedFetcher(Collections.emptyList(), 1000);
+        SilentPrinter printer = new SilentPrinter();
+        assertFalse(fetcher.processQuery("higgs", new CollectingInspector(), printer));
+        assertEquals(1, printer.status.size());
+    }
+}
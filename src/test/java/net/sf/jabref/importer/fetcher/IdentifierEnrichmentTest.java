@@ -0,0 +1,249 @@
+package net.sf.jabref.importer.fetcher;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdentifierEnrichmentTest {
+
+    private HttpServer server;
+    private BibtexDatabase database;
+    private IdentifierEnrichment enrichment;
+    private Path progressFile;
+
+    // number of requests per identifier
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/doi/", exchange -> {
+            String doi = exchange.getRequestURI().getPath().substring("/doi/".length());
+            int count = count(doi);
+            if (!"application/x-bibtex".equals(exchange.getRequestHeaders().getFirst("Accept"))) {
+                respond(exchange, 406, "");
+            } else if (doi.startsWith("10.1000/unknown")) {
+                respond(exchange, 404, "");
+            } else if (doi.startsWith("10.1000/flaky") && (count < 3)) {
+                respond(exchange, 503, "");
+            } else if (doi.startsWith("10.1000/down")) {
+                respond(exchange, 500, "");
+            } else {
+                respond(exchange, 200, "@article{key" + count + ", title={Title of " + doi + "}, doi={" + doi
+                        + "}, year={2015}, pages={1–2}}");
+            }
+        });
+        server.createContext("/isbn", exchange -> {
+            String isbn = exchange.getRequestURI().getQuery().substring("isbn=".length());
+            count(isbn);
+            respond(exchange, 200, "@book{" + isbn + ",\n  title = {Book " + isbn + "},\n  publisher = {Springer}\n}");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        database = new BibtexDatabase();
+        enrichment = new IdentifierEnrichment(database);
+        String base = "http://localhost:" + server.getAddress().getPort();
+        enrichment.setUrlPatterns(base + "/doi/%s", base + "/isbn?isbn=%s");
+        enrichment.setRetries(3, 10);
+        progressFile = Files.createTempFile("enrichment", ".progress");
+        Files.delete(progressFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        Files.deleteIfExists(progressFile);
+    }
+
+    private int count(String identifier) {
+        return requests.computeIfAbsent(identifier, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int requestsFor(String identifier) {
+        AtomicInteger count = requests.get(identifier);
+        return count == null ? 0 : count.get();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    private BibtexEntry addEntry(String field, String value) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField(field, value);
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    private BibtexEntry[] entries() {
+        return database.getEntries().toArray(new BibtexEntry[database.getEntryCount()]);
+    }
+
+    private List<IdentifierEnrichment.Change> computeChanges() throws IOException {
+        return enrichment.computeChanges(entries(), (resolved, total) -> {
+        });
+    }
+
+    @Test
+    public void missingFieldsAreAddedOnce() throws IOException {
+        BibtexEntry first = addEntry("doi", "10.1000/a");
+        BibtexEntry second = addEntry("doi", "http://dx.doi.org/10.1000/A");
+        second.setField("title", "Own title");
+        BibtexEntry book = addEntry("isbn", "978-3-16-148410-0");
+
+        NamedCompound ce = new NamedCompound("Complete");
+        enrichment.applyChanges(computeChanges(), ce);
+
+        assertEquals(1, requestsFor("10.1000/a"));
+        assertEquals("Title of 10.1000/a", first.getField("title"));
+        assertEquals("2015", first.getField("year"));
+        assertEquals("1--2", first.getField("pages"));
+        assertEquals("10.1000/a", first.getField("doi"));
+        assertEquals("Own title", second.getField("title"));
+        assertEquals("2015", second.getField("year"));
+        assertEquals("Springer", book.getField("publisher"));
+        assertEquals("978-3-16-148410-0", book.getField("isbn"));
+        assertNull(first.getCiteKey());
+    }
+
+    @Test
+    public void changesAreUndoneAsOneEdit() throws IOException {
+        BibtexEntry entry = addEntry("doi", "10.1000/a");
+        NamedCompound ce = new NamedCompound("Complete");
+        assertEquals(3, enrichment.applyChanges(computeChanges(), ce));
+        ce.end();
+
+        ce.undo();
+        assertEquals(Collections.singleton("doi"), entry.getAllFields());
+        ce.redo();
+        assertEquals("2015", entry.getField("year"));
+    }
+
+    @Test
+    public void serverErrorsAreRetried() throws IOException {
+        BibtexEntry entry = addEntry("doi", "10.1000/flaky");
+        enrichment.applyChanges(computeChanges(), new NamedCompound("Complete"));
+
+        assertEquals(3, requestsFor("10.1000/flaky"));
+        assertEquals("2015", entry.getField("year"));
+        assertEquals(0, enrichment.getFailedCount());
+    }
+
+    @Test
+    public void unknownIdentifierIsNotRetried() throws IOException {
+        addEntry("doi", "10.1000/unknown");
+        assertTrue(computeChanges().isEmpty());
+        assertEquals(1, requestsFor("10.1000/unknown"));
+        assertEquals(0, enrichment.getFailedCount());
+    }
+
+    @Test
+    public void failingIdentifierIsGivenUpAndRetriedInNextRun() throws IOException {
+        addEntry("doi", "10.1000/down");
+        addEntry("doi", "10.1000/a");
+        enrichment.setProgressFile(progressFile);
+
+        assertEquals(3, computeChanges().size());
+        assertEquals(3, requestsFor("10.1000/down"));
+        assertEquals(1, enrichment.getFailedCount());
+
+        computeChanges();
+        assertEquals(6, requestsFor("10.1000/down"));
+        assertEquals(1, requestsFor("10.1000/a"));
+    }
+
+    @Test
+    public void interruptedRunIsResumed() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            addEntry("doi", "10.1000/" + i);
+        }
+        enrichment.setProgressFile(progressFile);
+        enrichment.setConcurrency(1);
+        assertNull(enrichment.computeChanges(entries(), (resolved, total) -> {
+            if (resolved == 5) {
+                enrichment.cancel();
+            }
+        }));
+        assertTrue(requests.size() < 20);
+
+        IdentifierEnrichment resumed = new IdentifierEnrichment(database);
+        resumed.setUrlPatterns("http://localhost:" + server.getAddress().getPort() + "/doi/%s", null);
+        resumed.setProgressFile(progressFile);
+        List<IdentifierEnrichment.Change> changes = resumed.computeChanges(entries(), (resolved, total) -> {
+        });
+
+        assertEquals(60, changes.size());
+        // only a request running at the time of the interruption may have been sent twice
+        int total = 0;
+        for (int i = 0; i < 20; i++) {
+            assertTrue(requestsFor("10.1000/" + i) >= 1);
+            total += requestsFor("10.1000/" + i);
+        }
+        assertTrue(total <= 21);
+    }
+
+    @Test
+    public void concurrentRequestsAreBounded() throws IOException {
+        for (int i = 0; i < 30; i++) {
+            addEntry("doi", "10.1000/" + i);
+        }
+        enrichment.setConcurrency(3);
+        List<Integer> progress = new ArrayList<>();
+        List<IdentifierEnrichment.Change> changes = enrichment.computeChanges(entries(),
+                (resolved, total) -> progress.add(resolved));
+
+        assertEquals(90, changes.size());
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(Integer.valueOf(30), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void identifiersAreNormalized() {
+        BibtexEntry entry = new BibtexEntry();
+        entry.setField("doi", "doi:10.1000/ABC");
+        entry.setField("isbn", "3-16-148410-x");
+        assertEquals(Arrays.asList("doi:10.1000/abc", "isbn:316148410X"), IdentifierEnrichment.getIdentifiers(entry));
+
+        entry.setField("isbn", "12345");
+        assertEquals(Arrays.asList("doi:10.1000/abc"), IdentifierEnrichment.getIdentifiers(entry));
+    }
+}
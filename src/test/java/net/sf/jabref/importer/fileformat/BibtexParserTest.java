@@ -11,7 +11,9 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -346,4 +348,56 @@ public class BibtexParserTest {
 
         Assert.assertEquals("Bemerkung:H:\\bla\\ups  sala.pdf:PDF", e.getField("file"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyFieldParsingYieldsSameFields() throws IOException {
+        String bibtex = "@string{PHYS = {Annalen der Physik}}\n"
+                + "@article{einstein1916,\n"
+                + "  author = {Einstein, Albert},\n"
+                + "  title = {Die grundlage der allgemeinen relativit{\\\"a}tstheorie},\n"
+                + "  journal = PHYS,\n"
+                + "  month = jan # \" 1st\",\n"
+                + "  abstract = {A long\n   abstract {with} nested   {braces}},\n"
+                + "  note = \"Quoted {\"} text\",\n"
+                + "  year = 1916,\n"
+                + "  review = {},\n"
+                + "  file = {:einstein.pdf:PDF}\n"
+                + "}";
+
+        BibtexEntry eager = BibtexParser.parse(new StringReader(bibtex)).getDatabase().getEntries().iterator()
+                .next();
+        BibtexParser parser = new BibtexParser(new StringReader(bibtex));
+        parser.setLazyFieldParsing(Arrays.asList("title", "year"));
+        BibtexEntry lazy = parser.parse().getDatabase().getEntries().iterator().next();
+
+        Assert.assertEquals(eager.getAllFields(), lazy.getAllFields());
+        for (String field : eager.getAllFields()) {
+            Assert.assertEquals(eager.getField(field), lazy.getField(field));
+        }
+        Assert.assertNull(lazy.getField("review"));
+        Assert.assertEquals("#PHYS#", lazy.getField("journal"));
+    }
+
+    @Test
+    public void testLazyFieldParsingDropsEmptyFields() throws IOException {
+        String bibtex = "@article{empty,\n"
+                + "  title = {Title},\n"
+                + "  review = \"\" # \"\",\n"
+                + "  note = { },\n"
+                + "  comment = \" \",\n"
+                + "  pages = {} # {1--2}\n"
+                + "}";
+
+        BibtexEntry eager = BibtexParser.parse(new StringReader(bibtex)).getDatabase().getEntries().iterator()
+                .next();
+        BibtexParser parser = new BibtexParser(new StringReader(bibtex));
+        parser.setLazyFieldParsing(Collections.singletonList("title"));
+        BibtexEntry lazy = parser.parse().getDatabase().getEntries().iterator().next();
+
+        Assert.assertEquals(eager.getAllFields(), lazy.getAllFields());
+        Assert.assertFalse(lazy.getAllFields().contains("review"));
+        Assert.assertFalse(lazy.getAllFields().contains("note"));
+        Assert.assertFalse(lazy.getAllFields().contains("comment"));
+        Assert.assertEquals(eager.getField("pages"), lazy.getField("pages"));
+    }
+}
@@ -4,12 +4,16 @@ import net.sf.jabref.Globals;
 import net.sf.jabref.JabRef;
 import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.importer.ParserResult;
+import net.sf.jabref.logic.id.IdGenerator;
 import net.sf.jabref.model.database.BibtexDatabase;
 import net.sf.jabref.model.entry.BibtexEntry;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author kahlert, cordes
@@ -136,6 +140,32 @@ public class AutoCompleterTest {
         Globals.prefs.put(JabRefPreferences.AUTOCOMPLETE_FIRSTNAME_MODE, oldACFM);
     }
 
+    @Test
+    public void testCompletionsFollowEntryChanges() {
+        Globals.prefs = JabRefPreferences.getInstance();
+        AutoCompleter autoCompleter = AutoCompleterFactory.getFor(AutoCompleterTest.OTHER_FIELD);
+        List<BibtexEntry> entries = new ArrayList<>();
+        for (String title : Arrays.asList("neural network", "neural computing", "network theory")) {
+            BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+            entry.setField(AutoCompleterTest.OTHER_FIELD, title);
+            entries.add(entry);
+        }
+        autoCompleter.addBibtexEntries(entries);
+
+        Assert.assertArrayEquals(new String[] {"network", "neural"}, autoCompleter.complete("ne"));
+        Assert.assertArrayEquals(new String[] {"network"}, autoCompleter.complete("ne", 1));
+
+        entries.get(1).setField(AutoCompleterTest.OTHER_FIELD, "neural computing");
+        autoCompleter.addBibtexEntry(entries.get(1));
+        entries.get(2).setField(AutoCompleterTest.OTHER_FIELD, "graph theory");
+        autoCompleter.addBibtexEntry(entries.get(2));
+        Assert.assertArrayEquals(new String[] {"neural", "network"}, autoCompleter.complete("ne"));
+
+        autoCompleter.removeBibtexEntry(entries.get(0));
+        Assert.assertArrayEquals(new String[] {"neural"}, autoCompleter.complete("ne"));
+        Assert.assertFalse(autoCompleter.indexContainsWord("network"));
+    }
+
     private BibtexDatabase getDatabase() {
         Globals.prefs = JabRefPreferences.getInstance();
         File fileToLoad = new File(AutoCompleterTest.PATH_TO_TEST_BIBTEX);
@@ -0,0 +1,107 @@
+package net.sf.jabref.logic.autocompleter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+
+    @Before
+    public void setUp() {
+        index = new PrefixIndex();
+    }
+
+    private void add(String word, int count) {
+        for (int i = 0; i < count; i++) {
+            index.add(word, 1);
+        }
+    }
+
+    @Test
+    public void mostFrequentWordsComeFirst() {
+        add("network", 1);
+        add("neural", 3);
+        add("netlist", 2);
+        add("other", 5);
+
+        assertEquals(Arrays.asList("neural", "netlist", "network"), index.complete("ne", false, 10));
+        index.compact();
+        assertEquals(Arrays.asList("neural", "netlist", "network"), index.complete("ne", false, 10));
+        assertEquals(3, index.getFrequency("neural"));
+    }
+
+    @Test
+    public void equallyFrequentWordsAreSortedAlphabetically() {
+        for (String word : Arrays.asList("Delta", "alpha", "beta", "Alpha")) {
+            add(word, 1);
+        }
+        List<String> expected = Arrays.asList("Alpha", "alpha", "beta", "Delta");
+        assertEquals(expected, index.complete("", false, 10));
+        index.compact();
+        assertEquals(expected, index.complete("", false, 10));
+    }
+
+    @Test
+    public void onlyTheBestWordsAreReturned() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String word = "word" + i;
+            add(word, (i % 100) == 0 ? 2 : 1);
+            if ((i % 100) == 0) {
+                expected.add(word);
+            }
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected, index.complete("word", false, 20));
+        assertEquals(Arrays.asList("word100", "word1000"), index.complete("word1", false, 2));
+        assertEquals(2000, index.complete("wo", false, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void unusedWordIsForgotten() {
+        add("network", 2);
+        index.compact();
+        index.add("network", -1);
+        assertTrue(index.contains("Network"));
+
+        index.add("network", -1);
+        assertFalse(index.contains("network"));
+        assertTrue(index.complete("net", false, 10).isEmpty());
+
+        index.add("network", 1);
+        assertEquals(Collections.singletonList("network"), index.complete("net", false, 10));
+    }
+
+    @Test
+    public void permanentWordIsKept() {
+        index.addPermanent("Journal of Things");
+        add("Journal of Stuff", 1);
+        index.add("Journal of Stuff", -1);
+        index.compact();
+
+        assertEquals(Collections.singletonList("Journal of Things"), index.complete("jour", false, 10));
+        assertEquals(0, index.getFrequency("Journal of Things"));
+    }
+
+    @Test
+    public void caseSensitiveLookupFiltersByCase() {
+        add("Authornames", 1);
+        add("authentication", 2);
+        index.compact();
+        add("Autumn", 1);
+
+        assertEquals(Arrays.asList("authentication", "Authornames", "Autumn"), index.complete("aut", false, 10));
+        assertEquals(Arrays.asList("Authornames", "Autumn"), index.complete("Aut", true, 10));
+        assertEquals(Collections.singletonList("Authornames"), index.complete("Aut", true, 1));
+    }
+}
@@ -0,0 +1,206 @@
+package net.sf.jabref.logic.cleanup;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.MetaData;
+import net.sf.jabref.gui.undo.NamedCompound;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.database.DatabaseChangeEvent;
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.util.Util;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CleanupBatchTest {
+
+    private BibtexDatabase database;
+    private final List<DatabaseChangeEvent> events = new ArrayList<>();
+
+
+    @Before
+    public void setUp() {
+        if (Globals.prefs == null) {
+            Globals.prefs = JabRefPreferences.getInstance();
+        }
+        database = new BibtexDatabase();
+        for (int i = 0; i < 2500; i++) {
+            BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+            entry.setField("title", "A CMOS sensor number " + i);
+            entry.setField("pages", "1 - " + i);
+            if ((i % 2) == 0) {
+                entry.setField("url", "http://dx.doi.org/10.1000/" + i);
+            }
+            database.insertEntry(entry);
+        }
+        database.addDatabaseChangeListener(events::add);
+    }
+
+    private CleanupBatch createBatch(CleanupPreset.Step... steps) {
+        EnumSet<CleanupPreset.Step> selected = EnumSet.noneOf(CleanupPreset.Step.class);
+        for (CleanupPreset.Step step : steps) {
+            selected.add(step);
+        }
+        return new CleanupBatch(database, new MetaData(), new CleanupPreset(selected, false));
+    }
+
+    private BibtexEntry[] entries() {
+        return database.getEntries().toArray(new BibtexEntry[database.getEntryCount()]);
+    }
+
+    @Test
+    public void changesAreComputedWithoutModifyingEntries() {
+        BibtexEntry[] entries = entries();
+        List<CleanupBatch.Change> changes = createBatch(CleanupPreset.Step.PAGE_NUMBERS, CleanupPreset.Step.CASE)
+                .computeChanges(entries, processed -> {
+                });
+
+        assertEquals(5000, changes.size());
+        assertEquals(2500, CleanupBatch.countEntries(changes));
+        assertSame(entries[0], changes.get(0).getEntry());
+        assertEquals("1 - 0", entries[0].getField("pages"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void changesAreAppliedAsOneBulkChangeAndUndoneAsOne() {
+        BibtexEntry[] entries = entries();
+        CleanupBatch batch = createBatch(CleanupPreset.Step.DOI, CleanupPreset.Step.PAGE_NUMBERS,
+                CleanupPreset.Step.CASE);
+        List<CleanupBatch.Change> changes = batch.computeChanges(entries, processed -> {
+        });
+        NamedCompound ce = new NamedCompound("Cleanup");
+        batch.applyChanges(changes, ce);
+        ce.end();
+
+        assertEquals(1, events.size());
+        assertEquals(DatabaseChangeEvent.ChangeType.CHANGED_ENTRIES, events.get(0).getType());
+        assertEquals("A {CMOS} sensor number 0", entries[0].getField("title"));
+        assertEquals("1--0", entries[0].getField("pages"));
+        assertEquals("10.1000/0", entries[0].getField("doi"));
+        assertEquals("", entries[0].getField("url"));
+        assertNull(entries[1].getField("doi"));
+
+        ce.undo();
+        assertEquals(2, events.size());
+        assertEquals("A CMOS sensor number 0", entries[0].getField("title"));
+        assertEquals("http://dx.doi.org/10.1000/0", entries[0].getField("url"));
+        assertNull(entries[0].getField("doi"));
+        ce.redo();
+        assertEquals("1--0", entries[0].getField("pages"));
+    }
+
+    @Test
+    public void stepsAreRunInOrder() {
+        BibtexEntry entry = entries()[0];
+        entry.setField("title", "A CMOS &amp; CCD sensor");
+        entry.setField("journal", "Sensors");
+        entry.setField("year", "2015");
+        entry.setField("month", "march");
+
+        CleanupBatch batch = createBatch(CleanupPreset.Step.HTML, CleanupPreset.Step.CASE,
+                CleanupPreset.Step.MONTH, CleanupPreset.Step.CONVERT_TO_BIBLATEX);
+        batch.applyChanges(batch.computeChanges(new BibtexEntry[] {entry}, processed -> {
+        }), new NamedCompound("Cleanup"));
+
+        assertEquals("A {CMOS} \\& {CCD} sensor", entry.getField("title"));
+        assertEquals("Sensors", entry.getField("journaltitle"));
+        assertNull(entry.getField("journal"));
+        assertEquals("2015-03", entry.getField("date"));
+        assertNull(entry.getField("year"));
+        assertNull(entry.getField("month"));
+    }
+
+    @Test
+    public void nothingToCleanUpGivesNoChanges() {
+        CleanupBatch batch = createBatch(CleanupPreset.Step.MONTH, CleanupPreset.Step.LATEX);
+        List<CleanupBatch.Change> changes = batch.computeChanges(entries(), processed -> {
+        });
+        assertTrue(changes.isEmpty());
+        NamedCompound ce = new NamedCompound("Cleanup");
+        assertEquals(0, batch.applyChanges(changes, ce));
+        assertFalse(ce.hasEdits());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void cancelledBatchGivesNull() {
+        CleanupBatch batch = createBatch(CleanupPreset.Step.CASE);
+        batch.cancel();
+        assertNull(batch.computeChanges(entries(), processed -> {
+        }));
+    }
+
+    private BibtexEntry addEntryWithFile(String key, Path file) throws IOException {
+        Files.createFile(file);
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField(BibtexEntry.KEY_FIELD, key);
+        entry.setField(Globals.FILE_FIELD, ":" + file + ":PDF");
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    @Test
+    public void filesAreRenamedWhenChangesAreApplied() throws IOException {
+        Path directory = Files.createTempDirectory("cleanup");
+        try {
+            Path oldFile = directory.resolve("old.pdf");
+            BibtexEntry entry = addEntryWithFile("Knuth1984", oldFile);
+            File newFile = directory.resolve(Util.getLinkedFileName(database, entry) + ".pdf").toFile();
+            CleanupBatch batch = createBatch(CleanupPreset.Step.RENAME_PDF);
+
+            List<CleanupBatch.Change> changes = batch.computeChanges(new BibtexEntry[] {entry}, processed -> {
+            });
+            assertEquals(1, changes.size());
+            assertTrue(Files.exists(oldFile));
+
+            batch.applyChanges(changes, new NamedCompound("Cleanup"));
+            assertFalse(Files.exists(oldFile));
+            assertTrue(newFile.exists());
+            assertEquals(":" + newFile + ":PDF", entry.getField(Globals.FILE_FIELD));
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void linkIsKeptIfFileCannotBeRenamed() throws IOException {
+        Path directory = Files.createTempDirectory("cleanup");
+        try {
+            BibtexEntry first = addEntryWithFile("Knuth1984", directory.resolve("first.pdf"));
+            BibtexEntry second = addEntryWithFile("Knuth1984", directory.resolve("second.pdf"));
+            String secondLink = second.getField(Globals.FILE_FIELD);
+            CleanupBatch batch = createBatch(CleanupPreset.Step.RENAME_PDF);
+
+            // both entries get the same file name, only the first file can be renamed
+            List<CleanupBatch.Change> changes = batch.computeChanges(new BibtexEntry[] {first, second},
+                    processed -> {
+                    });
+            assertEquals(2, changes.size());
+            batch.applyChanges(changes, new NamedCompound("Cleanup"));
+
+            assertEquals(1, changes.size());
+            assertEquals(1, batch.getUnsuccessfulRenames());
+            assertTrue(Files.exists(directory.resolve("second.pdf")));
+            assertEquals(secondLink, second.getField(Globals.FILE_FIELD));
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(directory);
+        }
+    }
+}
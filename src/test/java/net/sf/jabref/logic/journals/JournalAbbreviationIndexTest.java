@@ -0,0 +1,106 @@
+package net.sf.jabref.logic.journals;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalAbbreviationIndexTest {
+
+    private File indexFile;
+
+
+    @Before
+    public void setUp() throws IOException {
+        indexFile = File.createTempFile("journals", ".idx");
+    }
+
+    @After
+    public void tearDown() {
+        indexFile.delete();
+    }
+
+    private JournalAbbreviationRepository withIndexOf(List<Abbreviation> list) throws IOException {
+        try (OutputStream out = new FileOutputStream(indexFile)) {
+            JournalAbbreviationIndex.write(list, out);
+        }
+        JournalAbbreviationRepository repository = new JournalAbbreviationRepository();
+        repository.setIndex(JournalAbbreviationIndex.open(indexFile));
+        return repository;
+    }
+
+    private static JournalAbbreviationRepository withEntries(List<Abbreviation> list) {
+        JournalAbbreviationRepository repository = new JournalAbbreviationRepository();
+        for (Abbreviation abbreviation : list) {
+            repository.addEntry(abbreviation);
+        }
+        return repository;
+    }
+
+    private static void assertSameContent(JournalAbbreviationRepository expected, JournalAbbreviationRepository actual,
+            List<Abbreviation> probes) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.toPropertiesString(), actual.toPropertiesString());
+        for (Abbreviation probe : probes) {
+            for (String name : Arrays.asList(probe.getName(), probe.getIsoAbbreviation(),
+                    probe.getMedlineAbbreviation(), probe.getName().toUpperCase() + " ")) {
+                assertEquals(name, expected.isKnownName(name), actual.isKnownName(name));
+                assertEquals(name, expected.isAbbreviatedName(name), actual.isAbbreviatedName(name));
+                assertEquals(name, expected.getAbbreviation(name).map(Abbreviation::toPropertiesLine),
+                        actual.getAbbreviation(name).map(Abbreviation::toPropertiesLine));
+            }
+        }
+    }
+
+    @Test
+    public void emptyList() throws IOException {
+        JournalAbbreviationRepository repository = withIndexOf(new ArrayList<>());
+        assertEquals(0, repository.size());
+        assertFalse(repository.isKnownName("Long Name"));
+    }
+
+    @Test
+    public void duplicatesAreResolvedLikeTheRepository() throws IOException {
+        List<Abbreviation> list = Arrays.asList(new Abbreviation("Long Name", "L. N."),
+                new Abbreviation("Old Long Name", "O. L. N."), new Abbreviation("New Long Name", "O. L. N."),
+                new Abbreviation("Long Name", "LA. N."), new Abbreviation("Zeitschrift für Physik", "Z. Phys."),
+                new Abbreviation("Journal", "J."));
+        assertSameContent(withEntries(list), withIndexOf(list), list);
+    }
+
+    @Test
+    public void laterEntriesOverrideTheIndex() throws IOException {
+        List<Abbreviation> list = Arrays.asList(new Abbreviation("Long Name", "L. N."),
+                new Abbreviation("Other Name", "O. N."), new Abbreviation("Third Name", "T. N."));
+        List<Abbreviation> added = Arrays.asList(new Abbreviation("Long Name", "LA. N."),
+                new Abbreviation("New Name", "O. N."), new Abbreviation("Fourth Name", "F. N."));
+
+        List<Abbreviation> all = new ArrayList<>(list);
+        all.addAll(added);
+        JournalAbbreviationRepository expected = withEntries(all);
+
+        JournalAbbreviationRepository actual = withIndexOf(list);
+        for (Abbreviation abbreviation : added) {
+            actual.addEntry(abbreviation);
+        }
+        assertSameContent(expected, actual, all);
+    }
+
+    @Test
+    public void shippedListGivesSameResultAsParsing() throws IOException {
+        AbbreviationParser parser = new AbbreviationParser();
+        parser.readJournalListFromResource(Abbreviations.JOURNALS_FILE_BUILTIN);
+        List<Abbreviation> list = parser.getAbbreviations();
+
+        assertSameContent(withEntries(list), withIndexOf(list), list);
+    }
+}
@@ -0,0 +1,65 @@
+package net.sf.jabref.logic.net;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HostRateLimiterTest {
+
+    @Test
+    public void unlimitedHostIsNotDelayed() throws IOException {
+        HostRateLimiter limiter = new HostRateLimiter();
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(new URL("http://localhost/query"));
+        }
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertEquals(0, limiter.getMinimumInterval("localhost"));
+    }
+
+    @Test
+    public void concurrentRequestsAreSpaced() throws Exception {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setMinimumInterval("LocalHost", 100);
+        assertEquals(100, limiter.getMinimumInterval("localhost"));
+
+        List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire(new URL("http://localhost:8080/query"));
+                    starts.add(System.nanoTime());
+                } catch (IOException e) {
+                    fail(e.getMessage());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Collections.sort(starts);
+        assertEquals(5, starts.size());
+        // four intervals of 100 ms, allowing for timer inaccuracy
+        assertTrue(starts.get(4) - starts.get(0) >= 350000000L);
+    }
+
+    @Test
+    public void otherHostsAreNotDelayed() throws IOException {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setMinimumInterval("export.arxiv.org", 60000);
+        limiter.acquire(new URL("http://export.arxiv.org/oai2"));
+        long start = System.nanoTime();
+        limiter.acquire(new URL("http://eutils.ncbi.nlm.nih.gov/entrez"));
+        assertTrue(System.nanoTime() - start < 1000000000L);
+    }
+}
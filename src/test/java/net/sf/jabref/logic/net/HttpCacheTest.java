@@ -0,0 +1,278 @@
+package net.sf.jabref.logic.net;
+
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.common.io.CharStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpCacheTest {
+
+    private HttpServer server;
+    private Path directory;
+    private HttpCache cache;
+
+    // number of requests per path, and of those answered with a body
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+    private volatile String etag = "\"v1\"";
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("httpcache");
+        cache = new HttpCache();
+        cache.configure(true, directory, HttpCache.DEFAULT_MAX_SIZE, false);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/fresh", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=3600");
+            respond(exchange, "fresh record");
+        });
+        server.createContext("/etag", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified(exchange);
+            } else {
+                respond(exchange, "record " + etag);
+            }
+        });
+        server.createContext("/modified", exchange -> {
+            String lastModified = "Mon, 05 Oct 2015 10:00:00 GMT";
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=0");
+            exchange.getResponseHeaders().add("Last-Modified", lastModified);
+            if (lastModified.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                notModified(exchange);
+            } else {
+                respond(exchange, "modified record");
+            }
+        });
+        server.createContext("/nostore", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "no-store");
+            respond(exchange, "secret");
+        });
+        server.createContext("/accept", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=3600");
+            respond(exchange, "as " + exchange.getRequestHeaders().getFirst("Accept"));
+        });
+        server.createContext("/large", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=3600");
+            respond(exchange, String.join("", Collections.nCopies(1000, "x")));
+        });
+        server.createContext("/missing", exchange -> {
+            count(requests, exchange);
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        HttpCache.getInstance().configure(false, null, HttpCache.DEFAULT_MAX_SIZE, false);
+        List<Path> files = Files.list(directory).collect(Collectors.toList());
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static void count(Map<String, AtomicInteger> counter, HttpExchange exchange) {
+        counter.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int count(Map<String, AtomicInteger> counter, String path) {
+        AtomicInteger count = counter.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        count(requests, exchange);
+        count(downloads, exchange);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void notModified(HttpExchange exchange) throws IOException {
+        count(requests, exchange);
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http", "localhost", server.getAddress().getPort(), path);
+    }
+
+    private String get(HttpCache httpCache, String path) throws IOException {
+        return get(httpCache, path, Collections.emptyMap());
+    }
+
+    private String get(HttpCache httpCache, String path, Map<String, String> headers) throws IOException {
+        try (HttpCache.Response response = httpCache.get(url(path), headers);
+             InputStream body = response.getBody()) {
+            return CharStreams.toString(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void freshResponseIsServedWithoutRequest() throws IOException {
+        assertEquals("fresh record", get(cache, "/fresh"));
+        assertEquals("fresh record", get(cache, "/fresh"));
+
+        assertEquals(1, count(requests, "/fresh"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithETag() throws IOException {
+        assertEquals("record \"v1\"", get(cache, "/etag"));
+        assertEquals("record \"v1\"", get(cache, "/etag"));
+
+        assertEquals(2, count(requests, "/etag"));
+        assertEquals(1, count(downloads, "/etag"));
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithLastModified() throws IOException {
+        assertEquals("modified record", get(cache, "/modified"));
+        assertEquals("modified record", get(cache, "/modified"));
+
+        assertEquals(2, count(requests, "/modified"));
+        assertEquals(1, count(downloads, "/modified"));
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void changedResponseReplacesStoredOne() throws IOException {
+        assertEquals("record \"v1\"", get(cache, "/etag"));
+        etag = "\"v2\"";
+        assertEquals("record \"v2\"", get(cache, "/etag"));
+        assertEquals("record \"v2\"", get(cache, "/etag"));
+
+        assertEquals(2, count(downloads, "/etag"));
+        assertEquals(1, cache.getRevalidationCount());
+        assertEquals("record \"v2\"".length(), cache.getSize());
+    }
+
+    @Test
+    public void noStoreResponseIsNotStored() throws IOException {
+        assertEquals("secret", get(cache, "/nostore"));
+        assertEquals("secret", get(cache, "/nostore"));
+
+        assertEquals(2, count(downloads, "/nostore"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void requestHeadersArePartOfTheKey() throws IOException {
+        assertEquals("as text/plain", get(cache, "/accept", Collections.singletonMap("Accept", "text/plain")));
+        assertEquals("as application/x-bibtex",
+                get(cache, "/accept", Collections.singletonMap("Accept", "application/x-bibtex")));
+        assertEquals("as text/plain", get(cache, "/accept", Collections.singletonMap("Accept", "text/plain")));
+
+        assertEquals(2, count(requests, "/accept"));
+    }
+
+    @Test
+    public void leastRecentlyUsedResponsesAreEvicted() throws IOException {
+        cache.configure(true, directory, 4000, false);
+        for (String query : new String[] {"a", "b", "c", "d"}) {
+            get(cache, "/large?" + query);
+        }
+        assertEquals(4000, cache.getSize());
+
+        // a becomes the most recently used response, so b is the oldest
+        get(cache, "/large?a");
+        get(cache, "/large?e");
+        assertEquals(4000, cache.getSize());
+        assertEquals(5, count(requests, "/large"));
+
+        get(cache, "/large?a");
+        assertEquals(5, count(requests, "/large"));
+        get(cache, "/large?b");
+        assertEquals(6, count(requests, "/large"));
+    }
+
+    @Test
+    public void storedResponsesSurviveRestart() throws IOException {
+        get(cache, "/fresh");
+
+        HttpCache restarted = new HttpCache();
+        restarted.configure(true, directory, HttpCache.DEFAULT_MAX_SIZE, false);
+        assertEquals("fresh record", get(restarted, "/fresh"));
+        assertEquals(1, count(requests, "/fresh"));
+        assertEquals(1, restarted.getHitCount());
+    }
+
+    @Test
+    public void partiallyReadResponseIsNotStored() throws IOException {
+        try (HttpCache.Response response = cache.get(url("/fresh"), Collections.emptyMap())) {
+            assertEquals('f', response.getBody().read());
+        }
+        assertEquals(0, cache.getSize());
+        assertEquals("fresh record", get(cache, "/fresh"));
+        assertEquals(2, count(requests, "/fresh"));
+    }
+
+    @Test
+    public void offlineModeServesStoredResponsesOnly() throws IOException {
+        get(cache, "/etag");
+        cache.setOffline(true);
+
+        assertEquals("record \"v1\"", get(cache, "/etag"));
+        assertEquals(1, count(requests, "/etag"));
+        try {
+            get(cache, "/fresh");
+            fail();
+        } catch (IOException expected) {
+            // not stored
+        }
+        assertEquals(0, count(requests, "/fresh"));
+    }
+
+    @Test
+    public void urlDownloadUsesCache() throws IOException {
+        HttpCache.getInstance().configure(true, directory, HttpCache.DEFAULT_MAX_SIZE, false);
+        assertEquals("fresh record\n", new URLDownload(url("/fresh")).downloadToString("UTF-8"));
+        assertEquals("fresh record\n", new URLDownload(url("/fresh")).downloadToString("UTF-8"));
+        assertEquals(1, count(requests, "/fresh"));
+
+        URLDownload missing = new URLDownload(url("/missing"));
+        assertEquals(404, missing.getResponseCode());
+        try {
+            missing.openStream().close();
+            fail();
+        } catch (FileNotFoundException expected) {
+            // like URLConnection
+        }
+        assertEquals(2, count(requests, "/missing"));
+    }
+}
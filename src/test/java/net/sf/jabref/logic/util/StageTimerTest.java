@@ -0,0 +1,59 @@
+package net.sf.jabref.logic.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StageTimerTest {
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void stagesAreRecordedInOrder() {
+        StageTimer timer = new StageTimer("Test");
+        sleep(20);
+        timer.stage("first");
+        timer.run("background", () -> sleep(10));
+        timer.stage("second");
+        assertEquals("result", timer.call("third", () -> "result"));
+
+        Map<String, Long> durations = timer.getDurations();
+        assertEquals(Arrays.asList("first", "background", "second", "third"), new ArrayList<>(durations.keySet()));
+        assertTrue(durations.get("first") >= 20);
+        assertTrue(durations.get("second") >= 10);
+        assertTrue(timer.getElapsed() >= 30);
+        assertTrue(timer.toString().startsWith("Test: first "));
+    }
+
+    @Test
+    public void repeatedStageIsSummedUp() {
+        StageTimer timer = new StageTimer("Test");
+        timer.run("stage", () -> sleep(10));
+        timer.run("stage", () -> sleep(10));
+        assertEquals(1, timer.getDurations().size());
+        assertTrue(timer.getDurations().get("stage") >= 20);
+    }
+
+    @Test
+    public void failingStageIsRecorded() {
+        StageTimer timer = new StageTimer("Test");
+        try {
+            timer.run("failing", () -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertTrue(timer.getDurations().containsKey("failing"));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package net.sf.jabref.logic.xmp;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.util.XMPUtilTest;
+import org.apache.pdfbox.exceptions.COSVisitorException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XMPBulkReaderTest {
+
+    private File directory;
+    private final List<File> files = new ArrayList<>();
+
+    // entries and errors per file name
+    private final Map<String, List<BibtexEntry>> entries = new HashMap<>();
+    private final Map<String, IOException> errors = new HashMap<>();
+    private Thread listenerThread;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("xmpbulk").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private File createPdf(String name, String title, String xmpTitle) throws IOException, COSVisitorException {
+        File file = new File(directory, name);
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            if (title != null) {
+                PDDocumentInformation info = new PDDocumentInformation();
+                info.setTitle(title);
+                document.setDocumentInformation(info);
+            }
+            if (xmpTitle != null) {
+                String xmp = XMPUtilTest.bibtexXPacket(XMPUtilTest.bibtexDescription(
+                        "<bibtex:title>" + xmpTitle + "</bibtex:title>\n<bibtex:bibtexkey>Key</bibtex:bibtexkey>\n"));
+                document.getDocumentCatalog().setMetadata(new PDMetadata(document,
+                        new ByteArrayInputStream(xmp.getBytes(StandardCharsets.UTF_8)), false));
+            }
+            document.save(file.getAbsolutePath());
+        }
+        files.add(file);
+        return file;
+    }
+
+    private int read(XMPBulkReader reader) {
+        return reader.read(files, (file, fileEntries, error) -> {
+            listenerThread = Thread.currentThread();
+            entries.put(file.getName(), fileEntries);
+            errors.put(file.getName(), error);
+        });
+    }
+
+    @Test
+    public void metadataIsReadFromAllFiles() throws Exception {
+        createPdf("xmp.pdf", "Info title", "XMP title");
+        createPdf("info.pdf", "Info title", null);
+        createPdf("none.pdf", null, null);
+
+        assertEquals(3, read(new XMPBulkReader()));
+
+        assertEquals(1, entries.get("xmp.pdf").size());
+        assertEquals("XMP title", entries.get("xmp.pdf").get(0).getField("title"));
+        assertEquals("Key", entries.get("xmp.pdf").get(0).getCiteKey());
+        assertEquals("Info title", entries.get("info.pdf").get(0).getField("title"));
+        assertNull(entries.get("none.pdf"));
+        assertNull(errors.get("none.pdf"));
+        assertSame(Thread.currentThread(), listenerThread);
+    }
+
+    @Test
+    public void metadataOnlyParsingAgreesWithFullLoading() throws Exception {
+        File file = createPdf("xmp.pdf", "Info title", "XMP title");
+        List<BibtexEntry> parsed = new PDFMetadataParser(file).readBibtexEntries();
+        List<BibtexEntry> loaded = XMPUtil.readXMP(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+
+        assertEquals(loaded.size(), parsed.size());
+        assertEquals(loaded.get(0).getAllFields(), parsed.get(0).getAllFields());
+        assertEquals(loaded.get(0).getField("title"), parsed.get(0).getField("title"));
+    }
+
+    @Test
+    public void unreadableFilesAreReported() throws Exception {
+        File broken = new File(directory, "broken.pdf");
+        Files.write(broken.toPath(), "%PDF-1.4\nnot really a pdf".getBytes(StandardCharsets.US_ASCII));
+        files.add(broken);
+        File encrypted = new File(XMPUtilTest.SRC_TEST_ESOURCES_ENCRYPTED_PDF);
+        files.add(encrypted);
+        createPdf("info.pdf", "Info title", null);
+
+        assertEquals(3, read(new XMPBulkReader()));
+
+        assertNull(entries.get("broken.pdf"));
+        assertNotNull(errors.get("broken.pdf"));
+        assertTrue(errors.get("encrypted.pdf") instanceof EncryptionNotSupportedException);
+        assertEquals("Info title", entries.get("info.pdf").get(0).getField("title"));
+    }
+
+    @Test
+    public void memoryLimitBelowFileSizeStillReadsDamagedFiles() throws Exception {
+        File file = createPdf("info.pdf", "Info title", null);
+        // break the cross reference table, so that the whole document has to be loaded
+        byte[] content = Files.readAllBytes(file.toPath());
+        String text = new String(content, StandardCharsets.ISO_8859_1);
+        int startxref = text.lastIndexOf("startxref");
+        Files.write(file.toPath(), (text.substring(0, startxref) + "startxref\n1\n%%EOF\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+
+        XMPBulkReader reader = new XMPBulkReader();
+        reader.setMemoryLimit(1);
+        reader.setConcurrency(2);
+        createPdf("other.pdf", "Other title", null);
+
+        assertEquals(2, read(reader));
+        assertEquals("Info title", entries.get("info.pdf").get(0).getField("title"));
+        assertEquals("Other title", entries.get("other.pdf").get(0).getField("title"));
+    }
+
+    @Test
+    public void cancelledReadStops() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            createPdf(i + ".pdf", "Title " + i, null);
+        }
+        XMPBulkReader reader = new XMPBulkReader();
+        reader.setConcurrency(1);
+        int read = reader.read(files, (file, fileEntries, error) -> reader.cancel());
+
+        assertEquals(1, read);
+        assertTrue(reader.isCancelled());
+    }
+}
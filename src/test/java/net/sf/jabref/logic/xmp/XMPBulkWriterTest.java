@@ -0,0 +1,159 @@
+package net.sf.jabref.logic.xmp;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.model.entry.BibtexEntryTypes;
+import net.sf.jabref.model.entry.BibtexString;
+import org.apache.pdfbox.exceptions.COSVisitorException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XMPBulkWriterTest {
+
+    private File directory;
+    private BibtexDatabase database;
+    private final List<XMPBulkWriter.Outcome> outcomes = new ArrayList<>();
+
+    private boolean usePrivacyFilter;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("xmpwrite").toFile();
+        database = new BibtexDatabase();
+
+        JabRefPreferences prefs = JabRefPreferences.getInstance();
+        usePrivacyFilter = prefs.getBoolean(JabRefPreferences.USE_XMP_PRIVACY_FILTER);
+        prefs.putBoolean(JabRefPreferences.USE_XMP_PRIVACY_FILTER, false);
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        JabRefPreferences.getInstance().putBoolean(JabRefPreferences.USE_XMP_PRIVACY_FILTER, usePrivacyFilter);
+    }
+
+    private File createPdf(String name) throws IOException, COSVisitorException {
+        File file = new File(directory, name);
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(file.getAbsolutePath());
+        }
+        return file;
+    }
+
+    private BibtexEntry createEntry(String key, String title) {
+        BibtexEntry entry = new BibtexEntry(key, BibtexEntryTypes.ARTICLE);
+        entry.setField(BibtexEntry.KEY_FIELD, key);
+        entry.setField("title", title);
+        entry.setField("author", "Crowston, K. and Annabi, H.");
+        entry.setField("year", "2005");
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    private int write(Map<BibtexEntry, List<File>> files) {
+        outcomes.clear();
+        return new XMPBulkWriter(database).write(files,
+                (entry, file, outcome, error) -> outcomes.add(outcome));
+    }
+
+    @Test
+    public void unchangedFilesAreSkipped() throws Exception {
+        File first = createPdf("first.pdf");
+        File second = createPdf("second.pdf");
+        BibtexEntry firstEntry = createEntry("first", "First title");
+        BibtexEntry secondEntry = createEntry("second", "Second title");
+        Map<BibtexEntry, List<File>> files = new LinkedHashMap<>();
+        files.put(firstEntry, Collections.singletonList(first));
+        files.put(secondEntry, Collections.singletonList(second));
+
+        assertEquals(2, write(files));
+        assertEquals(Arrays.asList(XMPBulkWriter.Outcome.WRITTEN, XMPBulkWriter.Outcome.WRITTEN), outcomes);
+        assertTrue(XMPUtil.isXMPUpToDate(first, firstEntry, database));
+
+        write(files);
+        assertEquals(Arrays.asList(XMPBulkWriter.Outcome.UP_TO_DATE, XMPBulkWriter.Outcome.UP_TO_DATE), outcomes);
+
+        secondEntry.setField("title", "Changed title");
+        assertFalse(XMPUtil.isXMPUpToDate(second, secondEntry, database));
+        write(files);
+        assertTrue(outcomes.contains(XMPBulkWriter.Outcome.UP_TO_DATE));
+        assertTrue(outcomes.contains(XMPBulkWriter.Outcome.WRITTEN));
+        assertEquals("Changed title", XMPUtil.readXMP(second).get(0).getField("title"));
+    }
+
+    @Test
+    public void stringsAreResolvedBeforeComparing() throws Exception {
+        File file = createPdf("strings.pdf");
+        database.addString(new BibtexString("journal", "J", "Journal of Tests"));
+        BibtexEntry entry = createEntry("strings", "Title");
+        entry.setField("journal", "#J#");
+
+        write(Collections.singletonMap(entry, Collections.singletonList(file)));
+        assertEquals("Journal of Tests", XMPUtil.readXMP(file).get(0).getField("journal"));
+        assertEquals("#J#", entry.getField("journal"));
+
+        write(Collections.singletonMap(entry, Collections.singletonList(file)));
+        assertEquals(Collections.singletonList(XMPBulkWriter.Outcome.UP_TO_DATE), outcomes);
+    }
+
+    @Test
+    public void fileLinkedTwiceEndsWithLastEntry() throws Exception {
+        File file = createPdf("shared.pdf");
+        Map<BibtexEntry, List<File>> files = new LinkedHashMap<>();
+        files.put(createEntry("a", "A"), Collections.singletonList(file));
+        files.put(createEntry("b", "B"), Collections.singletonList(file));
+
+        assertEquals(2, write(files));
+        assertEquals("B", XMPUtil.readXMP(file).get(0).getField("title"));
+    }
+
+    @Test
+    public void failuresAreReportedAndLeaveNoTemporaryFiles() throws Exception {
+        File broken = new File(directory, "broken.pdf");
+        Files.write(broken.toPath(), "not a pdf".getBytes("US-ASCII"));
+        File good = createPdf("good.pdf");
+        Map<BibtexEntry, List<File>> files = new LinkedHashMap<>();
+        files.put(createEntry("broken", "Broken"), Collections.singletonList(broken));
+        files.put(createEntry("good", "Good"), Collections.singletonList(good));
+
+        assertEquals(2, write(files));
+        assertTrue(outcomes.contains(XMPBulkWriter.Outcome.FAILED));
+        assertTrue(outcomes.contains(XMPBulkWriter.Outcome.WRITTEN));
+        assertEquals(2, directory.listFiles().length);
+        assertEquals("not a pdf", new String(Files.readAllBytes(broken.toPath()), "US-ASCII"));
+    }
+
+    @Test
+    public void cancelledWriteStops() throws Exception {
+        Map<BibtexEntry, List<File>> files = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            files.put(createEntry("key" + i, "Title " + i), Collections.singletonList(createPdf(i + ".pdf")));
+        }
+        XMPBulkWriter writer = new XMPBulkWriter(database);
+        writer.setConcurrency(1);
+
+        assertEquals(1, writer.write(files, (entry, file, outcome, error) -> writer.cancel()));
+        assertTrue(writer.isCancelled());
+    }
+}
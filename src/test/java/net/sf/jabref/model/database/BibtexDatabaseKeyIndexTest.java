@@ -0,0 +1,107 @@
+package net.sf.jabref.model.database;
+
+import static org.junit.Assert.*;
+
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BibtexDatabaseKeyIndexTest {
+
+    private BibtexDatabase database;
+
+
+    @Before
+    public void setUp() {
+        database = new BibtexDatabase();
+    }
+
+    private BibtexEntry addEntry(String key) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        if (key != null) {
+            entry.setField(BibtexEntry.KEY_FIELD, key);
+        }
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    @Test
+    public void keysWithEqualHashCodesAreDistinguished() {
+        // "Aa" and "BB" have the same hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        BibtexEntry aa = addEntry("Aa");
+
+        assertSame(aa, database.getEntryByKey("Aa"));
+        assertNull(database.getEntryByKey("BB"));
+        assertNull(database.getEntryByKey(null));
+        assertEquals(0, database.getEntriesByKey("BB").length);
+    }
+
+    @Test
+    public void duplicateKeysAreCountedInOrder() {
+        BibtexEntry first = addEntry("key");
+        assertTrue(database.insertEntry(withKey("key")));
+        BibtexEntry[] entries = database.getEntriesByKey("key");
+
+        assertEquals(2, entries.length);
+        assertSame(first, entries[0]);
+        assertSame(first, database.getEntryByKey("key"));
+        assertEquals(2, database.getNumberOfKeyOccurences("key"));
+
+        database.removeEntry(first.getId());
+        assertSame(entries[1], database.getEntryByKey("key"));
+        assertEquals(1, database.getNumberOfKeyOccurences("key"));
+    }
+
+    private static BibtexEntry withKey(String key) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField(BibtexEntry.KEY_FIELD, key);
+        return entry;
+    }
+
+    @Test
+    public void keyChangesOfEntriesAreFollowed() {
+        BibtexEntry entry = addEntry("old");
+        entry.setField(BibtexEntry.KEY_FIELD, "new");
+
+        assertNull(database.getEntryByKey("old"));
+        assertSame(entry, database.getEntryByKey("new"));
+
+        entry.clearField(BibtexEntry.KEY_FIELD);
+        assertNull(database.getEntryByKey("new"));
+        assertEquals(0, database.getNumberOfKeyOccurences("new"));
+
+        BibtexEntry removed = addEntry("removed");
+        database.removeEntry(removed.getId());
+        removed.setField(BibtexEntry.KEY_FIELD, "outside");
+        assertNull(database.getEntryByKey("outside"));
+    }
+
+    @Test
+    public void setCiteKeyReportsDuplicates() {
+        addEntry("taken");
+        BibtexEntry entry = addEntry(null);
+
+        assertFalse(database.setCiteKeyForEntry(entry.getId(), "free"));
+        assertTrue(database.setCiteKeyForEntry(entry.getId(), "taken"));
+        assertFalse(database.setCiteKeyForEntry(entry.getId(), "taken"));
+        assertEquals(2, database.getNumberOfKeyOccurences("taken"));
+        assertEquals(0, database.getNumberOfKeyOccurences("free"));
+
+        assertFalse(database.setCiteKeyForEntry(entry.getId(), null));
+        assertEquals(1, database.getNumberOfKeyOccurences("taken"));
+    }
+
+    @Test
+    public void crossrefsAreResolvedThroughTheIndex() {
+        BibtexEntry proceedings = addEntry("proc");
+        proceedings.setField("booktitle", "Proceedings");
+        BibtexEntry paper = addEntry("paper");
+        paper.setField("crossref", "proc");
+
+        assertEquals("Proceedings", BibtexDatabase.getResolvedField("booktitle", paper, database));
+        proceedings.setField(BibtexEntry.KEY_FIELD, "renamed");
+        assertNull(BibtexDatabase.getResolvedField("booktitle", paper, database));
+    }
+}
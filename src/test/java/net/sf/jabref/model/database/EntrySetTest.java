@@ -0,0 +1,69 @@
+package net.sf.jabref.model.database;
+
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class EntrySetTest {
+
+    private BibtexDatabase database;
+    private BibtexEntry first;
+    private BibtexEntry second;
+    private BibtexEntry third;
+
+
+    @Before
+    public void setUp() {
+        database = new BibtexDatabase();
+        first = addEntry();
+        second = addEntry();
+        third = addEntry();
+    }
+
+    private BibtexEntry addEntry() {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    @Test
+    public void testOrdinalsAreDense() {
+        assertEquals(0, database.getOrdinal(first));
+        assertEquals(1, database.getOrdinal(second));
+        assertEquals(2, database.getOrdinal(third));
+        assertSame(second, database.getEntryByOrdinal(1));
+        assertEquals(-1, database.getOrdinal(new BibtexEntry(IdGenerator.next())));
+    }
+
+    @Test
+    public void testSetOperations() {
+        EntrySet a = new EntrySet(database);
+        a.add(first);
+        a.add(second);
+        EntrySet b = new EntrySet(database);
+        b.add(second);
+        b.add(third);
+
+        assertTrue(a.intersects(b));
+        assertEquals(Arrays.asList(second), a.copy().and(b).getEntries());
+        assertEquals(Arrays.asList(first, second, third), a.copy().or(b).getEntries());
+        assertEquals(Arrays.asList(first), a.copy().andNot(b).getEntries());
+        assertEquals(EntrySet.allOf(database), a.copy().or(b));
+        assertEquals(2, a.size());
+    }
+
+    @Test
+    public void testRemovedEntryIsDropped() {
+        EntrySet all = EntrySet.allOf(database);
+        database.removeEntry(second.getId());
+
+        assertFalse(all.contains(second));
+        assertEquals(Arrays.asList(first, third), all.getEntries());
+        assertEquals(-1, database.getOrdinal(second));
+    }
+}
@@ -2,8 +2,16 @@ package net.sf.jabref.model.entry;
 
 
 import net.sf.jabref.JabRefPreferences;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyVetoException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
 public class BibtexEntryTests {
 
     private BibtexEntry entry;
@@ -12,4 +20,83 @@ public class BibtexEntryTests {
     public void testDefaultConstructor() {
         entry = new BibtexEntry();
     }
+
+    @Test
+    public void testSetAndGetFields() {
+        entry = new BibtexEntry();
+        entry.setField("year", "2015");
+        entry.setField("author", "Einstein, Albert");
+        entry.setField("someUnknownField", "value");
+
+        Assert.assertEquals("2015", entry.getField("year"));
+        Assert.assertEquals("Einstein, Albert", entry.getField("author"));
+        Assert.assertEquals("value", entry.getField("someUnknownField"));
+        Assert.assertNull(entry.getField("title"));
+        Assert.assertNull(entry.getField("neverUsedAnywhere"));
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("author", "someUnknownField", "year")), entry.getAllFields());
+    }
+
+    @Test
+    public void testClearField() {
+        entry = new BibtexEntry();
+        entry.setField("year", "2015");
+        entry.setField("title", "Title");
+        entry.clearField("year");
+
+        Assert.assertNull(entry.getField("year"));
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("title")), entry.getAllFields());
+    }
+
+    @Test
+    public void testSetFieldsFromMap() {
+        entry = new BibtexEntry();
+        Map<String, String> fields = new HashMap<>();
+        fields.put("journal", "Annalen der Physik");
+        fields.put(BibtexEntry.KEY_FIELD, "einstein1916");
+        entry.setField(fields);
+
+        Assert.assertEquals("Annalen der Physik", entry.getField("journal"));
+        Assert.assertEquals("einstein1916", entry.getCiteKey());
+    }
+
+    @Test
+    public void testCloneIsIndependent() {
+        entry = new BibtexEntry();
+        entry.setField("year", "2015");
+        BibtexEntry clone = (BibtexEntry) entry.clone();
+        clone.setField("year", "2016");
+
+        Assert.assertEquals("2015", entry.getField("year"));
+        Assert.assertEquals("2016", clone.getField("year"));
+    }
+
+    @Test
+    public void testVetoedChangeIsReverted() {
+        entry = new BibtexEntry();
+        entry.setField("year", "2015");
+        entry.addPropertyChangeListener(event -> {
+            if ("year".equals(event.getPropertyName())) {
+                throw new PropertyVetoException("no", event);
+            }
+        });
+
+        try {
+            entry.setField("year", "2016");
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+            // expected
+        }
+        Assert.assertEquals("2015", entry.getField("year"));
+    }
+
+    @Test
+    public void testListenerIsNotified() {
+        entry = new BibtexEntry();
+        PropertyChangeEvent[] received = new PropertyChangeEvent[1];
+        entry.addPropertyChangeListener(event -> received[0] = event);
+        entry.setField("title", "Title");
+
+        Assert.assertEquals("title", received[0].getPropertyName());
+        Assert.assertEquals("Title", received[0].getNewValue());
+    }
 }
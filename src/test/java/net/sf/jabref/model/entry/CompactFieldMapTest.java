@@ -0,0 +1,112 @@
+package net.sf.jabref.model.entry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CompactFieldMapTest {
+
+    @Test
+    public void testLazyValueIsDecodedOnce() {
+        CompactFieldMap map = new CompactFieldMap();
+        int[] decodings = new int[1];
+        map.putLazy("title", () -> {
+            decodings[0]++;
+            return "Title";
+        });
+
+        Assert.assertEquals("Title", map.get("title"));
+        Assert.assertEquals("Title", map.get("title"));
+        Assert.assertEquals(1, decodings[0]);
+    }
+
+    @Test
+    public void testChangedLazyValueIsNotOverwrittenByDecoding() throws Exception {
+        CompactFieldMap map = new CompactFieldMap();
+        CountDownLatch decoding = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        map.putLazy("title", () -> {
+            if (first.getAndSet(false)) {
+                decoding.countDown();
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "Old title";
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> read = executor.submit(() -> map.get("title"));
+            decoding.await();
+            // Changes the field while it is being decoded, e.g. on the EDT
+            map.put("year", "2015");
+            map.remove("year");
+            map.put("title", "New title");
+            changed.countDown();
+
+            Assert.assertEquals("Old title", read.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals("New title", map.get("title"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsAndWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int round = 0; round < 2000; round++) {
+                CompactFieldMap map = new CompactFieldMap();
+                map.putLazy("journal", () -> "Journal");
+                map.putLazy("title", () -> "Title");
+                map.putLazy("year", () -> "2015");
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<?> writer = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        map.put("field" + i, "value" + i);
+                    }
+                    map.put("title", "New title");
+                    for (int i = 0; i < 20; i += 2) {
+                        map.remove("field" + i);
+                    }
+                    return null;
+                });
+                Future<?> reader = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        Assert.assertEquals("Journal", map.get("journal"));
+                        Assert.assertEquals("2015", map.get("year"));
+                        String title = map.get("title");
+                        Assert.assertTrue(title, "Title".equals(title) || "New title".equals(title));
+                    }
+                    return null;
+                });
+                start.countDown();
+                writer.get(10, TimeUnit.SECONDS);
+                reader.get(10, TimeUnit.SECONDS);
+
+                Assert.assertEquals(13, map.size());
+                Assert.assertEquals("Journal", map.get("journal"));
+                Assert.assertEquals("2015", map.get("year"));
+                Assert.assertEquals("New title", map.get("title"));
+                for (int i = 0; i < 20; i++) {
+                    Assert.assertEquals(i % 2 == 0 ? null : "value" + i, map.get("field" + i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
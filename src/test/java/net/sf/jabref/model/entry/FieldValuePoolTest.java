@@ -0,0 +1,74 @@
+package net.sf.jabref.model.entry;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FieldValuePoolTest {
+
+    private FieldValuePool pool;
+
+    @Before
+    public void setUp() {
+        pool = new FieldValuePool();
+        pool.configure(true, Arrays.asList("journal", "publisher"), 20);
+    }
+
+    @Test
+    public void testEqualValuesShareInstance() {
+        String first = pool.deduplicate("journal", new String("Annalen der Physik"));
+        String second = pool.deduplicate("journal", new String("Annalen der Physik"));
+
+        Assert.assertEquals("Annalen der Physik", second);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, pool.getLookups());
+        Assert.assertEquals(1, pool.getHits());
+        Assert.assertTrue(pool.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void testOtherFieldsAreNotPooled() {
+        String value = new String("Annalen der Physik");
+        pool.deduplicate("journal", "Annalen der Physik");
+
+        Assert.assertSame(value, pool.deduplicate("title", value));
+        Assert.assertEquals(1, pool.getLookups());
+    }
+
+    @Test
+    public void testLongValuesAreNotPooled() {
+        String value = new String("A journal name that is longer than twenty characters");
+        pool.deduplicate("journal", "A journal name that is longer than twenty characters");
+
+        Assert.assertSame(value, pool.deduplicate("journal", value));
+    }
+
+    @Test
+    public void testDisabledPoolReturnsValue() {
+        pool.configure(false, Collections.singletonList("journal"), 20);
+        String value = new String("Physics");
+        pool.deduplicate("journal", "Physics");
+
+        Assert.assertSame(value, pool.deduplicate("journal", value));
+        Assert.assertEquals(0, pool.getLookups());
+    }
+
+    @Test
+    public void testNullValue() {
+        Assert.assertNull(pool.deduplicate("journal", null));
+    }
+
+    @Test
+    public void testResetStatistics() {
+        pool.deduplicate("publisher", "Wiley");
+        pool.deduplicate("publisher", new String("Wiley"));
+        pool.resetStatistics();
+
+        Assert.assertEquals(0, pool.getLookups());
+        Assert.assertEquals(0, pool.getHits());
+        Assert.assertEquals(0, pool.getBytesSaved());
+    }
+}
@@ -0,0 +1,56 @@
+package net.sf.jabref.performance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import net.sf.jabref.bst.VM;
+import net.sf.jabref.importer.fileformat.BibtexParser;
+import net.sf.jabref.model.database.BibtexDatabase;
+import org.antlr.runtime.RecognitionException;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures loading a bst style and formatting a large database with it, as done by the bst
+ * export. Run manually and compare the printed times.
+ */
+public class BstVMBenchmark {
+
+    private static final File STYLE = new File("src/test/resources/net/sf/jabref/bst/abbrv.bst");
+
+    private static final int NUMBER_OF_ENTRIES = 10000;
+    private static final int ROUNDS = 5;
+
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureLoadStyle() throws RecognitionException, IOException {
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Assert.assertNotNull(new VM(STYLE));
+            System.out.println("load style: " + ((System.nanoTime() - start) / 1000) + " us");
+        }
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureRun() throws RecognitionException, IOException {
+        String bibtex = new BibtexEntryGenerator().generateBibtexEntries(NUMBER_OF_ENTRIES);
+        BibtexDatabase database = BibtexParser.parse(new StringReader(bibtex)).getDatabase();
+
+        VM vm = new VM(STYLE);
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            String bbl = vm.run(database);
+            report(System.nanoTime() - start);
+            Assert.assertTrue(bbl.length() > 0);
+        }
+    }
+
+    private static void report(long nanos) {
+        System.out.println("run: " + NUMBER_OF_ENTRIES + " entries in " + (nanos / 1000000) + " ms, "
+                + ((NUMBER_OF_ENTRIES * 1000000000L) / Math.max(1, nanos)) + " entries/s");
+    }
+}
@@ -0,0 +1,59 @@
+package net.sf.jabref.performance;
+
+import net.sf.jabref.importer.fetcher.CaseKeeper;
+import net.sf.jabref.importer.fetcher.CaseKeeperTest;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures protecting the titles of a large fetch result, with the former word by word replacement and with the
+ * single pass matcher. Run manually and compare the printed titles per second.
+ */
+public class CaseKeeperBenchmark {
+
+    private static final int NUMBER_OF_TITLES = 2000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] TITLES = {
+            "A 65 nm CMOS ADC with digital background calibration for LTE and WiMAX receivers",
+            "Design of a low-power FPGA-based FFT processor for OFDM systems in the United States",
+            "On the capacity of MIMO channels with imperfect CSI",
+            "Energy-efficient scheduling in heterogeneous wireless networks",
+            "GPU acceleration of the H.264 deblocking filter using CUDA"};
+
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureFormatOneByOne() {
+        long length = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < NUMBER_OF_TITLES; i++) {
+                length += CaseKeeperTest.formatOneByOne(TITLES[i % TITLES.length]).length();
+            }
+            report("one by one", System.nanoTime() - start);
+        }
+        Assert.assertTrue(length > 0);
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureFormat() {
+        CaseKeeper caseKeeper = new CaseKeeper();
+        long length = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < NUMBER_OF_TITLES; i++) {
+                length += caseKeeper.format(TITLES[i % TITLES.length]).length();
+            }
+            report("single pass", System.nanoTime() - start);
+        }
+        Assert.assertTrue(length > 0);
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.println(name + ": " + NUMBER_OF_TITLES + " titles in " + (nanos / 1000000) + " ms, "
+                + ((NUMBER_OF_TITLES * 1000000000L) / Math.max(1, nanos)) + " titles/s");
+    }
+}
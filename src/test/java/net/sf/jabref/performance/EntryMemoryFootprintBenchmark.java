@@ -0,0 +1,60 @@
+package net.sf.jabref.performance;
+
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.model.entry.BibtexEntryTypes;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the retained heap of a large number of synthetic entries.
+ * Run manually, e.g. with -Xmx2g, and compare the printed bytes per entry.
+ */
+public class EntryMemoryFootprintBenchmark {
+
+    private static final int NUMBER_OF_ENTRIES = 500000;
+
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureHeapFootprintOfSyntheticEntries() {
+        long before = usedMemory();
+
+        List<BibtexEntry> entries = new ArrayList<>(NUMBER_OF_ENTRIES);
+        for (int i = 0; i < NUMBER_OF_ENTRIES; i++) {
+            entries.add(createEntry(i));
+        }
+
+        long after = usedMemory();
+        long bytesPerEntry = (after - before) / NUMBER_OF_ENTRIES;
+        System.out.println(NUMBER_OF_ENTRIES + " entries: " + ((after - before) >> 20) + " MB, " + bytesPerEntry
+                + " bytes per entry");
+
+        Assert.assertEquals(NUMBER_OF_ENTRIES, entries.size());
+    }
+
+    private static BibtexEntry createEntry(int i) {
+        BibtexEntry entry = new BibtexEntry("id" + i, BibtexEntryTypes.ARTICLE);
+        entry.setField(BibtexEntry.KEY_FIELD, "einstein1916grundlage" + i);
+        entry.setField("title", "Die grundlage der allgemeinen relativit{\\\"a}tstheorie " + i);
+        entry.setField("author", "Einstein, Albert");
+        entry.setField("journal", "Annalen der Physik");
+        entry.setField("volume", String.valueOf(i % 400));
+        entry.setField("number", String.valueOf(i % 12));
+        entry.setField("pages", "769--822");
+        entry.setField("year", String.valueOf(1900 + (i % 115)));
+        entry.setField("publisher", "Wiley Online Library");
+        return entry;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
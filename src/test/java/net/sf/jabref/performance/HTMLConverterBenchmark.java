@@ -0,0 +1,66 @@
+package net.sf.jabref.performance;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.importer.HTMLConverter;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of the HTML and Unicode to LaTeX conversion, which every fetcher and
+ * several importers apply to each field. Run manually and compare the printed fields per second.
+ */
+public class HTMLConverterBenchmark {
+
+    private static final int NUMBER_OF_FIELDS = 100000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] HTML_FIELDS = {
+            "Effect of <i>TP53</i> on cell growth in H<sub>2</sub>O&ndash;rich environments",
+            "Gr&auml;tzer, George and M&uuml;ller, J&ouml;rg and Caf&#233;, Ren&#xE9;",
+            "We show that &alpha;-helices &amp; &beta;-sheets are stable at 10<sup>-3</sup> &#8776; &epsilon;.",
+            "A plain title without any markup, which is the most common case in practice",
+            "Proceedings of the 12<sup>th</sup> International Conference on Software Engineering"};
+
+    private static final String[] UNICODE_FIELDS = {
+            "Müller, Jörg and Gödel, Kurt", "α-helices ≈ β-sheets", "A plain ASCII title",
+            "Łódź – Kraków – Ærøskøbing"};
+
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureFormat() {
+        Globals.prefs = JabRefPreferences.getInstance();
+        HTMLConverter converter = new HTMLConverter();
+        long length = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < NUMBER_OF_FIELDS; i++) {
+                length += converter.format(HTML_FIELDS[i % HTML_FIELDS.length]).length();
+            }
+            report("format", System.nanoTime() - start);
+        }
+        Assert.assertTrue(length > 0);
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureFormatUnicode() {
+        HTMLConverter converter = new HTMLConverter();
+        long length = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < NUMBER_OF_FIELDS; i++) {
+                length += converter.formatUnicode(UNICODE_FIELDS[i % UNICODE_FIELDS.length]).length();
+            }
+            report("formatUnicode", System.nanoTime() - start);
+        }
+        Assert.assertTrue(length > 0);
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.println(name + ": " + NUMBER_OF_FIELDS + " fields in " + (nanos / 1000000) + " ms, "
+                + ((NUMBER_OF_FIELDS * 1000000000L) / Math.max(1, nanos)) + " fields/s");
+    }
+}
@@ -0,0 +1,91 @@
+package net.sf.jabref.performance;
+
+import java.io.StringReader;
+
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.exporter.layout.Layout;
+import net.sf.jabref.exporter.layout.LayoutHelper;
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import net.sf.jabref.model.entry.BibtexEntryTypes;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures a layout export of a database in which half of the entries inherit their booktitle,
+ * publisher and year through a crossref, so that every such field is looked up by key. Run
+ * manually and compare the printed times.
+ */
+public class LayoutExportBenchmark {
+
+    private static final int NUMBER_OF_ENTRIES = 20000;
+    private static final int ROUNDS = 5;
+
+    private static final String LAYOUT = "\\bibtexkey: \\format[AuthorLastFirst]{\\author}. \\title. "
+            + "In \\booktitle, \\publisher, \\year.\n";
+
+
+    private static BibtexDatabase createDatabase() {
+        BibtexDatabase database = new BibtexDatabase();
+        for (int i = 0; i < (NUMBER_OF_ENTRIES / 2); i++) {
+            BibtexEntry proceedings = new BibtexEntry(IdGenerator.next(), BibtexEntryTypes.PROCEEDINGS);
+            proceedings.setField(BibtexEntry.KEY_FIELD, "proc" + i);
+            proceedings.setField("title", "Proceedings of the " + i + "th Conference");
+            proceedings.setField("booktitle", "Proceedings of the " + i + "th Conference");
+            proceedings.setField("publisher", "Springer");
+            proceedings.setField("year", "2015");
+            database.insertEntry(proceedings);
+
+            BibtexEntry paper = new BibtexEntry(IdGenerator.next(), BibtexEntryTypes.INPROCEEDINGS);
+            paper.setField(BibtexEntry.KEY_FIELD, "paper" + i);
+            paper.setField("author", "Einstein, Albert and Gödel, Kurt");
+            paper.setField("title", "Paper number " + i);
+            paper.setField("crossref", "proc" + i);
+            database.insertEntry(paper);
+        }
+        return database;
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureExport() throws Exception {
+        Globals.prefs = JabRefPreferences.getInstance();
+        BibtexDatabase database = createDatabase();
+        Layout layout = new LayoutHelper(new StringReader(LAYOUT)).getLayoutFromText(Globals.FORMATTER_PACKAGE);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            StringBuilder sb = new StringBuilder();
+            for (BibtexEntry entry : database.getEntries()) {
+                sb.append(layout.doLayout(entry, database));
+            }
+            report("export", System.nanoTime() - start);
+            Assert.assertTrue(sb.indexOf("In Proceedings of the 0th Conference, Springer, 2015.") >= 0);
+        }
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureKeyLookup() {
+        BibtexDatabase database = createDatabase();
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < (NUMBER_OF_ENTRIES / 2); i++) {
+                if (database.getEntryByKey("proc" + i) != null) {
+                    found++;
+                }
+            }
+            report("getEntryByKey", System.nanoTime() - start);
+            Assert.assertEquals(NUMBER_OF_ENTRIES / 2, found);
+        }
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.println(name + ": " + NUMBER_OF_ENTRIES + " entries in " + (nanos / 1000000) + " ms, "
+                + ((NUMBER_OF_ENTRIES * 1000000000L) / Math.max(1, nanos)) + " entries/s");
+    }
+}
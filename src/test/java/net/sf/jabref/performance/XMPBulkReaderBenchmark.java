@@ -0,0 +1,121 @@
+package net.sf.jabref.performance;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.jabref.logic.xmp.XMPBulkReader;
+import net.sf.jabref.logic.xmp.XMPUtil;
+import net.sf.jabref.util.XMPUtilTest;
+import org.apache.pdfbox.exceptions.COSVisitorException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures reading the metadata of a directory of generated PDFs, one by one with the whole
+ * document loaded as before, and in bulk. Run manually and compare the printed times.
+ */
+public class XMPBulkReaderBenchmark {
+
+    private static final int NUMBER_OF_FILES = 200;
+    private static final int PAGES_PER_FILE = 30;
+    private static final int ROUNDS = 3;
+
+    // created by each measurement, so that nothing is generated when the benchmark is skipped
+    private static File directory;
+    private static final List<File> FILES = new ArrayList<>();
+
+
+    private static void createFiles() throws IOException, COSVisitorException {
+        directory = Files.createTempDirectory("xmpbenchmark").toFile();
+        for (int i = 0; i < NUMBER_OF_FILES; i++) {
+            File file = new File(directory, "paper" + i + ".pdf");
+            try (PDDocument document = new PDDocument()) {
+                for (int page = 0; page < PAGES_PER_FILE; page++) {
+                    PDPage pdPage = new PDPage();
+                    document.addPage(pdPage);
+                    PDPageContentStream content = new PDPageContentStream(document, pdPage);
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 10);
+                    content.moveTextPositionByAmount(50, 700);
+                    for (int line = 0; line < 50; line++) {
+                        content.drawString("Line " + line + " of page " + page + " of the generated paper " + i);
+                        content.moveTextPositionByAmount(0, -12);
+                    }
+                    content.endText();
+                    content.close();
+                }
+                String xmp = XMPUtilTest.bibtexXPacket(XMPUtilTest.bibtexDescription("<bibtex:title>Paper " + i
+                        + "</bibtex:title>\n<bibtex:bibtexkey>paper" + i + "</bibtex:bibtexkey>\n"));
+                document.getDocumentCatalog().setMetadata(new PDMetadata(document,
+                        new ByteArrayInputStream(xmp.getBytes(StandardCharsets.UTF_8)), false));
+                document.save(file.getAbsolutePath());
+            }
+            FILES.add(file);
+        }
+    }
+
+    private static void deleteFiles() {
+        for (File file : FILES) {
+            file.delete();
+        }
+        FILES.clear();
+        directory.delete();
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureLoadWholeDocuments() throws IOException, COSVisitorException {
+        createFiles();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                int found = 0;
+                for (File file : FILES) {
+                    try (InputStream in = new FileInputStream(file)) {
+                        found += XMPUtil.readXMP(in).size();
+                    }
+                }
+                report("whole documents", System.nanoTime() - start);
+                Assert.assertEquals(NUMBER_OF_FILES, found);
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    @Ignore("Benchmark, run manually")
+    @Test
+    public void measureBulkRead() throws IOException, COSVisitorException {
+        createFiles();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                AtomicInteger found = new AtomicInteger();
+                long start = System.nanoTime();
+                new XMPBulkReader().read(FILES, (file, entries, error) -> found.addAndGet(entries.size()));
+                report("bulk", System.nanoTime() - start);
+                Assert.assertEquals(NUMBER_OF_FILES, found.get());
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    private static void report(String method, long nanos) {
+        System.out.println(method + ": " + NUMBER_OF_FILES + " files in " + (nanos / 1000000) + " ms, "
+                + ((NUMBER_OF_FILES * 1000000000L) / Math.max(1, nanos)) + " files/s");
+    }
+}
@@ -0,0 +1,134 @@
+package net.sf.jabref.wizard.auximport;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AuxSubGeneratorTest {
+
+    private Path directory;
+    private BibtexDatabase database;
+    private AuxSubGenerator generator;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("auximport");
+        database = new BibtexDatabase();
+        addEntry("proc", null);
+        addEntry("series", null);
+        addEntry("paper1", "proc");
+        addEntry("paper2", "proc");
+        addEntry("book", null);
+        addEntry("chapter", "volume");
+        addEntry("volume", "series");
+        addEntry("unused", null);
+        generator = new AuxSubGenerator(database);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        List<Path> files = Files.list(directory).collect(Collectors.toList());
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private void addEntry(String key, String crossref) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField(BibtexEntry.KEY_FIELD, key);
+        if (crossref != null) {
+            entry.setField("crossref", crossref);
+        }
+        database.insertEntry(entry);
+    }
+
+    private String writeAux(String name, String... lines) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file.toString();
+    }
+
+    private static List<String> keysOf(List<BibtexEntry> entries) {
+        List<String> keys = new ArrayList<>();
+        for (BibtexEntry entry : entries) {
+            keys.add(entry.getCiteKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void citationsOfNestedFilesAreCollected() throws IOException {
+        writeAux("chap1.aux", "\\citation{paper1}", "\\@input{chap3.aux}");
+        writeAux("chap2.aux", "\\citation{book,missing}");
+        writeAux("chap3.aux", "\\abx@aux@cite{paper1}", "\\@input{main.aux}");
+        String main = writeAux("main.aux", "\\relax", "\\@input{chap1.aux}", "\\@input{chap2.aux}",
+                "\\@input{chap1.aux}", "\\bibdata{library}");
+
+        assertEquals(Collections.singletonList("missing"), generator.generate(main, database));
+        assertEquals(3, generator.getFoundKeysInAux());
+        assertEquals(3, generator.getNestedAuxCounter());
+        assertEquals(2, generator.getResolvedKeysCount());
+        assertEquals(Arrays.asList("paper1", "book", "proc"), keysOf(generator.getResolvedEntries()));
+    }
+
+    @Test
+    public void crossreferencedEntryIsIncludedOnce() throws IOException {
+        String main = writeAux("main.aux", "\\citation{paper1}", "\\citation{paper2}");
+
+        assertTrue(generator.generate(main, database).isEmpty());
+        assertEquals(Arrays.asList("paper1", "paper2", "proc"), keysOf(generator.getResolvedEntries()));
+        assertEquals(1, generator.getCrossreferencedEntriesCount());
+        assertEquals(2, generator.getResolvedKeysCount());
+        assertEquals(3, generator.getGeneratedDatabase().getEntryCount());
+    }
+
+    @Test
+    public void crossrefChainsAreFollowed() throws IOException {
+        String main = writeAux("main.aux", "\\citation{chapter}");
+
+        generator.generate(main, database);
+        assertEquals(Arrays.asList("chapter", "volume", "series"), keysOf(generator.getResolvedEntries()));
+        assertEquals(2, generator.getCrossreferencedEntriesCount());
+    }
+
+    @Test
+    public void citedCrossreferencedEntryIsPlacedLast() throws IOException {
+        String main = writeAux("main.aux", "\\citation{proc,paper1}", "\\citation{book}");
+
+        generator.generate(main, database);
+        assertEquals(Arrays.asList("paper1", "book", "proc"), keysOf(generator.getResolvedEntries()));
+        assertEquals(0, generator.getCrossreferencedEntriesCount());
+    }
+
+    @Test
+    public void missingNestedFileIsReported() throws IOException {
+        String main = writeAux("main.aux", "\\citation{book}", "\\@input{missing.aux}");
+
+        generator.generate(main, database);
+        assertEquals(0, generator.getNestedAuxCounter());
+        assertEquals(Collections.singletonList("book"), keysOf(generator.getResolvedEntries()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void resolvedEntriesCannotBeModified() throws IOException {
+        generator.generate(writeAux("main.aux", "\\citation{book}"), database);
+        generator.getResolvedEntries().clear();
+    }
+}
@@ -0,0 +1,128 @@
+package net.sf.jabref.wizard.integrity;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.jabref.logic.id.IdGenerator;
+import net.sf.jabref.model.database.BibtexDatabase;
+import net.sf.jabref.model.entry.BibtexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntegrityCheckTest {
+
+    private BibtexDatabase database;
+    private IntegrityCheck check;
+
+
+    @Before
+    public void setUp() {
+        database = new BibtexDatabase();
+        check = new IntegrityCheck();
+    }
+
+    private BibtexEntry addEntry(String author, String title, String year) {
+        BibtexEntry entry = new BibtexEntry(IdGenerator.next());
+        entry.setField("author", author);
+        entry.setField("title", title);
+        entry.setField("year", year);
+        database.insertEntry(entry);
+        return entry;
+    }
+
+    private static List<Integer> typesOf(List<IntegrityMessage> messages) {
+        List<Integer> types = new ArrayList<>();
+        for (IntegrityMessage message : messages) {
+            types.add(message.getType());
+        }
+        return types;
+    }
+
+    @Test
+    public void entryIsChecked() {
+        BibtexEntry entry = addEntry("and Knuth, Donald E. and", "A} title", "in press");
+
+        assertEquals(Arrays.asList(IntegrityMessage.NAME_START_WARNING, IntegrityMessage.NAME_END_WARNING,
+                IntegrityMessage.UNEXPECTED_CLOSING_BRACE_FAILURE, IntegrityMessage.FOUR_DIGITS_HINT),
+                typesOf(check.checkBibtexEntry(entry)));
+        assertEquals(Collections.emptyList(), check.checkBibtexEntry(addEntry("Knuth, Donald E.", "A title", "2015")));
+    }
+
+    @Test
+    public void unchangedEntriesAreNotCheckedAgain() {
+        for (int i = 0; i < 2500; i++) {
+            addEntry("Author " + i, "Title " + i, (i % 2) == 0 ? "2015" : "15");
+        }
+        assertEquals(1250, check.checkBibtexDatabase(database).size());
+        assertEquals(2500, check.getCheckCount());
+
+        assertEquals(1250, check.checkBibtexDatabase(database).size());
+        assertEquals(2500, check.getCheckCount());
+    }
+
+    @Test
+    public void changedEntryIsCheckedAgain() {
+        BibtexEntry entry = addEntry("Knuth, Donald E.", "A title", "15");
+        addEntry("Knuth, Donald E.", "Other title", "2015");
+        assertEquals(1, check.checkBibtexDatabase(database).size());
+
+        entry.setField("note", "Not checked");
+        assertEquals(1, check.checkChangedEntries(database, Collections.singletonList(entry)).size());
+        assertEquals(2, check.getCheckCount());
+
+        entry.setField("year", "2015");
+        assertTrue(check.checkChangedEntries(database, Collections.singletonList(entry)).isEmpty());
+        assertEquals(3, check.getCheckCount());
+    }
+
+    @Test
+    public void changedEntryKeepsItsPlace() {
+        BibtexEntry first = addEntry("Knuth, Donald E.", "A title", "15");
+        addEntry("Knuth, Donald E.", "B} title", "2015");
+        check.checkBibtexDatabase(database);
+
+        first.setField("title", "A} title");
+        List<Integer> changed = typesOf(check.checkChangedEntries(database, Collections.singletonList(first)));
+        assertEquals(3, changed.size());
+        assertEquals(3, check.getCheckCount());
+        assertEquals(typesOf(check.checkBibtexDatabase(database)), changed);
+    }
+
+    @Test
+    public void removedEntryIsForgotten() {
+        BibtexEntry entry = addEntry("Knuth, Donald E.", "A title", "15");
+        assertEquals(1, check.checkBibtexDatabase(database).size());
+
+        database.removeEntry(entry.getId());
+        assertTrue(check.checkChangedEntries(database, Collections.singletonList(entry)).isEmpty());
+        assertTrue(check.checkBibtexDatabase(database).isEmpty());
+    }
+
+    @Test
+    public void monitorChecksChangedEntries() throws InterruptedException {
+        BibtexEntry entry = addEntry("Knuth, Donald E.", "A title", "2015");
+        BlockingQueue<Vector<IntegrityMessage>> results = new LinkedBlockingQueue<>();
+        IntegrityMonitor monitor = new IntegrityMonitor(database, results::add);
+        monitor.start();
+        try {
+            assertTrue(results.poll(10, TimeUnit.SECONDS).isEmpty());
+
+            entry.setField("year", "15");
+            assertEquals(1, results.poll(10, TimeUnit.SECONDS).size());
+
+            addEntry("Knuth, Donald E.", "B} title", "2015");
+            assertEquals(2, results.poll(10, TimeUnit.SECONDS).size());
+            assertEquals(3, monitor.getCheck().getCheckCount());
+        } finally {
+            monitor.stop();
+        }
+    }
+}